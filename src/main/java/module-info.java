@@ -15,9 +15,14 @@ module ulb.musicApp {
     exports musicApp.views.songs;
     exports musicApp.views.settings;
     exports musicApp.enums;
+    exports musicApp.audio;
+    exports musicApp.audio.effects;
 
-    // If you have any services you want to expose via ServiceLoader
-    // provides some.service.Interface with musicApp.implementation.Class;
+    // Audio effects run by the PCM engine, more can be provided by other modules
+    uses musicApp.audio.effects.AudioEffect;
+    provides musicApp.audio.effects.AudioEffect with
+            musicApp.audio.effects.StereoWidthEffect,
+            musicApp.audio.effects.DriveEffect;
 
     // Declare dependencies on other modules
     // This is implicit, but good to declare
@@ -31,6 +36,9 @@ module ulb.musicApp {
     requires javafx.graphics;
     requires javafx.swing;
     requires org.bytedeco.javacv;
+    requires org.bytedeco.ffmpeg;
+    requires java.desktop;
+    requires jdk.httpserver;
 
     opens musicApp to javafx.fxml, javafx.controls, javafx.media, javafx.graphics;
     opens musicApp.models to javafx.fxml, javafx.controls, javafx.media, com.google.gson;
@@ -3,6 +3,8 @@ package musicApp;
 import javafx.application.Application;
 import javafx.stage.Stage;
 import musicApp.controllers.MetaController;
+import musicApp.services.ImageCacheService;
+import musicApp.services.StartupTimer;
 
 import java.io.InputStream;
 import java.util.logging.LogManager;
@@ -16,6 +18,7 @@ import java.util.logging.LogManager;
 public class Launcher extends Application {
 
     public static void main(String[] args) {
+        StartupTimer.start();
 
         // Load the logging configuration programmatically
         try (InputStream is = Launcher.class.getClassLoader().getResourceAsStream("logging.properties")) {
@@ -32,7 +35,9 @@ public class Launcher extends Application {
     @Override
     public void start(Stage primaryStage) {
         primaryStage.setResizable(true);
+        ImageCacheService.getInstance().preload();
         MetaController meta = new MetaController(primaryStage);
         meta.switchScene(MetaController.Scenes.USERSWINDOW);
+        StartupTimer.mark("user selection window shown");
     }
 }
\ No newline at end of file
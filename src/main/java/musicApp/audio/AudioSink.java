@@ -0,0 +1,33 @@
+package musicApp.audio;
+
+/**
+ * Destination of the interleaved float samples rendered by the {@link PcmPlaybackEngine}.
+ */
+public interface AudioSink extends AutoCloseable {
+
+    /**
+     * Prepare the sink for the given format.
+     *
+     * @param sampleRate The sample rate in Hz.
+     * @param channels   The number of interleaved channels.
+     * @throws Exception if the output cannot be opened.
+     */
+    void open(int sampleRate, int channels) throws Exception;
+
+    /**
+     * Write samples, blocking as long as the output needs to keep real time.
+     *
+     * @param samples The interleaved samples, nominally between -1 and 1.
+     * @param offset  The offset of the first sample.
+     * @param length  The number of samples (not frames) to write.
+     */
+    void write(float[] samples, int offset, int length);
+
+    /**
+     * Drop the samples queued in the output, e.g. after a seek or a pause.
+     */
+    void flush();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,62 @@
+package musicApp.audio;
+
+/**
+ * AutomationCurve
+ * Value of an automated parameter as a function of the song position.
+ * Curves are evaluated on the processing thread, so they must be immutable, cheap and must not allocate.
+ */
+@FunctionalInterface
+public interface AutomationCurve {
+
+    /**
+     * Get the value of the parameter at a position.
+     *
+     * @param seconds The position in the song, in seconds.
+     * @return The value of the parameter.
+     */
+    double valueAt(double seconds);
+
+    /**
+     * Create a curve holding a fixed value, e.g. a preset.
+     *
+     * @param value The value.
+     * @return The curve.
+     */
+    static AutomationCurve constant(double value) {
+        return _ -> value;
+    }
+
+    /**
+     * Create a linear ramp between two values, holding the first one before it and the last one after it.
+     *
+     * @param startValue   The value at the start of the ramp.
+     * @param endValue     The value at the end of the ramp.
+     * @param startSeconds The position of the start of the ramp.
+     * @param duration     The duration of the ramp in seconds; 0 jumps to the end value.
+     * @return The curve.
+     */
+    static AutomationCurve ramp(double startValue, double endValue, double startSeconds, double duration) {
+        return seconds -> {
+            if (seconds < startSeconds) {
+                return startValue;
+            }
+            if (duration <= 0 || seconds >= startSeconds + duration) {
+                return endValue;
+            }
+            return startValue + (endValue - startValue) * (seconds - startSeconds) / duration;
+        };
+    }
+
+    /**
+     * Create a sine wave: offset + amplitude * sin(angularSpeed * seconds + phase).
+     *
+     * @param offset       The center of the wave.
+     * @param amplitude    The amplitude of the wave.
+     * @param angularSpeed The angular speed in radians per second.
+     * @param phase        The phase at the start of the song, in radians.
+     * @return The curve.
+     */
+    static AutomationCurve sine(double offset, double amplitude, double angularSpeed, double phase) {
+        return seconds -> offset + amplitude * Math.sin(angularSpeed * seconds + phase);
+    }
+}
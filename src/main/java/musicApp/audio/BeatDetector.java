@@ -0,0 +1,273 @@
+package musicApp.audio;
+
+import java.util.Arrays;
+
+/**
+ * BeatDetector
+ * Estimates the tempo and the beat positions of a song from its decoded samples, fed block by block.
+ * The audio is reduced to mono at a quarter of the sample rate, its spectral flux gives an onset envelope,
+ * the autocorrelation of the envelope gives the beat period, and a comb over the envelope gives the first beat.
+ * The tempo is assumed constant, which holds for most electronic and pop music.
+ */
+public class BeatDetector {
+
+    public static final double MIN_BPM = 60;
+    public static final double MAX_BPM = 200;
+
+    private static final int DECIMATION = 4;
+    private static final int WINDOW = 512;
+    private static final int HOP = 256;
+    // Tempo prior, to choose between a tempo and its double or half
+    private static final double PREFERRED_BPM = 120;
+    private static final double PRIOR_WIDTH_OCTAVES = 0.9;
+    private static final int LOCAL_MEAN_RADIUS = 8;
+    private static final double MIN_CONFIDENCE = 1.5;
+    private static final double REFINE_RANGE = 0.015;
+    private static final double REFINE_STEP = 0.0002;
+    private static final double PHASE_STEP = 0.5;
+    // The flux of a hop peaks a little after the onset entered the analysis window
+    private static final double ONSET_DELAY_HOPS = 0.4;
+
+    private final double analysisRate;
+    private final int channels;
+    private final Fft fft;
+    private final float[] window;
+    private final double[] hann;
+    private final double[] real;
+    private final double[] imaginary;
+    private final double[] previousMagnitudes;
+    private float[] envelope;
+    private int envelopeLength;
+    private int windowPosition;
+    private int samplesSinceFrame;
+    private double decimationSum;
+    private int decimationCount;
+    private boolean hasPreviousFrame;
+    private double beatPeriod;
+    private double beatPhase;
+    private double bpm;
+    private double firstBeatSeconds;
+    private double confidence;
+    private boolean detected;
+
+    /**
+     * Instantiates a new detector.
+     *
+     * @param sampleRate The sample rate of the audio.
+     * @param _channels  The number of interleaved channels.
+     */
+    public BeatDetector(int sampleRate, int _channels) {
+        analysisRate = (double) sampleRate / DECIMATION;
+        channels = _channels;
+        fft = new Fft(WINDOW);
+        window = new float[WINDOW];
+        hann = new double[WINDOW];
+        for (int i = 0; i < WINDOW; i++) {
+            hann[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / WINDOW);
+        }
+        real = new double[WINDOW];
+        imaginary = new double[WINDOW];
+        previousMagnitudes = new double[WINDOW / 2];
+        envelope = new float[4096];
+    }
+
+    /**
+     * Add a block of samples.
+     *
+     * @param samples     The interleaved samples.
+     * @param offsetFrame The offset of the first frame.
+     * @param frames      The number of frames.
+     */
+    public void process(float[] samples, int offsetFrame, int frames) {
+        for (int frame = offsetFrame; frame < offsetFrame + frames; frame++) {
+            for (int channel = 0; channel < channels; channel++) {
+                decimationSum += samples[frame * channels + channel];
+            }
+            if (++decimationCount == DECIMATION) {
+                addSample((float) (decimationSum / (DECIMATION * channels)));
+                decimationSum = 0;
+                decimationCount = 0;
+            }
+        }
+    }
+
+    private void addSample(float sample) {
+        window[windowPosition] = sample;
+        windowPosition = (windowPosition + 1) % WINDOW;
+        if (++samplesSinceFrame == HOP) {
+            samplesSinceFrame = 0;
+            addOnset();
+        }
+    }
+
+    /**
+     * Compute the spectral flux of the current window: the summed increase of log magnitude over the previous one.
+     */
+    private void addOnset() {
+        for (int i = 0; i < WINDOW; i++) {
+            real[i] = window[(windowPosition + i) % WINDOW] * hann[i];
+            imaginary[i] = 0;
+        }
+        fft.transform(real, imaginary);
+        double flux = 0;
+        for (int bin = 1; bin < WINDOW / 2; bin++) {
+            double magnitude = Math.log1p(100 * Math.sqrt(real[bin] * real[bin] + imaginary[bin] * imaginary[bin]));
+            flux += Math.max(0, magnitude - previousMagnitudes[bin]);
+            previousMagnitudes[bin] = magnitude;
+        }
+        if (!hasPreviousFrame) {
+            // The first window has no previous one: its flux would only measure the start of the song
+            hasPreviousFrame = true;
+            flux = 0;
+        }
+        if (envelopeLength == envelope.length) {
+            envelope = Arrays.copyOf(envelope, envelopeLength * 2);
+        }
+        envelope[envelopeLength++] = (float) flux;
+    }
+
+    /**
+     * Estimate the tempo and the beat grid from everything added so far.
+     *
+     * @return true if a steady tempo was found.
+     */
+    public boolean detect() {
+        detected = false;
+        double hopSeconds = HOP / analysisRate;
+        int minLag = (int) Math.floor(60 / MAX_BPM / hopSeconds);
+        int maxLag = (int) Math.ceil(60 / MIN_BPM / hopSeconds);
+        if (envelopeLength < 4 * maxLag) {
+            return false;
+        }
+        double[] onsets = normalizedOnsets();
+        double[] correlation = new double[maxLag + 2];
+        for (int lag = minLag - 1; lag <= maxLag + 1; lag++) {
+            double sum = 0;
+            for (int i = lag; i < onsets.length; i++) {
+                sum += onsets[i] * onsets[i - lag];
+            }
+            correlation[lag] = sum / (onsets.length - lag);
+        }
+        int bestLag = -1;
+        double bestScore = 0;
+        double scoreSum = 0;
+        for (int lag = minLag; lag <= maxLag; lag++) {
+            double lagBpm = 60 / (lag * hopSeconds);
+            double octaves = Math.log(lagBpm / PREFERRED_BPM) / Math.log(2) / PRIOR_WIDTH_OCTAVES;
+            double score = correlation[lag] * Math.exp(-0.5 * octaves * octaves);
+            scoreSum += Math.max(0, score);
+            if (score > bestScore) {
+                bestScore = score;
+                bestLag = lag;
+            }
+        }
+        if (bestLag < 0) {
+            return false;
+        }
+        confidence = bestScore / (scoreSum / (maxLag - minLag + 1));
+        double period = bestLag + parabolicOffset(correlation[bestLag - 1], correlation[bestLag], correlation[bestLag + 1]);
+        refineGrid(onsets, period);
+        bpm = 60 / (beatPeriod * hopSeconds);
+        firstBeatSeconds = beatPhase * hopSeconds + ONSET_DELAY_HOPS * hopSeconds;
+        detected = confidence >= MIN_CONFIDENCE;
+        return detected;
+    }
+
+    /**
+     * Remove the slowly varying part of the envelope so that only sharp onsets remain,
+     * then smooth it slightly so that beats falling between two hops still correlate.
+     */
+    private double[] normalizedOnsets() {
+        double[] peaks = new double[envelopeLength];
+        double windowSum = 0;
+        int windowCount = 0;
+        for (int i = 0; i < Math.min(LOCAL_MEAN_RADIUS, envelopeLength); i++) {
+            windowSum += envelope[i];
+            windowCount++;
+        }
+        for (int i = 0; i < envelopeLength; i++) {
+            int entering = i + LOCAL_MEAN_RADIUS;
+            if (entering < envelopeLength) {
+                windowSum += envelope[entering];
+                windowCount++;
+            }
+            int leaving = i - LOCAL_MEAN_RADIUS - 1;
+            if (leaving >= 0) {
+                windowSum -= envelope[leaving];
+                windowCount--;
+            }
+            peaks[i] = Math.max(0, envelope[i] - windowSum / windowCount);
+        }
+        double[] onsets = new double[envelopeLength];
+        for (int i = 0; i < envelopeLength; i++) {
+            double previous = i > 0 ? peaks[i - 1] : 0;
+            double next = i + 1 < envelopeLength ? peaks[i + 1] : 0;
+            onsets[i] = 0.25 * previous + 0.5 * peaks[i] + 0.25 * next;
+        }
+        return onsets;
+    }
+
+    private static double parabolicOffset(double left, double center, double right) {
+        double denominator = left - 2 * center + right;
+        return denominator == 0 ? 0 : Math.max(-0.5, Math.min(0.5, 0.5 * (left - right) / denominator));
+    }
+
+    /**
+     * Refine the period around its autocorrelation estimate and find the phase of the beats:
+     * the grid collecting the most onset energy over the whole song wins, which makes the period precise
+     * enough not to drift over several minutes.
+     *
+     * @param onsets The onset envelope.
+     * @param period The estimated period, in hops.
+     */
+    private void refineGrid(double[] onsets, double period) {
+        double bestScore = -1;
+        for (double candidate = period * (1 - REFINE_RANGE); candidate <= period * (1 + REFINE_RANGE);
+             candidate += period * REFINE_STEP) {
+            for (double phase = 0; phase < candidate; phase += PHASE_STEP) {
+                double score = 0;
+                for (double position = phase; position < onsets.length - 1; position += candidate) {
+                    int index = (int) position;
+                    double fraction = position - index;
+                    score += onsets[index] * (1 - fraction) + onsets[index + 1] * fraction;
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    beatPeriod = candidate;
+                    beatPhase = phase;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the tempo found by {@link #detect()}.
+     *
+     * @return The tempo in beats per minute.
+     */
+    public double getBpm() {
+        return bpm;
+    }
+
+    /**
+     * Get the time of the first beat found by {@link #detect()}; the following beats are one period apart.
+     *
+     * @return The time of the first beat in seconds.
+     */
+    public double getFirstBeatSeconds() {
+        return firstBeatSeconds;
+    }
+
+    /**
+     * Get how much the chosen tempo stands out from the other candidates.
+     *
+     * @return The ratio of the best autocorrelation score to the mean score.
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public boolean isDetected() {
+        return detected;
+    }
+}
@@ -0,0 +1,56 @@
+package musicApp.audio;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Collects the rendered samples in memory as 16-bit little-endian PCM, without pacing.
+ * Used to render offline and to test the playback engine without a sound card.
+ */
+public class ByteArraySink implements AudioSink {
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private byte[] bytes = new byte[0];
+    private int channels;
+
+    @Override
+    public void open(int sampleRate, int _channels) {
+        channels = _channels;
+    }
+
+    @Override
+    public synchronized void write(float[] samples, int offset, int length) {
+        if (bytes.length < length * 2) {
+            bytes = new byte[length * 2];
+        }
+        PcmConversion.toPcm16(samples, offset, length, bytes);
+        output.write(bytes, 0, length * 2);
+    }
+
+    @Override
+    public void flush() {
+        // Nothing is queued: every write is final
+    }
+
+    /**
+     * Get the rendered audio.
+     *
+     * @return The 16-bit little-endian PCM bytes written so far.
+     */
+    public synchronized byte[] toByteArray() {
+        return output.toByteArray();
+    }
+
+    /**
+     * Get the number of frames written so far.
+     *
+     * @return The number of frames.
+     */
+    public synchronized long getFrameCount() {
+        return channels == 0 ? 0 : output.size() / (2L * channels);
+    }
+
+    @Override
+    public void close() {
+        // Keep the rendered audio available after the engine is closed
+    }
+}
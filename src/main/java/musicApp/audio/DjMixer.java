@@ -0,0 +1,330 @@
+package musicApp.audio;
+
+import musicApp.enums.CrossfadeCurve;
+import musicApp.enums.CrossfaderSide;
+
+import java.util.Arrays;
+
+/**
+ * DjMixer
+ * Mixes several {@link MixerDeck}s into one sink, with a crossfader between the decks assigned to its sides.
+ * A single output thread pulls the same number of frames from every playing deck for each block, so the decks
+ * share one clock and advance in lockstep: if one deck runs out of decoded audio, the whole mix waits for it.
+ * A mixer can also be hosted by a {@link PcmPlaybackEngine}: it then has no output of its own, and its decks are
+ * mixed into the output of the engine, whose song is on the left of the crossfader.
+ * The methods are thread-safe; the listener is called on the output thread and must not block.
+ */
+public class DjMixer implements AutoCloseable {
+
+    public static final int SAMPLE_RATE = PcmDecoder.SAMPLE_RATE;
+    public static final int CHANNELS = PcmDecoder.CHANNELS;
+
+    private static final int BLOCK_FRAMES = 1024;
+    private static final long UNDERRUN_WAIT_MILLIS = 5;
+
+    // Null for a hosted mixer
+    private final AudioSink sink;
+    private final Object lock;
+    private final MixerDeck[] decks;
+    private final float[] mixBuffer;
+    private final Thread outputThread;
+    private double crossfader;
+    private CrossfadeCurve crossfaderCurve;
+    // Gain applied to the song of the host at the end of the previous block, NaN before the first block
+    private float appliedHostGain;
+    private double masterVolume;
+    private long clockFrames;
+    private boolean closed;
+    private Listener listener;
+
+    /**
+     * Listener of the mixer events.
+     */
+    public interface Listener {
+        /**
+         * Called when a deck played its track to the end.
+         *
+         * @param deckIndex The index of the deck.
+         */
+        void onDeckEnded(int deckIndex);
+    }
+
+    /**
+     * Instantiates a mixer and opens its sink. The first deck is on the left of the crossfader,
+     * the second one on the right and the others are not affected by it.
+     *
+     * @param _sink     The destination of the mix.
+     * @param deckCount The number of decks, at least one.
+     * @throws Exception if the sink cannot be opened.
+     */
+    public DjMixer(AudioSink _sink, int deckCount) throws Exception {
+        sink = _sink;
+        sink.open(SAMPLE_RATE, CHANNELS);
+        lock = new Object();
+        decks = new MixerDeck[Math.max(1, deckCount)];
+        for (int i = 0; i < decks.length; i++) {
+            CrossfaderSide side = i == 0 ? CrossfaderSide.LEFT : i == 1 ? CrossfaderSide.RIGHT : CrossfaderSide.THROUGH;
+            decks[i] = new MixerDeck(i, lock, BLOCK_FRAMES, side);
+        }
+        mixBuffer = new float[BLOCK_FRAMES * CHANNELS];
+        crossfader = 0.5;
+        crossfaderCurve = CrossfadeCurve.EQUAL_POWER;
+        masterVolume = 1.0;
+        outputThread = new Thread(this::outputLoop, "dj-mixer-output");
+        outputThread.setDaemon(true);
+        outputThread.setPriority(Thread.MAX_PRIORITY);
+        outputThread.start();
+    }
+
+    /**
+     * Instantiates a mixer hosted by a {@link PcmPlaybackEngine}, sharing its lock and its output thread.
+     * The crossfader starts on the left, so the song of the host is not changed until it is moved.
+     * The first deck is on the right of the crossfader and the others are not affected by it.
+     *
+     * @param hostLock  The lock of the host.
+     * @param deckCount The number of decks, at least one.
+     */
+    DjMixer(Object hostLock, int deckCount) {
+        sink = null;
+        lock = hostLock;
+        decks = new MixerDeck[Math.max(1, deckCount)];
+        for (int i = 0; i < decks.length; i++) {
+            decks[i] = new MixerDeck(i, lock, BLOCK_FRAMES, i == 0 ? CrossfaderSide.RIGHT : CrossfaderSide.THROUGH);
+        }
+        mixBuffer = null;
+        crossfader = 0;
+        crossfaderCurve = CrossfadeCurve.EQUAL_POWER;
+        appliedHostGain = Float.NaN;
+        masterVolume = 1.0;
+        outputThread = null;
+    }
+
+    public void setListener(Listener _listener) {
+        synchronized (lock) {
+            listener = _listener;
+        }
+    }
+
+    public int getDeckCount() {
+        return decks.length;
+    }
+
+    public MixerDeck getDeck(int deckIndex) {
+        return decks[deckIndex];
+    }
+
+    /**
+     * Start several decks on the same frame of the shared clock.
+     *
+     * @param deckIndexes The indexes of the decks.
+     */
+    public void play(int... deckIndexes) {
+        synchronized (lock) {
+            for (int deckIndex : deckIndexes) {
+                decks[deckIndex].play();
+            }
+        }
+    }
+
+    /**
+     * Move the crossfader.
+     *
+     * @param position The position, 0 for the left side only and 1 for the right side only.
+     */
+    public void setCrossfader(double position) {
+        synchronized (lock) {
+            crossfader = Math.max(0, Math.min(1, position));
+        }
+    }
+
+    public double getCrossfader() {
+        synchronized (lock) {
+            return crossfader;
+        }
+    }
+
+    /**
+     * Set the curve of the crossfader, e.g. a sharp one for scratching or an equal power one for blends.
+     *
+     * @param curve The curve.
+     */
+    public void setCrossfaderCurve(CrossfadeCurve curve) {
+        synchronized (lock) {
+            crossfaderCurve = curve;
+        }
+    }
+
+    /**
+     * Set the master volume.
+     *
+     * @param volume The volume between 0 and 1.
+     */
+    public void setMasterVolume(double volume) {
+        synchronized (lock) {
+            masterVolume = Math.max(0, Math.min(1, volume));
+        }
+    }
+
+    /**
+     * Get the time of the shared clock, which advances with every frame mixed.
+     *
+     * @return The time in seconds.
+     */
+    public double getClockSeconds() {
+        synchronized (lock) {
+            return (double) clockFrames / SAMPLE_RATE;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            for (MixerDeck deck : decks) {
+                deck.close();
+            }
+            lock.notifyAll();
+        }
+        if (outputThread == null) {
+            // Hosted: the host stops mixing the decks once it sees the mixer closed
+            return;
+        }
+        outputThread.interrupt();
+        try {
+            outputThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sink.close();
+    }
+
+    /**
+     * Check whether the mixer was closed. Must hold the lock.
+     */
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Check whether a deck is mixed. Must hold the lock.
+     */
+    boolean isAnyDeckPlaying() {
+        for (MixerDeck deck : decks) {
+            if (deck.isMixing()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void outputLoop() {
+        try {
+            while (true) {
+                int frames;
+                synchronized (lock) {
+                    while (!closed && !isAnyDeckPlaying()) {
+                        lock.wait();
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    frames = renderBlock();
+                }
+                if (frames > 0) {
+                    sink.write(mixBuffer, 0, frames * CHANNELS);
+                } else if (frames < 0) {
+                    decks[-frames - 1].awaitData(UNDERRUN_WAIT_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Mix the next block of the playing decks. Must hold the lock.
+     *
+     * @return The number of frames mixed, 0 if no deck is playing anymore,
+     * or -1 - the index of a deck that ran out of decoded audio.
+     */
+    private int renderBlock() {
+        int frames = prepareBlock(BLOCK_FRAMES);
+        if (frames <= 0) {
+            return frames;
+        }
+        Arrays.fill(mixBuffer, 0, frames * CHANNELS, 0f);
+        mixDecks(mixBuffer, frames);
+        clockFrames += frames;
+        return frames;
+    }
+
+    /**
+     * Stop the decks that ended and get how many frames every playing deck can mix. Must hold the lock.
+     *
+     * @param maxFrames The maximum number of frames of the block.
+     * @return The number of frames of the next block, 0 if no deck is playing,
+     * or -1 - the index of a deck that ran out of decoded audio.
+     */
+    int prepareBlock(int maxFrames) {
+        int frames = maxFrames;
+        boolean mixing = false;
+        for (MixerDeck deck : decks) {
+            if (!deck.isMixing()) {
+                continue;
+            }
+            if (deck.isFinished()) {
+                deck.stop();
+                if (listener != null) {
+                    listener.onDeckEnded(deck.getIndex());
+                }
+                continue;
+            }
+            int available = deck.availableFrames();
+            if (available == 0) {
+                return -deck.getIndex() - 1;
+            }
+            frames = Math.min(frames, available);
+            mixing = true;
+        }
+        return mixing ? frames : 0;
+    }
+
+    /**
+     * Mix the playing decks into a block rendered by the host, whose song is on the left of the crossfader.
+     * Must hold the lock.
+     *
+     * @param hostMix The interleaved block of the host.
+     * @param frames  The number of frames, at most the frames returned by {@link #prepareBlock(int)}.
+     */
+    void mixIntoHost(float[] hostMix, int frames) {
+        float endGain = (float) CrossfaderSide.LEFT.gain(crossfader, crossfaderCurve);
+        float startGain = Float.isNaN(appliedHostGain) ? endGain : appliedHostGain;
+        for (int frame = 0; frame < frames; frame++) {
+            // Ramp the crossfader changes over the block, so that they do not click
+            float frameGain = startGain + (endGain - startGain) * (frame + 1) / frames;
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                hostMix[frame * CHANNELS + channel] *= frameGain;
+            }
+        }
+        appliedHostGain = endGain;
+        mixDecks(hostMix, frames);
+        clockFrames += frames;
+    }
+
+    /**
+     * Add the playing decks to a mix and apply the master volume. Must hold the lock.
+     */
+    private void mixDecks(float[] mix, int frames) {
+        for (MixerDeck deck : decks) {
+            if (deck.isMixing()) {
+                deck.mixInto(mix, frames, deck.getCrossfaderSide().gain(crossfader, crossfaderCurve));
+            }
+        }
+        if (masterVolume != 1.0) {
+            float volume = (float) masterVolume;
+            for (int i = 0; i < frames * CHANNELS; i++) {
+                mix[i] *= volume;
+            }
+        }
+    }
+}
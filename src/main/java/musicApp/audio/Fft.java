@@ -0,0 +1,80 @@
+package musicApp.audio;
+
+/**
+ * Fft
+ * In-place radix-2 fast Fourier transform of a fixed size, with precomputed twiddle factors and bit reversal,
+ * so that transforming a block allocates nothing.
+ */
+public class Fft {
+
+    private final int size;
+    private final double[] cosTable;
+    private final double[] sinTable;
+    private final int[] reversed;
+
+    /**
+     * Instantiates a transform.
+     *
+     * @param _size The number of points, a power of two.
+     * @throws IllegalArgumentException if the size is not a power of two.
+     */
+    public Fft(int _size) throws IllegalArgumentException {
+        if (_size < 2 || Integer.bitCount(_size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two: " + _size);
+        }
+        size = _size;
+        cosTable = new double[size / 2];
+        sinTable = new double[size / 2];
+        for (int i = 0; i < size / 2; i++) {
+            cosTable[i] = Math.cos(2 * Math.PI * i / size);
+            sinTable[i] = Math.sin(2 * Math.PI * i / size);
+        }
+        reversed = new int[size];
+        int bits = Integer.numberOfTrailingZeros(size);
+        for (int i = 0; i < size; i++) {
+            reversed[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Transform a complex signal in place.
+     *
+     * @param real      The real parts, replaced by the real parts of the spectrum.
+     * @param imaginary The imaginary parts, replaced by the imaginary parts of the spectrum.
+     */
+    public void transform(double[] real, double[] imaginary) {
+        for (int i = 0; i < size; i++) {
+            int j = reversed[i];
+            if (j > i) {
+                double swap = real[i];
+                real[i] = real[j];
+                real[j] = swap;
+                swap = imaginary[i];
+                imaginary[i] = imaginary[j];
+                imaginary[j] = swap;
+            }
+        }
+        for (int length = 2; length <= size; length *= 2) {
+            int half = length / 2;
+            int step = size / length;
+            for (int start = 0; start < size; start += length) {
+                for (int k = 0; k < half; k++) {
+                    double cos = cosTable[k * step];
+                    double sin = -sinTable[k * step];
+                    int even = start + k;
+                    int odd = even + half;
+                    double oddReal = real[odd] * cos - imaginary[odd] * sin;
+                    double oddImaginary = real[odd] * sin + imaginary[odd] * cos;
+                    real[odd] = real[even] - oddReal;
+                    imaginary[odd] = imaginary[even] - oddImaginary;
+                    real[even] += oddReal;
+                    imaginary[even] += oddImaginary;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package musicApp.audio;
+
+import java.util.Arrays;
+
+/**
+ * LoudnessMeter
+ * Measures the integrated loudness (EBU R128 / ITU-R BS.1770) and the true peak of interleaved stereo audio.
+ * Samples are fed block by block with {@link #process(float[], int, int)}, so a whole song never has to be in memory.
+ */
+public class LoudnessMeter {
+
+    public static final double SILENCE_LUFS = Double.NEGATIVE_INFINITY;
+
+    private static final double ABSOLUTE_GATE_LUFS = -70.0;
+    private static final double RELATIVE_GATE_LU = -10.0;
+    private static final double LOUDNESS_OFFSET = -0.691;
+    // Gating blocks are 400 ms long and overlap by 75 %: they are built from four 100 ms steps
+    private static final int STEPS_PER_BLOCK = 4;
+    private static final int TRUE_PEAK_OVERSAMPLING = 4;
+    private static final int TRUE_PEAK_TAPS_PER_PHASE = 12;
+
+    private final int channels;
+    private final int stepFrames;
+    // K-weighting: a high shelf then a high pass, per channel
+    private final double[] shelf;
+    private final double[] highPass;
+    private final double[] shelfState;
+    private final double[] highPassState;
+    private final double[] stepEnergies;
+    private final double[][] truePeakPhases;
+    private final float[] truePeakHistory;
+    private double[] blockEnergies;
+    private int blockCount;
+    private int stepCount;
+    private double stepEnergy;
+    private int stepPosition;
+    private int historyPosition;
+    private double peak;
+
+    /**
+     * Instantiates a new meter.
+     *
+     * @param sampleRate The sample rate of the measured audio.
+     * @param _channels  The number of interleaved channels, all weighted equally (no surround channels).
+     */
+    public LoudnessMeter(int sampleRate, int _channels) {
+        channels = _channels;
+        stepFrames = sampleRate / 10;
+        shelf = highShelfCoefficients(sampleRate);
+        highPass = highPassCoefficients(sampleRate);
+        shelfState = new double[2 * channels];
+        highPassState = new double[2 * channels];
+        stepEnergies = new double[STEPS_PER_BLOCK];
+        blockEnergies = new double[1024];
+        truePeakPhases = interpolationPhases();
+        truePeakHistory = new float[TRUE_PEAK_TAPS_PER_PHASE * channels];
+    }
+
+    private static double[] highShelfCoefficients(int sampleRate) {
+        double frequency = 1681.974450955533;
+        double gainDb = 3.999843853973347;
+        double q = 0.7071752369554196;
+        double k = Math.tan(Math.PI * frequency / sampleRate);
+        double vh = Math.pow(10, gainDb / 20);
+        double vb = Math.pow(vh, 0.4996667741545416);
+        double a0 = 1 + k / q + k * k;
+        return new double[]{
+                (vh + vb * k / q + k * k) / a0,
+                2 * (k * k - vh) / a0,
+                (vh - vb * k / q + k * k) / a0,
+                2 * (k * k - 1) / a0,
+                (1 - k / q + k * k) / a0
+        };
+    }
+
+    private static double[] highPassCoefficients(int sampleRate) {
+        double frequency = 38.13547087602444;
+        double q = 0.5003270373238773;
+        double k = Math.tan(Math.PI * frequency / sampleRate);
+        double a0 = 1 + k / q + k * k;
+        return new double[]{1, -2, 1, 2 * (k * k - 1) / a0, (1 - k / q + k * k) / a0};
+    }
+
+    /**
+     * Build the polyphase windowed-sinc filter used to estimate the peaks between samples.
+     *
+     * @return The taps of each intermediate phase.
+     */
+    private static double[][] interpolationPhases() {
+        double[][] phases = new double[TRUE_PEAK_OVERSAMPLING - 1][TRUE_PEAK_TAPS_PER_PHASE];
+        int half = TRUE_PEAK_TAPS_PER_PHASE / 2;
+        for (int phase = 1; phase < TRUE_PEAK_OVERSAMPLING; phase++) {
+            double fraction = (double) phase / TRUE_PEAK_OVERSAMPLING;
+            for (int tap = 0; tap < TRUE_PEAK_TAPS_PER_PHASE; tap++) {
+                // Tap 0 is the oldest sample; the interpolated point lies between taps half - 1 and half
+                double x = tap - (half - 1) - fraction;
+                double sinc = Math.sin(Math.PI * x) / (Math.PI * x);
+                double window = 0.5 + 0.5 * Math.cos(Math.PI * x / (half + 1));
+                phases[phase - 1][tap] = sinc * window;
+            }
+        }
+        return phases;
+    }
+
+    /**
+     * Measure a block of samples.
+     *
+     * @param samples     The interleaved samples.
+     * @param offsetFrame The offset of the first frame.
+     * @param frames      The number of frames.
+     */
+    public void process(float[] samples, int offsetFrame, int frames) {
+        for (int frame = offsetFrame; frame < offsetFrame + frames; frame++) {
+            for (int channel = 0; channel < channels; channel++) {
+                float sample = samples[frame * channels + channel];
+                double weighted = filter(highPass, highPassState, channel, filter(shelf, shelfState, channel, sample));
+                stepEnergy += weighted * weighted;
+                measurePeak(channel, sample);
+            }
+            historyPosition = (historyPosition + 1) % TRUE_PEAK_TAPS_PER_PHASE;
+            if (++stepPosition == stepFrames) {
+                endStep();
+            }
+        }
+    }
+
+    private double filter(double[] coefficients, double[] state, int channel, double input) {
+        int index = 2 * channel;
+        double output = coefficients[0] * input + state[index];
+        state[index] = coefficients[1] * input - coefficients[3] * output + state[index + 1];
+        state[index + 1] = coefficients[2] * input - coefficients[4] * output;
+        return output;
+    }
+
+    private void measurePeak(int channel, float sample) {
+        truePeakHistory[historyPosition * channels + channel] = sample;
+        peak = Math.max(peak, Math.abs(sample));
+        for (double[] taps : truePeakPhases) {
+            double interpolated = 0;
+            for (int tap = 0; tap < TRUE_PEAK_TAPS_PER_PHASE; tap++) {
+                int index = (historyPosition + 1 + tap) % TRUE_PEAK_TAPS_PER_PHASE;
+                interpolated += taps[tap] * truePeakHistory[index * channels + channel];
+            }
+            peak = Math.max(peak, Math.abs(interpolated));
+        }
+    }
+
+    private void endStep() {
+        stepEnergies[stepCount % STEPS_PER_BLOCK] = stepEnergy / stepFrames;
+        stepCount++;
+        stepEnergy = 0;
+        stepPosition = 0;
+        if (stepCount >= STEPS_PER_BLOCK) {
+            double energy = 0;
+            for (double step : stepEnergies) {
+                energy += step;
+            }
+            if (blockCount == blockEnergies.length) {
+                blockEnergies = Arrays.copyOf(blockEnergies, blockCount * 2);
+            }
+            blockEnergies[blockCount++] = energy / STEPS_PER_BLOCK;
+        }
+    }
+
+    /**
+     * Get the gated loudness of everything measured so far.
+     *
+     * @return The integrated loudness in LUFS, or {@link #SILENCE_LUFS} if every block is below the absolute gate.
+     */
+    public double getIntegratedLoudness() {
+        double absoluteGate = toEnergy(ABSOLUTE_GATE_LUFS);
+        double relativeGate = toEnergy(toLoudness(meanAbove(absoluteGate)) + RELATIVE_GATE_LU);
+        return toLoudness(meanAbove(Math.max(absoluteGate, relativeGate)));
+    }
+
+    private double meanAbove(double gate) {
+        double sum = 0;
+        int count = 0;
+        for (int block = 0; block < blockCount; block++) {
+            if (blockEnergies[block] > gate) {
+                sum += blockEnergies[block];
+                count++;
+            }
+        }
+        return count == 0 ? 0 : sum / count;
+    }
+
+    private static double toLoudness(double energy) {
+        return energy <= 0 ? SILENCE_LUFS : LOUDNESS_OFFSET + 10 * Math.log10(energy);
+    }
+
+    private static double toEnergy(double loudness) {
+        return Math.pow(10, (loudness - LOUDNESS_OFFSET) / 10);
+    }
+
+    /**
+     * Get the highest peak measured so far, including the peaks between samples.
+     *
+     * @return The true peak in dBTP.
+     */
+    public double getTruePeak() {
+        return peak <= 0 ? Double.NEGATIVE_INFINITY : 20 * Math.log10(peak);
+    }
+}
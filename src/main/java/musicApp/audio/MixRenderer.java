@@ -0,0 +1,430 @@
+package musicApp.audio;
+
+import musicApp.enums.CrossfadeCurve;
+import musicApp.exceptions.BadSongException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * MixRenderer
+ * Renders a list of tracks, crossfaded into each other like the PCM engine plays them, to a 16-bit WAV file
+ * as fast as the CPU allows.
+ * The mix is cut into one segment per track, going from the end of the crossfade with the previous track to
+ * the end of the crossfade with the next one, and the segments are rendered in parallel to temporary files.
+ * Every track is faded and then equalized on its own before being mixed: since the equalizer is linear, the sum is
+ * the equalized mix, but each segment only depends on its tracks. A segment starting after a crossfade renders the
+ * beginning of its track again, so that its equalizer state is the one the previous segment reached.
+ * Like the player, a crossfade can skip the leading silence of the incoming track and start before the outro of the
+ * outgoing one, whose remainder is then cut.
+ * The output only depends on the tracks and settings, not on the number of threads.
+ */
+public class MixRenderer {
+
+    public static final int SAMPLE_RATE = PcmDecoder.SAMPLE_RATE;
+    public static final int CHANNELS = PcmDecoder.CHANNELS;
+
+    private static final int BLOCK_FRAMES = 4096;
+    private static final int BYTES_PER_SAMPLE = 2;
+
+    private final List<String> sources;
+    private final List<Double> trackGains;
+    private final List<Double> mixInStarts;
+    private final List<DoubleBinaryOperator> mixOutStarts;
+    private double crossfadeSeconds;
+    private CrossfadeCurve crossfadeCurve;
+    private double[] equalizerBandsGain;
+    private double balance;
+    private int threads;
+
+    /**
+     * Instantiates a renderer without tracks, crossfade nor equalization, using every core.
+     */
+    public MixRenderer() {
+        sources = new ArrayList<>();
+        trackGains = new ArrayList<>();
+        mixInStarts = new ArrayList<>();
+        mixOutStarts = new ArrayList<>();
+        crossfadeCurve = CrossfadeCurve.EQUAL_POWER;
+        equalizerBandsGain = new double[0];
+        threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Add a track at the end of the mix.
+     *
+     * @param source The URI of the media.
+     */
+    public void addTrack(String source) {
+        addTrack(source, 1.0);
+    }
+
+    /**
+     * Add a track at the end of the mix.
+     *
+     * @param source    The URI of the media.
+     * @param trackGain The linear gain of the track, e.g. for loudness normalization.
+     */
+    public void addTrack(String source, double trackGain) {
+        addTrack(source, trackGain, 0, null);
+    }
+
+    /**
+     * Add a track at the end of the mix, with the cue points used when it is crossfaded.
+     *
+     * @param source      The URI of the media.
+     * @param trackGain   The linear gain of the track, e.g. for loudness normalization.
+     * @param mixInStart  The time in seconds at which the track starts when it is crossfaded in.
+     * @param mixOutStart Gives the time in seconds at which the crossfade out of the track starts, from the duration
+     *                    of the track and of the crossfade; null to crossfade at the end of the track.
+     */
+    public void addTrack(String source, double trackGain, double mixInStart, DoubleBinaryOperator mixOutStart) {
+        sources.add(source);
+        trackGains.add(trackGain);
+        mixInStarts.add(Math.max(0, mixInStart));
+        mixOutStarts.add(mixOutStart);
+    }
+
+    /**
+     * Set the crossfade between consecutive tracks.
+     *
+     * @param seconds The duration of the crossfade, 0 for gapless transitions.
+     * @param curve   The curve of the crossfade.
+     */
+    public void setCrossfade(double seconds, CrossfadeCurve curve) {
+        crossfadeSeconds = Math.max(0, seconds);
+        crossfadeCurve = curve;
+    }
+
+    /**
+     * Set the gains of the equalizer bands.
+     *
+     * @param bandsGain The gain of each band in decibels.
+     */
+    public void setEqualizerBandsGain(double[] bandsGain) {
+        equalizerBandsGain = bandsGain.clone();
+    }
+
+    /**
+     * Set the stereo balance.
+     *
+     * @param _balance The balance between -1 (left) and 1 (right).
+     */
+    public void setBalance(double _balance) {
+        balance = Math.max(-1, Math.min(1, _balance));
+    }
+
+    /**
+     * Set the maximum number of segments rendered at once.
+     *
+     * @param _threads The number of threads, at least 1.
+     */
+    public void setThreads(int _threads) {
+        threads = Math.max(1, _threads);
+    }
+
+    /**
+     * Render the mix to a WAV file, replacing it.
+     *
+     * @param wavFile The destination file.
+     * @return The number of frames rendered.
+     * @throws BadSongException if a track cannot be decoded.
+     * @throws IOException      if the file cannot be written or the mix is too long for a WAV file.
+     */
+    public long render(Path wavFile) throws BadSongException, IOException {
+        List<Path> segmentFiles = new ArrayList<>();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, sources.size())), runnable -> {
+            Thread thread = new Thread(runnable, "mix-renderer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Long>> segments = new ArrayList<>();
+            for (int track = 0; track < sources.size(); track++) {
+                Path segmentFile = Files.createTempFile("deezify-mix-", ".pcm");
+                segmentFiles.add(segmentFile);
+                int segmentTrack = track;
+                segments.add(executor.submit(() -> renderSegment(segmentTrack, segmentFile)));
+            }
+            long totalFrames = 0;
+            for (Future<Long> segment : segments) {
+                totalFrames += getSegmentFrames(segment);
+            }
+            writeWav(wavFile, segmentFiles, totalFrames);
+            return totalFrames;
+        } finally {
+            executor.shutdownNow();
+            for (Path segmentFile : segmentFiles) {
+                Files.deleteIfExists(segmentFile);
+            }
+        }
+    }
+
+    private long getSegmentFrames(Future<Long> segment) throws BadSongException, IOException {
+        try {
+            return segment.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Mix rendering interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BadSongException badSong) {
+                throw badSong;
+            }
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Mix rendering failed", e.getCause());
+        }
+    }
+
+    /**
+     * Render the segment of a track: its part after the crossfade with the previous track,
+     * followed by the crossfade with the next one.
+     *
+     * @param track       The index of the track.
+     * @param segmentFile The file receiving the 16-bit PCM of the segment.
+     * @return The number of frames of the segment.
+     */
+    private long renderSegment(int track, Path segmentFile) throws BadSongException, IOException {
+        int crossfadeFrames = (int) Math.round(crossfadeSeconds * SAMPLE_RATE);
+        boolean hasNext = track + 1 < sources.size();
+        SegmentWriter writer = new SegmentWriter(segmentFile);
+        try (writer; TrackReader reader = new TrackReader(track)) {
+            // The beginning of the track was mixed by the previous segment
+            if (track > 0 && crossfadeFrames > 0) {
+                readHead(reader, new float[crossfadeFrames * CHANNELS]);
+            }
+            float[] block = new float[BLOCK_FRAMES * CHANNELS];
+            int frames;
+            if (!hasNext || crossfadeFrames == 0) {
+                while ((frames = reader.read(block, 0, BLOCK_FRAMES)) > 0) {
+                    reader.equalize(block, 0, frames);
+                    writer.write(block, 0, frames);
+                }
+                return writer.getFrames();
+            }
+            // The end of the track is held back in a delay line, to be faded out before being equalized
+            RingBuffer delay = new RingBuffer(crossfadeFrames * CHANNELS);
+            float[] delayed = new float[BLOCK_FRAMES * CHANNELS];
+            while ((frames = reader.read(block, 0, BLOCK_FRAMES)) > 0) {
+                int overflowFrames = Math.max(0, delay.available() / CHANNELS + frames - crossfadeFrames);
+                int delayedFrames = delay.read(delayed, 0, overflowFrames * CHANNELS) / CHANNELS;
+                reader.equalize(delayed, 0, delayedFrames);
+                writer.write(delayed, 0, delayedFrames);
+                int directFrames = overflowFrames - delayedFrames;
+                reader.equalize(block, 0, directFrames);
+                writer.write(block, 0, directFrames);
+                delay.write(block, directFrames * CHANNELS, (frames - directFrames) * CHANNELS);
+            }
+            float[] tail = new float[delay.available()];
+            delay.read(tail, 0, tail.length);
+            float[] head = new float[crossfadeFrames * CHANNELS];
+            int headFrames;
+            try (TrackReader nextReader = new TrackReader(track + 1)) {
+                headFrames = readHead(nextReader, head);
+            }
+            crossfade(reader, tail, tail.length / CHANNELS, head, headFrames, writer);
+        }
+        return writer.getFrames();
+    }
+
+    /**
+     * Read the beginning of a track, which fades in over the frames read, and equalize it.
+     * Both segments sharing a crossfade call it on the incoming track, so their equalizer states match.
+     *
+     * @param reader The reader of the track, at its start.
+     * @param head   The buffer receiving the frames, as long as the crossfade.
+     * @return The number of frames read, shorter than the crossfade if the track is.
+     */
+    private int readHead(TrackReader reader, float[] head) throws BadSongException {
+        int headFrames = reader.readFully(head, head.length / CHANNELS);
+        for (int frame = 0; frame < headFrames; frame++) {
+            float gain = (float) crossfadeCurve.fadeIn((double) frame / headFrames);
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                head[frame * CHANNELS + channel] *= gain;
+            }
+        }
+        reader.equalize(head, 0, headFrames);
+        return headFrames;
+    }
+
+    /**
+     * Fade out the end of a track and mix it with the faded in beginning of the next one.
+     * The crossfade lasts as long as the beginning of the next track, and the end of the track is aligned on its end.
+     * The fades are applied before the equalizers, so the sum is the equalized crossfade.
+     */
+    private void crossfade(TrackReader reader, float[] tail, int tailFrames, float[] head, int headFrames,
+                           SegmentWriter writer) throws IOException {
+        int mixedFrames = Math.min(tailFrames, headFrames);
+        int soloTailFrames = tailFrames - mixedFrames;
+        for (int frame = 0; frame < mixedFrames; frame++) {
+            float gain = (float) crossfadeCurve.fadeOut((double) (headFrames - mixedFrames + frame) / headFrames);
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                tail[(soloTailFrames + frame) * CHANNELS + channel] *= gain;
+            }
+        }
+        reader.equalize(tail, 0, tailFrames);
+        writer.write(tail, 0, soloTailFrames);
+        int soloHeadFrames = headFrames - mixedFrames;
+        for (int i = 0; i < mixedFrames * CHANNELS; i++) {
+            head[soloHeadFrames * CHANNELS + i] += tail[soloTailFrames * CHANNELS + i];
+        }
+        writer.write(head, 0, headFrames);
+    }
+
+    private void writeWav(Path wavFile, List<Path> segmentFiles, long totalFrames) throws IOException {
+        long dataBytes = totalFrames * CHANNELS * BYTES_PER_SAMPLE;
+        if (dataBytes > WavHeader.MAX_DATA_BYTES) {
+            throw new IOException("The mix is too long for a WAV file");
+        }
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(wavFile))) {
+            output.write(WavHeader.create(SAMPLE_RATE, CHANNELS, dataBytes));
+            for (Path segmentFile : segmentFiles) {
+                try (InputStream input = Files.newInputStream(segmentFile)) {
+                    input.transferTo(output);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes the part of a track that is mixed, with its gain and equalizer applied.
+     */
+    private class TrackReader implements AutoCloseable {
+        private final PcmDecoder decoder;
+        private final float gain;
+        private final ParametricEqualizer equalizer;
+        private long remainingFrames;
+
+        private TrackReader(int track) throws BadSongException {
+            decoder = new PcmDecoder(sources.get(track));
+            gain = trackGains.get(track).floatValue();
+            equalizer = new ParametricEqualizer(SAMPLE_RATE, CHANNELS);
+            for (int band = 0; band < Math.min(equalizerBandsGain.length, equalizer.getBandCount()); band++) {
+                equalizer.setBandGain(band, equalizerBandsGain[band]);
+            }
+            equalizer.skipSmoothing();
+            remainingFrames = Long.MAX_VALUE;
+            if (crossfadeSeconds > 0) {
+                applyCuePoints(track);
+            }
+        }
+
+        /**
+         * Skip the frames before the mix in cue point if the track is crossfaded in,
+         * and stop at the end of the crossfade out if the track is crossfaded out.
+         */
+        private void applyCuePoints(int track) throws BadSongException {
+            long startFrame = track > 0 ? Math.round(mixInStarts.get(track) * SAMPLE_RATE) : 0;
+            DoubleBinaryOperator mixOutStart = mixOutStarts.get(track);
+            if (track + 1 < sources.size() && mixOutStart != null) {
+                double totalSeconds = (double) decoder.getTotalFrames() / SAMPLE_RATE;
+                double endSeconds = mixOutStart.applyAsDouble(totalSeconds, crossfadeSeconds) + crossfadeSeconds;
+                remainingFrames = Math.max(0, Math.round(endSeconds * SAMPLE_RATE) - startFrame);
+            }
+            float[] skipped = new float[BLOCK_FRAMES * CHANNELS];
+            while (startFrame > 0) {
+                int read = decoder.read(skipped, 0, (int) Math.min(BLOCK_FRAMES, startFrame));
+                if (read == 0) {
+                    break;
+                }
+                startFrame -= read;
+            }
+        }
+
+        /**
+         * Read frames with the gain of the track applied, but not equalized yet.
+         */
+        private int read(float[] destination, int offsetFrame, int frames) throws BadSongException {
+            int read = decoder.read(destination, offsetFrame * CHANNELS, (int) Math.min(frames, remainingFrames));
+            remainingFrames -= read;
+            if (read > 0 && gain != 1f) {
+                for (int i = offsetFrame * CHANNELS; i < (offsetFrame + read) * CHANNELS; i++) {
+                    destination[i] *= gain;
+                }
+            }
+            return read;
+        }
+
+        private int readFully(float[] destination, int frames) throws BadSongException {
+            int total = 0;
+            int read;
+            while (total < frames && (read = read(destination, total, Math.min(BLOCK_FRAMES, frames - total))) > 0) {
+                total += read;
+            }
+            return total;
+        }
+
+        /**
+         * Equalize the next frames of the track, in order.
+         */
+        private void equalize(float[] samples, int offsetFrame, int frames) {
+            if (frames > 0) {
+                equalizer.process(samples, offsetFrame, frames);
+            }
+        }
+
+        @Override
+        public void close() {
+            decoder.close();
+        }
+    }
+
+    /**
+     * Writes frames of a segment as 16-bit PCM, with the balance applied.
+     */
+    private class SegmentWriter implements AutoCloseable {
+        private final OutputStream output;
+        private final float leftGain;
+        private final float rightGain;
+        private float[] scratch;
+        private byte[] bytes;
+        private long frames;
+
+        private SegmentWriter(Path file) throws IOException {
+            output = new BufferedOutputStream(Files.newOutputStream(file));
+            leftGain = (float) (balance > 0 ? 1 - balance : 1);
+            rightGain = (float) (balance < 0 ? 1 + balance : 1);
+            scratch = new float[0];
+            bytes = new byte[0];
+        }
+
+        private void write(float[] samples, int offsetFrame, int frameCount) throws IOException {
+            int length = frameCount * CHANNELS;
+            if (scratch.length < length) {
+                scratch = new float[length];
+                bytes = new byte[length * BYTES_PER_SAMPLE];
+            }
+            System.arraycopy(samples, offsetFrame * CHANNELS, scratch, 0, length);
+            for (int frame = 0; frame < frameCount; frame++) {
+                scratch[frame * CHANNELS] *= leftGain;
+                scratch[frame * CHANNELS + 1] *= rightGain;
+            }
+            PcmConversion.toPcm16(scratch, 0, length, bytes);
+            output.write(bytes, 0, length * BYTES_PER_SAMPLE);
+            frames += frameCount;
+        }
+
+        private long getFrames() {
+            return frames;
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.close();
+        }
+    }
+}
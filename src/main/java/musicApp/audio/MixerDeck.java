@@ -0,0 +1,374 @@
+package musicApp.audio;
+
+import musicApp.enums.CrossfaderSide;
+import musicApp.exceptions.BadSongException;
+
+/**
+ * MixerDeck
+ * One deck of a {@link DjMixer}: a track with its own transport, cue point, equalizer, gain and crossfader side.
+ * The next track can be preloaded, so that it is already decoded ahead when it is loaded.
+ * The methods are thread-safe; the audio is pulled by the output thread of the mixer.
+ */
+public class MixerDeck {
+
+    // 5 ms: pausing or seeking fades the deck out over this many frames first, so that it does not click
+    static final int DECLICK_FRAMES = DjMixer.SAMPLE_RATE / 200;
+
+    private final int index;
+    private final Object lock;
+    private final ParametricEqualizer equalizer;
+    private final ParameterAutomation equalizerAutomation;
+    private final float[] buffer;
+    private PcmDeck track;
+    private PcmDeck preloadedTrack;
+    private boolean playing;
+    // Pause and seek applied once the deck faded out, while it is playing
+    private boolean pendingPause;
+    private long pendingSeekFrame;
+    private double cuePoint;
+    private double gain;
+    // Gain applied at the end of the previous block, ramped to the new gain over the next one
+    private float appliedGain;
+    private CrossfaderSide crossfaderSide;
+    private boolean closed;
+
+    /**
+     * Instantiates an empty deck.
+     *
+     * @param _index      The index of the deck in the mixer.
+     * @param _lock       The lock of the mixer.
+     * @param blockFrames The maximum number of frames mixed at once.
+     * @param _side       The initial crossfader side.
+     */
+    MixerDeck(int _index, Object _lock, int blockFrames, CrossfaderSide _side) {
+        index = _index;
+        lock = _lock;
+        equalizer = new ParametricEqualizer(DjMixer.SAMPLE_RATE, DjMixer.CHANNELS);
+        equalizerAutomation = new ParameterAutomation(equalizer.getBandCount());
+        buffer = new float[blockFrames * DjMixer.CHANNELS];
+        gain = 1.0;
+        pendingSeekFrame = -1;
+        crossfaderSide = _side;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Load a track, paused at its start. It is instant if the track was preloaded.
+     *
+     * @param source The URI of the media.
+     * @throws BadSongException if the media cannot be opened.
+     */
+    public void load(String source) throws BadSongException {
+        load(source, 1.0);
+    }
+
+    /**
+     * Load a track, paused at its start. It is instant if the track was preloaded.
+     * The track is dropped if the mixer was closed while it was opened.
+     *
+     * @param source    The URI of the media.
+     * @param trackGain The linear gain of the track, e.g. for loudness normalization.
+     * @throws BadSongException if the media cannot be opened.
+     */
+    public void load(String source, double trackGain) throws BadSongException {
+        PcmDeck newTrack;
+        synchronized (lock) {
+            newTrack = takePreloadedTrack(source);
+        }
+        if (newTrack == null) {
+            // Opening the media is slow, so it is done without holding the lock of the mixer
+            newTrack = new PcmDeck(source);
+        }
+        newTrack.setGain((float) trackGain);
+        synchronized (lock) {
+            if (closed) {
+                newTrack.close();
+                return;
+            }
+            if (track != null) {
+                track.close();
+            }
+            track = newTrack;
+            playing = false;
+            pendingPause = false;
+            pendingSeekFrame = -1;
+            cuePoint = 0;
+            equalizer.reset();
+        }
+    }
+
+    /**
+     * Open a track and start decoding it ahead, so that loading it later does not stall.
+     *
+     * @param source The URI of the media.
+     * @throws BadSongException if the media cannot be opened.
+     */
+    public void preload(String source) throws BadSongException {
+        PcmDeck newTrack = new PcmDeck(source);
+        synchronized (lock) {
+            if (closed) {
+                newTrack.close();
+                return;
+            }
+            if (preloadedTrack != null) {
+                preloadedTrack.close();
+            }
+            preloadedTrack = newTrack;
+        }
+    }
+
+    private PcmDeck takePreloadedTrack(String source) {
+        PcmDeck preloaded = preloadedTrack;
+        preloadedTrack = null;
+        if (preloaded != null && !preloaded.getSource().equals(source)) {
+            preloaded.close();
+            return null;
+        }
+        return preloaded;
+    }
+
+    public void play() {
+        synchronized (lock) {
+            if (!playing) {
+                // Fade in from silence over the first block
+                appliedGain = 0;
+            }
+            playing = track != null;
+            pendingPause = false;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Pause the deck, once it faded out.
+     */
+    public void pause() {
+        synchronized (lock) {
+            pendingPause = playing;
+        }
+    }
+
+    public boolean isPlaying() {
+        synchronized (lock) {
+            return playing && !pendingPause;
+        }
+    }
+
+    /**
+     * Move to a position of the track, keeping the playback state. A playing deck fades out before moving.
+     *
+     * @param seconds The position in seconds.
+     */
+    public void seek(double seconds) {
+        synchronized (lock) {
+            if (track == null) {
+                return;
+            }
+            pendingSeekFrame = Math.max(0, (long) (seconds * DjMixer.SAMPLE_RATE));
+            if (!playing) {
+                applyPendingActions();
+            }
+        }
+    }
+
+    /**
+     * Set the cue point to a position of the track.
+     *
+     * @param seconds The position in seconds.
+     */
+    public void setCuePoint(double seconds) {
+        synchronized (lock) {
+            cuePoint = Math.max(0, seconds);
+        }
+    }
+
+    public double getCuePoint() {
+        synchronized (lock) {
+            return cuePoint;
+        }
+    }
+
+    /**
+     * Go back to the cue point and pause, like the cue button of a deck.
+     */
+    public void cue() {
+        synchronized (lock) {
+            pause();
+            seek(cuePoint);
+        }
+    }
+
+    public double getPositionSeconds() {
+        synchronized (lock) {
+            return track == null ? 0 : (double) track.getPositionFrames() / DjMixer.SAMPLE_RATE;
+        }
+    }
+
+    public double getDurationSeconds() {
+        synchronized (lock) {
+            return track == null ? 0 : (double) track.getTotalFrames() / DjMixer.SAMPLE_RATE;
+        }
+    }
+
+    /**
+     * Set the gain of the deck, like its channel fader.
+     *
+     * @param _gain The linear gain, at least 0.
+     */
+    public void setGain(double _gain) {
+        synchronized (lock) {
+            gain = Math.max(0, _gain);
+        }
+    }
+
+    public double getGain() {
+        synchronized (lock) {
+            return gain;
+        }
+    }
+
+    public void setCrossfaderSide(CrossfaderSide side) {
+        synchronized (lock) {
+            crossfaderSide = side;
+        }
+    }
+
+    public CrossfaderSide getCrossfaderSide() {
+        synchronized (lock) {
+            return crossfaderSide;
+        }
+    }
+
+    /**
+     * Get the equalizer of the deck, whose gains can be changed while playing.
+     *
+     * @return The equalizer.
+     */
+    public ParametricEqualizer getEqualizer() {
+        return equalizer;
+    }
+
+    /**
+     * Get the automation of the equalizer of the deck, evaluated at the position of the track.
+     *
+     * @return The automation, one parameter per band.
+     */
+    public ParameterAutomation getEqualizerAutomation() {
+        return equalizerAutomation;
+    }
+
+    /**
+     * Check whether the deck is mixed, including while it fades out before a pause. Must hold the lock.
+     */
+    boolean isMixing() {
+        return playing;
+    }
+
+    private boolean isFadingOut() {
+        return pendingPause || pendingSeekFrame >= 0;
+    }
+
+    /**
+     * Pause or move the deck as requested, now that it faded out. Must hold the lock.
+     */
+    private void applyPendingActions() {
+        if (pendingPause) {
+            playing = false;
+            pendingPause = false;
+        }
+        if (pendingSeekFrame >= 0) {
+            track.seek(pendingSeekFrame);
+            equalizer.reset();
+            pendingSeekFrame = -1;
+        }
+        // Fade in from silence over the next block
+        appliedGain = 0;
+    }
+
+    /**
+     * Get the number of frames that can be mixed right now. Must hold the lock.
+     */
+    int availableFrames() {
+        if (track == null) {
+            return 0;
+        }
+        int available = track.availableFrames();
+        if (available == 0 && isFadingOut()) {
+            // There is nothing left to fade out
+            applyPendingActions();
+            available = track.availableFrames();
+        }
+        return available;
+    }
+
+    /**
+     * Check whether the track has been played to its end. Must hold the lock.
+     */
+    boolean isFinished() {
+        return track != null && pendingSeekFrame < 0 && track.isFinished();
+    }
+
+    /**
+     * Stop the deck at the end of its track. Must hold the lock.
+     */
+    void stop() {
+        playing = false;
+        pendingPause = false;
+    }
+
+    void awaitData(long timeoutMillis) throws InterruptedException {
+        PcmDeck waitedTrack = track;
+        if (waitedTrack != null) {
+            waitedTrack.awaitData(timeoutMillis);
+        }
+    }
+
+    /**
+     * Add frames of the deck to the mix, through the equalizer and the faders. Must hold the lock.
+     *
+     * @param mix            The interleaved mix buffer.
+     * @param frames         The number of frames, at most the available frames.
+     * @param crossfaderGain The gain of the crossfader for the side of the deck.
+     */
+    void mixInto(float[] mix, int frames, double crossfaderGain) {
+        boolean fadingOut = isFadingOut();
+        int read = track.read(buffer, 0, fadingOut ? Math.min(frames, DECLICK_FRAMES) : frames);
+        equalizerAutomation.apply(equalizer, (double) track.getPositionFrames() / DjMixer.SAMPLE_RATE);
+        equalizer.process(buffer, 0, read);
+        float startGain = appliedGain;
+        float endGain = fadingOut ? 0f : (float) (gain * crossfaderGain);
+        for (int frame = 0; frame < read; frame++) {
+            // Ramp the fader changes over the block, so that they do not click
+            float frameGain = startGain + (endGain - startGain) * (frame + 1) / read;
+            for (int channel = 0; channel < DjMixer.CHANNELS; channel++) {
+                int i = frame * DjMixer.CHANNELS + channel;
+                mix[i] += buffer[i] * frameGain;
+            }
+        }
+        appliedGain = endGain;
+        if (fadingOut) {
+            applyPendingActions();
+        }
+    }
+
+    /**
+     * Close the tracks of the deck. Must hold the lock.
+     */
+    void close() {
+        closed = true;
+        playing = false;
+        pendingPause = false;
+        pendingSeekFrame = -1;
+        if (track != null) {
+            track.close();
+            track = null;
+        }
+        if (preloadedTrack != null) {
+            preloadedTrack.close();
+            preloadedTrack = null;
+        }
+    }
+}
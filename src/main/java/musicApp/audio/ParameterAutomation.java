@@ -0,0 +1,97 @@
+package musicApp.audio;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * ParameterAutomation
+ * Curves driving the parameters of an effect, such as the band gains of the equalizer.
+ * The control thread only sets the curves; the processing thread evaluates them once per block
+ * and hands the values to the effect, which interpolates them within the block.
+ * A parameter without a curve keeps the value set on the effect. No memory is allocated while applying.
+ */
+public class ParameterAutomation {
+
+    private final AtomicReferenceArray<AutomationCurve> curves;
+    // Owned by the processing thread: the parameters overridden by the last application
+    private final boolean[] applied;
+
+    /**
+     * Target of the automation, implemented by the effects.
+     */
+    public interface Target {
+        /**
+         * Override a parameter with an automated value. Called on the processing thread.
+         *
+         * @param parameter The index of the parameter.
+         * @param value     The value to reach by the end of the next block.
+         */
+        void setAutomatedValue(int parameter, double value);
+
+        /**
+         * Stop overriding a parameter, going back to the value set on the effect. Called on the processing thread.
+         *
+         * @param parameter The index of the parameter.
+         */
+        void releaseAutomatedValue(int parameter);
+    }
+
+    /**
+     * Instantiates an automation without any curve.
+     *
+     * @param parameterCount The number of parameters of the target.
+     */
+    public ParameterAutomation(int parameterCount) {
+        curves = new AtomicReferenceArray<>(parameterCount);
+        applied = new boolean[parameterCount];
+    }
+
+    public int getParameterCount() {
+        return curves.length();
+    }
+
+    /**
+     * Set the curve of a parameter. Can be called from any thread.
+     *
+     * @param parameter The index of the parameter.
+     * @param curve     The curve, or null to stop automating the parameter.
+     */
+    public void setCurve(int parameter, AutomationCurve curve) {
+        curves.set(parameter, curve);
+    }
+
+    public AutomationCurve getCurve(int parameter) {
+        return curves.get(parameter);
+    }
+
+    /**
+     * Remove every curve. Can be called from any thread.
+     */
+    public void clear() {
+        for (int parameter = 0; parameter < curves.length(); parameter++) {
+            curves.set(parameter, null);
+        }
+    }
+
+    /**
+     * Evaluate the curves and send the values to the target, releasing the parameters whose curve was removed.
+     *
+     * @param target  The automated effect.
+     * @param seconds The position in the song.
+     * @return true if some parameter is still automated.
+     */
+    public boolean apply(Target target, double seconds) {
+        boolean automated = false;
+        for (int parameter = 0; parameter < applied.length; parameter++) {
+            AutomationCurve curve = curves.get(parameter);
+            if (curve != null) {
+                target.setAutomatedValue(parameter, curve.valueAt(seconds));
+                applied[parameter] = true;
+                automated = true;
+            } else if (applied[parameter]) {
+                target.releaseAutomatedValue(parameter);
+                applied[parameter] = false;
+            }
+        }
+        return automated;
+    }
+}
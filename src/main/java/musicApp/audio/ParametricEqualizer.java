@@ -0,0 +1,287 @@
+package musicApp.audio;
+
+import musicApp.enums.EqualizerBandFrequency;
+
+import java.util.Arrays;
+
+/**
+ * ParametricEqualizer
+ * Software equalizer made of one peaking biquad filter per band of {@link EqualizerBandFrequency},
+ * processing interleaved float blocks in place.
+ * Gains can be changed from any thread; they are applied progressively by the processing thread to avoid clicks.
+ * As a {@link ParameterAutomation.Target}, band gains can also follow automation curves: an automated gain is
+ * ramped linearly over each block up to the value of its curve, overriding the gain set on the band.
+ * Bands at 0 dB are skipped, so a flat equalizer costs nothing. No memory is allocated while processing.
+ */
+public class ParametricEqualizer implements ParameterAutomation.Target {
+
+    // One octave bandwidth, matching the spacing of the bands
+    public static final double DEFAULT_Q = Math.sqrt(2);
+
+    private static final int SMOOTHING_BLOCK_FRAMES = 32;
+    private static final double SMOOTHING_TIME_SECONDS = 0.03;
+    private static final double GAIN_EPSILON_DB = 0.01;
+    private static final double DENORMAL_THRESHOLD = 1e-20;
+
+    private final int sampleRate;
+    private final int channels;
+    private final int bandCount;
+    private final double[] frequencies;
+    private final double smoothingFactor;
+    // Written by the control thread, published by the volatile flag
+    private final double[] requestedGainsDb;
+    private volatile boolean gainsRequested;
+    // Owned by the processing thread
+    private final double[] targetGainsDb;
+    private final double[] currentGainsDb;
+    private final double[] b0;
+    private final double[] b1;
+    private final double[] b2;
+    private final double[] a1;
+    private final double[] a2;
+    private final double[] z1;
+    private final double[] z2;
+    private final boolean[] active;
+    private final boolean[] automated;
+    // Change of each automated gain per smoothing step, so that it reaches its value at the end of the block
+    private final double[] automationSteps;
+    private boolean smoothing;
+
+    /**
+     * Instantiates a flat equalizer with the standard bands.
+     *
+     * @param _sampleRate The sample rate of the processed audio.
+     * @param _channels   The number of interleaved channels.
+     */
+    public ParametricEqualizer(int _sampleRate, int _channels) {
+        sampleRate = _sampleRate;
+        channels = _channels;
+        bandCount = EqualizerBandFrequency.getBandsSize();
+        frequencies = new double[bandCount];
+        for (int band = 0; band < bandCount; band++) {
+            frequencies[band] = EqualizerBandFrequency.fromIndex(band).getFrequencyHz();
+        }
+        smoothingFactor = 1 - Math.exp(-SMOOTHING_BLOCK_FRAMES / (SMOOTHING_TIME_SECONDS * sampleRate));
+        requestedGainsDb = new double[bandCount];
+        targetGainsDb = new double[bandCount];
+        currentGainsDb = new double[bandCount];
+        b0 = new double[bandCount];
+        b1 = new double[bandCount];
+        b2 = new double[bandCount];
+        a1 = new double[bandCount];
+        a2 = new double[bandCount];
+        z1 = new double[bandCount * channels];
+        z2 = new double[bandCount * channels];
+        active = new boolean[bandCount];
+        automated = new boolean[bandCount];
+        automationSteps = new double[bandCount];
+    }
+
+    public int getBandCount() {
+        return bandCount;
+    }
+
+    /**
+     * Request a new gain for a band. It is reached smoothly within a few tens of milliseconds.
+     *
+     * @param bandIndex The index of the band.
+     * @param gainDb    The gain in decibels.
+     */
+    public void setBandGain(int bandIndex, double gainDb) {
+        synchronized (requestedGainsDb) {
+            requestedGainsDb[bandIndex] = Double.isFinite(gainDb) ? gainDb : 0;
+            gainsRequested = true;
+        }
+    }
+
+    /**
+     * Get the last gain requested for a band.
+     *
+     * @param bandIndex The index of the band.
+     * @return The gain in decibels.
+     */
+    public double getBandGain(int bandIndex) {
+        synchronized (requestedGainsDb) {
+            return requestedGainsDb[bandIndex];
+        }
+    }
+
+    /**
+     * Override the gain of a band until it is released. Called on the processing thread, before the block.
+     *
+     * @param bandIndex The index of the band.
+     * @param gainDb    The gain in decibels, reached at the end of the next block.
+     */
+    @Override
+    public void setAutomatedValue(int bandIndex, double gainDb) {
+        automated[bandIndex] = true;
+        targetGainsDb[bandIndex] = Double.isFinite(gainDb) ? gainDb : 0;
+    }
+
+    /**
+     * Go back to the gain set on a band, smoothly. Called on the processing thread.
+     *
+     * @param bandIndex The index of the band.
+     */
+    @Override
+    public void releaseAutomatedValue(int bandIndex) {
+        automated[bandIndex] = false;
+        synchronized (requestedGainsDb) {
+            targetGainsDb[bandIndex] = requestedGainsDb[bandIndex];
+        }
+        smoothing = true;
+    }
+
+    /**
+     * Reach the requested gains right away instead of ramping to them, e.g. before rendering a song offline.
+     * Called on the processing thread.
+     */
+    public void skipSmoothing() {
+        synchronized (requestedGainsDb) {
+            for (int band = 0; band < bandCount; band++) {
+                if (!automated[band]) {
+                    targetGainsDb[band] = requestedGainsDb[band];
+                }
+            }
+            gainsRequested = false;
+        }
+        for (int band = 0; band < bandCount; band++) {
+            currentGainsDb[band] = targetGainsDb[band];
+            updateCoefficients(band);
+        }
+        smoothing = false;
+    }
+
+    /**
+     * Filter a block of interleaved samples in place.
+     *
+     * @param samples     The interleaved samples.
+     * @param offsetFrame The offset of the first frame.
+     * @param frames      The number of frames to process.
+     */
+    public void process(float[] samples, int offsetFrame, int frames) {
+        if (gainsRequested) {
+            synchronized (requestedGainsDb) {
+                for (int band = 0; band < bandCount; band++) {
+                    if (!automated[band]) {
+                        targetGainsDb[band] = requestedGainsDb[band];
+                    }
+                }
+                gainsRequested = false;
+            }
+            smoothing = true;
+        }
+        int steps = (frames + SMOOTHING_BLOCK_FRAMES - 1) / SMOOTHING_BLOCK_FRAMES;
+        for (int band = 0; band < bandCount; band++) {
+            if (automated[band]) {
+                automationSteps[band] = (targetGainsDb[band] - currentGainsDb[band]) / steps;
+                smoothing |= automationSteps[band] != 0;
+            }
+        }
+        int processed = 0;
+        while (processed < frames) {
+            int length = smoothing ? Math.min(SMOOTHING_BLOCK_FRAMES, frames - processed) : frames - processed;
+            if (smoothing) {
+                smoothing = stepGains();
+            }
+            int offset = (offsetFrame + processed) * channels;
+            for (int band = 0; band < bandCount; band++) {
+                if (active[band]) {
+                    filter(band, samples, offset, length);
+                }
+            }
+            processed += length;
+        }
+    }
+
+    /**
+     * Clear the filter memories, e.g. after a seek, so that the previous audio does not ring into the new one.
+     */
+    public void reset() {
+        Arrays.fill(z1, 0);
+        Arrays.fill(z2, 0);
+    }
+
+    /**
+     * Move every band gain one step towards its target and update the coefficients of the bands that changed.
+     * Automated gains move linearly, the others exponentially.
+     *
+     * @return true if some band has not reached its target yet.
+     */
+    private boolean stepGains() {
+        boolean moving = false;
+        for (int band = 0; band < bandCount; band++) {
+            double difference = targetGainsDb[band] - currentGainsDb[band];
+            if (difference == 0) {
+                continue;
+            }
+            if (automated[band] && Math.abs(difference) > Math.abs(automationSteps[band]) + GAIN_EPSILON_DB) {
+                currentGainsDb[band] += automationSteps[band];
+                moving = true;
+            } else if (automated[band] || Math.abs(difference) < GAIN_EPSILON_DB) {
+                currentGainsDb[band] = targetGainsDb[band];
+            } else {
+                currentGainsDb[band] += difference * smoothingFactor;
+                moving = true;
+            }
+            updateCoefficients(band);
+        }
+        return moving;
+    }
+
+    /**
+     * Compute the peaking filter coefficients of a band (RBJ audio EQ cookbook).
+     *
+     * @param band The index of the band.
+     */
+    private void updateCoefficients(int band) {
+        boolean wasActive = active[band];
+        active[band] = currentGainsDb[band] != 0 && frequencies[band] < sampleRate / 2.0;
+        if (!active[band]) {
+            return;
+        }
+        if (!wasActive) {
+            for (int channel = 0; channel < channels; channel++) {
+                z1[band * channels + channel] = 0;
+                z2[band * channels + channel] = 0;
+            }
+        }
+        double amplitude = Math.pow(10, currentGainsDb[band] / 40);
+        double omega = 2 * Math.PI * frequencies[band] / sampleRate;
+        double alpha = Math.sin(omega) / (2 * DEFAULT_Q);
+        double cos = Math.cos(omega);
+        double a0 = 1 + alpha / amplitude;
+        b0[band] = (1 + alpha * amplitude) / a0;
+        b1[band] = -2 * cos / a0;
+        b2[band] = (1 - alpha * amplitude) / a0;
+        a1[band] = -2 * cos / a0;
+        a2[band] = (1 - alpha / amplitude) / a0;
+    }
+
+    /**
+     * Run one band filter over a block, in transposed direct form II.
+     */
+    private void filter(int band, float[] samples, int offset, int frames) {
+        double fb0 = b0[band];
+        double fb1 = b1[band];
+        double fb2 = b2[band];
+        double fa1 = a1[band];
+        double fa2 = a2[band];
+        int end = offset + frames * channels;
+        for (int channel = 0; channel < channels; channel++) {
+            int state = band * channels + channel;
+            double s1 = z1[state];
+            double s2 = z2[state];
+            for (int i = offset + channel; i < end; i += channels) {
+                double input = samples[i];
+                double output = fb0 * input + s1;
+                s1 = fb1 * input - fa1 * output + s2;
+                s2 = fb2 * input - fa2 * output;
+                samples[i] = (float) output;
+            }
+            // Decaying memories would otherwise end up as slow denormal numbers during silences
+            z1[state] = Math.abs(s1) < DENORMAL_THRESHOLD ? 0 : s1;
+            z2[state] = Math.abs(s2) < DENORMAL_THRESHOLD ? 0 : s2;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package musicApp.audio;
+
+/**
+ * Conversions between float samples and integer PCM.
+ */
+public final class PcmConversion {
+
+    private PcmConversion() {
+    }
+
+    /**
+     * Convert float samples to 16-bit little-endian PCM, clipping anything outside [-1, 1].
+     *
+     * @param samples     The float samples.
+     * @param offset      The offset of the first sample.
+     * @param length      The number of samples.
+     * @param destination The byte buffer, at least {@code 2 * length} long.
+     */
+    public static void toPcm16(float[] samples, int offset, int length, byte[] destination) {
+        for (int i = 0; i < length; i++) {
+            float sample = Math.max(-1f, Math.min(1f, samples[offset + i]));
+            int value = (int) (sample * Short.MAX_VALUE);
+            destination[2 * i] = (byte) value;
+            destination[2 * i + 1] = (byte) (value >> 8);
+        }
+    }
+}
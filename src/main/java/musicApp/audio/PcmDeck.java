@@ -0,0 +1,172 @@
+package musicApp.audio;
+
+import musicApp.exceptions.BadSongException;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PcmDeck
+ * One source being played: a decoder running ahead on its own thread into a ring buffer,
+ * from which the output thread pulls samples without ever waiting for FFmpeg.
+ */
+class PcmDeck implements AutoCloseable {
+
+    private static final int DECODE_BLOCK_FRAMES = 2048;
+    private static final int BUFFER_SECONDS = 2;
+    private static final int CHANNELS = PcmDecoder.CHANNELS;
+
+    private final String source;
+    private final PcmDecoder decoder;
+    private final RingBuffer ringBuffer;
+    private final Thread decodeThread;
+    private final AtomicLong pendingSeek;
+    private volatile boolean endOfStream;
+    private volatile boolean closed;
+    private volatile float gain;
+
+    /**
+     * Open a source and start decoding it.
+     *
+     * @param _source The URI of the media.
+     * @throws BadSongException if the source cannot be opened.
+     */
+    PcmDeck(String _source) throws BadSongException {
+        source = _source;
+        decoder = new PcmDecoder(source);
+        ringBuffer = new RingBuffer(PcmDecoder.SAMPLE_RATE * CHANNELS * BUFFER_SECONDS);
+        pendingSeek = new AtomicLong(-1);
+        gain = 1f;
+        decodeThread = new Thread(this::decodeLoop, "pcm-decoder");
+        decodeThread.setDaemon(true);
+        decodeThread.start();
+    }
+
+    private void decodeLoop() {
+        float[] block = new float[DECODE_BLOCK_FRAMES * CHANNELS];
+        try {
+            while (!closed) {
+                long seekFrame = pendingSeek.get();
+                if (seekFrame >= 0) {
+                    decoder.seek(seekFrame);
+                    ringBuffer.reset(decoder.getPosition() * CHANNELS);
+                    endOfStream = false;
+                    // Cleared only once repositioned, so that a block written before the seek is never read;
+                    // if another seek arrived meanwhile, it is handled on the next iteration
+                    pendingSeek.compareAndSet(seekFrame, -1);
+                    continue;
+                }
+                if (endOfStream) {
+                    ringBuffer.awaitChange(100);
+                    continue;
+                }
+                int frames = decoder.read(block, 0, DECODE_BLOCK_FRAMES);
+                if (frames == 0) {
+                    endOfStream = true;
+                    ringBuffer.wakeUp();
+                    continue;
+                }
+                int offset = 0;
+                int length = frames * CHANNELS;
+                while (offset < length && !closed && pendingSeek.get() < 0) {
+                    int written = ringBuffer.write(block, offset, length - offset);
+                    offset += written;
+                    if (written == 0) {
+                        ringBuffer.awaitChange(50);
+                    }
+                }
+            }
+        } catch (BadSongException e) {
+            System.err.println("Failed to decode " + source + ": " + e.getMessage());
+            endOfStream = true;
+            ringBuffer.wakeUp();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            decoder.close();
+        }
+    }
+
+    /**
+     * Read the decoded frames available right now, without blocking, scaled by the deck gain.
+     *
+     * @param destination The interleaved buffer to fill.
+     * @param offsetFrame The offset in the buffer, in frames.
+     * @param frames      The maximum number of frames to read.
+     * @return The number of frames read.
+     */
+    int read(float[] destination, int offsetFrame, int frames) {
+        if (pendingSeek.get() >= 0) {
+            return 0;
+        }
+        int samples = ringBuffer.read(destination, offsetFrame * CHANNELS, frames * CHANNELS);
+        float currentGain = gain;
+        if (currentGain != 1f) {
+            int end = offsetFrame * CHANNELS + samples;
+            for (int i = offsetFrame * CHANNELS; i < end; i++) {
+                destination[i] *= currentGain;
+            }
+        }
+        return samples / CHANNELS;
+    }
+
+    /**
+     * Get the number of frames that can be read right now.
+     *
+     * @return The number of buffered frames.
+     */
+    int availableFrames() {
+        return pendingSeek.get() >= 0 ? 0 : ringBuffer.available() / CHANNELS;
+    }
+
+    /**
+     * Wait for the decoder to produce data, for at most the given time.
+     *
+     * @param timeoutMillis The maximum time to wait.
+     * @throws InterruptedException if the thread is interrupted.
+     */
+    void awaitData(long timeoutMillis) throws InterruptedException {
+        ringBuffer.awaitChange(timeoutMillis);
+    }
+
+    /**
+     * Check whether every frame of the source has been read.
+     *
+     * @return true once the end of the stream has been played.
+     */
+    boolean isFinished() {
+        return endOfStream && pendingSeek.get() < 0 && ringBuffer.available() == 0;
+    }
+
+    /**
+     * Move to an exact frame. The buffered samples are dropped immediately.
+     *
+     * @param frame The frame index to seek to.
+     */
+    void seek(long frame) {
+        pendingSeek.set(Math.max(0, frame));
+        ringBuffer.reset(Math.max(0, frame) * CHANNELS);
+    }
+
+    long getPositionFrames() {
+        return ringBuffer.getReadCount() / CHANNELS;
+    }
+
+    long getTotalFrames() {
+        return decoder.getTotalFrames();
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    void setGain(float _gain) {
+        gain = _gain;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        ringBuffer.wakeUp();
+        decodeThread.interrupt();
+    }
+}
@@ -0,0 +1,176 @@
+package musicApp.audio;
+
+import musicApp.exceptions.BadSongException;
+import org.bytedeco.ffmpeg.global.avutil;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.FrameGrabber;
+
+import java.net.URI;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+
+/**
+ * PcmDecoder
+ * Decodes any audio source supported by FFmpeg into interleaved stereo float samples at 44.1 kHz.
+ * A "frame" here is one sample per channel. Not thread-safe: a decoder is owned by a single thread.
+ */
+public class PcmDecoder implements AutoCloseable {
+
+    public static final int SAMPLE_RATE = 44100;
+    public static final int CHANNELS = 2;
+    // FFmpeg seeks to the first packet at or after the requested time, so seek a bit earlier and skip the excess
+    private static final long SEEK_MARGIN_MICROS = 250_000;
+
+    private final FFmpegFrameGrabber grabber;
+    private final long totalFrames;
+    private FloatBuffer pending;
+    private long nextFrame;
+
+    /**
+     * Open a source for decoding.
+     *
+     * @param source The URI of the media, or a plain file path.
+     * @throws BadSongException if FFmpeg cannot open or decode the source.
+     */
+    public PcmDecoder(String source) throws BadSongException {
+        grabber = new FFmpegFrameGrabber(toFFmpegInput(source));
+        grabber.setSampleFormat(avutil.AV_SAMPLE_FMT_FLT);
+        grabber.setSampleRate(SAMPLE_RATE);
+        grabber.setAudioChannels(CHANNELS);
+        try {
+            grabber.start();
+        } catch (FrameGrabber.Exception e) {
+            releaseQuietly();
+            throw new BadSongException(e);
+        }
+        if (grabber.getAudioChannels() <= 0) {
+            releaseQuietly();
+            throw new BadSongException("No audio stream in " + source);
+        }
+        totalFrames = Math.max(0, grabber.getLengthInTime() * SAMPLE_RATE / 1_000_000L);
+    }
+
+    /**
+     * Convert a file URI to a path, which FFmpeg handles better than URIs (spaces, accents...).
+     *
+     * @param source The URI of the media, or a plain file path.
+     * @return The input string to hand to FFmpeg.
+     */
+    private static String toFFmpegInput(String source) {
+        if (source.startsWith("file:")) {
+            return Path.of(URI.create(source)).toString();
+        }
+        return source;
+    }
+
+    /**
+     * Decode the next frames.
+     *
+     * @param destination The interleaved buffer to fill.
+     * @param offset      The offset in the buffer, in samples.
+     * @param frames      The maximum number of frames to decode.
+     * @return The number of frames decoded, less than requested only at the end of the stream.
+     * @throws BadSongException if decoding fails.
+     */
+    public int read(float[] destination, int offset, int frames) throws BadSongException {
+        int written = 0;
+        while (written < frames) {
+            if (pending == null || !pending.hasRemaining()) {
+                if (!decodeNext()) {
+                    break;
+                }
+                continue;
+            }
+            int samples = Math.min(pending.remaining(), (frames - written) * CHANNELS);
+            pending.get(destination, offset + written * CHANNELS, samples);
+            written += samples / CHANNELS;
+        }
+        nextFrame += written;
+        return written;
+    }
+
+    /**
+     * Move to an exact frame: the next {@link #read} starts with that frame.
+     *
+     * @param frame The frame index to seek to.
+     * @throws BadSongException if seeking fails.
+     */
+    public void seek(long frame) throws BadSongException {
+        long target = Math.max(0, frame);
+        try {
+            grabber.setAudioTimestamp(Math.max(0, target * 1_000_000L / SAMPLE_RATE - SEEK_MARGIN_MICROS));
+            pending = null;
+            Frame decoded;
+            while ((decoded = grabber.grabSamples()) != null) {
+                if (decoded.samples == null) {
+                    continue;
+                }
+                FloatBuffer samples = (FloatBuffer) decoded.samples[0];
+                long firstFrame = Math.round(decoded.timestamp * (double) SAMPLE_RATE / 1_000_000L);
+                long lastFrame = firstFrame + samples.remaining() / CHANNELS;
+                if (lastFrame <= target) {
+                    continue;
+                }
+                int skippedFrames = (int) Math.max(0, target - firstFrame);
+                samples.position(samples.position() + skippedFrames * CHANNELS);
+                pending = samples;
+                nextFrame = Math.max(target, firstFrame);
+                return;
+            }
+            nextFrame = target;
+        } catch (FrameGrabber.Exception e) {
+            throw new BadSongException(e);
+        }
+    }
+
+    /**
+     * Get the length of the source.
+     *
+     * @return The number of frames, or 0 if unknown (e.g. for a live stream).
+     */
+    public long getTotalFrames() {
+        return totalFrames;
+    }
+
+    /**
+     * Get the index of the next frame returned by {@link #read}.
+     *
+     * @return The frame index.
+     */
+    public long getPosition() {
+        return nextFrame;
+    }
+
+    private boolean decodeNext() throws BadSongException {
+        try {
+            Frame decoded = grabber.grabSamples();
+            if (decoded == null) {
+                pending = null;
+                return false;
+            }
+            pending = decoded.samples != null ? (FloatBuffer) decoded.samples[0] : null;
+            return true;
+        } catch (FrameGrabber.Exception e) {
+            throw new BadSongException(e);
+        }
+    }
+
+    private void releaseQuietly() {
+        try {
+            grabber.release();
+        } catch (FrameGrabber.Exception e) {
+            System.err.println("Failed to release decoder: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            grabber.stop();
+        } catch (FrameGrabber.Exception e) {
+            System.err.println("Failed to stop decoder: " + e.getMessage());
+        }
+        releaseQuietly();
+    }
+}
@@ -0,0 +1,651 @@
+package musicApp.audio;
+
+import musicApp.audio.effects.EffectChain;
+import musicApp.enums.CrossfadeCurve;
+import musicApp.enums.TimeStretchQuality;
+import musicApp.exceptions.BadSongException;
+
+import java.util.Arrays;
+
+/**
+ * PcmPlaybackEngine
+ * Plays songs by decoding them to PCM with FFmpeg and mixing them on a dedicated output thread.
+ * Since every sample goes through this class, switching to the prepared song is gapless and
+ * crossfades are computed per frame instead of by stepping player volumes.
+ * The playback speed is changed by a {@link TimeStretcher}, so that the pitch is preserved.
+ * The equalizer gains can follow a {@link ParameterAutomation}, evaluated on the song position for every block.
+ * The equalized mix then goes through the {@link EffectChain} of the installed effects, and the decks of a hosted
+ * {@link DjMixer} are mixed in.
+ * The methods are thread-safe; the listener is called on the output thread and must not block.
+ */
+public class PcmPlaybackEngine implements AutoCloseable {
+
+    public static final int SAMPLE_RATE = PcmDecoder.SAMPLE_RATE;
+    public static final int CHANNELS = PcmDecoder.CHANNELS;
+
+    private static final int BLOCK_FRAMES = 1024;
+    private static final long UNDERRUN_WAIT_MILLIS = 5;
+
+    private final AudioSink sink;
+    private final Object lock;
+    private final Thread outputThread;
+    private final float[] mixBuffer;
+    private final float[] incomingBuffer;
+    private final ParametricEqualizer equalizer;
+    private final ParameterAutomation equalizerAutomation;
+    private final EffectChain effectChain;
+    private TimeStretcher timeStretcher;
+    private SpectrumAnalyzer spectrumAnalyzer;
+    // The analyzer runs on the output thread outside the lock, so the other threads only ask for its reset
+    private boolean spectrumResetPending;
+
+    private PcmDeck current;
+    private PcmDeck next;
+    private boolean playing;
+    private boolean closed;
+    private double volume;
+    private double balance;
+    private boolean crossfading;
+    private long crossfadeFrames;
+    private long crossfadePosition;
+    // The outgoing song ended before the crossfade: the incoming one goes on fading in alone
+    private boolean fadingIn;
+    private CrossfadeCurve crossfadeCurve;
+    // DJ decks mixed into the output, in lockstep with the current song
+    private DjMixer djMixer;
+    private MixerDeck stalledMixerDeck;
+    // Number of frames of the block being rendered, fewer than a full block if a DJ deck has less decoded audio
+    private int renderFrames;
+    private Listener listener;
+
+    /**
+     * Listener of the playback events.
+     */
+    public interface Listener {
+        /**
+         * Called when the prepared song replaced the current one, gaplessly or at the end of a crossfade.
+         */
+        void onTrackChanged();
+
+        /**
+         * Called when the current song ended and no song was prepared.
+         */
+        void onEndOfMedia();
+    }
+
+    /**
+     * Instantiates a new engine and opens its sink.
+     *
+     * @param _sink The destination of the rendered samples.
+     * @throws Exception if the sink cannot be opened.
+     */
+    public PcmPlaybackEngine(AudioSink _sink) throws Exception {
+        sink = _sink;
+        sink.open(SAMPLE_RATE, CHANNELS);
+        lock = new Object();
+        mixBuffer = new float[BLOCK_FRAMES * CHANNELS];
+        incomingBuffer = new float[BLOCK_FRAMES * CHANNELS];
+        equalizer = new ParametricEqualizer(SAMPLE_RATE, CHANNELS);
+        equalizerAutomation = new ParameterAutomation(equalizer.getBandCount());
+        effectChain = EffectChain.loadInstalled(SAMPLE_RATE, CHANNELS, BLOCK_FRAMES);
+        timeStretcher = new TimeStretcher(SAMPLE_RATE, CHANNELS, BLOCK_FRAMES, TimeStretchQuality.MEDIUM);
+        volume = 1.0;
+        crossfadeCurve = CrossfadeCurve.EQUAL_POWER;
+        outputThread = new Thread(this::outputLoop, "pcm-output");
+        outputThread.setDaemon(true);
+        outputThread.setPriority(Thread.MAX_PRIORITY);
+        outputThread.start();
+    }
+
+    public void setListener(Listener _listener) {
+        synchronized (lock) {
+            listener = _listener;
+        }
+    }
+
+    /**
+     * Create a DJ mixer whose decks are mixed into the output of this engine, after its equalizer and effects.
+     * The decks share the output thread and the sink of the engine, so they advance in lockstep with the current
+     * song, which is on the left of the crossfader of the mixer. Closing the mixer removes it from the engine.
+     * A mixer created before is closed.
+     *
+     * @param deckCount The number of decks.
+     * @return The mixer.
+     */
+    public DjMixer createDjMixer(int deckCount) {
+        synchronized (lock) {
+            if (djMixer != null) {
+                djMixer.close();
+            }
+            djMixer = new DjMixer(lock, deckCount);
+            return djMixer;
+        }
+    }
+
+    /**
+     * Replace the current song, dropping the prepared one. The playback state is kept.
+     *
+     * @param source The URI of the media.
+     * @throws BadSongException if the media cannot be opened.
+     */
+    public void load(String source) throws BadSongException {
+        load(source, 1.0);
+    }
+
+    /**
+     * Replace the current song, dropping the prepared one. The playback state is kept.
+     *
+     * @param source    The URI of the media.
+     * @param trackGain The linear gain of the song, e.g. for loudness normalization.
+     * @throws BadSongException if the media cannot be opened.
+     */
+    public void load(String source, double trackGain) throws BadSongException {
+        PcmDeck deck = new PcmDeck(source);
+        deck.setGain((float) trackGain);
+        synchronized (lock) {
+            closeDecks();
+            current = deck;
+            equalizer.reset();
+            effectChain.reset();
+            timeStretcher.reset();
+            resetSpectrumAnalyzer();
+            sink.flush();
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Open the song to play after the current one, so that it starts without a gap.
+     *
+     * @param source The URI of the media.
+     * @throws BadSongException if the media cannot be opened.
+     */
+    public void prepareNext(String source) throws BadSongException {
+        prepareNext(source, 1.0);
+    }
+
+    /**
+     * Open the song to play after the current one, so that it starts without a gap.
+     *
+     * @param source    The URI of the media.
+     * @param trackGain The linear gain of the song, e.g. for loudness normalization.
+     * @throws BadSongException if the media cannot be opened.
+     */
+    public void prepareNext(String source, double trackGain) throws BadSongException {
+        PcmDeck deck = new PcmDeck(source);
+        deck.setGain((float) trackGain);
+        synchronized (lock) {
+            if (next != null) {
+                crossfading = false;
+                next.close();
+            }
+            next = deck;
+        }
+    }
+
+    /**
+     * Get the source of the prepared song.
+     *
+     * @return The URI of the prepared media, or null if none is prepared.
+     */
+    public String getNextSource() {
+        synchronized (lock) {
+            return next == null ? null : next.getSource();
+        }
+    }
+
+    /**
+     * Drop the prepared song.
+     */
+    public void discardNext() {
+        synchronized (lock) {
+            if (next != null) {
+                next.close();
+                next = null;
+            }
+            crossfading = false;
+        }
+    }
+
+    /**
+     * Start mixing the prepared song in, ignored if no song is prepared.
+     *
+     * @param durationSeconds The length of the crossfade.
+     * @param curve           The gain curve.
+     */
+    public void startCrossfade(double durationSeconds, CrossfadeCurve curve) {
+        startCrossfade(durationSeconds, curve, 0);
+    }
+
+    /**
+     * Start mixing the prepared song in from a position, e.g. after its leading silence, ignored if no song is prepared.
+     *
+     * @param durationSeconds The length of the crossfade.
+     * @param curve           The gain curve.
+     * @param nextStart       The position of the prepared song to start from, in seconds.
+     */
+    public void startCrossfade(double durationSeconds, CrossfadeCurve curve, double nextStart) {
+        synchronized (lock) {
+            if (next == null || crossfading) {
+                return;
+            }
+            if (nextStart > 0) {
+                next.seek((long) (nextStart * SAMPLE_RATE));
+            }
+            crossfadeCurve = curve;
+            crossfadeFrames = Math.max(1, (long) (durationSeconds * SAMPLE_RATE));
+            crossfadePosition = 0;
+            crossfading = true;
+            fadingIn = false;
+        }
+    }
+
+    public boolean isCrossfading() {
+        synchronized (lock) {
+            return crossfading;
+        }
+    }
+
+    public void play() {
+        synchronized (lock) {
+            playing = true;
+            lock.notifyAll();
+        }
+    }
+
+    public void pause() {
+        synchronized (lock) {
+            playing = false;
+        }
+    }
+
+    public boolean isPlaying() {
+        synchronized (lock) {
+            return playing;
+        }
+    }
+
+    /**
+     * Move in the current song. A crossfade in progress is cancelled and the prepared song rewound.
+     *
+     * @param seconds The position to seek to.
+     */
+    public void seek(double seconds) {
+        synchronized (lock) {
+            if (current == null) {
+                return;
+            }
+            if (crossfading) {
+                crossfading = false;
+                next.seek(0);
+            }
+            fadingIn = false;
+            current.seek((long) (seconds * SAMPLE_RATE));
+            equalizer.reset();
+            effectChain.reset();
+            timeStretcher.reset();
+            resetSpectrumAnalyzer();
+            sink.flush();
+        }
+    }
+
+    public double getPositionSeconds() {
+        synchronized (lock) {
+            return current == null ? 0 : (double) current.getPositionFrames() / SAMPLE_RATE;
+        }
+    }
+
+    public double getDurationSeconds() {
+        synchronized (lock) {
+            return current == null ? 0 : (double) current.getTotalFrames() / SAMPLE_RATE;
+        }
+    }
+
+    /**
+     * Set the playback speed, without changing the pitch.
+     *
+     * @param speed The tempo factor, clamped between {@link TimeStretcher#MIN_SPEED} and {@link TimeStretcher#MAX_SPEED}.
+     */
+    public void setSpeed(double speed) {
+        synchronized (lock) {
+            timeStretcher.setSpeed(speed);
+            if (timeStretcher.getSpeed() == 1.0) {
+                // Back to the untouched signal: the few milliseconds held by the stretcher are dropped
+                timeStretcher.reset();
+            }
+        }
+    }
+
+    public double getSpeed() {
+        synchronized (lock) {
+            return timeStretcher.getSpeed();
+        }
+    }
+
+    /**
+     * Set the trade-off between quality and CPU usage of the time-stretching.
+     *
+     * @param quality The quality of the time-stretching.
+     */
+    public void setTimeStretchQuality(TimeStretchQuality quality) {
+        synchronized (lock) {
+            if (quality == timeStretcher.getQuality()) {
+                return;
+            }
+            TimeStretcher stretcher = new TimeStretcher(SAMPLE_RATE, CHANNELS, BLOCK_FRAMES, quality);
+            stretcher.setSpeed(timeStretcher.getSpeed());
+            timeStretcher = stretcher;
+        }
+    }
+
+    /**
+     * Set the analyzer fed with the rendered audio, after the equalizer and before the volume.
+     * Its listener is called on the output thread, without holding the lock of the engine, and must not block.
+     *
+     * @param analyzer The analyzer, or null to stop analysing.
+     */
+    public void setSpectrumAnalyzer(SpectrumAnalyzer analyzer) {
+        synchronized (lock) {
+            spectrumAnalyzer = analyzer;
+        }
+    }
+
+    private void resetSpectrumAnalyzer() {
+        spectrumResetPending = true;
+    }
+
+    /**
+     * Get the equalizer applied to the mix, whose gains can be changed while playing.
+     *
+     * @return The equalizer.
+     */
+    public ParametricEqualizer getEqualizer() {
+        return equalizer;
+    }
+
+    /**
+     * Get the automation of the equalizer band gains, whose curves can be changed while playing.
+     * The curves are evaluated at the position of the current song, once per block.
+     *
+     * @return The automation, one parameter per band.
+     */
+    public ParameterAutomation getEqualizerAutomation() {
+        return equalizerAutomation;
+    }
+
+    /**
+     * Get the chain of effects applied to the mix after the equalizer, which can be changed while playing.
+     *
+     * @return The chain, made of the effects provided to the application.
+     */
+    public EffectChain getEffectChain() {
+        return effectChain;
+    }
+
+    /**
+     * Set the master volume.
+     *
+     * @param _volume The volume between 0 and 1.
+     */
+    public void setVolume(double _volume) {
+        synchronized (lock) {
+            volume = Math.max(0, Math.min(1, _volume));
+        }
+    }
+
+    /**
+     * Set the stereo balance.
+     *
+     * @param _balance The balance between -1 (left) and 1 (right).
+     */
+    public void setBalance(double _balance) {
+        synchronized (lock) {
+            balance = Math.max(-1, Math.min(1, _balance));
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            closeDecks();
+            if (djMixer != null) {
+                djMixer.close();
+                djMixer = null;
+            }
+            lock.notifyAll();
+        }
+        outputThread.interrupt();
+        try {
+            outputThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        effectChain.release();
+        sink.close();
+    }
+
+    private void closeDecks() {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+        if (next != null) {
+            next.close();
+            next = null;
+        }
+        crossfading = false;
+        fadingIn = false;
+    }
+
+    private void outputLoop() {
+        try {
+            while (true) {
+                int frames;
+                PcmDeck underrunDeck;
+                SpectrumAnalyzer analyzer;
+                boolean resetAnalyzer;
+                float leftGain;
+                float rightGain;
+                MixerDeck stalledDeck;
+                synchronized (lock) {
+                    while (!closed && (!playing || current == null) && !isDjMixerPlaying()) {
+                        lock.wait();
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    stalledMixerDeck = null;
+                    frames = renderBlock();
+                    underrunDeck = current;
+                    stalledDeck = stalledMixerDeck;
+                    analyzer = spectrumAnalyzer;
+                    resetAnalyzer = spectrumResetPending;
+                    spectrumResetPending = false;
+                    leftGain = (float) (volume * (balance > 0 ? 1 - balance : 1));
+                    rightGain = (float) (volume * (balance < 0 ? 1 + balance : 1));
+                }
+                // The mix buffer is only written by this thread, so the spectrum is published without the lock
+                if (analyzer != null) {
+                    if (resetAnalyzer) {
+                        analyzer.reset();
+                    }
+                    if (frames > 0) {
+                        analyzer.process(mixBuffer, 0, frames);
+                    }
+                }
+                if (frames > 0) {
+                    applyMasterGain(frames, leftGain, rightGain);
+                    sink.write(mixBuffer, 0, frames * CHANNELS);
+                } else if (frames < 0 && stalledDeck != null) {
+                    stalledDeck.awaitData(UNDERRUN_WAIT_MILLIS);
+                } else if (frames < 0 && underrunDeck != null) {
+                    underrunDeck.awaitData(UNDERRUN_WAIT_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Check whether a DJ deck is mixed, forgetting the mixer once it is closed. Must hold the lock.
+     */
+    private boolean isDjMixerPlaying() {
+        if (djMixer != null && djMixer.isClosed()) {
+            djMixer = null;
+        }
+        return djMixer != null && djMixer.isAnyDeckPlaying();
+    }
+
+    /**
+     * Render the next block into the mix buffer, with the DJ decks, before the volume. Must hold the lock.
+     *
+     * @return The number of frames rendered, 0 if the playback stopped, -1 on a decoder underrun.
+     */
+    private int renderBlock() {
+        renderFrames = BLOCK_FRAMES;
+        boolean mixingDecks = isDjMixerPlaying();
+        if (mixingDecks) {
+            int deckFrames = djMixer.prepareBlock(BLOCK_FRAMES);
+            if (deckFrames < 0) {
+                stalledMixerDeck = djMixer.getDeck(-deckFrames - 1);
+                return -1;
+            }
+            if (deckFrames > 0) {
+                renderFrames = deckFrames;
+            } else {
+                mixingDecks = false;
+            }
+        }
+        int frames = 0;
+        if (playing && current != null) {
+            frames = timeStretcher.getSpeed() == 1.0 ? renderSource() : renderStretched();
+        }
+        if (frames > 0) {
+            // The automated gains are reached at the end of the block, i.e. at the position of the current song
+            equalizerAutomation.apply(equalizer, (double) current.getPositionFrames() / SAMPLE_RATE);
+            equalizer.process(mixBuffer, 0, frames);
+            effectChain.process(mixBuffer, 0, frames);
+        } else if (frames == 0 && mixingDecks) {
+            // The song is paused or over: the decks go on alone
+            frames = renderFrames;
+            Arrays.fill(mixBuffer, 0, frames * CHANNELS, 0f);
+        }
+        if (frames > 0 && djMixer != null) {
+            djMixer.mixIntoHost(mixBuffer, frames);
+        }
+        return frames;
+    }
+
+    private int renderSource() {
+        return crossfading ? renderCrossfade() : renderSingle();
+    }
+
+    /**
+     * Render source blocks through the time stretcher until a block of output is ready.
+     *
+     * @return The number of frames rendered, 0 if the playback stopped, -1 on a decoder underrun.
+     */
+    private int renderStretched() {
+        while (timeStretcher.availableFrames() < renderFrames) {
+            int frames = renderSource();
+            if (frames <= 0) {
+                if (frames == 0) {
+                    timeStretcher.reset();
+                }
+                return frames;
+            }
+            timeStretcher.write(mixBuffer, 0, frames);
+        }
+        return timeStretcher.read(mixBuffer, 0, renderFrames);
+    }
+
+    private int renderSingle() {
+        int frames = current.read(mixBuffer, 0, renderFrames);
+        if (fadingIn) {
+            applyFadeIn(frames);
+        }
+        if (frames < renderFrames && current.isFinished()) {
+            if (next != null) {
+                switchToNext();
+                frames += current.read(mixBuffer, frames, renderFrames - frames);
+            } else if (frames == 0) {
+                playing = false;
+                if (listener != null) {
+                    listener.onEndOfMedia();
+                }
+                return 0;
+            }
+        }
+        return frames == 0 ? -1 : frames;
+    }
+
+    private int renderCrossfade() {
+        if (current.isFinished() || next.isFinished()) {
+            // Jumping to unity would raise the incoming song by up to 3 dB in the middle of the curve
+            boolean outgoingEnded = current.isFinished() && !next.isFinished();
+            switchToNext();
+            fadingIn = outgoingEnded;
+            return renderSingle();
+        }
+        int frames = (int) Math.min(Math.min(renderFrames, crossfadeFrames - crossfadePosition),
+                Math.min(current.availableFrames(), next.availableFrames()));
+        if (frames == 0) {
+            return -1;
+        }
+        current.read(mixBuffer, 0, frames);
+        next.read(incomingBuffer, 0, frames);
+        for (int frame = 0; frame < frames; frame++) {
+            double position = (double) (crossfadePosition + frame) / crossfadeFrames;
+            float outgoingGain = (float) crossfadeCurve.fadeOut(position);
+            float incomingGain = (float) crossfadeCurve.fadeIn(position);
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                int i = frame * CHANNELS + channel;
+                mixBuffer[i] = mixBuffer[i] * outgoingGain + incomingBuffer[i] * incomingGain;
+            }
+        }
+        crossfadePosition += frames;
+        if (crossfadePosition >= crossfadeFrames) {
+            switchToNext();
+        }
+        return frames;
+    }
+
+    /**
+     * Apply the rest of the fade in to the start of the mix buffer, once the outgoing song is gone.
+     *
+     * @param frames The number of frames read from the incoming song.
+     */
+    private void applyFadeIn(int frames) {
+        for (int frame = 0; frame < frames; frame++) {
+            double position = (double) (crossfadePosition + frame) / crossfadeFrames;
+            float gain = (float) crossfadeCurve.fadeIn(position);
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                mixBuffer[frame * CHANNELS + channel] *= gain;
+            }
+        }
+        crossfadePosition += frames;
+        if (crossfadePosition >= crossfadeFrames) {
+            fadingIn = false;
+        }
+    }
+
+    private void switchToNext() {
+        current.close();
+        current = next;
+        next = null;
+        crossfading = false;
+        fadingIn = false;
+        if (listener != null) {
+            listener.onTrackChanged();
+        }
+    }
+
+    private void applyMasterGain(int frames, float left, float right) {
+        for (int frame = 0; frame < frames; frame++) {
+            mixBuffer[frame * CHANNELS] *= left;
+            mixBuffer[frame * CHANNELS + 1] *= right;
+        }
+    }
+}
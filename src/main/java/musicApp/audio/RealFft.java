@@ -0,0 +1,77 @@
+package musicApp.audio;
+
+/**
+ * RealFft
+ * Fast Fourier transform of a real signal, computed with a complex transform of half the size
+ * whose output is then split into the spectrum of the even and odd samples.
+ * Buffers are preallocated, so transforming a block allocates nothing. The class is not thread-safe.
+ */
+public class RealFft {
+
+    private final int size;
+    private final Fft halfFft;
+    private final double[] cosTable;
+    private final double[] sinTable;
+    private final double[] packedReal;
+    private final double[] packedImaginary;
+
+    /**
+     * Instantiates a transform.
+     *
+     * @param _size The number of real samples, a power of two of at least 4.
+     * @throws IllegalArgumentException if the size is not a power of two.
+     */
+    public RealFft(int _size) throws IllegalArgumentException {
+        if (_size < 4 || Integer.bitCount(_size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two: " + _size);
+        }
+        size = _size;
+        int half = size / 2;
+        halfFft = new Fft(half);
+        cosTable = new double[half];
+        sinTable = new double[half];
+        for (int k = 0; k < half; k++) {
+            cosTable[k] = Math.cos(2 * Math.PI * k / size);
+            sinTable[k] = Math.sin(2 * Math.PI * k / size);
+        }
+        packedReal = new double[half];
+        packedImaginary = new double[half];
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Transform a real signal.
+     *
+     * @param samples   The signal, of the transform size; it is not modified.
+     * @param real      Receives the real parts of the bins 0 to size / 2 included.
+     * @param imaginary Receives the imaginary parts of the bins 0 to size / 2 included.
+     */
+    public void transform(double[] samples, double[] real, double[] imaginary) {
+        int half = size / 2;
+        for (int k = 0; k < half; k++) {
+            packedReal[k] = samples[2 * k];
+            packedImaginary[k] = samples[2 * k + 1];
+        }
+        halfFft.transform(packedReal, packedImaginary);
+        for (int k = 0; k <= half; k++) {
+            int index = k % half;
+            int mirror = (half - k) % half;
+            double zReal = packedReal[index];
+            double zImaginary = packedImaginary[index];
+            // Conjugate of the mirrored bin
+            double cReal = packedReal[mirror];
+            double cImaginary = -packedImaginary[mirror];
+            double evenReal = (zReal + cReal) / 2;
+            double evenImaginary = (zImaginary + cImaginary) / 2;
+            double oddReal = (zImaginary - cImaginary) / 2;
+            double oddImaginary = -(zReal - cReal) / 2;
+            double twiddleReal = k < half ? cosTable[k] : -1;
+            double twiddleImaginary = k < half ? -sinTable[k] : 0;
+            real[k] = evenReal + twiddleReal * oddReal - twiddleImaginary * oddImaginary;
+            imaginary[k] = evenImaginary + twiddleReal * oddImaginary + twiddleImaginary * oddReal;
+        }
+    }
+}
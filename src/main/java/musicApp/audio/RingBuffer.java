@@ -0,0 +1,112 @@
+package musicApp.audio;
+
+/**
+ * RingBuffer
+ * Bounded FIFO of interleaved float samples between a decoding thread and the output thread.
+ * It also counts the samples read since the last {@link #reset(long)}, which gives the playback position.
+ */
+public class RingBuffer {
+
+    private final float[] buffer;
+    private int readIndex;
+    private int size;
+    private long readCount;
+
+    /**
+     * Instantiates a new ring buffer.
+     *
+     * @param capacity The capacity in samples.
+     */
+    public RingBuffer(int capacity) {
+        buffer = new float[capacity];
+    }
+
+    /**
+     * Write as many samples as fit without blocking.
+     *
+     * @param samples The samples to write.
+     * @param offset  The offset of the first sample.
+     * @param length  The number of samples to write.
+     * @return The number of samples written.
+     */
+    public synchronized int write(float[] samples, int offset, int length) {
+        int count = Math.min(length, buffer.length - size);
+        int writeIndex = (readIndex + size) % buffer.length;
+        int firstPart = Math.min(count, buffer.length - writeIndex);
+        System.arraycopy(samples, offset, buffer, writeIndex, firstPart);
+        System.arraycopy(samples, offset + firstPart, buffer, 0, count - firstPart);
+        size += count;
+        if (count > 0) {
+            notifyAll();
+        }
+        return count;
+    }
+
+    /**
+     * Read as many samples as available without blocking.
+     *
+     * @param destination The buffer to fill.
+     * @param offset      The offset of the first sample.
+     * @param length      The maximum number of samples to read.
+     * @return The number of samples read.
+     */
+    public synchronized int read(float[] destination, int offset, int length) {
+        int count = Math.min(length, size);
+        int firstPart = Math.min(count, buffer.length - readIndex);
+        System.arraycopy(buffer, readIndex, destination, offset, firstPart);
+        System.arraycopy(buffer, 0, destination, offset + firstPart, count - firstPart);
+        readIndex = (readIndex + count) % buffer.length;
+        size -= count;
+        readCount += count;
+        if (count > 0) {
+            notifyAll();
+        }
+        return count;
+    }
+
+    /**
+     * Wait until the buffer has room or data changes, or the timeout expires.
+     *
+     * @param timeoutMillis The maximum time to wait.
+     * @throws InterruptedException if the thread is interrupted.
+     */
+    public synchronized void awaitChange(long timeoutMillis) throws InterruptedException {
+        wait(timeoutMillis);
+    }
+
+    /**
+     * Wake up every thread waiting in {@link #awaitChange(long)}.
+     */
+    public synchronized void wakeUp() {
+        notifyAll();
+    }
+
+    /**
+     * Drop the buffered samples and restart the read counter.
+     *
+     * @param newReadCount The read counter after the reset, in samples.
+     */
+    public synchronized void reset(long newReadCount) {
+        readIndex = 0;
+        size = 0;
+        readCount = newReadCount;
+        notifyAll();
+    }
+
+    public synchronized int available() {
+        return size;
+    }
+
+    public synchronized int remainingCapacity() {
+        return buffer.length - size;
+    }
+
+    /**
+     * Get the number of samples read since the last reset, plus the count given to that reset.
+     *
+     * @return The read counter in samples.
+     */
+    public synchronized long getReadCount() {
+        return readCount;
+    }
+}
@@ -0,0 +1,166 @@
+package musicApp.audio;
+
+import java.util.Arrays;
+
+/**
+ * SilenceDetector
+ * Finds the leading and trailing silence of a song and its outro cue point, from its decoded samples
+ * fed block by block. The samples are reduced to the RMS level of short windows; the song is silent where that
+ * level is below {@link #SILENCE_THRESHOLD_DB}, and the outro starts where the level, averaged over a few
+ * windows, falls {@link #CUE_THRESHOLD_DB} below the level of the whole song for good.
+ */
+public class SilenceDetector {
+
+    public static final double SILENCE_THRESHOLD_DB = -60;
+    public static final double CUE_THRESHOLD_DB = -12;
+
+    private static final double WINDOW_SECONDS = 0.05;
+    // The outro uses the level over 400 ms, so that a single hit in a fade does not move them
+    private static final int CUE_WINDOWS = 8;
+
+    private final int sampleRate;
+    private final int channels;
+    private final int windowFrames;
+    private double[] windowPowers;
+    private int windowCount;
+    private double windowSum;
+    private int windowPosition;
+    private long totalFrames;
+    private boolean hasAudio;
+    private double audioStart;
+    private double audioEnd;
+    private double outroStart;
+
+    /**
+     * Instantiates a new detector.
+     *
+     * @param _sampleRate The sample rate of the audio.
+     * @param _channels   The number of interleaved channels.
+     */
+    public SilenceDetector(int _sampleRate, int _channels) {
+        sampleRate = _sampleRate;
+        channels = _channels;
+        windowFrames = (int) Math.round(WINDOW_SECONDS * sampleRate);
+        windowPowers = new double[1024];
+    }
+
+    /**
+     * Add a block of samples.
+     *
+     * @param samples     The interleaved samples.
+     * @param offsetFrame The offset of the first frame.
+     * @param frames      The number of frames.
+     */
+    public void process(float[] samples, int offsetFrame, int frames) {
+        int end = (offsetFrame + frames) * channels;
+        for (int i = offsetFrame * channels; i < end; i += channels) {
+            for (int channel = 0; channel < channels; channel++) {
+                double sample = samples[i + channel];
+                windowSum += sample * sample;
+            }
+            if (++windowPosition == windowFrames) {
+                addWindow();
+            }
+        }
+        totalFrames += frames;
+    }
+
+    private void addWindow() {
+        if (windowCount == windowPowers.length) {
+            windowPowers = Arrays.copyOf(windowPowers, windowCount * 2);
+        }
+        windowPowers[windowCount++] = windowSum / ((double) windowPosition * channels);
+        windowSum = 0;
+        windowPosition = 0;
+    }
+
+    /**
+     * Locate the silences and the outro in the samples added so far.
+     */
+    public void detect() {
+        if (windowPosition > 0) {
+            addWindow();
+        }
+        double totalSeconds = (double) totalFrames / sampleRate;
+        double silencePower = Math.pow(10, SILENCE_THRESHOLD_DB / 10);
+        int first = 0;
+        while (first < windowCount && windowPowers[first] < silencePower) {
+            first++;
+        }
+        int last = windowCount - 1;
+        while (last >= first && windowPowers[last] < silencePower) {
+            last--;
+        }
+        hasAudio = first <= last;
+        if (!hasAudio) {
+            audioStart = 0;
+            audioEnd = totalSeconds;
+            outroStart = totalSeconds;
+            return;
+        }
+        audioStart = windowStart(first);
+        audioEnd = Math.min(totalSeconds, windowStart(last + 1));
+
+        // Prefix sums of the powers, to average any run of windows at once
+        double[] sums = new double[windowCount + 1];
+        for (int i = 0; i < windowCount; i++) {
+            sums[i + 1] = sums[i] + windowPowers[i];
+        }
+        double songPower = (sums[last + 1] - sums[first]) / (last - first + 1);
+        double cuePower = songPower * Math.pow(10, CUE_THRESHOLD_DB / 10);
+        int outro = last;
+        while (outro > first && averagePower(sums, outro, first, last) < cuePower) {
+            outro--;
+        }
+        outroStart = Math.min(audioEnd, windowStart(outro + 1));
+    }
+
+    /**
+     * Average the power of the windows centered on a window, within the audible ones.
+     */
+    private static double averagePower(double[] sums, int window, int first, int last) {
+        int from = Math.max(first, window - CUE_WINDOWS / 2);
+        int to = Math.min(last + 1, window + CUE_WINDOWS / 2);
+        return (sums[to] - sums[from]) / (to - from);
+    }
+
+    private double windowStart(int window) {
+        return (double) window * windowFrames / sampleRate;
+    }
+
+    /**
+     * Check whether anything louder than silence was found.
+     *
+     * @return true if the song is not entirely silent.
+     */
+    public boolean hasAudio() {
+        return hasAudio;
+    }
+
+    /**
+     * Get the end of the leading silence.
+     *
+     * @return The time in seconds.
+     */
+    public double getAudioStart() {
+        return audioStart;
+    }
+
+    /**
+     * Get the start of the trailing silence.
+     *
+     * @return The time in seconds.
+     */
+    public double getAudioEnd() {
+        return audioEnd;
+    }
+
+    /**
+     * Get the start of the outro, where the song fades out from its level.
+     *
+     * @return The time in seconds.
+     */
+    public double getOutroStart() {
+        return outroStart;
+    }
+}
@@ -0,0 +1,49 @@
+package musicApp.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Plays samples on the default sound card through a {@link SourceDataLine}, as 16-bit little-endian PCM.
+ */
+public class SourceDataLineSink implements AudioSink {
+
+    // ~93 ms at 44.1 kHz stereo: short enough for responsive controls, long enough to absorb scheduling jitter
+    private static final int LINE_BUFFER_FRAMES = 4096;
+
+    private SourceDataLine line;
+    private byte[] bytes = new byte[0];
+
+    @Override
+    public void open(int sampleRate, int channels) throws LineUnavailableException {
+        AudioFormat format = new AudioFormat(sampleRate, 16, channels, true, false);
+        line = AudioSystem.getSourceDataLine(format);
+        line.open(format, LINE_BUFFER_FRAMES * channels * 2);
+        line.start();
+    }
+
+    @Override
+    public void write(float[] samples, int offset, int length) {
+        if (bytes.length < length * 2) {
+            bytes = new byte[length * 2];
+        }
+        PcmConversion.toPcm16(samples, offset, length, bytes);
+        line.write(bytes, 0, length * 2);
+    }
+
+    @Override
+    public void flush() {
+        line.flush();
+    }
+
+    @Override
+    public void close() {
+        if (line != null) {
+            line.stop();
+            line.close();
+            line = null;
+        }
+    }
+}
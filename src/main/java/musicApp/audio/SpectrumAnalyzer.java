@@ -0,0 +1,193 @@
+package musicApp.audio;
+
+import javafx.scene.media.AudioSpectrumListener;
+import musicApp.enums.WindowFunction;
+
+/**
+ * SpectrumAnalyzer
+ * Computes the spectrum of a PCM stream, in decibels per band, on logarithmically spaced bands.
+ * Every hop, the last FFT size samples of the mono downmix are windowed and transformed, and the result is
+ * sent to an {@link AudioSpectrumListener}, like the spectrum of a JavaFX media player.
+ * A band narrower than an FFT bin is interpolated between the two closest bins, a wider one takes its loudest bin.
+ * Buffers are preallocated, so no memory is allocated while processing. The class is not thread-safe.
+ */
+public class SpectrumAnalyzer {
+
+    public static final double MIN_FREQUENCY = 20.0;
+    public static final double MAX_FREQUENCY = 20000.0;
+    public static final float MIN_DECIBELS = -100f;
+
+    private final int sampleRate;
+    private final int channels;
+    private final int fftSize;
+    private final int hopFrames;
+    private final int bandCount;
+    private final RealFft fft;
+    private final double[] window;
+    // Last samples of the mono downmix, in a circular buffer
+    private final double[] history;
+    private final double[] windowed;
+    private final double[] real;
+    private final double[] imaginary;
+    private final double[] binPowers;
+    // Bins of each band, the last one being excluded; an interpolated band uses its first bin and the next one
+    private final int[] bandStartBins;
+    private final int[] bandEndBins;
+    private final double[] bandFractions;
+    private final float[] magnitudes;
+    private final float[] phases;
+    private final double powerScale;
+    private final AudioSpectrumListener listener;
+    private int writeIndex;
+    private int bufferedFrames;
+    private int framesSinceUpdate;
+    private long processedFrames;
+
+    /**
+     * Instantiates a new analyzer.
+     *
+     * @param _sampleRate The sample rate of the stream.
+     * @param _channels   The number of interleaved channels.
+     * @param _fftSize    The size of the transform, a power of two; larger sizes resolve lower frequencies.
+     * @param _hopFrames  The number of frames between two spectra.
+     * @param _bandCount  The number of bands of the spectra.
+     * @param windowType  The window applied before the transform.
+     * @param _listener   Called with every spectrum, on the processing thread.
+     * @throws IllegalArgumentException if the FFT size is not a power of two.
+     */
+    public SpectrumAnalyzer(int _sampleRate, int _channels, int _fftSize, int _hopFrames, int _bandCount,
+                            WindowFunction windowType, AudioSpectrumListener _listener) throws IllegalArgumentException {
+        sampleRate = _sampleRate;
+        channels = _channels;
+        fftSize = _fftSize;
+        hopFrames = Math.max(1, _hopFrames);
+        bandCount = _bandCount;
+        listener = _listener;
+        fft = new RealFft(fftSize);
+        window = new double[fftSize];
+        double windowSum = 0;
+        for (int i = 0; i < fftSize; i++) {
+            window[i] = windowType.coefficient(i, fftSize);
+            windowSum += window[i];
+        }
+        // A full scale sine reads 0 dB whatever the window and the size
+        powerScale = 4 / (windowSum * windowSum);
+        history = new double[fftSize];
+        windowed = new double[fftSize];
+        real = new double[fftSize / 2 + 1];
+        imaginary = new double[fftSize / 2 + 1];
+        binPowers = new double[fftSize / 2 + 1];
+        bandStartBins = new int[bandCount];
+        bandEndBins = new int[bandCount];
+        bandFractions = new double[bandCount];
+        mapBands();
+        magnitudes = new float[bandCount];
+        phases = new float[bandCount];
+    }
+
+    private void mapBands() {
+        double maxFrequency = Math.min(MAX_FREQUENCY, sampleRate / 2.0);
+        double binWidth = (double) sampleRate / fftSize;
+        double ratio = maxFrequency / MIN_FREQUENCY;
+        for (int band = 0; band < bandCount; band++) {
+            double low = MIN_FREQUENCY * Math.pow(ratio, (double) band / bandCount);
+            double high = MIN_FREQUENCY * Math.pow(ratio, (double) (band + 1) / bandCount);
+            int startBin = (int) Math.ceil(low / binWidth);
+            int endBin = (int) Math.ceil(high / binWidth);
+            if (endBin > startBin) {
+                bandStartBins[band] = startBin;
+                bandEndBins[band] = Math.min(endBin, fftSize / 2 + 1);
+                bandFractions[band] = -1;
+            } else {
+                double centerBin = Math.sqrt(low * high) / binWidth;
+                bandStartBins[band] = Math.min((int) centerBin, fftSize / 2 - 1);
+                bandEndBins[band] = bandStartBins[band] + 2;
+                bandFractions[band] = centerBin - bandStartBins[band];
+            }
+        }
+    }
+
+    public int getBandCount() {
+        return bandCount;
+    }
+
+    public int getFftSize() {
+        return fftSize;
+    }
+
+    public int getHopFrames() {
+        return hopFrames;
+    }
+
+    /**
+     * Analyse a block of the stream, sending a spectrum to the listener every hop.
+     *
+     * @param samples     The interleaved samples.
+     * @param offsetFrame The offset of the first frame.
+     * @param frames      The number of frames.
+     */
+    public void process(float[] samples, int offsetFrame, int frames) {
+        int mask = fftSize - 1;
+        for (int frame = 0; frame < frames; frame++) {
+            int index = (offsetFrame + frame) * channels;
+            double sum = 0;
+            for (int channel = 0; channel < channels; channel++) {
+                sum += samples[index + channel];
+            }
+            history[writeIndex] = sum / channels;
+            writeIndex = (writeIndex + 1) & mask;
+            bufferedFrames = Math.min(fftSize, bufferedFrames + 1);
+            processedFrames++;
+            if (++framesSinceUpdate >= hopFrames && bufferedFrames == fftSize) {
+                framesSinceUpdate = 0;
+                analyze();
+            }
+        }
+    }
+
+    /**
+     * Forget the past samples, e.g. after a seek.
+     */
+    public void reset() {
+        bufferedFrames = 0;
+        framesSinceUpdate = 0;
+    }
+
+    /**
+     * Get the spectrum computed last.
+     *
+     * @return The level of each band in decibels, at least {@link #MIN_DECIBELS}; overwritten by the next spectrum.
+     */
+    public float[] getMagnitudes() {
+        return magnitudes;
+    }
+
+    private void analyze() {
+        int mask = fftSize - 1;
+        for (int i = 0; i < fftSize; i++) {
+            windowed[i] = history[(writeIndex + i) & mask] * window[i];
+        }
+        fft.transform(windowed, real, imaginary);
+        for (int bin = 0; bin < binPowers.length; bin++) {
+            binPowers[bin] = (real[bin] * real[bin] + imaginary[bin] * imaginary[bin]) * powerScale;
+        }
+        for (int band = 0; band < bandCount; band++) {
+            double power;
+            int startBin = bandStartBins[band];
+            if (bandFractions[band] >= 0) {
+                double fraction = bandFractions[band];
+                power = binPowers[startBin] * (1 - fraction) + binPowers[startBin + 1] * fraction;
+            } else {
+                power = 0;
+                for (int bin = startBin; bin < bandEndBins[band]; bin++) {
+                    power = Math.max(power, binPowers[bin]);
+                }
+            }
+            magnitudes[band] = (float) Math.max(MIN_DECIBELS, 10 * Math.log10(power + 1e-30));
+        }
+        if (listener != null) {
+            listener.spectrumDataUpdate((double) processedFrames / sampleRate, (double) hopFrames / sampleRate,
+                    magnitudes, phases);
+        }
+    }
+}
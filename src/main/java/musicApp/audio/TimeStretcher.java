@@ -0,0 +1,244 @@
+package musicApp.audio;
+
+import musicApp.enums.TimeStretchQuality;
+
+/**
+ * TimeStretcher
+ * Changes the tempo of interleaved float audio without changing its pitch, using WSOLA
+ * (waveform similarity overlap-add): the input is cut into short overlapping segments which are
+ * taken further apart or closer together than they are played, each one shifted to the position
+ * where its waveform best continues the previous one, and crossfaded with it.
+ * The latency is bounded by the length of a segment and the search window, about 70 ms,
+ * and no memory is allocated once the stretcher is created. The class is not thread-safe.
+ */
+public class TimeStretcher {
+
+    public static final double MIN_SPEED = 0.25;
+    public static final double MAX_SPEED = 4.0;
+
+    private static final double SEQUENCE_SECONDS = 0.05;
+    private static final double OVERLAP_SECONDS = 0.01;
+    private static final double SEEK_SECONDS = 0.015;
+
+    private final int channels;
+    private final int sequenceFrames;
+    private final int overlapFrames;
+    private final int seekFrames;
+    private final TimeStretchQuality quality;
+    // Pending input, and its mono downmix used to compare waveforms
+    private final float[] input;
+    private final float[] inputMono;
+    private int inputFrames;
+    private final float[] output;
+    private int outputFrames;
+    // End of the previous segment, crossfaded with the start of the next one
+    private final float[] overlap;
+    private final float[] overlapMono;
+    private boolean primed;
+    private double speed;
+    private double skipRemainder;
+
+    /**
+     * Instantiates a new time stretcher, at normal speed.
+     *
+     * @param sampleRate     The sample rate of the audio.
+     * @param _channels      The number of interleaved channels.
+     * @param maxBlockFrames The maximum number of frames written at once.
+     * @param _quality       The precision of the splice point search.
+     */
+    public TimeStretcher(int sampleRate, int _channels, int maxBlockFrames, TimeStretchQuality _quality) {
+        channels = _channels;
+        quality = _quality;
+        sequenceFrames = (int) (SEQUENCE_SECONDS * sampleRate);
+        overlapFrames = (int) (OVERLAP_SECONDS * sampleRate);
+        seekFrames = (int) (SEEK_SECONDS * sampleRate);
+        int hopFrames = sequenceFrames - overlapFrames;
+        int inputCapacity = Math.max(seekFrames + sequenceFrames, (int) Math.ceil(MAX_SPEED * hopFrames) + 1) + maxBlockFrames;
+        // Room for everything a block can produce at the lowest speed, plus the segment in progress
+        int outputCapacity = maxBlockFrames + (int) Math.ceil(maxBlockFrames / MIN_SPEED) + 2 * hopFrames;
+        input = new float[inputCapacity * channels];
+        inputMono = new float[inputCapacity];
+        output = new float[outputCapacity * channels];
+        overlap = new float[overlapFrames * channels];
+        overlapMono = new float[overlapFrames];
+        speed = 1.0;
+    }
+
+    /**
+     * Set the tempo factor, e.g. 2 plays twice as fast.
+     *
+     * @param _speed The speed, clamped between {@link #MIN_SPEED} and {@link #MAX_SPEED}.
+     */
+    public void setSpeed(double _speed) {
+        speed = Math.max(MIN_SPEED, Math.min(MAX_SPEED, _speed));
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public TimeStretchQuality getQuality() {
+        return quality;
+    }
+
+    /**
+     * Add input frames and stretch as much of them as possible.
+     *
+     * @param samples     The interleaved samples.
+     * @param offsetFrame The offset of the first frame.
+     * @param frames      The number of frames, at most the maximum block size.
+     * @return The number of frames accepted, all of them unless more than a block is written before reading.
+     */
+    public int write(float[] samples, int offsetFrame, int frames) {
+        process();
+        int accepted = Math.min(frames, inputMono.length - inputFrames);
+        System.arraycopy(samples, offsetFrame * channels, input, inputFrames * channels, accepted * channels);
+        for (int frame = 0; frame < accepted; frame++) {
+            float sum = 0;
+            for (int channel = 0; channel < channels; channel++) {
+                sum += samples[(offsetFrame + frame) * channels + channel];
+            }
+            inputMono[inputFrames + frame] = sum;
+        }
+        inputFrames += accepted;
+        process();
+        return accepted;
+    }
+
+    /**
+     * Read stretched frames.
+     *
+     * @param destination The interleaved buffer to fill.
+     * @param offsetFrame The offset in the buffer, in frames.
+     * @param frames      The maximum number of frames to read.
+     * @return The number of frames read.
+     */
+    public int read(float[] destination, int offsetFrame, int frames) {
+        int count = Math.min(frames, outputFrames);
+        System.arraycopy(output, 0, destination, offsetFrame * channels, count * channels);
+        outputFrames -= count;
+        System.arraycopy(output, count * channels, output, 0, outputFrames * channels);
+        return count;
+    }
+
+    /**
+     * Get the number of stretched frames that can be read.
+     *
+     * @return The number of frames.
+     */
+    public int availableFrames() {
+        return outputFrames;
+    }
+
+    /**
+     * Check whether no audio is held by the stretcher.
+     *
+     * @return true if there is neither pending input nor output.
+     */
+    public boolean isEmpty() {
+        return inputFrames == 0 && outputFrames == 0;
+    }
+
+    /**
+     * Drop the buffered audio, e.g. after a seek.
+     */
+    public void reset() {
+        inputFrames = 0;
+        outputFrames = 0;
+        primed = false;
+        skipRemainder = 0;
+    }
+
+    private void process() {
+        int hopFrames = sequenceFrames - overlapFrames;
+        while (inputFrames >= getRequiredInputFrames() && output.length / channels - outputFrames >= hopFrames) {
+            processSegment();
+        }
+    }
+
+    private int getRequiredInputFrames() {
+        int skip = (int) (speed * (sequenceFrames - overlapFrames) + skipRemainder);
+        return Math.max(seekFrames + sequenceFrames, skip);
+    }
+
+    /**
+     * Append one segment to the output and advance the input by the analysis hop.
+     */
+    private void processSegment() {
+        int offset = primed ? findBestOffset() : 0;
+        int outputIndex = outputFrames * channels;
+        if (primed) {
+            for (int frame = 0; frame < overlapFrames; frame++) {
+                float fadeIn = (float) frame / overlapFrames;
+                for (int channel = 0; channel < channels; channel++) {
+                    int i = frame * channels + channel;
+                    output[outputIndex + i] = overlap[i] * (1 - fadeIn) + input[offset * channels + i] * fadeIn;
+                }
+            }
+        } else {
+            System.arraycopy(input, offset * channels, output, outputIndex, overlapFrames * channels);
+        }
+        int hopFrames = sequenceFrames - overlapFrames;
+        System.arraycopy(input, (offset + overlapFrames) * channels, output, outputIndex + overlapFrames * channels,
+                (hopFrames - overlapFrames) * channels);
+        outputFrames += hopFrames;
+        System.arraycopy(input, (offset + hopFrames) * channels, overlap, 0, overlapFrames * channels);
+        System.arraycopy(inputMono, offset + hopFrames, overlapMono, 0, overlapFrames);
+        primed = true;
+
+        double skip = speed * hopFrames + skipRemainder;
+        int skipFrames = (int) skip;
+        skipRemainder = skip - skipFrames;
+        consumeInput(skipFrames);
+    }
+
+    /**
+     * Find where, in the seek window, the input best continues the end of the previous segment.
+     *
+     * @return The offset in frames from the nominal position.
+     */
+    private int findBestOffset() {
+        int bestOffset = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int offset = 0; offset < seekFrames; offset += quality.getCoarseStep()) {
+            double score = similarity(offset);
+            if (score > bestScore) {
+                bestScore = score;
+                bestOffset = offset;
+            }
+        }
+        int radius = quality.getRefineRadius();
+        int coarseOffset = bestOffset;
+        for (int offset = Math.max(0, coarseOffset - radius); offset <= Math.min(seekFrames - 1, coarseOffset + radius); offset++) {
+            if (offset != coarseOffset) {
+                double score = similarity(offset);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestOffset = offset;
+                }
+            }
+        }
+        return bestOffset;
+    }
+
+    /**
+     * Normalized cross-correlation between the previous overlap and the input at the given offset.
+     */
+    private double similarity(int offset) {
+        double product = 0;
+        double energy = 0;
+        for (int frame = 0; frame < overlapFrames; frame++) {
+            float sample = inputMono[offset + frame];
+            product += overlapMono[frame] * sample;
+            energy += sample * sample;
+        }
+        return product / Math.sqrt(energy + 1e-9);
+    }
+
+    private void consumeInput(int frames) {
+        int consumed = Math.min(frames, inputFrames);
+        inputFrames -= consumed;
+        System.arraycopy(input, consumed * channels, input, 0, inputFrames * channels);
+        System.arraycopy(inputMono, consumed, inputMono, 0, inputFrames);
+    }
+}
@@ -0,0 +1,58 @@
+package musicApp.audio;
+
+/**
+ * Header of a 16-bit PCM WAV file.
+ */
+public final class WavHeader {
+
+    public static final int SIZE = 44;
+    public static final int BYTES_PER_SAMPLE = 2;
+    // The sizes of a WAV file are 32-bit unsigned integers
+    public static final long MAX_DATA_BYTES = 0xFFFFFFFFL - SIZE + 8;
+
+    private WavHeader() {
+    }
+
+    /**
+     * Create the header of a 16-bit PCM WAV file.
+     *
+     * @param sampleRate The sample rate in Hz.
+     * @param channels   The number of channels.
+     * @param dataBytes  The size of the samples following the header, at most {@link #MAX_DATA_BYTES}.
+     * @return The header, {@link #SIZE} bytes long.
+     */
+    public static byte[] create(int sampleRate, int channels, long dataBytes) {
+        byte[] header = new byte[SIZE];
+        writeAscii(header, 0, "RIFF");
+        writeInt(header, 4, (int) (dataBytes + SIZE - 8));
+        writeAscii(header, 8, "WAVE");
+        writeAscii(header, 12, "fmt ");
+        writeInt(header, 16, 16);
+        // PCM format
+        writeShort(header, 20, 1);
+        writeShort(header, 22, channels);
+        writeInt(header, 24, sampleRate);
+        writeInt(header, 28, sampleRate * channels * BYTES_PER_SAMPLE);
+        writeShort(header, 32, channels * BYTES_PER_SAMPLE);
+        writeShort(header, 34, BYTES_PER_SAMPLE * 8);
+        writeAscii(header, 36, "data");
+        writeInt(header, 40, (int) dataBytes);
+        return header;
+    }
+
+    private static void writeAscii(byte[] destination, int offset, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            destination[offset + i] = (byte) text.charAt(i);
+        }
+    }
+
+    private static void writeInt(byte[] destination, int offset, int value) {
+        writeShort(destination, offset, value);
+        writeShort(destination, offset + 2, value >> 16);
+    }
+
+    private static void writeShort(byte[] destination, int offset, int value) {
+        destination[offset] = (byte) value;
+        destination[offset + 1] = (byte) (value >> 8);
+    }
+}
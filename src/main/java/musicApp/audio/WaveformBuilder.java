@@ -0,0 +1,78 @@
+package musicApp.audio;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * WaveformBuilder
+ * Accumulates the peaks of interleaved audio block by block, while it is decoded for another purpose or on its own.
+ */
+public class WaveformBuilder {
+
+    private final int sampleRate;
+    private final int channels;
+    private final ByteArrayOutputStream baseLevel;
+    private long totalFrames;
+    private int bucketPosition;
+    private float bucketMinimum;
+    private float bucketMaximum;
+
+    /**
+     * Instantiates a new builder.
+     *
+     * @param _sampleRate The sample rate of the audio.
+     * @param _channels   The number of interleaved channels, mixed together in the peaks.
+     */
+    public WaveformBuilder(int _sampleRate, int _channels) {
+        sampleRate = _sampleRate;
+        channels = _channels;
+        baseLevel = new ByteArrayOutputStream();
+        resetBucket();
+    }
+
+    /**
+     * Add a block of samples.
+     *
+     * @param samples     The interleaved samples.
+     * @param offsetFrame The offset of the first frame.
+     * @param frames      The number of frames.
+     */
+    public void process(float[] samples, int offsetFrame, int frames) {
+        int end = (offsetFrame + frames) * channels;
+        for (int i = offsetFrame * channels; i < end; i++) {
+            bucketMinimum = Math.min(bucketMinimum, samples[i]);
+            bucketMaximum = Math.max(bucketMaximum, samples[i]);
+            if ((i + 1) % channels == 0 && ++bucketPosition == WaveformPeaks.BASE_BUCKET_FRAMES) {
+                endBucket();
+            }
+        }
+        totalFrames += frames;
+    }
+
+    /**
+     * Get the peaks of everything added so far.
+     *
+     * @return The peaks.
+     */
+    public WaveformPeaks build() {
+        if (bucketPosition > 0) {
+            endBucket();
+        }
+        return WaveformPeaks.fromBaseLevel(sampleRate, totalFrames, baseLevel.toByteArray());
+    }
+
+    private void endBucket() {
+        baseLevel.write(quantize(bucketMinimum));
+        baseLevel.write(quantize(bucketMaximum));
+        resetBucket();
+    }
+
+    private void resetBucket() {
+        bucketPosition = 0;
+        bucketMinimum = Float.MAX_VALUE;
+        bucketMaximum = -Float.MAX_VALUE;
+    }
+
+    private static byte quantize(float amplitude) {
+        return (byte) Math.round(Math.max(-1f, Math.min(1f, amplitude)) * 127);
+    }
+}
@@ -0,0 +1,157 @@
+package musicApp.audio;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * WaveformPeaks
+ * Minimum and maximum amplitude of a song per bucket of frames, at several zoom levels.
+ * Level 0 has one bucket per {@link #BASE_BUCKET_FRAMES} frames, and every following level merges two buckets,
+ * so any width can be drawn from a level with between one and two buckets per pixel.
+ * Amplitudes are quantized to signed bytes, which keeps the file of a 10-minute song around 50 KB
+ * (only the finest level is stored, about twice that in memory with every level).
+ */
+public class WaveformPeaks {
+
+    public static final int BASE_BUCKET_FRAMES = 1024;
+
+    private static final int MAGIC = 0x445A5746; // "DZWF"
+    private static final int VERSION = 1;
+    private static final int MIN_LEVEL_BUCKETS = 64;
+
+    private final int sampleRate;
+    private final long totalFrames;
+    // Per level, interleaved minimum and maximum of each bucket
+    private final byte[][] levels;
+
+    WaveformPeaks(int _sampleRate, long _totalFrames, byte[][] _levels) {
+        sampleRate = _sampleRate;
+        totalFrames = _totalFrames;
+        levels = _levels;
+    }
+
+    /**
+     * Build the coarser levels from the finest one.
+     *
+     * @param sampleRate  The sample rate of the song.
+     * @param totalFrames The number of frames of the song.
+     * @param baseLevel   The interleaved minimum and maximum of each base bucket.
+     * @return The peaks at every level.
+     */
+    static WaveformPeaks fromBaseLevel(int sampleRate, long totalFrames, byte[] baseLevel) {
+        int levelCount = 1;
+        for (int buckets = baseLevel.length / 2; buckets / 2 >= MIN_LEVEL_BUCKETS; buckets /= 2) {
+            levelCount++;
+        }
+        byte[][] levels = new byte[levelCount][];
+        levels[0] = baseLevel;
+        for (int level = 1; level < levelCount; level++) {
+            byte[] finer = levels[level - 1];
+            byte[] coarser = new byte[(finer.length / 2 + 1) / 2 * 2];
+            for (int bucket = 0; bucket < coarser.length / 2; bucket++) {
+                int first = 4 * bucket;
+                int second = Math.min(first + 2, finer.length - 2);
+                coarser[2 * bucket] = (byte) Math.min(finer[first], finer[second]);
+                coarser[2 * bucket + 1] = (byte) Math.max(finer[first + 1], finer[second + 1]);
+            }
+            levels[level] = coarser;
+        }
+        return new WaveformPeaks(sampleRate, totalFrames, levels);
+    }
+
+    public double getDurationSeconds() {
+        return (double) totalFrames / sampleRate;
+    }
+
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    /**
+     * Get the number of buckets of a level.
+     *
+     * @param level The level, 0 being the finest.
+     * @return The number of buckets.
+     */
+    public int getBucketCount(int level) {
+        return levels[level].length / 2;
+    }
+
+    /**
+     * Compute the minimum and maximum amplitude of each pixel column, between -1 and 1.
+     * The coarsest level with at least one bucket per pixel is used, so the cost only depends on the width.
+     *
+     * @param minimums The minimum of each column, filled for the first {@code width} columns.
+     * @param maximums The maximum of each column, filled for the first {@code width} columns.
+     * @param width    The number of columns.
+     */
+    public void render(float[] minimums, float[] maximums, int width) {
+        int level = levels.length - 1;
+        while (level > 0 && getBucketCount(level) < width) {
+            level--;
+        }
+        byte[] peaks = levels[level];
+        int buckets = peaks.length / 2;
+        for (int column = 0; column < width; column++) {
+            int from = (int) ((long) column * buckets / width);
+            int to = Math.max(from + 1, (int) ((long) (column + 1) * buckets / width));
+            int minimum = Byte.MAX_VALUE;
+            int maximum = Byte.MIN_VALUE;
+            for (int bucket = from; bucket < to && bucket < buckets; bucket++) {
+                minimum = Math.min(minimum, peaks[2 * bucket]);
+                maximum = Math.max(maximum, peaks[2 * bucket + 1]);
+            }
+            if (minimum > maximum) {
+                minimum = 0;
+                maximum = 0;
+            }
+            minimums[column] = minimum / 127f;
+            maximums[column] = maximum / 127f;
+        }
+    }
+
+    /**
+     * Write the peaks to a binary file. Only the finest level is stored, the others are rebuilt on reading.
+     *
+     * @param file The destination file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(sampleRate);
+            output.writeLong(totalFrames);
+            output.writeInt(levels[0].length);
+            output.write(levels[0]);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Read peaks written by {@link #write(Path)}.
+     *
+     * @param file The peaks file.
+     * @return The peaks.
+     * @throws IOException if the file cannot be read or is not a peaks file.
+     */
+    public static WaveformPeaks read(Path file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Not a waveform file: " + file);
+            }
+            int sampleRate = input.readInt();
+            long totalFrames = input.readLong();
+            int length = input.readInt();
+            if (length < 0 || length % 2 != 0) {
+                throw new IOException("Corrupted waveform file: " + file);
+            }
+            byte[] baseLevel = new byte[length];
+            input.readFully(baseLevel);
+            return fromBaseLevel(sampleRate, totalFrames, baseLevel);
+        }
+    }
+}
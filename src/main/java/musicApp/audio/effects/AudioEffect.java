@@ -0,0 +1,58 @@
+package musicApp.audio.effects;
+
+import java.util.List;
+
+/**
+ * AudioEffect
+ * Service interface of the effects run by the PCM engine, discovered with {@link java.util.ServiceLoader}.
+ * An implementation needs a public no-argument constructor and must be declared as a provider,
+ * in module-info.java and in META-INF/services, to be found.
+ * Its lifecycle is: {@link #prepare} once with the stream format, then {@link #process} on every block,
+ * {@link #reset} after a seek, and {@link #release} when it is removed.
+ * {@link #process} and {@link #reset} are called on the output thread: they must not block nor allocate memory.
+ */
+public interface AudioEffect {
+
+    /**
+     * Get the name of the effect, shown to the user unless the application has a translation for it.
+     *
+     * @return The name.
+     */
+    String getName();
+
+    /**
+     * Get the parameters of the effect, which can be changed from any thread while it is running.
+     *
+     * @return The parameters, in display order.
+     */
+    List<EffectParameter> getParameters();
+
+    /**
+     * Allocate what the effect needs for a stream format.
+     *
+     * @param sampleRate     The sample rate.
+     * @param channels       The number of interleaved channels.
+     * @param maxBlockFrames The maximum number of frames processed at once.
+     */
+    void prepare(int sampleRate, int channels, int maxBlockFrames);
+
+    /**
+     * Process a block of interleaved samples in place.
+     *
+     * @param samples     The interleaved samples.
+     * @param offsetFrame The offset of the first frame.
+     * @param frames      The number of frames.
+     */
+    void process(float[] samples, int offsetFrame, int frames);
+
+    /**
+     * Clear the state of the effect, e.g. the memories of its filters after a seek.
+     */
+    void reset();
+
+    /**
+     * Free what the effect allocated.
+     */
+    default void release() {
+    }
+}
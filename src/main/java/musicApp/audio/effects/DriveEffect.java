@@ -0,0 +1,68 @@
+package musicApp.audio.effects;
+
+import java.util.List;
+
+/**
+ * DriveEffect
+ * Saturates the audio through a soft clipping curve, which warms it up at low drive and distorts it at high drive.
+ * The curve is normalized so that a full scale sample stays at full scale.
+ */
+public class DriveEffect implements AudioEffect {
+
+    private static final double MAX_DRIVE_DB = 24;
+
+    private final EffectParameter drive;
+    private final EffectParameter mix;
+    private int channels;
+    private double appliedGain;
+    private double appliedMix;
+
+    public DriveEffect() {
+        drive = new EffectParameter("Drive (dB)", 0, MAX_DRIVE_DB, 0);
+        mix = new EffectParameter("Mix", 0, 1, 1);
+    }
+
+    @Override
+    public String getName() {
+        return "Drive";
+    }
+
+    @Override
+    public List<EffectParameter> getParameters() {
+        return List.of(drive, mix);
+    }
+
+    @Override
+    public void prepare(int sampleRate, int _channels, int maxBlockFrames) {
+        channels = _channels;
+        reset();
+    }
+
+    @Override
+    public void process(float[] samples, int offsetFrame, int frames) {
+        double startGain = appliedGain;
+        double endGain = Math.pow(10, drive.getValue() / 20);
+        double startMix = appliedMix;
+        double endMix = mix.getValue();
+        for (int frame = 0; frame < frames; frame++) {
+            // Ramp the parameter changes over the block, so that they do not click
+            double progress = (double) (frame + 1) / frames;
+            double gain = startGain + (endGain - startGain) * progress;
+            double wet = startMix + (endMix - startMix) * progress;
+            double normalization = 1 / Math.tanh(gain);
+            int offset = (offsetFrame + frame) * channels;
+            for (int i = offset; i < offset + channels; i++) {
+                double dry = samples[i];
+                samples[i] = (float) (dry + (Math.tanh(dry * gain) * normalization - dry) * wet);
+            }
+        }
+        appliedGain = endGain;
+        appliedMix = endMix;
+    }
+
+    @Override
+    public void reset() {
+        appliedGain = Math.pow(10, drive.getValue() / 20);
+        appliedMix = mix.getValue();
+    }
+}
@@ -0,0 +1,213 @@
+package musicApp.audio.effects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * EffectChain
+ * Ordered chain of {@link AudioEffect}s run in place over the blocks of the output thread.
+ * Effects can be added, removed and enabled from any thread: the chain is an array replaced on every change,
+ * so processing a block only reads it and allocates nothing.
+ * The CPU time of every effect is measured, as a share of the real time duration of the blocks it processed.
+ */
+public class EffectChain {
+
+    // Weight of the last block in the average CPU load
+    private static final double LOAD_SMOOTHING = 0.05;
+
+    private final int sampleRate;
+    private final int channels;
+    private final int maxBlockFrames;
+    private volatile Slot[] slots;
+
+    /**
+     * An effect of the chain with its state.
+     */
+    private static class Slot {
+        private final AudioEffect effect;
+        private volatile boolean enabled;
+        private volatile double cpuLoad;
+        // Whether the effect ran on the previous block, owned by the output thread
+        private boolean running;
+
+        private Slot(AudioEffect _effect) {
+            effect = _effect;
+        }
+    }
+
+    /**
+     * Instantiates an empty chain for a stream format.
+     *
+     * @param _sampleRate     The sample rate.
+     * @param _channels       The number of interleaved channels.
+     * @param _maxBlockFrames The maximum number of frames processed at once.
+     */
+    public EffectChain(int _sampleRate, int _channels, int _maxBlockFrames) {
+        sampleRate = _sampleRate;
+        channels = _channels;
+        maxBlockFrames = _maxBlockFrames;
+        slots = new Slot[0];
+    }
+
+    /**
+     * Instantiates a chain of every effect provided to the application, in the order they are discovered.
+     * They are disabled until they are enabled, e.g. when one of their parameters is changed.
+     *
+     * @param sampleRate     The sample rate.
+     * @param channels       The number of interleaved channels.
+     * @param maxBlockFrames The maximum number of frames processed at once.
+     * @return The chain.
+     */
+    public static EffectChain loadInstalled(int sampleRate, int channels, int maxBlockFrames) {
+        EffectChain chain = new EffectChain(sampleRate, channels, maxBlockFrames);
+        for (ServiceLoader.Provider<AudioEffect> provider : ServiceLoader.load(AudioEffect.class).stream().toList()) {
+            try {
+                chain.add(provider.get());
+            } catch (Exception | ServiceConfigurationError e) {
+                System.err.println("Failed to load the audio effect " + provider.type().getName() + ": " + e.getMessage());
+            }
+        }
+        return chain;
+    }
+
+    /**
+     * Prepare an effect and add it, disabled, at the end of the chain.
+     *
+     * @param effect The effect.
+     */
+    public synchronized void add(AudioEffect effect) {
+        effect.prepare(sampleRate, channels, maxBlockFrames);
+        Slot[] newSlots = Arrays.copyOf(slots, slots.length + 1);
+        newSlots[slots.length] = new Slot(effect);
+        slots = newSlots;
+    }
+
+    /**
+     * Remove an effect from the chain and release it.
+     *
+     * @param effect The effect.
+     */
+    public synchronized void remove(AudioEffect effect) {
+        int index = indexOf(effect);
+        if (index < 0) {
+            return;
+        }
+        Slot[] newSlots = new Slot[slots.length - 1];
+        System.arraycopy(slots, 0, newSlots, 0, index);
+        System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+        slots = newSlots;
+        effect.release();
+    }
+
+    /**
+     * Get the effects of the chain.
+     *
+     * @return A copy of the effects, in processing order.
+     */
+    public List<AudioEffect> getEffects() {
+        Slot[] current = slots;
+        List<AudioEffect> effects = new ArrayList<>(current.length);
+        for (Slot slot : current) {
+            effects.add(slot.effect);
+        }
+        return effects;
+    }
+
+    /**
+     * Enable or bypass an effect. An effect is reset when it is enabled again, so that it starts clean.
+     *
+     * @param effect  The effect.
+     * @param enabled true to run it.
+     */
+    public void setEnabled(AudioEffect effect, boolean enabled) {
+        Slot slot = getSlot(effect);
+        if (slot != null) {
+            slot.enabled = enabled;
+        }
+    }
+
+    public boolean isEnabled(AudioEffect effect) {
+        Slot slot = getSlot(effect);
+        return slot != null && slot.enabled;
+    }
+
+    /**
+     * Get the average CPU time an effect takes, compared to the duration of the audio it processes.
+     *
+     * @param effect The effect.
+     * @return The load, e.g. 0.01 for 1% of the real time.
+     */
+    public double getCpuLoad(AudioEffect effect) {
+        Slot slot = getSlot(effect);
+        return slot == null ? 0 : slot.cpuLoad;
+    }
+
+    /**
+     * Run the enabled effects in order over a block. Called on the output thread.
+     *
+     * @param samples     The interleaved samples.
+     * @param offsetFrame The offset of the first frame.
+     * @param frames      The number of frames, at most the maximum block size.
+     */
+    public void process(float[] samples, int offsetFrame, int frames) {
+        Slot[] current = slots;
+        double blockNanos = frames * 1e9 / sampleRate;
+        for (int i = 0; i < current.length; i++) {
+            Slot slot = current[i];
+            if (!slot.enabled) {
+                slot.running = false;
+                continue;
+            }
+            if (!slot.running) {
+                slot.effect.reset();
+                slot.running = true;
+            }
+            long start = System.nanoTime();
+            slot.effect.process(samples, offsetFrame, frames);
+            double load = (System.nanoTime() - start) / blockNanos;
+            slot.cpuLoad += (load - slot.cpuLoad) * LOAD_SMOOTHING;
+        }
+    }
+
+    /**
+     * Reset every effect, e.g. after a seek. Called on the output thread.
+     */
+    public void reset() {
+        Slot[] current = slots;
+        for (int i = 0; i < current.length; i++) {
+            current[i].effect.reset();
+        }
+    }
+
+    /**
+     * Remove and release every effect.
+     */
+    public synchronized void release() {
+        Slot[] current = slots;
+        slots = new Slot[0];
+        for (Slot slot : current) {
+            slot.effect.release();
+        }
+    }
+
+    private int indexOf(AudioEffect effect) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i].effect == effect) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Slot getSlot(AudioEffect effect) {
+        for (Slot slot : slots) {
+            if (slot.effect == effect) {
+                return slot;
+            }
+        }
+        return null;
+    }
+}
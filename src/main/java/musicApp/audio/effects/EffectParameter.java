@@ -0,0 +1,68 @@
+package musicApp.audio.effects;
+
+/**
+ * EffectParameter
+ * A parameter of an {@link AudioEffect}, set by the control thread and read by the output thread.
+ */
+public class EffectParameter {
+
+    private final String name;
+    private final double minValue;
+    private final double maxValue;
+    private final double defaultValue;
+    private volatile double value;
+
+    /**
+     * Instantiates a parameter set to its default value.
+     *
+     * @param _name         The name shown to the user.
+     * @param _minValue     The minimum value.
+     * @param _maxValue     The maximum value.
+     * @param _defaultValue The default value, for which the effect usually does nothing.
+     */
+    public EffectParameter(String _name, double _minValue, double _maxValue, double _defaultValue) {
+        name = _name;
+        minValue = _minValue;
+        maxValue = _maxValue;
+        defaultValue = _defaultValue;
+        value = _defaultValue;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getMinValue() {
+        return minValue;
+    }
+
+    public double getMaxValue() {
+        return maxValue;
+    }
+
+    public double getDefaultValue() {
+        return defaultValue;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Set the value. Can be called from any thread.
+     *
+     * @param newValue The value, clamped to the range of the parameter.
+     */
+    public void setValue(double newValue) {
+        value = Math.max(minValue, Math.min(maxValue, newValue));
+    }
+
+    /**
+     * Check whether the parameter is at its default value.
+     *
+     * @return true if the value is the default one.
+     */
+    public boolean isDefault() {
+        return value == defaultValue;
+    }
+}
@@ -0,0 +1,59 @@
+package musicApp.audio.effects;
+
+import java.util.List;
+
+/**
+ * StereoWidthEffect
+ * Widens or narrows the stereo image by scaling the side signal (left - right) against the mid signal.
+ * A width of 0 plays the song in mono, 1 leaves it untouched and 2 doubles the side signal.
+ */
+public class StereoWidthEffect implements AudioEffect {
+
+    private final EffectParameter width;
+    private int channels;
+    private double appliedWidth;
+
+    public StereoWidthEffect() {
+        width = new EffectParameter("Width", 0, 2, 1);
+    }
+
+    @Override
+    public String getName() {
+        return "Stereo width";
+    }
+
+    @Override
+    public List<EffectParameter> getParameters() {
+        return List.of(width);
+    }
+
+    @Override
+    public void prepare(int sampleRate, int _channels, int maxBlockFrames) {
+        channels = _channels;
+        appliedWidth = width.getValue();
+    }
+
+    @Override
+    public void process(float[] samples, int offsetFrame, int frames) {
+        if (channels != 2) {
+            return;
+        }
+        double startWidth = appliedWidth;
+        double endWidth = width.getValue();
+        for (int frame = 0; frame < frames; frame++) {
+            // Ramp the width changes over the block, so that they do not click
+            double frameWidth = startWidth + (endWidth - startWidth) * (frame + 1) / frames;
+            int i = (offsetFrame + frame) * 2;
+            double mid = (samples[i] + samples[i + 1]) * 0.5;
+            double side = (samples[i] - samples[i + 1]) * 0.5 * frameWidth;
+            samples[i] = (float) (mid + side);
+            samples[i + 1] = (float) (mid - side);
+        }
+        appliedWidth = endWidth;
+    }
+
+    @Override
+    public void reset() {
+        appliedWidth = width.getValue();
+    }
+}
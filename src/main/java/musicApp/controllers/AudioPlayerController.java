@@ -3,151 +3,237 @@ package musicApp.controllers;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.StringProperty;
-import javafx.scene.control.Alert;
-import javafx.scene.media.*;
+import javafx.scene.media.AudioSpectrumListener;
 import javafx.util.Duration;
+import musicApp.audio.AutomationCurve;
+import musicApp.audio.DjMixer;
+import musicApp.audio.MixRenderer;
+import musicApp.audio.SourceDataLineSink;
+import musicApp.audio.effects.EffectChain;
+import musicApp.enums.CrossfadeCurve;
 import musicApp.exceptions.BadSongException;
 import musicApp.exceptions.EqualizerGainException;
+import musicApp.models.AudioAnalysis;
 import musicApp.models.AudioPlayer;
 import musicApp.models.Song;
-import musicApp.services.AlertService;
+import musicApp.services.AudioAnalysisService;
 
 import java.util.List;
 import java.util.function.Supplier;
 
-public class AudioPlayerController {
+/**
+ * AudioPlayerController
+ * Plays the songs of the player on an audio backend.
+ * The transition to the next song is decided here: the next song is prepared ahead of time and crossfaded in
+ * once the loaded song reaches its crossfade start. How a song is played, prepared and crossfaded is left
+ * to the backends.
+ */
+public abstract class AudioPlayerController {
 
-    private final AudioPlayer audioPlayer;
-    private final AudioSpectrumListener audioSpectrumListener;
-    private MediaPlayer mediaPlayer;
-    private MediaPlayer transitionPlayer;
+    /**
+     * System property selecting the playback backend: "pcm" for the FFmpeg-based engine, JavaFX media otherwise.
+     */
+    public static final String BACKEND_PROPERTY = "deezify.audio";
 
-    public AudioPlayerController(AudioSpectrumListener _audioSpectrumListener) {
-        mediaPlayer = null;
-        audioSpectrumListener = _audioSpectrumListener;
+    protected final AudioPlayer audioPlayer;
+    // Next song prepared by the backend, for gapless playback or as the incoming song of a crossfade
+    private Song preparedSong;
+    private boolean nextSongRequested;
+    private Runnable endOfMediaAction;
+    // Analysis of the loaded song, looked up once per song since checking it reads the file attributes
+    private Song analysedSong;
+    private AudioAnalysis loadedAnalysis;
+
+    protected AudioPlayerController() {
         audioPlayer = new AudioPlayer();
     }
 
     /**
-     * Load a song into the player.
+     * Create the audio player controller of the backend selected by the {@link #BACKEND_PROPERTY} system property.
+     * Falls back to the JavaFX media backend if the PCM output cannot be opened.
      *
-     * @param song The song to load.
+     * @param _audioSpectrumListener The listener of the spectrum data.
+     * @return The audio player controller.
      */
-    public void loadSong(Song song) throws BadSongException {
-        if (mediaPlayer != null) {
-            mediaPlayer.stop();
-        }
-        audioPlayer.loadSong(song);
-
-        Media media = new Media(song.getSource());
-        mediaPlayer = new MediaPlayer(media);
-
-        mediaPlayer.volumeProperty().bind(audioPlayer.getVolumeProperty());
-        mediaPlayer.setBalance(audioPlayer.getBalance());
-        mediaPlayer.setRate(audioPlayer.getSpeed());
-        mediaPlayer.setAudioSpectrumListener(audioSpectrumListener);
-        mediaPlayer.setAudioSpectrumInterval(audioPlayer.getAudioSpectrumInterval());
-        mediaPlayer.setOnReady(() -> {
-            audioPlayer.setLoaded();
+    public static AudioPlayerController create(AudioSpectrumListener _audioSpectrumListener) {
+        if ("pcm".equalsIgnoreCase(System.getProperty(BACKEND_PROPERTY))) {
             try {
-                applyEqualizerBandsGain();
-            } catch (EqualizerGainException e) {
-                AlertService alertService = new AlertService();
-                alertService.showExceptionAlert(e, Alert.AlertType.ERROR);
+                return new PcmAudioPlayerController(_audioSpectrumListener, new SourceDataLineSink());
+            } catch (Exception e) {
+                System.err.println("PCM audio backend unavailable, using JavaFX media: " + e.getMessage());
             }
-        });
-        if (audioPlayer.isTransitioning()) {
-            mediaPlayer.setOnReady(() -> {
-                mediaPlayer.seek(transitionPlayer.getCurrentTime());
-                audioPlayer.setTransitioning(false);
-                if (transitionPlayer != null) {
-                    transitionPlayer.stop();
-                    transitionPlayer = null;
-                }
-            });
         }
-        // Update the progression property while playing
-        setupProgressListener();
-        setTransition();
+        return new MediaAudioPlayerController(_audioSpectrumListener);
     }
 
     /**
-     * Set up the transition between songs.
+     * Load a song into the player.
+     * If the song is the prepared one, the backend keeps playing it instead of starting it again.
+     *
+     * @param song The song to load.
      */
-    private void setTransition() {
-        mediaPlayer.currentTimeProperty().addListener((_, _, newValue)
-                -> this.transitionHandler(newValue));
+    public abstract void loadSong(Song song) throws BadSongException;
+
+    /**
+     * Prepare the next song, so that it can start right when the loaded song ends or be crossfaded in.
+     *
+     * @param song The next song.
+     * @throws BadSongException if the source of the song is invalid.
+     */
+    protected abstract void prepareSong(Song song) throws BadSongException;
+
+    /**
+     * Release the song prepared by the backend, if any.
+     */
+    protected abstract void discardPreparedSong();
+
+    /**
+     * Start the prepared song and fade both songs into each other.
+     * Once the crossfade is over, the end-of-media action has to run, so the prepared song is adopted by loadSong.
+     *
+     * @param duration      The length of the crossfade in seconds.
+     * @param preparedStart The time at which the prepared song starts, in seconds.
+     */
+    protected abstract void startCrossfade(double duration, double preparedStart);
+
+    /**
+     * Send to the backend the equalizer bands changed since the last time.
+     *
+     * @throws EqualizerGainException if the backend has no equalizer.
+     */
+    protected abstract void applyEqualizerBandsGain() throws EqualizerGainException;
+
+    /**
+     * Forget the transition of the previous song, once a new song is loaded.
+     */
+    protected void resetTransition() {
+        preparedSong = null;
+        nextSongRequested = false;
+        audioPlayer.setTransitioning(false);
     }
 
     /**
-     * Handle the transition between songs.
+     * Prepare the next song and start the crossfade into it when it is time.
+     * Called by the backends as the loaded song plays.
      *
-     * @param progress The current progress of the song.
+     * @param position The position in the loaded song, in seconds.
+     * @param duration The duration of the loaded song, in seconds.
      */
-    private void transitionHandler(Duration progress) {
-        Duration totalDuration = mediaPlayer.getTotalDuration();
-        if (totalDuration == null) return;
-        double remainingTime = totalDuration.toSeconds() - progress.toSeconds();
-        if (remainingTime <= audioPlayer.getCrossfadeDuration() && !audioPlayer.isTransitioning()) {
+    protected void updateTransition(double position, double duration) {
+        double remainingTime = duration - position;
+        double crossfadeDuration = Math.max(0, audioPlayer.getCrossfadeDuration());
+        double crossfadeStart = getCrossfadeStart(duration, crossfadeDuration);
+        if (!nextSongRequested && crossfadeStart - position <= audioPlayer.getGaplessPreloadWindow()) {
+            prepareNextSong();
+        }
+        if (crossfadeDuration > 0 && position >= crossfadeStart && remainingTime > 0
+                && !audioPlayer.isTransitioning() && preparedSong != null) {
             audioPlayer.setTransitioning(true);
-            if (transitionPlayer == null) {
-                try {
-                    Song nextSong = audioPlayer.getNextSongSupplier();
-                    Media nextMedia = new Media(nextSong.getSource());
-                    transitionPlayer = new MediaPlayer(nextMedia);
-                } catch (BadSongException e) {
-                    audioPlayer.setTransitioning(false);
-                    return;
-                }
-            }
-            transitionPlayer.play();
+            startCrossfade(Math.min(crossfadeDuration, remainingTime), getCrossfadeInStart(preparedSong));
         }
-        if (audioPlayer.isTransitioning()) {
-            double crossfadeDuration = audioPlayer.getCrossfadeDuration();
-            double fadeInVolume = audioPlayer.getVolumeProperty().get() * ((crossfadeDuration - remainingTime) / crossfadeDuration);
-            transitionPlayer.setVolume(fadeInVolume);
+    }
+
+    /**
+     * Resolve the next song and have the backend prepare it.
+     * The next song is requested only once per loaded song.
+     */
+    private void prepareNextSong() {
+        nextSongRequested = true;
+        try {
+            Song nextSong = audioPlayer.getNextSongSupplier();
+            if (nextSong != null) {
+                prepareSong(nextSong);
+                preparedSong = nextSong;
+            }
+        } catch (Exception e) {
+            // Not fatal: the next song will simply be loaded when the current one ends
+            System.err.println("Failed to prepare the next song: " + e.getMessage());
+            discardPreparedSong();
+            preparedSong = null;
         }
     }
 
     /**
-     * Set the next song supplier.
+     * Get the next song prepared by the backend.
      *
-     * @param _nextSongSupplier The next song supplier, which is a function that returns a Song.
+     * @return The prepared song, or null if none.
      */
-    public void setNextSongSupplier(Supplier<Song> _nextSongSupplier) {
-        audioPlayer.setNextSongSupplier(_nextSongSupplier);
+    protected Song getPreparedSong() {
+        return preparedSong;
     }
 
     /**
-     * Set up a listener to update the progress property.
+     * Run the action set for the end of the loaded song.
      */
-    private void setupProgressListener() {
-        mediaPlayer.currentTimeProperty().addListener((_, _, newTime) -> {
-            if (mediaPlayer.getTotalDuration().greaterThan(Duration.ZERO)) {
-                audioPlayer.setProgress(newTime.toSeconds() / mediaPlayer.getTotalDuration().toSeconds());
-            } else {
-                audioPlayer.setProgress(0.0);
-            }
-        });
+    protected void runEndOfMediaAction() {
+        if (endOfMediaAction != null) {
+            endOfMediaAction.run();
+        }
     }
 
     /**
-     * Apply the equalizer bands gain to the media player.
+     * Get the time at which the crossfade into the next song starts.
+     * If the cue points of the song are known, the crossfade starts at its outro and ends before its trailing silence.
+     * If the beat grid of the song is known, the crossfade starts on the downbeat of a bar,
+     * even if it cuts the end of the song, so that both songs are mixed in phrase.
+     *
+     * @param totalSeconds      The duration of the loaded song.
+     * @param crossfadeDuration The duration of the crossfade, 0 if disabled.
+     * @return The crossfade start in seconds, the end of the song if the crossfade is disabled.
      */
-    private void applyEqualizerBandsGain() throws EqualizerGainException {
-        AudioEqualizer audioEqualizer = mediaPlayer.getAudioEqualizer();
-        if (audioEqualizer == null) {
-            throw new EqualizerGainException("No audio equalizer available");
+    protected double getCrossfadeStart(double totalSeconds, double crossfadeDuration) {
+        double start = totalSeconds - crossfadeDuration;
+        if (crossfadeDuration <= 0) {
+            return start;
         }
-        int equalizerBandsGainSize = audioPlayer.getEqualizerBandsGainSize();
-        for (int bandIndex = 0; bandIndex < equalizerBandsGainSize; bandIndex++) {
-            EqualizerBand bandToSet = audioEqualizer.getBands().get(bandIndex);
-            double gain = audioPlayer.getEqualizerBandGain(bandIndex);
-            bandToSet.setGain(gain);
+        AudioAnalysis analysis = getLoadedSongAnalysis();
+        if (analysis == null) {
+            return start;
         }
+        return analysis.getBarStartBefore(analysis.getCrossfadeStart(totalSeconds, crossfadeDuration));
     }
 
-    public List<Double> getEqualizerBandsGain() {
+    /**
+     * Get the time at which a song starts when it is crossfaded in, skipping its leading silence.
+     *
+     * @param song The incoming song.
+     * @return The start in seconds, 0 if the song is not analysed yet or is a radio.
+     */
+    protected double getCrossfadeInStart(Song song) {
+        if (song == null || !song.isSong()) {
+            return 0;
+        }
+        return AudioAnalysisService.getInstance().getAnalysis(song.getFilePath())
+                .map(AudioAnalysis::getAudioStart)
+                .orElse(0.0);
+    }
+
+    /**
+     * Get the analysis of the loaded song, with its loudness and beat grid.
+     *
+     * @return The analysis, or null if the song is not analysed yet or is a radio.
+     */
+    public AudioAnalysis getLoadedSongAnalysis() {
+        Song song = audioPlayer.getLoadedSong();
+        if (song != analysedSong || (loadedAnalysis == null && song != null)) {
+            analysedSong = song;
+            loadedAnalysis = song != null && song.isSong()
+                    ? AudioAnalysisService.getInstance().getAnalysis(song.getFilePath()).orElse(null)
+                    : null;
+        }
+        return loadedAnalysis;
+    }
+
+    /**
+     * Set the next song supplier.
+     *
+     * @param _nextSongSupplier The next song supplier, which is a function that returns a Song.
+     */
+    public void setNextSongSupplier(Supplier<Song> _nextSongSupplier) {
+        audioPlayer.setNextSongSupplier(_nextSongSupplier);
+    }
+
+    public double[] getEqualizerBandsGain() {
         return audioPlayer.getEqualizerBandsGain();
     }
 
@@ -155,45 +241,94 @@ public class AudioPlayerController {
      * Update the equalizer bands gain.
      *
      * @param newEqualizerBandsGain The new equalizer bands gain.
+     * @throws EqualizerGainException if a gain is out of range.
      */
-    public void updateEqualizerBandsGain(List<Double> newEqualizerBandsGain) throws EqualizerGainException {
-        audioPlayer.setEqualizerBandsGain(newEqualizerBandsGain);
-        if (mediaPlayer != null) {
-            applyEqualizerBandsGain();
+    public void updateEqualizerBandsGain(double[] newEqualizerBandsGain) throws EqualizerGainException {
+        try {
+            audioPlayer.setEqualizerBandsGain(newEqualizerBandsGain);
+        } catch (IllegalArgumentException e) {
+            throw new EqualizerGainException(e.getMessage());
         }
+        applyEqualizerBandsGain();
     }
 
     /**
-     * Unpause the loaded song.
+     * Make an equalizer band follow a curve over the song position, overriding its gain until the curve is removed.
+     *
+     * @param bandIndex The index of the band.
+     * @param curve     The gain of the band in decibels, or null to go back to the gain of the band.
      */
-    public void unpause() {
-        if (mediaPlayer != null) {
-            mediaPlayer.play();
-            audioPlayer.setPlaying(true);
-        }
-    }
+    public abstract void setEqualizerAutomation(int bandIndex, AutomationCurve curve);
 
     /**
-     * Pause the loaded song.
+     * Remove the automation of every equalizer band.
+     */
+    public abstract void clearEqualizerAutomation();
+
+    /**
+     * Create a renderer of songs played one after the other with the settings of the player:
+     * its crossfade, equalizer and balance, and the loudness normalization and cue points of the songs.
+     * Radios are left out.
+     *
+     * @param songs The songs, in playing order.
+     * @return The renderer.
+     * @throws BadSongException if the source of a song is invalid.
      */
-    public void pause() {
-        if (mediaPlayer != null) {
-            mediaPlayer.pause();
-            audioPlayer.setPlaying(false);
-            if (transitionPlayer != null) {
-                transitionPlayer.pause();
+    public MixRenderer createMixRenderer(List<Song> songs) throws BadSongException {
+        MixRenderer renderer = new MixRenderer();
+        for (Song song : songs) {
+            if (song.isSong()) {
+                AudioAnalysis analysis = AudioAnalysisService.getInstance().getAnalysis(song.getFilePath()).orElse(null);
+                double gain = AudioAnalysisService.getInstance().getTrackGain(song);
+                if (analysis == null) {
+                    renderer.addTrack(song.getSource(), gain);
+                } else {
+                    renderer.addTrack(song.getSource(), gain, analysis.getAudioStart(), (totalSeconds, crossfadeDuration)
+                            -> analysis.getBarStartBefore(analysis.getCrossfadeStart(totalSeconds, crossfadeDuration)));
+                }
             }
         }
+        renderer.setCrossfade(Math.max(0, audioPlayer.getCrossfadeDuration()), audioPlayer.getCrossfadeCurve());
+        renderer.setEqualizerBandsGain(audioPlayer.getEqualizerBandsGain());
+        renderer.setBalance(audioPlayer.getBalance());
+        return renderer;
+    }
+
+    /**
+     * Get the chain of audio effects applied to the playback.
+     *
+     * @return The chain, or null if the player cannot run effects.
+     */
+    public EffectChain getEffectChain() {
+        return null;
+    }
+
+    /**
+     * Create a DJ mixer whose decks play on the output of this player, in lockstep with the loaded song,
+     * which is on the left of the crossfader of the mixer.
+     *
+     * @param deckCount The number of decks.
+     * @return The mixer, or null if the player cannot mix decks into its output.
+     */
+    public DjMixer createDjMixer(int deckCount) {
+        return null;
     }
 
+    /**
+     * Unpause the loaded song.
+     */
+    public abstract void unpause();
+
+    /**
+     * Pause the loaded song.
+     */
+    public abstract void pause();
+
     /**
      * Change speed of the loaded song.
      */
     public void changeSpeed(double newSpeed) {
         audioPlayer.setSpeed(newSpeed);
-        if (mediaPlayer != null) {
-            mediaPlayer.setRate(newSpeed);
-        }
     }
 
     /**
@@ -201,19 +336,14 @@ public class AudioPlayerController {
      *
      * @return The current time of the song.
      */
-    public Duration getCurrentTime() {
-        return (mediaPlayer != null) ? mediaPlayer.getCurrentTime() : Duration.ZERO;
-    }
+    public abstract Duration getCurrentTime();
 
     /**
      * Get the total duration of the song.
      *
      * @return The total duration of the song.
      */
-    public Duration getTotalDuration() {
-        return (mediaPlayer != null && mediaPlayer.getTotalDuration() != null)
-                ? mediaPlayer.getTotalDuration() : Duration.ZERO;
-    }
+    public abstract Duration getTotalDuration();
 
     /**
      * Get the progress of the song.
@@ -252,22 +382,11 @@ public class AudioPlayerController {
     }
 
     /**
-     * Seek to a specific progress in the song.
+     * Seek to a specific progress in the song, aborting the crossfade in progress if any.
      *
      * @param progress The progress to seek to.
      */
-    public void seek(double progress) {
-        if (mediaPlayer != null) {
-            mediaPlayer.seek(mediaPlayer.getTotalDuration().multiply(progress));
-            if (audioPlayer.isTransitioning()) {
-                audioPlayer.setTransitioning(false);
-                if (transitionPlayer != null) {
-                    transitionPlayer.stop();
-                    transitionPlayer = null;
-                }
-            }
-        }
-    }
+    public abstract void seek(double progress);
 
     /**
      * Set the action to perform when the song ends.
@@ -275,24 +394,13 @@ public class AudioPlayerController {
      * @param action The action to perform.
      */
     public void setOnEndOfMedia(Runnable action) {
-        if (mediaPlayer != null) {
-            mediaPlayer.setOnEndOfMedia(action);
-        }
+        endOfMediaAction = action;
     }
 
     /**
      * Close the player.
      */
-    public void close() {
-        if (mediaPlayer != null) {
-            mediaPlayer.dispose();
-            mediaPlayer = null;
-        }
-        if (transitionPlayer != null) {
-            transitionPlayer.dispose();
-            transitionPlayer = null;
-        }
-    }
+    public abstract void close();
 
     /**
      * Get the volume property.
@@ -310,9 +418,6 @@ public class AudioPlayerController {
      */
     public void setBalance(double newBalance) {
         audioPlayer.setBalance(newBalance);
-        if (mediaPlayer != null) {
-            mediaPlayer.setBalance(newBalance);
-        }
     }
 
     /**
@@ -323,5 +428,22 @@ public class AudioPlayerController {
     public void setCrossfadeDuration(double _crossfadeDuration) {
         audioPlayer.setCrossfadeDuration(_crossfadeDuration);
     }
-}
 
+    /**
+     * Set the gain curve used for crossfades.
+     *
+     * @param curve The crossfade curve.
+     */
+    public void setCrossfadeCurve(CrossfadeCurve curve) {
+        audioPlayer.setCrossfadeCurve(curve);
+    }
+
+    /**
+     * Set how long before the end of a song, or before its crossfade, the next one is prepared.
+     *
+     * @param seconds The preload window in seconds.
+     */
+    public void setGaplessPreloadWindow(double seconds) {
+        audioPlayer.setGaplessPreloadWindow(seconds);
+    }
+}
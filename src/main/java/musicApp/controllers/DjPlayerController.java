@@ -1,20 +1,32 @@
 package musicApp.controllers;
 
+import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import javafx.scene.media.EqualizerBand;
 import javafx.util.Duration;
+import musicApp.audio.AutomationCurve;
+import musicApp.audio.DjMixer;
+import musicApp.audio.MixerDeck;
+import musicApp.audio.SourceDataLineSink;
+import musicApp.audio.effects.AudioEffect;
+import musicApp.audio.effects.EffectChain;
+import musicApp.audio.effects.EffectParameter;
+import musicApp.enums.CrossfaderSide;
 import musicApp.enums.EqualizerBandFrequency;
 import musicApp.exceptions.BadSongException;
 import musicApp.exceptions.EqualizerGainException;
+import musicApp.models.AudioAnalysis;
 import musicApp.models.Equalizer;
 import musicApp.models.Song;
+import musicApp.services.AudioAnalysisService;
+import musicApp.services.LanguageService;
 import musicApp.views.DjPlayerView;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 
 public class DjPlayerController extends ViewController<DjPlayerView> implements DjPlayerView.DjPlayerViewListener {
@@ -25,14 +37,32 @@ public class DjPlayerController extends ViewController<DjPlayerView> implements
     private static final double NUM_BANDS = EqualizerBandFrequency.getBandsSize();
     private static final double MAX_STRENGTH = 18.0;
     private static final double MIN_BASS_BOOST = 6.0;
+    // Number of low bands raised by the bass boost
+    private static final int BASS_BANDS = 3;
+    // Bounds of the wave cycle when it is synced to the tempo of the song
+    private static final int MIN_BEATS_PER_WAVE = 1;
+    private static final int MAX_BEATS_PER_WAVE = 16;
+    private static final Duration EFFECT_LOAD_INTERVAL = Duration.millis(500);
     private final MediaPlayerController mediaPlayerController;
     private final Equalizer equalizerBackup;
     Equalizer equalizerGainMode;
     Equalizer equalizerBassBoostMode;
     Equalizer equalizerPressureMode;
-    private Timeline timeline;
+    private final Equalizer equalizerMixed;
+    // Effects provided to the audio backend, null if it cannot run them
+    private final EffectChain effectChain;
+    private final List<AudioEffect> effects;
+    // Refreshes the CPU load of the effects while the window is shown
+    private final Timeline effectLoadTimeline;
+    // Second deck, mixed into the output of the main player behind a crossfader if the audio backend allows it,
+    // played on its own output otherwise; reopened when a track is loaded on it after the window was closed
+    private DjMixer deckMixer;
+    private double deckGain = 1.0;
+    private double crossfader;
+    // Incremented when the deck is closed, so that a track still loading in the background is dropped
+    private int deckGeneration;
     // parameters for the effects
-    private double timelineSpeed;
+    private double waveSpeed;
     private double bassBoostGain;
     private double gainValue;
     private double pressureStrength;
@@ -40,6 +70,7 @@ public class DjPlayerController extends ViewController<DjPlayerView> implements
     private boolean gainModeOn = false;
     private boolean bassBoostModeOn = false;
     private boolean pressureModeOn = false;
+    private boolean waveOn = false;
 
 
     public DjPlayerController(MediaPlayerController _mediaPlayerController) {
@@ -51,24 +82,118 @@ public class DjPlayerController extends ViewController<DjPlayerView> implements
         equalizerGainMode = new Equalizer();
         equalizerBassBoostMode = new Equalizer();
         equalizerPressureMode = new Equalizer();
+        equalizerMixed = new Equalizer();
+        effectChain = mediaPlayerController.getEffectChain();
+        effects = effectChain == null ? List.of() : effectChain.getEffects();
+        addEffectSliders();
+        // Opening a mixed deck costs nothing, and tells whether the crossfader can work
+        deckMixer = mediaPlayerController.createDjMixer(1);
+        if (deckMixer != null) {
+            configureDeckMixer(deckMixer);
+        }
+        view.setCrossfaderAvailable(deckMixer != null);
+        effectLoadTimeline = new Timeline(new KeyFrame(EFFECT_LOAD_INTERVAL, _ -> refreshEffectLoads()));
+        effectLoadTimeline.setCycleCount(Animation.INDEFINITE);
+        // The tempo of the wave follows the song
+        mediaPlayerController.getCurrentSongProperty().addListener((_, _, _) -> {
+            if (isWaveRunning()) {
+                applyWaveAutomation();
+            }
+        });
     }
 
 
+    /**
+     * Adds a slider for every parameter of the installed effects, so that new effects need no change here.
+     */
+    private void addEffectSliders() {
+        for (int effectIndex = 0; effectIndex < effects.size(); effectIndex++) {
+            AudioEffect effect = effects.get(effectIndex);
+            List<EffectParameter> parameters = effect.getParameters();
+            for (int parameterIndex = 0; parameterIndex < parameters.size(); parameterIndex++) {
+                EffectParameter parameter = parameters.get(parameterIndex);
+                view.addEffectSlider(effectIndex, parameterIndex,
+                        parameter.getMinValue(), parameter.getMaxValue(), parameter.getDefaultValue());
+            }
+        }
+    }
+
+    /**
+     * Gets the name of an installed effect, translated if the application knows it.
+     *
+     * @param effectIndex the index of the effect
+     * @return the name
+     */
+    public String getEffectName(int effectIndex) {
+        String name = effects.get(effectIndex).getName();
+        return LanguageService.getInstance().getOrDefault("effect." + toKey(name), name);
+    }
+
+    /**
+     * Gets the name of a parameter of an installed effect, translated if the application knows it.
+     *
+     * @param effectIndex    the index of the effect
+     * @param parameterIndex the index of the parameter in the effect
+     * @return the name
+     */
+    public String getEffectParameterName(int effectIndex, int parameterIndex) {
+        AudioEffect effect = effects.get(effectIndex);
+        String name = effect.getParameters().get(parameterIndex).getName();
+        String key = "effect." + toKey(effect.getName()) + "." + toKey(name);
+        return LanguageService.getInstance().getOrDefault(key, name);
+    }
+
+    /**
+     * Turns a name given by an effect into a part of a translation key, e.g. stereo_width for "Stereo width".
+     *
+     * @param name the name
+     * @return the part of the key
+     */
+    private static String toKey(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_").replaceAll("^_|_$", "");
+    }
+
+    /**
+     * Shows the CPU load of the running effects.
+     */
+    private void refreshEffectLoads() {
+        for (int effectIndex = 0; effectIndex < effects.size(); effectIndex++) {
+            AudioEffect effect = effects.get(effectIndex);
+            view.setEffectLoad(effectIndex, effectChain.isEnabled(effect) ? effectChain.getCpuLoad(effect) : -1);
+        }
+    }
+
+    /**
+     * Changes a parameter of an installed effect. The effect only runs while a parameter is not at its default.
+     *
+     * @param effectIndex    the index of the effect
+     * @param parameterIndex the index of the parameter in the effect
+     * @param value          the new value
+     */
+    public void handleChangeEffectParameter(int effectIndex, int parameterIndex, double value) {
+        AudioEffect effect = effects.get(effectIndex);
+        effect.getParameters().get(parameterIndex).setValue(value);
+        boolean changed = effect.getParameters().stream().anyMatch(parameter -> !parameter.isDefault());
+        effectChain.setEnabled(effect, changed);
+    }
+
     /**
      * Toggles the bass boost mode.
      */
     public void toggleBassBoostMode() {
         double low = -3.0;
-        List<Double> bassBoostModeBands = List.of(bassBoostGain, bassBoostGain, bassBoostGain, low, low, low, low, low, low, low);
-        equalizerBassBoostMode.setBandsGain(bassBoostModeBands);
+        for (int band = 0; band < NUM_BANDS; band++) {
+            equalizerBassBoostMode.setBandGain(band, band < BASS_BANDS ? bassBoostGain : low);
+        }
     }
 
     /**
      * Toggles the gain mode.
      */
     public void toggleBoostGainMode() {
-        List<Double> gainModeBands = Collections.nCopies((int) NUM_BANDS, gainValue);
-        equalizerGainMode.setBandsGain(gainModeBands);
+        for (int band = 0; band < NUM_BANDS; band++) {
+            equalizerGainMode.setBandGain(band, gainValue);
+        }
     }
 
     /**
@@ -81,8 +206,9 @@ public class DjPlayerController extends ViewController<DjPlayerView> implements
         double low = middleFrequency - pressureStrength;
         double high = middleFrequency + pressureStrength;
 
-        List<Double> pressureModeBands = List.of(low, low, low, low, low, high, high, high, high, high);
-        equalizerPressureMode.setBandsGain(pressureModeBands);
+        for (int band = 0; band < NUM_BANDS; band++) {
+            equalizerPressureMode.setBandGain(band, band < NUM_BANDS / 2 ? low : high);
+        }
     }
 
     /**
@@ -102,26 +228,23 @@ public class DjPlayerController extends ViewController<DjPlayerView> implements
      * @return true if the wave effect is running, false otherwise
      */
     private boolean isWaveRunning() {
-        return timeline != null && timeline.getStatus() == javafx.animation.Animation.Status.RUNNING;
+        return waveOn;
     }
 
     /**
-     * Stops the wave effect on the media player.
+     * Stops the wave effect, the bands going back to their gain.
      */
     private void stopWave() {
-        timeline.stop();
-        timeline = null;
+        waveOn = false;
+        mediaPlayerController.clearEqualizerAutomation();
     }
 
     /**
      * Starts the wave effect on the media player.
      */
     private void startWave() {
-        double amplitude = calculateAmplitude();
-        double offset = calculateOffset(amplitude);
-        timeline = createWaveTimeline(amplitude, offset);
-        timeline.setCycleCount(Timeline.INDEFINITE);
-        timeline.play();
+        waveOn = true;
+        applyWaveAutomation();
     }
 
     /**
@@ -144,61 +267,56 @@ public class DjPlayerController extends ViewController<DjPlayerView> implements
     }
 
     /**
-     * Creates a timeline for the wave effect.
-     *
-     * @param amplitude the amplitude of the wave
-     * @param offset    the offset of the wave
-     * @return the timeline for the wave effect
-     */
-    private Timeline createWaveTimeline(double amplitude, double offset) {
-        return new Timeline(new KeyFrame(Duration.millis(50), e -> updateWave(amplitude, offset)));
-    }
-
-    /**
-     * Updates the wave effect on the media player.
-     *
-     * @param amplitude the amplitude of the wave
-     * @param offset    the offset of the wave
+     * Sets the wave curves of the bands, which the player follows on its own.
+     * If the beat grid of the song is known, the wave starts on the first beat and its cycle is
+     * snapped to a power of two number of beats, so that it stays in time with the music.
      */
-    private void updateWave(double amplitude, double offset) {
-        double currentTime = System.currentTimeMillis() / 1000.0;
-        List<Double> bandsGain = calculateBandsGain(currentTime, amplitude, offset);
-        setEqualizerBands(bandsGain);
+    private void applyWaveAutomation() {
+        double amplitude = calculateAmplitude();
+        double offset = calculateOffset(amplitude);
+        AudioAnalysis analysis = mediaPlayerController.getLoadedSongAnalysis();
+        double origin = 0;
+        double speed = waveSpeed;
+        if (analysis != null && analysis.hasBeatGrid()) {
+            origin = analysis.getFirstBeat();
+            speed = getTempoSyncedSpeed(analysis.getBeatPeriod());
+        }
+        for (int i = 0; i < NUM_BANDS; i++) {
+            double phase = i * Math.PI / NUM_BANDS - origin * speed;
+            mediaPlayerController.setEqualizerAutomation(i, AutomationCurve.sine(offset, amplitude, speed, phase));
+        }
     }
 
     /**
-     * Calculates the gain for each band based on the current time.
+     * Snaps the wave speed to the closest cycle of a power of two number of beats.
      *
-     * @param currentTime the current time
-     * @param amplitude   the amplitude of the wave
-     * @param offset      the offset of the wave
-     * @return a list of gains for each band
+     * @param beatPeriod the duration of a beat in seconds
+     * @return the angular speed of the wave
      */
-    private List<Double> calculateBandsGain(double currentTime, double amplitude, double offset) {
-        List<Double> bandsGain = new ArrayList<>();
-        for (int i = 0; i < NUM_BANDS; i++) {
-            double phase = currentTime * timelineSpeed + (i * Math.PI / NUM_BANDS);
-            double gain = offset + amplitude * Math.sin(phase);
-            bandsGain.add(gain);
+    private double getTempoSyncedSpeed(double beatPeriod) {
+        if (waveSpeed <= 0) {
+            return waveSpeed;
         }
-        return bandsGain;
+        double beats = 2 * Math.PI / waveSpeed / beatPeriod;
+        double snappedBeats = Math.pow(2, Math.round(Math.log(beats) / Math.log(2)));
+        snappedBeats = Math.max(MIN_BEATS_PER_WAVE, Math.min(MAX_BEATS_PER_WAVE, snappedBeats));
+        return 2 * Math.PI / (snappedBeats * beatPeriod);
     }
 
     /**
      * Applies the mixed effects to the media player.
      */
     public void applyMixedEffects() {
-        stopTimelineIfRunning();
-        Equalizer equalizerMixed = buildMixedEqualizer();
-        updateMediaPlayerEqualizer(equalizerMixed);
+        stopWaveIfRunning();
+        updateMediaPlayerEqualizer(buildMixedEqualizer());
     }
 
     /**
-     * Stops the timeline if it is running.
+     * Stops the wave if it is running.
      */
-    private void stopTimelineIfRunning() {
-        if (timeline != null) {
-            timeline.stop();
+    private void stopWaveIfRunning() {
+        if (isWaveRunning()) {
+            stopWave();
         }
     }
 
@@ -208,12 +326,11 @@ public class DjPlayerController extends ViewController<DjPlayerView> implements
      * @return the mixed equalizer
      */
     private Equalizer buildMixedEqualizer() {
-        Equalizer mixed = new Equalizer();
         for (int band = 0; band < NUM_BANDS; band++) {
             double gain = computeMixedBandGain(band);
-            mixed.setBandGain(band, gain);
+            equalizerMixed.setBandGain(band, gain);
         }
-        return mixed;
+        return equalizerMixed;
     }
 
     /**
@@ -266,15 +383,15 @@ public class DjPlayerController extends ViewController<DjPlayerView> implements
     public void handleChangeWaveSpeed(double speed) {
         // From 1 to 10 wave speed
         if (speed == 0.0) {
-            if (timeline != null) {
-                timeline.stop();
-                timeline = null;
+            if (isWaveRunning()) {
                 applyMixedEffects();
             }
         } else {
-            timelineSpeed = speed / ((double) 100 / 3);
-            if (timeline == null) {
-                toggleWaveGainMode();
+            waveSpeed = speed / ((double) 100 / 3);
+            if (isWaveRunning()) {
+                applyWaveAutomation();
+            } else {
+                startWave();
             }
         }
     }
@@ -339,26 +456,171 @@ public class DjPlayerController extends ViewController<DjPlayerView> implements
     public void play(Song song) throws BadSongException {
         mediaPlayerController.playCurrent(song);
         view.resetEffects();
+        refreshEffectLoads();
+        if (!effects.isEmpty()) {
+            effectLoadTimeline.play();
+        }
         view.show();
     }
 
     /**
-     * On quit called method. Destroy all timelines, restore the old config and close the stage.
+     * Loads the song following the current one on the second deck, paused at its start.
+     * Opening the media is slow, so it is done in the background.
      */
-    public void handleClose() {
-        if (timeline != null) {
-            timeline.stop();
+    public void handleLoadDeck() {
+        Song song = mediaPlayerController.getNextSong();
+        if (song == null) {
+            alertService.showAlert(LanguageService.getInstance().get("alert.dj_no_next_song"), Alert.AlertType.WARNING);
+            return;
+        }
+        int generation = getDeckGeneration();
+        Thread loader = new Thread(() -> {
+            try {
+                MixerDeck deck = getDeck(generation);
+                if (deck == null) {
+                    return;
+                }
+                // Dropped by the deck if it is closed meanwhile
+                deck.load(song.getSource(), AudioAnalysisService.getInstance().getTrackGain(song));
+                Platform.runLater(() -> {
+                    if (generation == getDeckGeneration()) {
+                        view.setDeckTrack(song.getTitle());
+                        view.setDeckPlaying(false);
+                    }
+                });
+            } catch (Exception e) {
+                Platform.runLater(() -> alertService.showExceptionAlert(e, Alert.AlertType.ERROR));
+            }
+        }, "dj-deck-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private synchronized int getDeckGeneration() {
+        return deckGeneration;
+    }
+
+    /**
+     * Gets the second deck, opening its mixer if needed, unless the deck was closed since the load was requested.
+     *
+     * @param generation the generation of the deck when the load was requested
+     * @return the deck, or null if it was closed since
+     * @throws Exception if the sound card cannot be opened
+     */
+    private synchronized MixerDeck getDeck(int generation) throws Exception {
+        if (generation != deckGeneration) {
+            return null;
+        }
+        if (deckMixer == null) {
+            DjMixer mixer = mediaPlayerController.createDjMixer(1);
+            if (mixer == null) {
+                // The backend does not expose its samples: the deck plays on the sound card next to it
+                mixer = new DjMixer(new SourceDataLineSink(), 1);
+                mixer.getDeck(0).setCrossfaderSide(CrossfaderSide.THROUGH);
+            }
+            configureDeckMixer(mixer);
+            deckMixer = mixer;
+        }
+        return deckMixer.getDeck(0);
+    }
+
+    /**
+     * Applies the faders of the window to a new mixer of the second deck.
+     *
+     * @param mixer the mixer
+     */
+    private void configureDeckMixer(DjMixer mixer) {
+        mixer.setCrossfader(crossfader);
+        mixer.getDeck(0).setGain(deckGain);
+        mixer.setListener(_ -> Platform.runLater(() -> view.setDeckPlaying(false)));
+    }
+
+    /**
+     * Plays or pauses the second deck.
+     */
+    public synchronized void handleToggleDeckPlay() {
+        if (deckMixer == null) {
+            return;
+        }
+        MixerDeck deck = deckMixer.getDeck(0);
+        if (deck.isPlaying()) {
+            deck.pause();
+        } else {
+            deck.play();
+        }
+        view.setDeckPlaying(deck.isPlaying());
+    }
+
+    /**
+     * Sends the second deck back to its cue point, paused.
+     */
+    public synchronized void handleCueDeck() {
+        if (deckMixer == null) {
+            return;
+        }
+        deckMixer.getDeck(0).cue();
+        view.setDeckPlaying(false);
+    }
+
+    /**
+     * Changes the gain of the second deck.
+     *
+     * @param gain the gain of the deck (0 to 100)
+     */
+    public synchronized void handleChangeDeckGain(double gain) {
+        deckGain = gain / 100;
+        if (deckMixer != null) {
+            deckMixer.getDeck(0).setGain(deckGain);
+        }
+    }
+
+    /**
+     * Moves the crossfader between the main player and the second deck.
+     *
+     * @param position the position of the crossfader (0 for the main player only to 100 for the deck only)
+     */
+    public synchronized void handleChangeCrossfader(double position) {
+        crossfader = position / 100;
+        if (deckMixer != null) {
+            deckMixer.setCrossfader(crossfader);
+        }
+    }
+
+    /**
+     * Closes the second deck and its output, and gives the main player its full volume back.
+     */
+    private synchronized void closeDeck() {
+        deckGeneration++;
+        if (deckMixer != null) {
+            deckMixer.close();
+            deckMixer = null;
         }
+        view.resetCrossfader();
+        view.setDeckTrack(null);
+        view.setDeckPlaying(false);
+    }
+
+    /**
+     * On quit called method. Stop the wave and the second deck, restore the old config and close the stage.
+     */
+    public void handleClose() {
+        stopWaveIfRunning();
+        effectLoadTimeline.stop();
+        closeDeck();
         setEqualizerBands(equalizerBackup.getBandsGain());
+        for (AudioEffect effect : effects) {
+            effect.getParameters().forEach(parameter -> parameter.setValue(parameter.getDefaultValue()));
+            effectChain.setEnabled(effect, false);
+        }
         view.close();
     }
 
     /**
      * Applies a new equalizer configuration to the media player.
      *
-     * @param equalizerBands a list of gain values (in decibels) for each frequency band
+     * @param equalizerBands the gain values (in decibels) for each frequency band
      */
-    public void setEqualizerBands(List<Double> equalizerBands) {
+    public void setEqualizerBands(double[] equalizerBands) {
         try {
             mediaPlayerController.setEqualizerBands(equalizerBands);
         } catch (EqualizerGainException e) {
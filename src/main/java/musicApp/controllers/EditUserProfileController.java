@@ -2,8 +2,10 @@ package musicApp.controllers;
 
 import javafx.scene.control.Alert;
 import musicApp.controllers.settings.EqualizerController;
+import musicApp.enums.CrossfadeCurve;
 import musicApp.enums.Language;
 import musicApp.exceptions.SettingsFilesException;
+import musicApp.models.AudioPlayer;
 import musicApp.models.Equalizer;
 import musicApp.models.UserProfile;
 import musicApp.services.LanguageService;
@@ -18,7 +20,9 @@ import java.nio.file.Path;
 public class EditUserProfileController extends ViewController<EditUserProfileView> implements EditUserProfileView.EditUserProfileViewListener {
 
     private final boolean isCreation;
-    private final EqualizerController equalizerController;
+    private final Equalizer equalizer;
+    // Only created if the user opens the equalizer
+    private EqualizerController equalizerController;
     private UserProfile userProfile;
     private EditUserProfileControllerListener listener;
 
@@ -29,7 +33,7 @@ public class EditUserProfileController extends ViewController<EditUserProfileVie
         super(new EditUserProfileView());
         userProfile = null;
         isCreation = true;
-        equalizerController = new EqualizerController(this, new Equalizer());
+        equalizer = new Equalizer();
         view.setListener(this);
         initView("/fxml/EditUserProfile.fxml");
         init(_listener);
@@ -44,7 +48,7 @@ public class EditUserProfileController extends ViewController<EditUserProfileVie
         super(new EditUserProfileView());
         userProfile = _userProfile;
         isCreation = false;
-        equalizerController = new EqualizerController(this, _userProfile.getEqualizer());
+        equalizer = _userProfile.getEqualizer();
         view.setListener(this);
         initView("/fxml/EditUserProfile.fxml");
         init(_listener);
@@ -76,11 +80,13 @@ public class EditUserProfileController extends ViewController<EditUserProfileVie
      * @param userName  The userProfile's name
      * @param balance   The userProfile's balance
      * @param crossfade The userProfile's crossfade duration
+     * @param curve     The userProfile's crossfade curve
+     * @param preloadWindow How long before the end of a song the next one is prepared, in seconds
      * @param imagePath The userProfile's image path
      * @param musicPath The userProfile's music path
      */
     @Override
-    public void handleSave(String userName, double balance, double crossfade, Path imagePath, Path musicPath, String language) {
+    public void handleSave(String userName, double balance, double crossfade, CrossfadeCurve curve, double preloadWindow, Path imagePath, Path musicPath, String language) {
         try {
             if (!validateInputs(userName, musicPath)) {
                 return;
@@ -94,11 +100,13 @@ public class EditUserProfileController extends ViewController<EditUserProfileVie
             UserProfileService userProfileService = new UserProfileService();
             if (isCreation) {
                 userProfile = new UserProfile(userName, imagePath, musicPath, selectedLanguage, balance, crossfade);
+                userProfile.setCrossfadeCurve(curve);
+                userProfile.setGaplessPreloadWindow(preloadWindow);
                 userProfileService.addUserProfile(userProfile);
             } else {
                 String originalUserName = userProfile.getUsername();
                 updateEqualizer();
-                updateUserProfile(userName, imagePath, musicPath, balance, crossfade, selectedLanguage);
+                updateUserProfile(userName, imagePath, musicPath, balance, crossfade, curve, preloadWindow, selectedLanguage);
                 userProfileService.updateUserProfile(userProfile, originalUserName);
             }
             //        setLanguage(Language.fromCode(language));
@@ -136,13 +144,15 @@ public class EditUserProfileController extends ViewController<EditUserProfileVie
      * @param imagePath userProfile's image path
      * @param musicPath userProfile's music path
      */
-    private void updateUserProfile(String userName, Path imagePath, Path musicPath, double balance, double crossfade, Language language) {
+    private void updateUserProfile(String userName, Path imagePath, Path musicPath, double balance, double crossfade, CrossfadeCurve curve, double preloadWindow, Language language) {
         userProfile.setUsername(userName);
         userProfile.setUserPicturePath(imagePath);
         userProfile.setUserMusicPath(musicPath);
         userProfile.setUserPlaylistsPath(musicPath);
         userProfile.setBalance(balance);
         userProfile.setCrossfadeDuration(crossfade);
+        userProfile.setCrossfadeCurve(curve);
+        userProfile.setGaplessPreloadWindow(preloadWindow);
         setUserLanguage(language);
     }
 
@@ -157,7 +167,9 @@ public class EditUserProfileController extends ViewController<EditUserProfileVie
      * Handle canceling the view.
      */
     public void handleCancel() {
-        equalizerController.handleCancel();
+        if (equalizerController != null) {
+            equalizerController.handleCancel();
+        }
         view.close();
     }
 
@@ -179,11 +191,36 @@ public class EditUserProfileController extends ViewController<EditUserProfileVie
         return userProfile.getCrossfadeDuration();
     }
 
+    /**
+     * Get the Crossfade curve
+     */
+    @Override
+    public CrossfadeCurve getCrossfadeCurve() {
+        if (userProfile == null) {
+            return CrossfadeCurve.EQUAL_POWER;
+        }
+        return userProfile.getCrossfadeCurve();
+    }
+
+    /**
+     * Get the gapless preload window
+     */
+    @Override
+    public double getGaplessPreloadWindow() {
+        if (userProfile == null) {
+            return AudioPlayer.DEFAULT_GAPLESS_PRELOAD_WINDOW;
+        }
+        return userProfile.getGaplessPreloadWindow();
+    }
+
     /**
      * Open equalizer.
      */
     public void handleOpenEqualizer() {
         handleClose();
+        if (equalizerController == null) {
+            equalizerController = new EqualizerController(this, equalizer);
+        }
         equalizerController.show();
     }
 
@@ -191,7 +228,9 @@ public class EditUserProfileController extends ViewController<EditUserProfileVie
      * Updates the values of the equalizer with the values of sliders and changes the settings
      */
     private void updateEqualizer() {
-        equalizerController.update();
+        if (equalizerController != null) {
+            equalizerController.update();
+        }
     }
 
     /**
@@ -121,6 +121,7 @@ public class LibraryController extends SongContainerController<LibraryView>
     @Override
     public void playSong(int index) {
         currentIndex = index;
+        nextSong = Optional.empty();
         super.playSong(index);
     }
 
@@ -132,6 +133,7 @@ public class LibraryController extends SongContainerController<LibraryView>
     @Override
     public void playSong(Song song) {
         currentIndex = getSongIndex(song);
+        nextSong = Optional.empty();
         super.playSong(song);
     }
 
@@ -255,6 +257,16 @@ public class LibraryController extends SongContainerController<LibraryView>
         view.refreshUI();
     }
 
+    /**
+     * Checks if the given library is the one currently displayed.
+     *
+     * @param playlist the library to check
+     * @return true if the library is shown, false otherwise.
+     */
+    public boolean isShowing(Library playlist) {
+        return library == playlist;
+    }
+
     /**
      * Checks if the currently displayed library is the main library.
      *
@@ -275,6 +287,10 @@ public class LibraryController extends SongContainerController<LibraryView>
      * Handle add song.
      */
     public void handleAddSong() {
+        if (playerController.isLibraryLoading(library)) {
+            alertService.showAlert(LanguageService.getInstance().get("alert.library_loading"), Alert.AlertType.WARNING);
+            return;
+        }
         File audioFile = view.getAudioFile();
         if (audioFile == null) {
             alertService.showAlert("Could not read audio file", Alert.AlertType.WARNING);
@@ -357,8 +373,8 @@ public class LibraryController extends SongContainerController<LibraryView>
             nextSong = Optional.of(library.get(randomIndex));
         } else {
             if (currentIndex < library.size() - 1) {
-                currentIndex++;
-                nextSong = Optional.of(library.get(currentIndex));
+                // currentIndex only moves once the song is actually played, so peeking ahead is safe
+                nextSong = Optional.of(library.get(currentIndex + 1));
             }
         }
         return nextSong.orElse(null);
@@ -0,0 +1,397 @@
+package musicApp.controllers;
+
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.binding.NumberBinding;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableNumberValue;
+import javafx.scene.control.Alert;
+import javafx.scene.media.*;
+import javafx.util.Duration;
+import musicApp.audio.AutomationCurve;
+import musicApp.audio.ParameterAutomation;
+import musicApp.enums.EqualizerBandFrequency;
+import musicApp.enums.SupportedFileType;
+import musicApp.exceptions.BadSongException;
+import musicApp.exceptions.EqualizerGainException;
+import musicApp.models.Equalizer;
+import musicApp.models.Song;
+import musicApp.services.AlertService;
+import musicApp.services.AudioAnalysisService;
+import musicApp.services.CrossfadeEngine;
+import musicApp.services.DecodedStreamService;
+import musicApp.services.MediaPlayerPool;
+
+/**
+ * MediaAudioPlayerController
+ * Audio player controller backed by JavaFX media players.
+ * The next song gets its own player, and a crossfade is done by binding the volume of both players
+ * to the gains of a {@link CrossfadeEngine}.
+ */
+public class MediaAudioPlayerController extends AudioPlayerController {
+
+    // JavaFX media only lets the equalizer be changed from the outside, so its automation is stepped by a timeline
+    private static final Duration AUTOMATION_INTERVAL = Duration.millis(50);
+
+    private final AudioSpectrumListener audioSpectrumListener;
+    private final MediaPlayerPool playerPool;
+    private final CrossfadeEngine crossfadeEngine;
+    // Kept as fields so they can be detached from a player once it is replaced
+    private final ChangeListener<Duration> progressListener;
+    private final ChangeListener<Duration> transitionListener;
+    private final ParameterAutomation equalizerAutomation;
+    private final ParameterAutomation.Target mediaEqualizerTarget;
+    private final Timeline automationTimeline;
+    // Version of the equalizer applied last to the media player
+    private long appliedEqualizerVersion;
+    private MediaPlayer mediaPlayer;
+    // Player of the song prepared by the base controller
+    private MediaPlayer preparedPlayer;
+    // Loudness normalization gains of the current and prepared songs
+    private double trackGain;
+    private double preparedTrackGain;
+
+    public MediaAudioPlayerController(AudioSpectrumListener _audioSpectrumListener) {
+        mediaPlayer = null;
+        appliedEqualizerVersion = -1;
+        audioSpectrumListener = _audioSpectrumListener;
+        playerPool = new MediaPlayerPool();
+        crossfadeEngine = new CrossfadeEngine();
+        trackGain = 1.0;
+        preparedTrackGain = 1.0;
+        progressListener = (_, _, newTime) -> updateProgress(newTime);
+        transitionListener = (_, _, newTime) -> transitionHandler(newTime);
+        equalizerAutomation = new ParameterAutomation(EqualizerBandFrequency.getBandsSize());
+        mediaEqualizerTarget = new ParameterAutomation.Target() {
+            @Override
+            public void setAutomatedValue(int parameter, double value) {
+                setMediaEqualizerBandGain(parameter, value);
+            }
+
+            @Override
+            public void releaseAutomatedValue(int parameter) {
+                setMediaEqualizerBandGain(parameter, audioPlayer.getEqualizerBandGain(parameter));
+            }
+        };
+        automationTimeline = new Timeline(new KeyFrame(AUTOMATION_INTERVAL, _ -> stepEqualizerAutomation()));
+        automationTimeline.setCycleCount(Animation.INDEFINITE);
+    }
+
+    @Override
+    public void loadSong(Song song) throws BadSongException {
+        releaseMediaPlayer();
+        audioPlayer.loadSong(song);
+
+        if (preparedPlayer != null && song.equals(getPreparedSong())) {
+            // The player is already prepared, and already playing after a gapless start or a crossfade
+            mediaPlayer = preparedPlayer;
+            trackGain = preparedTrackGain;
+            preparedPlayer = null;
+            bindVolume(mediaPlayer, trackGain, null);
+        } else {
+            discardPreparedSong();
+            trackGain = AudioAnalysisService.getInstance().getTrackGain(song);
+            mediaPlayer = createMediaPlayer(song, trackGain);
+        }
+        // Any crossfade is over once the new song is loaded, whether it completed or was interrupted
+        crossfadeEngine.cancel();
+        resetTransition();
+
+        mediaPlayer.setAudioSpectrumListener(audioSpectrumListener);
+        mediaPlayer.setAudioSpectrumInterval(audioPlayer.getAudioSpectrumInterval());
+        Runnable onReady = () -> {
+            audioPlayer.setLoaded();
+            try {
+                // A new player starts flat: every band must be applied
+                appliedEqualizerVersion = -1;
+                applyEqualizerBandsGain();
+            } catch (EqualizerGainException e) {
+                AlertService alertService = new AlertService();
+                alertService.showExceptionAlert(e, Alert.AlertType.ERROR);
+            }
+        };
+        if (mediaPlayer.getStatus() == MediaPlayer.Status.UNKNOWN) {
+            // A crossfade started before the prepared player was ready still has to seek it
+            Runnable pendingOnReady = mediaPlayer.getOnReady();
+            mediaPlayer.setOnReady(pendingOnReady == null ? onReady : () -> {
+                pendingOnReady.run();
+                onReady.run();
+            });
+        } else {
+            onReady.run();
+        }
+        // Update the progression property while playing
+        mediaPlayer.currentTimeProperty().addListener(progressListener);
+        mediaPlayer.currentTimeProperty().addListener(transitionListener);
+    }
+
+    /**
+     * Detach the current player from this controller and hand it back to the pool.
+     */
+    private void releaseMediaPlayer() {
+        if (mediaPlayer != null) {
+            mediaPlayer.currentTimeProperty().removeListener(progressListener);
+            mediaPlayer.currentTimeProperty().removeListener(transitionListener);
+            playerPool.release(mediaPlayer);
+            mediaPlayer = null;
+        }
+    }
+
+
+    /**
+     * Create a player for a song with the current volume, balance and speed.
+     * The formats JavaFX cannot play are streamed to it decoded by FFmpeg.
+     *
+     * @param song          The song to play.
+     * @param songTrackGain The loudness normalization gain of the song.
+     * @return The new player.
+     */
+    private MediaPlayer createMediaPlayer(Song song, double songTrackGain) throws BadSongException {
+        String source = song.getSource();
+        SupportedFileType fileType = SupportedFileType.fromFileName(song.getFilePath().getFileName().toString());
+        if (fileType != null && !fileType.isPlayedByJavaFx()) {
+            source = DecodedStreamService.getInstance().getStreamUri(source);
+        }
+        MediaPlayer player = playerPool.acquire(source);
+        bindVolume(player, songTrackGain, null);
+        player.setBalance(audioPlayer.getBalance());
+        player.setRate(audioPlayer.getSpeed());
+        return player;
+    }
+
+    /**
+     * Bind the volume of a player to the user volume, scaled by the track gain and by a crossfade gain if any.
+     *
+     * @param player        The player.
+     * @param songTrackGain The loudness normalization gain of its song.
+     * @param fadeGain      The crossfade gain, or null.
+     */
+    private void bindVolume(MediaPlayer player, double songTrackGain, ObservableNumberValue fadeGain) {
+        NumberBinding volume = audioPlayer.getVolumeProperty().multiply(songTrackGain);
+        player.volumeProperty().unbind();
+        player.volumeProperty().bind(fadeGain == null ? volume : volume.multiply(fadeGain));
+    }
+
+    @Override
+    protected void prepareSong(Song song) throws BadSongException {
+        preparedTrackGain = AudioAnalysisService.getInstance().getTrackGain(song);
+        preparedPlayer = createMediaPlayer(song, preparedTrackGain);
+    }
+
+    @Override
+    protected void discardPreparedSong() {
+        playerPool.release(preparedPlayer);
+        preparedPlayer = null;
+    }
+
+    /**
+     * Hand the position of the player to the transition of the base controller.
+     *
+     * @param progress The current progress of the song.
+     */
+    private void transitionHandler(Duration progress) {
+        Duration totalDuration = mediaPlayer.getTotalDuration();
+        if (totalDuration == null) return;
+        updateTransition(progress.toSeconds(), totalDuration.toSeconds());
+    }
+
+    @Override
+    protected void startCrossfade(double duration, double preparedStart) {
+        bindVolume(mediaPlayer, trackGain, crossfadeEngine.outgoingGainProperty());
+        bindVolume(preparedPlayer, preparedTrackGain, crossfadeEngine.incomingGainProperty());
+        crossfadeEngine.start(duration, audioPlayer.getCrossfadeCurve(), this::runEndOfMediaAction);
+        if (preparedStart > 0) {
+            MediaPlayer player = preparedPlayer;
+            if (player.getStatus() == MediaPlayer.Status.UNKNOWN) {
+                // A seek is ignored until the media is ready; the fade in is still silent by then
+                player.setOnReady(() -> player.seek(Duration.seconds(preparedStart)));
+            } else {
+                player.seek(Duration.seconds(preparedStart));
+            }
+        }
+        preparedPlayer.play();
+    }
+
+    /**
+     * Abort the crossfade in progress, if any, and put the prepared song back on hold.
+     */
+    private void cancelCrossfade() {
+        if (!audioPlayer.isTransitioning()) {
+            return;
+        }
+        crossfadeEngine.cancel();
+        audioPlayer.setTransitioning(false);
+        bindVolume(mediaPlayer, trackGain, null);
+        if (preparedPlayer != null) {
+            preparedPlayer.setOnReady(null);
+            preparedPlayer.stop();
+            bindVolume(preparedPlayer, preparedTrackGain, null);
+        }
+    }
+
+    /**
+     * Update the progress property from the current time of the player.
+     *
+     * @param newTime The current time of the player.
+     */
+    private void updateProgress(Duration newTime) {
+        if (mediaPlayer.getTotalDuration().greaterThan(Duration.ZERO)) {
+            audioPlayer.setProgress(newTime.toSeconds() / mediaPlayer.getTotalDuration().toSeconds());
+        } else {
+            audioPlayer.setProgress(0.0);
+        }
+    }
+
+    @Override
+    protected void applyEqualizerBandsGain() throws EqualizerGainException {
+        if (mediaPlayer == null) {
+            return;
+        }
+        AudioEqualizer audioEqualizer = mediaPlayer.getAudioEqualizer();
+        if (audioEqualizer == null) {
+            throw new EqualizerGainException("No audio equalizer available");
+        }
+        Equalizer equalizer = audioPlayer.getEqualizer();
+        int equalizerBandsGainSize = audioPlayer.getEqualizerBandsGainSize();
+        for (int bandIndex = 0; bandIndex < equalizerBandsGainSize; bandIndex++) {
+            if (!equalizer.isBandChangedSince(bandIndex, appliedEqualizerVersion)
+                    || equalizerAutomation.getCurve(bandIndex) != null) {
+                continue;
+            }
+            EqualizerBand bandToSet = audioEqualizer.getBands().get(bandIndex);
+            double gain = audioPlayer.getEqualizerBandGain(bandIndex);
+            bandToSet.setGain(gain);
+        }
+        appliedEqualizerVersion = equalizer.getVersion();
+    }
+
+    @Override
+    public void setEqualizerAutomation(int bandIndex, AutomationCurve curve) {
+        equalizerAutomation.setCurve(bandIndex, curve);
+        automationTimeline.play();
+    }
+
+    @Override
+    public void clearEqualizerAutomation() {
+        equalizerAutomation.clear();
+        automationTimeline.play();
+    }
+
+    /**
+     * Apply the equalizer automation to the media player, until no band is automated anymore.
+     */
+    private void stepEqualizerAutomation() {
+        if (mediaPlayer == null || mediaPlayer.getAudioEqualizer() == null) {
+            return;
+        }
+        if (!equalizerAutomation.apply(mediaEqualizerTarget, mediaPlayer.getCurrentTime().toSeconds())) {
+            automationTimeline.stop();
+        }
+    }
+
+    private void setMediaEqualizerBandGain(int bandIndex, double gain) {
+        EqualizerBand band = mediaPlayer.getAudioEqualizer().getBands().get(bandIndex);
+        band.setGain(Math.max(EqualizerBand.MIN_GAIN, Math.min(EqualizerBand.MAX_GAIN, gain)));
+    }
+
+    @Override
+    public void unpause() {
+        if (mediaPlayer != null) {
+            mediaPlayer.play();
+            audioPlayer.setPlaying(true);
+            if (audioPlayer.isTransitioning() && preparedPlayer != null) {
+                preparedPlayer.play();
+                crossfadeEngine.resume();
+            }
+        }
+    }
+
+    @Override
+    public void pause() {
+        if (mediaPlayer != null) {
+            mediaPlayer.pause();
+            audioPlayer.setPlaying(false);
+            if (audioPlayer.isTransitioning() && preparedPlayer != null) {
+                preparedPlayer.pause();
+                crossfadeEngine.pause();
+            }
+        }
+    }
+
+    @Override
+    public void changeSpeed(double newSpeed) {
+        super.changeSpeed(newSpeed);
+        if (mediaPlayer != null) {
+            mediaPlayer.setRate(newSpeed);
+        }
+        if (preparedPlayer != null) {
+            preparedPlayer.setRate(newSpeed);
+        }
+    }
+
+    @Override
+    public Duration getCurrentTime() {
+        return (mediaPlayer != null) ? mediaPlayer.getCurrentTime() : Duration.ZERO;
+    }
+
+    @Override
+    public Duration getTotalDuration() {
+        return (mediaPlayer != null && mediaPlayer.getTotalDuration() != null)
+                ? mediaPlayer.getTotalDuration() : Duration.ZERO;
+    }
+
+    @Override
+    public void seek(double progress) {
+        if (mediaPlayer != null) {
+            cancelCrossfade();
+            mediaPlayer.seek(mediaPlayer.getTotalDuration().multiply(progress));
+        }
+    }
+
+    @Override
+    public void setOnEndOfMedia(Runnable action) {
+        super.setOnEndOfMedia(action);
+        if (mediaPlayer != null) {
+            mediaPlayer.setOnEndOfMedia(() -> {
+                if (crossfadeEngine.isRunning()) {
+                    // The outgoing song ended slightly before the crossfade: complete it, which runs the action
+                    crossfadeEngine.finish();
+                    return;
+                }
+                // Start the prepared song right on the boundary, the action then adopts it in loadSong
+                if (preparedPlayer != null && preparedPlayer.getStatus() == MediaPlayer.Status.READY) {
+                    preparedPlayer.play();
+                }
+                action.run();
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        automationTimeline.stop();
+        if (mediaPlayer != null) {
+            mediaPlayer.currentTimeProperty().removeListener(progressListener);
+            mediaPlayer.currentTimeProperty().removeListener(transitionListener);
+            playerPool.dispose(mediaPlayer);
+            mediaPlayer = null;
+        }
+        crossfadeEngine.cancel();
+        resetTransition();
+        playerPool.dispose(preparedPlayer);
+        preparedPlayer = null;
+        playerPool.clear();
+    }
+
+    @Override
+    public void setBalance(double newBalance) {
+        super.setBalance(newBalance);
+        if (mediaPlayer != null) {
+            mediaPlayer.setBalance(newBalance);
+        }
+        if (preparedPlayer != null) {
+            preparedPlayer.setBalance(newBalance);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package musicApp.controllers;
 
+import javafx.application.Platform;
 import javafx.beans.binding.DoubleBinding;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
@@ -7,13 +8,23 @@ import javafx.beans.property.StringProperty;
 import javafx.scene.control.Alert;
 import javafx.scene.image.Image;
 import javafx.util.Duration;
+import musicApp.audio.AutomationCurve;
+import musicApp.audio.DjMixer;
+import musicApp.audio.MixRenderer;
+import musicApp.audio.WaveformPeaks;
+import musicApp.audio.effects.EffectChain;
+import musicApp.enums.CrossfadeCurve;
 import musicApp.exceptions.BadSongException;
 import musicApp.exceptions.EqualizerGainException;
+import musicApp.models.AudioAnalysis;
+import musicApp.models.Library;
 import musicApp.models.Song;
+import musicApp.services.LanguageService;
 import musicApp.services.ViewService;
+import musicApp.services.WaveformService;
 import musicApp.views.MediaPlayerView;
 
-import java.util.List;
+import java.nio.file.Path;
 import java.util.function.Consumer;
 
 /**
@@ -22,9 +33,10 @@ import java.util.function.Consumer;
 public class MediaPlayerController extends ViewController<MediaPlayerView>
         implements MediaPlayerView.MediaPlayerViewListener, ViewService.ViewServiceListener {
     private final PlayerController playerController;
-    private final MiniPlayerController miniPlayerController;
-    private final DjPlayerController djPlayerController;
     private final AudioPlayerController audioPlayerController;
+    // Rarely used windows, created on first use. The PCM backend sends the spectrum from its output thread
+    private volatile MiniPlayerController miniPlayerController;
+    private DjPlayerController djPlayerController;
 
     /**
      * Instantiates a new Media player controller.
@@ -32,19 +44,26 @@ public class MediaPlayerController extends ViewController<MediaPlayerView>
      * @param controller        the player controller
      * @param balance           the balance
      * @param crossfadeDuration the crossfade duration
+     * @param crossfadeCurve    the crossfade curve
+     * @param preloadWindow     how long before the end of a song the next one is prepared, in seconds
      * @param equalizerBands    the equalizer bands
      */
-    public MediaPlayerController(PlayerController controller, double balance, double crossfadeDuration, List<Double> equalizerBands) {
+    public MediaPlayerController(PlayerController controller, double balance, double crossfadeDuration, CrossfadeCurve crossfadeCurve, double preloadWindow, double[] equalizerBands) {
         super(new MediaPlayerView());
         view.setListener(this);
         playerController = controller;
-        miniPlayerController = new MiniPlayerController();
-        audioPlayerController = new AudioPlayerController(miniPlayerController);
-        djPlayerController = new DjPlayerController(this);
+        audioPlayerController = AudioPlayerController.create((timestamp, duration, magnitudes, phases) -> {
+            MiniPlayerController miniPlayer = miniPlayerController;
+            if (miniPlayer != null) {
+                miniPlayer.spectrumDataUpdate(timestamp, duration, magnitudes, phases);
+            }
+        });
 
         initView("/fxml/MediaPlayer.fxml");
         setBalance(balance);
         setCrossfadeDuration(crossfadeDuration);
+        setCrossfadeCurve(crossfadeCurve);
+        setGaplessPreloadWindow(preloadWindow);
         try {
             setEqualizerBands(equalizerBands);
         } catch (EqualizerGainException e) {
@@ -125,6 +144,15 @@ public class MediaPlayerController extends ViewController<MediaPlayerView>
         return audioPlayerController.getLoadedSong();
     }
 
+    /**
+     * Get the analysis of the loaded song, with its loudness and beat grid.
+     *
+     * @return The analysis, or null if the song is not analysed yet.
+     */
+    public AudioAnalysis getLoadedSongAnalysis() {
+        return audioPlayerController.getLoadedSongAnalysis();
+    }
+
     /**
      * Get the current song property.
      *
@@ -212,6 +240,24 @@ public class MediaPlayerController extends ViewController<MediaPlayerView>
         audioPlayerController.setCrossfadeDuration(crossfadeDuration);
     }
 
+    /**
+     * Sets the crossfade curve.
+     *
+     * @param crossfadeCurve the crossfade curve
+     */
+    public void setCrossfadeCurve(CrossfadeCurve crossfadeCurve) {
+        audioPlayerController.setCrossfadeCurve(crossfadeCurve);
+    }
+
+    /**
+     * Sets how long before the end of a song, or before its crossfade, the next one is prepared.
+     *
+     * @param preloadWindow the preload window in seconds
+     */
+    public void setGaplessPreloadWindow(double preloadWindow) {
+        audioPlayerController.setGaplessPreloadWindow(preloadWindow);
+    }
+
     /**
      * Load and Play the currently selected song.
      *
@@ -223,10 +269,32 @@ public class MediaPlayerController extends ViewController<MediaPlayerView>
         audioPlayerController.setOnEndOfMedia(playerController::skip);
         audioPlayerController.setNextSongSupplier(playerController.getNextSongSupplier());
         audioPlayerController.unpause();
-        miniPlayerController.loadSong(song);
+        if (miniPlayerController != null) {
+            miniPlayerController.loadSong(song);
+            preloadNextSong();
+        }
+    }
+
+    /**
+     * Get the song that should follow the current one.
+     *
+     * @return the next song, or null if there is none
+     */
+    public Song getNextSong() {
+        return playerController.getNextSongSupplier().get();
     }
 
-    public List<Double> getEqualizerBands() {
+    /**
+     * Prepare the video cover of the song that should follow the current one in the mini player.
+     */
+    private void preloadNextSong() {
+        Song next = getNextSong();
+        if (next != null) {
+            miniPlayerController.preloadSong(next);
+        }
+    }
+
+    public double[] getEqualizerBands() {
         return audioPlayerController.getEqualizerBandsGain();
     }
 
@@ -236,20 +304,97 @@ public class MediaPlayerController extends ViewController<MediaPlayerView>
      * @param equalizerBandsGain The gain of the equalizer bands.
      * @throws EqualizerGainException
      */
-    public void setEqualizerBands(List<Double> equalizerBandsGain) throws EqualizerGainException {
+    public void setEqualizerBands(double[] equalizerBandsGain) throws EqualizerGainException {
         audioPlayerController.updateEqualizerBandsGain(equalizerBandsGain);
     }
 
+    /**
+     * Make an equalizer band follow a curve over the song position.
+     *
+     * @param bandIndex The index of the band.
+     * @param curve     The gain of the band in decibels, or null to go back to the gain of the band.
+     */
+    public void setEqualizerAutomation(int bandIndex, AutomationCurve curve) {
+        audioPlayerController.setEqualizerAutomation(bandIndex, curve);
+    }
+
+    /**
+     * Remove the automation of every equalizer band.
+     */
+    public void clearEqualizerAutomation() {
+        audioPlayerController.clearEqualizerAutomation();
+    }
+
+    /**
+     * Get the chain of audio effects applied to the playback.
+     *
+     * @return The chain, or null if the audio backend cannot run effects.
+     */
+    public EffectChain getEffectChain() {
+        return audioPlayerController.getEffectChain();
+    }
+
+    /**
+     * Create a DJ mixer whose decks play on the output of the player, in lockstep with the current song.
+     *
+     * @param deckCount the number of decks
+     * @return the mixer, or null if the audio backend cannot mix decks into its output
+     */
+    public DjMixer createDjMixer(int deckCount) {
+        return audioPlayerController.createDjMixer(deckCount);
+    }
+
+    /**
+     * Render the songs of a playlist, mixed with the settings of the player, to a WAV file in the background.
+     * The user is told when it is done.
+     *
+     * @param library the playlist
+     * @param wavFile the destination file
+     */
+    public void exportMix(Library library, Path wavFile) {
+        MixRenderer renderer;
+        try {
+            renderer = audioPlayerController.createMixRenderer(library.toList());
+        } catch (BadSongException e) {
+            alertService.showExceptionAlert(e, Alert.AlertType.ERROR);
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                renderer.render(wavFile);
+                Platform.runLater(() -> alertService.showAlert(
+                        LanguageService.getInstance().get("alert.mix_exported"), Alert.AlertType.INFORMATION));
+            } catch (Exception e) {
+                Platform.runLater(() -> alertService.showExceptionAlert(e, Alert.AlertType.ERROR));
+            }
+        }, "mix-export");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     public void toggleLyrics(boolean show) {
         playerController.toggleLyrics(show);
     }
 
     public void toggleMiniPlayer(boolean show) {
+        if (miniPlayerController == null) {
+            if (!show) {
+                return;
+            }
+            miniPlayerController = new MiniPlayerController();
+            Song loadedSong = getLoadedSong();
+            if (loadedSong != null) {
+                miniPlayerController.loadSong(loadedSong);
+            }
+        }
         miniPlayerController.toggleView(show);
     }
 
     public void handleLaunchDjMode() {
         try {
+            if (djPlayerController == null) {
+                djPlayerController = new DjPlayerController(this);
+            }
             djPlayerController.play(getLoadedSong());
         } catch (BadSongException e) {
             alertService.showAlert(e.getMessage(), Alert.AlertType.ERROR);
@@ -270,6 +415,26 @@ public class MediaPlayerController extends ViewController<MediaPlayerView>
     }
 
 
+    /**
+     * Give the waveform of every loaded song, computed or read in the background.
+     * The callback first receives null, then the peaks once they are available if the song is still loaded.
+     *
+     * @param callback Called on the FX thread with the peaks of the loaded song.
+     */
+    public void handleWaveformChange(Consumer<WaveformPeaks> callback) {
+        getCurrentSongProperty().addListener((_, _, _) -> {
+            Song song = getLoadedSong();
+            callback.accept(null);
+            if (song != null && song.isSong()) {
+                WaveformService.getInstance().request(song.getFilePath(), peaks -> {
+                    if (song.equals(getLoadedSong())) {
+                        callback.accept(peaks);
+                    }
+                });
+            }
+        });
+    }
+
     public void bindVolumeProperty(DoubleBinding divide) {
         getVolumeProperty().bind(divide);
     }
@@ -8,6 +8,7 @@ import musicApp.models.Settings;
 import musicApp.models.UserProfile;
 import musicApp.services.AlertService;
 import musicApp.services.SettingsService;
+import musicApp.services.StartupTimer;
 import musicApp.services.UserProfileService;
 
 import java.nio.file.Path;
@@ -44,7 +45,10 @@ public class MetaController implements EditUserProfileController.EditUserProfile
      */
     public final void switchScene(Scenes scene) {
         switch (scene) {
-            case MAINWINDOW -> playerController.show();
+            case MAINWINDOW -> {
+                playerController.show();
+                StartupTimer.mark("main window shown");
+            }
             case SETTINGS -> settingsController.show();
             case USERSWINDOW -> userProfileSelectionController.show();
         }
@@ -81,8 +85,11 @@ public class MetaController implements EditUserProfileController.EditUserProfile
         try {
             Settings settings = settingsService.readSettings();
             settings.setCurrentUserProfile(userProfile);
+            StartupTimer.start();
             settingsController = new SettingsController(this, settings);
+            StartupTimer.mark("settings loaded");
             playerController = new PlayerController(this, new Stage(), settingsController.getSettingsDTO());
+            StartupTimer.mark("player built");
         } catch (SettingsFilesException e) {
             alertService.showFatalErrorAlert("Error loading settings", e);
             throw new RuntimeException(e);
@@ -1,27 +1,34 @@
 package musicApp.controllers;
 
+import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import javafx.scene.media.AudioSpectrumListener;
 import musicApp.models.Song;
-import musicApp.services.VideoService;
+import musicApp.services.VideoCoverCache;
 import musicApp.views.MiniPlayerView;
 
 import java.nio.file.Path;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * Controller managing the MiniPlayerView and processing audio spectrum data received on `spectrumDataUpdate`
  */
 public class MiniPlayerController extends ViewController<MiniPlayerView> implements AudioSpectrumListener, MiniPlayerView.MiniPlayerViewListener {
 
+    // Number of bands the visual correction was designed for, and the default of the JavaFX media player
     private static final int DEFAULT_BANDS_NUMBER = 128;
     private static final float MIN_DECIBEL_LEVEL = -60f;
     private static final float MAX_DECIBEL_LEVEL = 0f;
     private static final float LOG_SCALE_OFFSET = 1.1f;
     private static final float VISUAL_INTENSITY_MULTIPLIER = 1.5f;
 
+    // Visual correction of each band, computed once per number of bands
+    private float[] bandWeights;
+    // The view draws one buffer while the next update is written into the other
+    private float[][] spectrumBuffers;
+    private int backBufferIndex;
+    // Song shown last, so that a video cover written after the next song was loaded is not shown
+    private Song loadedSong;
+
     /**
      * Instantiates the MiniPlayerController and initializes the MiniPlayer view.
      */
@@ -29,6 +36,20 @@ public class MiniPlayerController extends ViewController<MiniPlayerView> impleme
         super(new MiniPlayerView());
         view.setListener(this);
         initView("/fxml/MiniPlayer.fxml");
+        resizeBands(DEFAULT_BANDS_NUMBER);
+    }
+
+    /**
+     * Prepare the buffers and the visual correction for a number of bands.
+     *
+     * @param bands the number of bands of the spectrum
+     */
+    private void resizeBands(int bands) {
+        bandWeights = new float[bands];
+        for (int i = 0; i < bands; i++) {
+            bandWeights[i] = computeBandWeight(i, bands);
+        }
+        spectrumBuffers = new float[2][bands];
     }
 
     /**
@@ -43,39 +64,57 @@ public class MiniPlayerController extends ViewController<MiniPlayerView> impleme
     }
 
     /**
-     * Returns the number of audio spectrum bands used for visualization.
+     * Loads the given song into the view by updating its title and cover image.
+     * A video cover is written to its file in the background, and the song is shown once it is ready.
      *
-     * @return the number of bands
+     * @param song the song to load
      */
-    public int getBandsNumber() {
-        return DEFAULT_BANDS_NUMBER;
+    public void loadSong(Song song) {
+        loadedSong = song;
+        byte[] videoBytes = song.getMetadata().getVideoCover();
+        if (videoBytes == null || videoBytes.length == 0) {
+            view.updateSongProperties(song.getTitle(), song.getCoverImage(), null);
+            return;
+        }
+        VideoCoverCache.getInstance().getFileAsync(videoBytes,
+                file -> Platform.runLater(() -> showSong(song, file.toPath())),
+                _ -> Platform.runLater(() -> {
+                    showSong(song, null);
+                    if (song == loadedSong) {
+                        alertService.showAlert("Failed to load video cover from song", Alert.AlertType.WARNING);
+                    }
+                }));
     }
 
     /**
-     * Loads the given song into the view by updating its title and cover image.
+     * Shows a song in the view, unless another song was loaded since.
      *
-     * @param song the song to load
+     * @param song      the song
+     * @param videoPath the path of its video cover, or null to show its image cover
      */
-    public void loadSong(Song song) {
-        Path videoPath = null;
-
-        byte[] videoBytes = song.getMetadata().getVideoCover();
-        if (videoBytes != null && videoBytes.length > 0) {
-            VideoService s = new VideoService();
-            try {
-                videoPath = s.tempFileFromBytes(videoBytes).toPath();
-            } catch (Exception e) {
-                alertService.showAlert("Failed to load video cover from song", Alert.AlertType.WARNING);
-            }
+    private void showSong(Song song, Path videoPath) {
+        if (song == loadedSong) {
+            view.updateSongProperties(song.getTitle(), song.getCoverImage(), videoPath);
         }
+    }
 
-        view.updateSongProperties(song.getTitle(), song.getCoverImage(), videoPath);
+    /**
+     * Prepares the video cover of a song that is about to be played, if it has one,
+     * so that {@link #loadSong(Song)} can display it without any delay.
+     *
+     * @param song the song that will probably be played next
+     */
+    public void preloadSong(Song song) {
+        byte[] videoBytes = song.getMetadata().getVideoCover();
+        VideoCoverCache.getInstance().preload(videoBytes,
+                file -> Platform.runLater(() -> view.prepareVideoCover(file.toPath())));
     }
 
     /**
-     * Callback method that receives real-time audio spectrum data from the JavaFX media player.
+     * Callback method that receives real-time audio spectrum data from the audio player, with any number of bands.
      * This method processes the magnitude values to a visually normalized and corrected form
-     * and then updates the view for visualization.
+     * and then updates the view for visualization. No memory is allocated per update
+     * unless the number of bands changes.
      *
      * @param timestamp  the timestamp of the audio data
      * @param duration   the duration of the audio data
@@ -85,31 +124,35 @@ public class MiniPlayerController extends ViewController<MiniPlayerView> impleme
     @Override
     public void spectrumDataUpdate(double timestamp, double duration, float[] magnitudes, float[] phases) {
         float rangeDb = MAX_DECIBEL_LEVEL - MIN_DECIBEL_LEVEL;
-
-        List<Float> correctedMagnitudes = IntStream.range(0, magnitudes.length)
-                .mapToObj(i -> {
-                    float clamped = Math.max(MIN_DECIBEL_LEVEL, Math.min(MAX_DECIBEL_LEVEL, magnitudes[i]));
-                    float normalized = (clamped - MIN_DECIBEL_LEVEL) / rangeDb;
-                    return applyCorrection(normalized, i);
-                })
-                .collect(Collectors.toList());
+        if (magnitudes.length != bandWeights.length) {
+            resizeBands(magnitudes.length);
+        }
+        float[] correctedMagnitudes = spectrumBuffers[backBufferIndex];
+        for (int i = 0; i < magnitudes.length; i++) {
+            float clamped = Math.max(MIN_DECIBEL_LEVEL, Math.min(MAX_DECIBEL_LEVEL, magnitudes[i]));
+            float normalized = (clamped - MIN_DECIBEL_LEVEL) / rangeDb;
+            correctedMagnitudes[i] = normalized * bandWeights[i];
+        }
+        backBufferIndex = 1 - backBufferIndex;
 
         view.draw(correctedMagnitudes);
     }
 
     /**
-     * Applies a visual correction to a normalized magnitude value.
+     * Computes the visual correction applied to a normalized magnitude value.
      * This correction enhances the representation by scaling and centering the output visually.
      *
-     * @param normalizedValue the normalized magnitude (0.0 to 1.0)
-     * @param index           the index of the frequency band
-     * @return the corrected value for visual representation
+     * @param band  the index of the frequency band
+     * @param bands the number of bands
+     * @return the factor applied to the normalized magnitude of the band
      */
-    private float applyCorrection(float normalizedValue, int index) {
-        float scaled = normalizedValue * ((float) Math.log10(LOG_SCALE_OFFSET + index));
+    private float computeBandWeight(int band, int bands) {
+        // The correction is defined on the default number of bands and stretched to the actual one
+        float index = band * (float) DEFAULT_BANDS_NUMBER / bands;
         float center = DEFAULT_BANDS_NUMBER / 2f;
         float spread = DEFAULT_BANDS_NUMBER / 4f;
 
-        return (float) (scaled * VISUAL_INTENSITY_MULTIPLIER * Math.exp(-Math.abs((index - center) / spread)));
+        return (float) (Math.log10(LOG_SCALE_OFFSET + index) * VISUAL_INTENSITY_MULTIPLIER
+                * Math.exp(-Math.abs((index - center) / spread)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,235 @@
+package musicApp.controllers;
+
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.scene.media.AudioSpectrumListener;
+import javafx.util.Duration;
+import musicApp.audio.AudioSink;
+import musicApp.audio.AutomationCurve;
+import musicApp.audio.DjMixer;
+import musicApp.audio.ParametricEqualizer;
+import musicApp.audio.PcmPlaybackEngine;
+import musicApp.audio.SpectrumAnalyzer;
+import musicApp.audio.effects.EffectChain;
+import musicApp.enums.TimeStretchQuality;
+import musicApp.enums.WindowFunction;
+import musicApp.exceptions.BadSongException;
+import musicApp.models.Equalizer;
+import musicApp.models.Song;
+import musicApp.services.AudioAnalysisService;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PcmAudioPlayerController
+ * Audio player controller backed by the {@link PcmPlaybackEngine} instead of JavaFX media players.
+ * The transitions decided by the base controller are rendered by the engine itself, sample-accurately.
+ * The equalizer is applied by the software {@link ParametricEqualizer} of the engine, and its automation is
+ * evaluated by the engine for every block of audio.
+ * The playback speed is applied by time-stretching, which keeps the pitch of the song; its quality can be
+ * chosen with the {@link #TIME_STRETCH_QUALITY_PROPERTY} system property.
+ * The spectrum is computed from the rendered samples by a {@link SpectrumAnalyzer}.
+ */
+public class PcmAudioPlayerController extends AudioPlayerController implements PcmPlaybackEngine.Listener {
+
+    /**
+     * System property selecting the time-stretching quality: "low", "medium" or "high".
+     */
+    public static final String TIME_STRETCH_QUALITY_PROPERTY = "deezify.timestretch";
+
+    private static final Duration POLL_INTERVAL = Duration.millis(50);
+    // About 10 Hz per bin, and a new spectrum every 23 ms
+    private static final int SPECTRUM_FFT_SIZE = 4096;
+    private static final int SPECTRUM_HOP_FRAMES = 1024;
+    private static final int SPECTRUM_BANDS = 128;
+
+    private final PcmPlaybackEngine engine;
+    private final Timeline pollTimeline;
+    // Incremented on every load, so that engine events about a replaced song are ignored
+    private final AtomicInteger loadGeneration;
+    private Song switchedSong;
+    // Version of the equalizer sent last to the engine
+    private long appliedEqualizerVersion;
+
+    /**
+     * Instantiates a new PCM audio player controller.
+     *
+     * @param _audioSpectrumListener The listener of the spectrum data.
+     * @param sink                   The destination of the rendered audio.
+     * @throws Exception if the sink cannot be opened.
+     */
+    public PcmAudioPlayerController(AudioSpectrumListener _audioSpectrumListener, AudioSink sink) throws Exception {
+        engine = new PcmPlaybackEngine(sink);
+        engine.setListener(this);
+        engine.setTimeStretchQuality(getTimeStretchQuality());
+        engine.setSpeed(audioPlayer.getSpeed());
+        if (_audioSpectrumListener != null) {
+            engine.setSpectrumAnalyzer(new SpectrumAnalyzer(PcmPlaybackEngine.SAMPLE_RATE, PcmPlaybackEngine.CHANNELS,
+                    SPECTRUM_FFT_SIZE, SPECTRUM_HOP_FRAMES, SPECTRUM_BANDS, WindowFunction.HANN, _audioSpectrumListener));
+        }
+        engine.setVolume(audioPlayer.getVolumeProperty().get());
+        audioPlayer.getVolumeProperty().addListener((_, _, newVolume) -> engine.setVolume(newVolume.doubleValue()));
+        appliedEqualizerVersion = -1;
+        applyEqualizerBandsGain();
+        loadGeneration = new AtomicInteger();
+        pollTimeline = new Timeline(new KeyFrame(POLL_INTERVAL, _ -> poll()));
+        pollTimeline.setCycleCount(Animation.INDEFINITE);
+    }
+
+    private static TimeStretchQuality getTimeStretchQuality() {
+        String quality = System.getProperty(TIME_STRETCH_QUALITY_PROPERTY, TimeStretchQuality.MEDIUM.name());
+        try {
+            return TimeStretchQuality.valueOf(quality.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown time-stretch quality: " + quality);
+            return TimeStretchQuality.MEDIUM;
+        }
+    }
+
+    @Override
+    public void loadSong(Song song) throws BadSongException {
+        loadGeneration.incrementAndGet();
+        audioPlayer.loadSong(song);
+        if (switchedSong == null || !switchedSong.equals(song)) {
+            // Unlike a gapless switch, a new song waits for unpause like a new media player would
+            engine.pause();
+            engine.load(song.getSource(), AudioAnalysisService.getInstance().getTrackGain(song));
+        }
+        switchedSong = null;
+        resetTransition();
+        audioPlayer.setLoaded();
+        pollTimeline.play();
+    }
+
+    /**
+     * Update the progress and start the transition to the next song when it is time.
+     */
+    private void poll() {
+        double duration = engine.getDurationSeconds();
+        double position = engine.getPositionSeconds();
+        audioPlayer.setProgress(duration > 0 ? Math.min(1.0, position / duration) : 0.0);
+        if (duration > 0) {
+            updateTransition(position, duration);
+        }
+    }
+
+    @Override
+    protected void prepareSong(Song song) throws BadSongException {
+        engine.prepareNext(song.getSource(), AudioAnalysisService.getInstance().getTrackGain(song));
+    }
+
+    @Override
+    protected void discardPreparedSong() {
+        engine.discardNext();
+    }
+
+    @Override
+    protected void startCrossfade(double duration, double preparedStart) {
+        engine.startCrossfade(duration, audioPlayer.getCrossfadeCurve(), preparedStart);
+    }
+
+    @Override
+    public void onTrackChanged() {
+        int generation = loadGeneration.get();
+        Platform.runLater(() -> {
+            if (generation != loadGeneration.get()) {
+                return;
+            }
+            // The engine already plays the prepared song: the action adopts it in loadSong
+            switchedSong = getPreparedSong();
+            runEndOfMediaAction();
+        });
+    }
+
+    @Override
+    public void onEndOfMedia() {
+        int generation = loadGeneration.get();
+        Platform.runLater(() -> {
+            if (generation == loadGeneration.get()) {
+                runEndOfMediaAction();
+            }
+        });
+    }
+
+    @Override
+    protected void applyEqualizerBandsGain() {
+        ParametricEqualizer equalizer = engine.getEqualizer();
+        Equalizer bands = audioPlayer.getEqualizer();
+        int bandCount = Math.min(equalizer.getBandCount(), audioPlayer.getEqualizerBandsGainSize());
+        for (int bandIndex = 0; bandIndex < bandCount; bandIndex++) {
+            if (bands.isBandChangedSince(bandIndex, appliedEqualizerVersion)) {
+                equalizer.setBandGain(bandIndex, audioPlayer.getEqualizerBandGain(bandIndex));
+            }
+        }
+        appliedEqualizerVersion = bands.getVersion();
+    }
+
+    @Override
+    public void setEqualizerAutomation(int bandIndex, AutomationCurve curve) {
+        engine.getEqualizerAutomation().setCurve(bandIndex, curve);
+    }
+
+    @Override
+    public void clearEqualizerAutomation() {
+        engine.getEqualizerAutomation().clear();
+    }
+
+    @Override
+    public EffectChain getEffectChain() {
+        return engine.getEffectChain();
+    }
+
+    @Override
+    public DjMixer createDjMixer(int deckCount) {
+        return engine.createDjMixer(deckCount);
+    }
+
+    @Override
+    public void unpause() {
+        engine.play();
+        audioPlayer.setPlaying(true);
+    }
+
+    @Override
+    public void pause() {
+        engine.pause();
+        audioPlayer.setPlaying(false);
+    }
+
+    @Override
+    public void seek(double progress) {
+        audioPlayer.setTransitioning(false);
+        engine.seek(progress * engine.getDurationSeconds());
+    }
+
+    @Override
+    public Duration getCurrentTime() {
+        return Duration.seconds(engine.getPositionSeconds());
+    }
+
+    @Override
+    public Duration getTotalDuration() {
+        return Duration.seconds(engine.getDurationSeconds());
+    }
+
+    @Override
+    public void changeSpeed(double newSpeed) {
+        super.changeSpeed(newSpeed);
+        engine.setSpeed(newSpeed);
+    }
+
+    @Override
+    public void setBalance(double newBalance) {
+        super.setBalance(newBalance);
+        engine.setBalance(newBalance);
+    }
+
+    @Override
+    public void close() {
+        pollTimeline.stop();
+        engine.close();
+        resetTransition();
+    }
+}
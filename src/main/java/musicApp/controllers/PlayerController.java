@@ -60,9 +60,8 @@ public class PlayerController extends ViewController<PlayerView> implements Play
         playlistNavigatorController = new PlaylistNavigatorController(this, settingsDTO.getMusicFolder(), settingsDTO.getUserMusicFolder());
         libraryController = new LibraryController(this, getMainLibrary());
         queueController = new QueueController(this);
-        mediaPlayerController = new MediaPlayerController(this, settingsDTO.getBalance(), settingsDTO.getCrossfadeDuration(), settingsDTO.getEqualizerBands());
+        mediaPlayerController = new MediaPlayerController(this, settingsDTO.getBalance(), settingsDTO.getCrossfadeDuration(), settingsDTO.getCrossfadeCurve(), settingsDTO.getGaplessPreloadWindow(), settingsDTO.getEqualizerBands());
         toolBarController = new ToolBarController(this);
-        lyricsController = new LyricsController(this);
     }
 
     /**
@@ -160,7 +159,9 @@ public class PlayerController extends ViewController<PlayerView> implements Play
      */
     public void refreshUI() {
         view.refreshUI();
-        lyricsController.refreshUI();
+        if (lyricsController != null) {
+            lyricsController.refreshUI();
+        }
         playlistNavigatorController.refreshUI();
         libraryController.refreshUI();
     }
@@ -181,6 +182,8 @@ public class PlayerController extends ViewController<PlayerView> implements Play
     public void onSettingsChanged(SettingsDTO newSettingsDTO) throws EqualizerGainException {
         mediaPlayerController.setBalance(newSettingsDTO.getBalance());
         mediaPlayerController.setCrossfadeDuration(newSettingsDTO.getCrossfadeDuration());
+        mediaPlayerController.setCrossfadeCurve(newSettingsDTO.getCrossfadeCurve());
+        mediaPlayerController.setGaplessPreloadWindow(newSettingsDTO.getGaplessPreloadWindow());
         mediaPlayerController.setEqualizerBands(newSettingsDTO.getEqualizerBands());
         playlistNavigatorController.updateUserMainLibrary(newSettingsDTO.getUserMusicFolder());
         playlistNavigatorController.updateUserPlaylists(newSettingsDTO.getUserPlaylistPath());
@@ -322,6 +325,9 @@ public class PlayerController extends ViewController<PlayerView> implements Play
      * @return The Pane containing the lyrics UI.
      */
     public Pane getLyricsRoot() {
+        if (lyricsController == null) {
+            lyricsController = new LyricsController(this);
+        }
         return lyricsController.getRoot();
     }
 
@@ -359,6 +365,18 @@ public class PlayerController extends ViewController<PlayerView> implements Play
         libraryController.loadPlaylist(library);
     }
 
+    /**
+     * Show the new library in place of the old one, if the old one is currently shown.
+     *
+     * @param oldLibrary the library to replace
+     * @param newLibrary the library to show instead
+     */
+    public void replaceShownPlaylist(Library oldLibrary, Library newLibrary) {
+        if (libraryController.isShowing(oldLibrary)) {
+            libraryController.loadPlaylist(newLibrary);
+        }
+    }
+
     /**
      * Append a playlist to the queue
      *
@@ -377,6 +395,16 @@ public class PlayerController extends ViewController<PlayerView> implements Play
         queueController.replaceQueue(playlist);
     }
 
+    /**
+     * Export the songs of a playlist, mixed like they would be played, to a WAV file
+     *
+     * @param playlist The playlist to export
+     * @param wavFile  The destination file
+     */
+    public void exportMix(Library playlist, Path wavFile) {
+        mediaPlayerController.exportMix(playlist, wavFile);
+    }
+
     /**
      * Toggle the favorite status of a song
      * If the song is already a favorite, it will be removed from the favorites
@@ -465,6 +493,16 @@ public class PlayerController extends ViewController<PlayerView> implements Play
         return playlistNavigatorController.isUserLibrary(library);
     }
 
+    /**
+     * Checks whether the songs of a library are still being loaded.
+     *
+     * @param library The library to check.
+     * @return true if the library is still loading, false otherwise.
+     */
+    public boolean isLibraryLoading(Library library) {
+        return playlistNavigatorController.isLibraryLoading(library);
+    }
+
     public Path getUserLibraryPath() {
         return metaController.getUserMusicFolder();
     }
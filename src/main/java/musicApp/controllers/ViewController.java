@@ -2,6 +2,7 @@ package musicApp.controllers;
 
 import javafx.scene.layout.Pane;
 import musicApp.services.AlertService;
+import musicApp.views.CodeBuiltView;
 import musicApp.views.View;
 
 
@@ -54,6 +55,20 @@ public abstract class ViewController<V extends View> {
         }
     }
 
+    /**
+     * Init a view that builds its node graph in code instead of loading an FXML file.
+     */
+    protected void initView() {
+        try {
+            if (!(view instanceof CodeBuiltView codeBuiltView)) {
+                throw new IllegalStateException(view.getClass().getSimpleName() + " cannot be built without FXML");
+            }
+            codeBuiltView.initializeSceneFromCode();
+            view.init();
+        } catch (Exception e) {
+            view.displayError(e.getMessage());
+        }
+    }
 
     /**
      * Gets root.
@@ -19,7 +19,7 @@ public class PlaylistCellController extends ViewController<PlaylistCellView> imp
     public PlaylistCellController() {
         super(new PlaylistCellView());
         view.setListener(this);
-        initView("/fxml/PlaylistCell.fxml");
+        initView();
     }
 
     public boolean isShowingLibrary() {
@@ -6,6 +6,8 @@ import musicApp.models.Library;
 import musicApp.services.LanguageService;
 import musicApp.views.playlists.PlaylistContextMenuView;
 
+import java.io.File;
+
 public class PlaylistContextMenuController extends ViewController<PlaylistContextMenuView> implements PlaylistContextMenuView.PlaylistContextMenuViewListener {
     private final PlaylistNavigatorController playlistNavigatorController;
     private Library selectedLibrary;
@@ -38,6 +40,20 @@ public class PlaylistContextMenuController extends ViewController<PlaylistContex
         playlistNavigatorController.replaceQueue(selectedLibrary);
     }
 
+    public void handleExportMix() {
+        File wavFile = view.getMixFile(selectedLibrary.getDisplayName());
+        if (wavFile != null) {
+            playlistNavigatorController.exportMix(selectedLibrary, wavFile.toPath());
+        }
+    }
+
+    public void handleTranscodeToMp3() {
+        File directory = view.getTranscodeDirectory();
+        if (directory != null) {
+            playlistNavigatorController.transcodeToMp3(selectedLibrary, directory.toPath());
+        }
+    }
+
     public void showAt(double x, double y, Library newSelectedLibrary) {
         selectedLibrary = newSelectedLibrary;
         view.show(playlistNavigatorController.getRoot(), x, y);
@@ -1,5 +1,6 @@
 package musicApp.controllers.playlists;
 
+import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import musicApp.controllers.PlayerController;
 import musicApp.controllers.ViewController;
@@ -8,10 +9,12 @@ import musicApp.exceptions.SettingsFilesException;
 import musicApp.models.Library;
 import musicApp.models.Song;
 import musicApp.services.LanguageService;
+import musicApp.services.TranscodeService;
 import musicApp.views.playlists.PlaylistNavigatorView;
 
 import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 /**
  * The type Playlist navigator controller.
@@ -34,7 +37,7 @@ public class PlaylistNavigatorController extends ViewController<PlaylistNavigato
         view.setListener(this);
         playerController = controller;
         try {
-            playlistsController = new PlaylistsController(musicFolder, userMusicFolder, controller.getUserPlaylistPath());
+            playlistsController = new PlaylistsController(controller.getUserPlaylistPath());
         } catch (SettingsFilesException e) {
             alertService.showFatalErrorAlert(LanguageService.getInstance().get("error.playlist_load"), e);
             throw new RuntimeException(e);
@@ -42,6 +45,21 @@ public class PlaylistNavigatorController extends ViewController<PlaylistNavigato
         playlistContextMenuController = new PlaylistContextMenuController(this);
         initView("/fxml/PlaylistNavigator.fxml");
         loadPlaylists();
+        playlistsController.loadLibrariesInBackground(musicFolder, userMusicFolder, this::onLibraryLoaded);
+    }
+
+    /**
+     * Swap a library placeholder for the library that finished loading, in this view and in the library view.
+     *
+     * @param placeholder the library that was shown while loading
+     * @param library     the loaded library
+     */
+    private void onLibraryLoaded(Library placeholder, Library library) {
+        if (selectedLibrary == placeholder) {
+            selectedLibrary = library;
+        }
+        playerController.replaceShownPlaylist(placeholder, library);
+        refreshUI();
     }
 
     /**
@@ -116,6 +134,55 @@ public class PlaylistNavigatorController extends ViewController<PlaylistNavigato
         playerController.replaceQueue(library);
     }
 
+    /**
+     * Export the songs of a playlist, mixed like they would be played, to a WAV file.
+     *
+     * @param library the playlist
+     * @param wavFile the destination file
+     */
+    public void exportMix(Library library, Path wavFile) {
+        playerController.exportMix(library, wavFile);
+    }
+
+    /**
+     * Transcode the songs of a playlist to MP3 files in the background, resuming an earlier run to the same
+     * directory. The progress is shown in a window which can cancel the run, and the user is told when it is
+     * done, with the throughput of the run.
+     *
+     * @param library         the playlist
+     * @param outputDirectory the destination directory
+     */
+    public void transcodeToMp3(Library library, Path outputDirectory) {
+        TranscodeService transcodeService = new TranscodeService(outputDirectory);
+        TranscodeProgressController progressController = new TranscodeProgressController(transcodeService);
+        transcodeService.setListener(progressController::update);
+        Thread thread = new Thread(() -> {
+            try {
+                TranscodeService.Report report = transcodeService.transcode(List.of(library));
+                String message = String.format(LanguageService.getInstance().get("alert.transcode_done"),
+                        report.getTranscodedFiles(), report.getSkippedFiles(), report.getFailedFiles(),
+                        report.getFilesPerSecond(), report.getRealtimeFactor());
+                Platform.runLater(() -> {
+                    progressController.close();
+                    alertService.showAlert(message, Alert.AlertType.INFORMATION);
+                });
+            } catch (CancellationException e) {
+                Platform.runLater(() -> {
+                    progressController.close();
+                    alertService.showAlert(LanguageService.getInstance().get("alert.transcode_cancelled"),
+                            Alert.AlertType.INFORMATION);
+                });
+            } catch (Exception e) {
+                Platform.runLater(() -> {
+                    progressController.close();
+                    alertService.showExceptionAlert(e, Alert.AlertType.ERROR);
+                });
+            }
+        }, "mp3-transcode");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     /**
      * Refresh the UI.
      */
@@ -232,4 +299,14 @@ public class PlaylistNavigatorController extends ViewController<PlaylistNavigato
     public boolean isUserLibrary(Library library) {
         return playlistsController.isUserLibrary(library);
     }
+
+    /**
+     * Check if a library is still being loaded in the background.
+     *
+     * @param library the library
+     * @return true if the library is still loading
+     */
+    public boolean isLibraryLoading(Library library) {
+        return playlistsController.isLibraryLoading(library);
+    }
 }
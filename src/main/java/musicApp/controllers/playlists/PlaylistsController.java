@@ -1,37 +1,101 @@
 package musicApp.controllers.playlists;
 
 
+import javafx.application.Platform;
 import musicApp.exceptions.DeletePlaylistException;
 import musicApp.exceptions.SettingsFilesException;
 import musicApp.models.Library;
 import musicApp.models.Song;
+import musicApp.services.AudioAnalysisService;
 import musicApp.services.LanguageService;
 import musicApp.services.PlaylistService;
+import musicApp.services.StartupTimer;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 public class PlaylistsController {
     private static final int USER_MAIN_LIBRARY_INDEX = 1;
     private static final int FAVORITES_INDEX = 2;
     private final PlaylistService playlistService;
-    private final int MAIN_LIBRARY_INDEX = 0;
+    private static final int MAIN_LIBRARY_INDEX = 0;
     private List<Library> playlists;
+    private final List<Library> loadingLibraries = new ArrayList<>();
 
-    public PlaylistsController(Path musicFolder, Path userMusicFolder, Path userPlaylistPath) throws SettingsFilesException {
+    /**
+     * Creates the controller with the user playlists loaded and empty placeholders for the main and user libraries.
+     * The libraries themselves are scanned later by {@link #loadLibrariesInBackground}.
+     *
+     * @param userPlaylistPath the path of the user playlists
+     * @throws SettingsFilesException if the playlists file cannot be accessed
+     */
+    public PlaylistsController(Path userPlaylistPath) throws SettingsFilesException {
         playlistService = new PlaylistService(userPlaylistPath);
-        playlists = playlistService.loadAllLibraries(musicFolder, userMusicFolder);
+        playlists = new ArrayList<>();
+        playlists.add(playlistService.createEmptyMainLibrary());
+        playlists.add(playlistService.createEmptyUserMainLibrary());
+        playlists.addAll(playlistService.readPlaylists());
+        StartupTimer.mark("playlists loaded");
+    }
+
+    /**
+     * Scans the main and user music folders on a background thread.
+     * Each library replaces its placeholder on the FX thread as soon as it is loaded,
+     * unless it was replaced in the meantime (e.g. after a settings change).
+     *
+     * @param musicFolder       the main music folder
+     * @param userMusicFolder   the user music folder
+     * @param onLibraryReplaced called on the FX thread with the replaced and the new library
+     */
+    public void loadLibrariesInBackground(Path musicFolder, Path userMusicFolder, BiConsumer<Library, Library> onLibraryReplaced) {
+        Library mainPlaceholder = getMainLibrary();
+        Library userPlaceholder = playlists.get(USER_MAIN_LIBRARY_INDEX);
+        loadingLibraries.add(mainPlaceholder);
+        loadingLibraries.add(userPlaceholder);
+        Thread loader = new Thread(() -> {
+            Library mainLibrary = playlistService.loadMainLibrary(musicFolder);
+            Platform.runLater(() -> replaceLibrary(MAIN_LIBRARY_INDEX, mainPlaceholder, mainLibrary, onLibraryReplaced));
+            Library userMainLibrary = playlistService.loadUserMainLibrary(userMusicFolder);
+            Platform.runLater(() -> replaceLibrary(USER_MAIN_LIBRARY_INDEX, userPlaceholder, userMainLibrary, onLibraryReplaced));
+        }, "library-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void replaceLibrary(int index, Library placeholder, Library library, BiConsumer<Library, Library> onLibraryReplaced) {
+        loadingLibraries.remove(placeholder);
+        if (playlists.get(index) != placeholder) {
+            return;
+        }
+        playlists.set(index, library);
+        StartupTimer.mark(library.getName() + " loaded (" + library.size() + " songs)");
+        AudioAnalysisService.getInstance().analyzeInBackground(library.toList());
+        onLibraryReplaced.accept(placeholder, library);
+    }
+
+    /**
+     * Checks if a library is a placeholder whose songs are still being scanned.
+     * Songs added to it would be lost when the loaded library replaces it.
+     *
+     * @param library the library to check
+     * @return true if the library is still loading
+     */
+    public boolean isLibraryLoading(Library library) {
+        return loadingLibraries.contains(library);
     }
 
     public void updateMainLibrary(Path newMusicFolder) {
         Library mainLibrary = playlistService.loadMainLibrary(newMusicFolder);
         setMainLibrary(mainLibrary);
+        AudioAnalysisService.getInstance().analyzeInBackground(mainLibrary.toList());
     }
 
     public void updateUserMainLibrary(Path newMusicFolder) {
         Library userMainLibrary = playlistService.loadUserMainLibrary(newMusicFolder);
         setUserMainLibrary(userMainLibrary);
+        AudioAnalysisService.getInstance().analyzeInBackground(userMainLibrary.toList());
     }
 
     public Library getMainLibrary() {
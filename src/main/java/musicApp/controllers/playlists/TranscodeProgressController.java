@@ -0,0 +1,50 @@
+package musicApp.controllers.playlists;
+
+import javafx.application.Platform;
+import musicApp.controllers.ViewController;
+import musicApp.services.TranscodeService;
+import musicApp.views.playlists.TranscodeProgressView;
+
+/**
+ * The transcoding progress controller.
+ * Shows the progress of a batch of a {@link TranscodeService} and lets the user cancel it.
+ */
+public class TranscodeProgressController extends ViewController<TranscodeProgressView> implements TranscodeProgressView.TranscodeProgressViewListener {
+
+    private final TranscodeService transcodeService;
+
+    /**
+     * Instantiates the controller and opens its window.
+     *
+     * @param _transcodeService the service running the batch
+     */
+    public TranscodeProgressController(TranscodeService _transcodeService) {
+        super(new TranscodeProgressView());
+        view.setListener(this);
+        transcodeService = _transcodeService;
+        initView("/fxml/TranscodeProgress.fxml");
+    }
+
+    /**
+     * Show the progress of the batch. Can be called from any thread, e.g. as the listener of the service.
+     *
+     * @param report the progress so far
+     */
+    public void update(TranscodeService.Report report) {
+        int done = report.getTranscodedFiles() + report.getSkippedFiles() + report.getFailedFiles();
+        Platform.runLater(() -> view.setProgress(done, report.getTotalFiles()));
+    }
+
+    /**
+     * Cancel the batch. The window is closed once it stopped.
+     */
+    @Override
+    public void handleCancel() {
+        transcodeService.cancel();
+        view.setCancelling();
+    }
+
+    public void close() {
+        view.close();
+    }
+}
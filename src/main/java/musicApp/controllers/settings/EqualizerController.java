@@ -6,8 +6,6 @@ import musicApp.enums.EqualizerBandFrequency;
 import musicApp.models.Equalizer;
 import musicApp.views.settings.EqualizerView;
 
-import java.util.List;
-
 
 /**
  * The type Equalizer controller.
@@ -85,12 +83,14 @@ public class EqualizerController extends ViewController<EqualizerView> implement
     }
 
     /**
-     * Update the equalizer.
+     * Update the equalizer with the bands whose slider moved.
      */
     public void update() {
-        List<Double> equalizerBands = view.getSlidersValues();
-        for (int bandIndex = 0; bandIndex < equalizerBands.size(); bandIndex++) {
-            updateEqualizerBand(bandIndex, equalizerBands.get(bandIndex));
+        double[] equalizerBands = view.getSlidersValues();
+        for (int bandIndex = 0; bandIndex < equalizerBands.length; bandIndex++) {
+            if (equalizer.getBandGain(bandIndex) != equalizerBands[bandIndex]) {
+                updateEqualizerBand(bandIndex, equalizerBands[bandIndex]);
+            }
         }
         view.updateSlidersValues();
     }
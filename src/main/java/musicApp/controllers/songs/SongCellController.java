@@ -20,7 +20,7 @@ import java.util.Optional;
 public class SongCellController extends ViewController<SongCellView> implements SongCellView.SongCellViewListener, SongCell.SongCellListener {
 
     private final LibraryController libraryController;
-    private final SongContextMenuController contextMenuController;
+    private SongContextMenuController contextMenuController;
     private Song song;
 
 
@@ -33,9 +33,7 @@ public class SongCellController extends ViewController<SongCellView> implements
         super(new SongCellView());
         view.setListener(this);
         libraryController = controller;
-        contextMenuController = new SongContextMenuController(this);
-        initView("/fxml/SongCell.fxml");
-
+        initView();
     }
 
     /**
@@ -63,7 +61,16 @@ public class SongCellController extends ViewController<SongCellView> implements
         return song;
     }
 
+    /**
+     * Show the context menu of the song, creating it on first use.
+     *
+     * @param x the screen x coordinate
+     * @param y the screen y coordinate
+     */
     public void showContextMenu(double x, double y) {
+        if (contextMenuController == null) {
+            contextMenuController = new SongContextMenuController(this);
+        }
         contextMenuController.showAt(x, y);
     }
 
@@ -0,0 +1,37 @@
+package musicApp.enums;
+
+/**
+ * Gain curves used to fade two songs into each other.
+ * Each curve maps the crossfade position (0 at the start, 1 at the end) to the gain of the outgoing and incoming songs.
+ */
+public enum CrossfadeCurve {
+    LINEAR,
+    EQUAL_POWER,
+    S_CURVE;
+
+    /**
+     * Gain of the incoming song.
+     *
+     * @param position The crossfade position, between 0 and 1.
+     * @return The gain, between 0 and 1.
+     */
+    public double fadeIn(double position) {
+        double t = Math.max(0, Math.min(1, position));
+        return switch (this) {
+            case LINEAR -> t;
+            // sin/cos keeps the summed power constant, so the mix does not dip in the middle
+            case EQUAL_POWER -> Math.sin(t * Math.PI / 2);
+            case S_CURVE -> t * t * (3 - 2 * t);
+        };
+    }
+
+    /**
+     * Gain of the outgoing song.
+     *
+     * @param position The crossfade position, between 0 and 1.
+     * @return The gain, between 0 and 1.
+     */
+    public double fadeOut(double position) {
+        return fadeIn(1 - position);
+    }
+}
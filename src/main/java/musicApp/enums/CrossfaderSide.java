@@ -0,0 +1,28 @@
+package musicApp.enums;
+
+/**
+ * Side of the crossfader a mixer deck is assigned to.
+ */
+public enum CrossfaderSide {
+    // Full volume with the crossfader on the left, faded out towards the right
+    LEFT,
+    // Full volume with the crossfader on the right, faded out towards the left
+    RIGHT,
+    // Not affected by the crossfader
+    THROUGH;
+
+    /**
+     * Gain of a deck on this side.
+     *
+     * @param position The crossfader position, 0 on the left and 1 on the right.
+     * @param curve    The curve of the crossfader.
+     * @return The gain, between 0 and 1.
+     */
+    public double gain(double position, CrossfadeCurve curve) {
+        return switch (this) {
+            case LEFT -> curve.fadeOut(position);
+            case RIGHT -> curve.fadeIn(position);
+            case THROUGH -> 1.0;
+        };
+    }
+}
@@ -5,16 +5,27 @@ import java.util.Arrays;
 
 /**
  * The music files extensions supported by the app.
+ * Every audio format is decoded by FFmpeg in the PCM engine. The JavaFX media player only plays some of them
+ * natively, the others are streamed to it decoded. Tags are read and written with jaudiotagger when it supports
+ * the format, and only read through FFmpeg otherwise.
  */
 public enum SupportedFileType {
-    MP3(".mp3"),
-    WAV(".wav"),
-    M3U(".m3u");
+    MP3(".mp3", true, true),
+    WAV(".wav", true, true),
+    FLAC(".flac", false, true),
+    OGG(".ogg", false, true),
+    OPUS(".opus", false, false),
+    M4A(".m4a", true, true),
+    M3U(".m3u", true, false);
 
     private final String ext;
+    private final boolean playedByJavaFx;
+    private final boolean taggable;
 
-    SupportedFileType(String ext) {
+    SupportedFileType(String ext, boolean playedByJavaFx, boolean taggable) {
         this.ext = ext;
+        this.playedByJavaFx = playedByJavaFx;
+        this.taggable = taggable;
     }
 
     /**
@@ -55,6 +66,35 @@ public enum SupportedFileType {
                 .orElse(null);
     }
 
+    /**
+     * Returns the file type of a file, based on its extension.
+     *
+     * @param fileName The name or path of the file.
+     * @return The corresponding {@link SupportedFileType}, or null if the file has no supported extension
+     */
+    public static SupportedFileType fromFileName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? null : fromExtension(fileName.substring(dot));
+    }
+
+    /**
+     * Checks whether the JavaFX media player can play the files of this type by itself.
+     *
+     * @return true if the files can be handed to JavaFX media as they are.
+     */
+    public boolean isPlayedByJavaFx() {
+        return playedByJavaFx;
+    }
+
+    /**
+     * Checks whether the tags of the files of this type can be written with jaudiotagger.
+     *
+     * @return true if the tags can be read and written with jaudiotagger.
+     */
+    public boolean isTaggable() {
+        return taggable;
+    }
+
     /**
      * Returns the file extension associated with the file type.
      *
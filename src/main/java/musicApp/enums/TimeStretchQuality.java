@@ -0,0 +1,38 @@
+package musicApp.enums;
+
+/**
+ * Trade-offs between quality and CPU usage of the time-stretching.
+ * The quality is the precision of the search for the best splice point between two segments of audio:
+ * a coarser search costs less CPU but may leave audible phasing on tonal music.
+ */
+public enum TimeStretchQuality {
+    LOW(8, 0),
+    MEDIUM(8, 7),
+    HIGH(1, 0);
+
+    private final int coarseStep;
+    private final int refineRadius;
+
+    TimeStretchQuality(int _coarseStep, int _refineRadius) {
+        coarseStep = _coarseStep;
+        refineRadius = _refineRadius;
+    }
+
+    /**
+     * Get the step between two candidates of the first search pass.
+     *
+     * @return The step in frames.
+     */
+    public int getCoarseStep() {
+        return coarseStep;
+    }
+
+    /**
+     * Get the distance around the best coarse candidate searched frame by frame.
+     *
+     * @return The radius in frames, 0 for no refinement.
+     */
+    public int getRefineRadius() {
+        return refineRadius;
+    }
+}
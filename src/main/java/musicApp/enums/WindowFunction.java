@@ -0,0 +1,26 @@
+package musicApp.enums;
+
+/**
+ * Window functions applied to a block of samples before a Fourier transform, to limit spectral leakage.
+ */
+public enum WindowFunction {
+    // Good frequency resolution, moderate leakage
+    HANN,
+    // Wider peaks but much lower leakage, so quiet bands next to loud ones stay visible
+    BLACKMAN;
+
+    /**
+     * Get the coefficient of a sample of the block.
+     *
+     * @param index The index of the sample.
+     * @param size  The size of the block.
+     * @return The coefficient, between 0 and 1.
+     */
+    public double coefficient(int index, int size) {
+        double phase = 2 * Math.PI * index / size;
+        return switch (this) {
+            case HANN -> 0.5 - 0.5 * Math.cos(phase);
+            case BLACKMAN -> 0.42 - 0.5 * Math.cos(phase) + 0.08 * Math.cos(2 * phase);
+        };
+    }
+}
@@ -0,0 +1,226 @@
+package musicApp.models;
+
+import com.google.gson.annotations.Expose;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * AudioAnalysis
+ * Loudness, tempo, silence and cue point measurements of an audio file, along with the size and modification time
+ * of the file they were computed from, so that a changed file is analysed again.
+ */
+public class AudioAnalysis {
+
+    // Incremented when new measurements are added, so that older analyses are computed again
+    public static final int FORMAT_VERSION = 3;
+    public static final int BEATS_PER_BAR = 4;
+
+    // Highest true peak allowed after applying the track gain
+    private static final double MAX_TRUE_PEAK_DB = -1.0;
+    // How many crossfade durations the outro may move the crossfade earlier, so that a long quiet ending
+    // is not mistaken for a fade out and skipped
+    private static final double MAX_OUTRO_LEAD = 1.0;
+
+    @Expose
+    private final int version;
+    @Expose
+    private final String songPath;
+    @Expose
+    private final long fileSize;
+    @Expose
+    private final long lastModified;
+    @Expose
+    private final double integratedLoudness;
+    @Expose
+    private final double truePeak;
+    @Expose
+    private final double bpm;
+    @Expose
+    private final double firstBeat;
+    @Expose
+    private final double audioStart;
+    @Expose
+    private final double audioEnd;
+    @Expose
+    private final double outroStart;
+
+    /**
+     * Instantiates a new audio analysis.
+     *
+     * @param _songPath           The absolute path of the analysed file.
+     * @param _fileSize           The size of the file when it was analysed.
+     * @param _lastModified       The modification time of the file when it was analysed, in milliseconds.
+     * @param _integratedLoudness The integrated loudness in LUFS.
+     * @param _truePeak           The true peak in dBTP.
+     * @param _bpm                The tempo in beats per minute, or 0 if the song has no steady beat.
+     * @param _firstBeat          The time of the first beat in seconds.
+     */
+    public AudioAnalysis(String _songPath, long _fileSize, long _lastModified, double _integratedLoudness, double _truePeak,
+                         double _bpm, double _firstBeat) {
+        this(_songPath, _fileSize, _lastModified, _integratedLoudness, _truePeak, _bpm, _firstBeat, 0, 0, 0);
+    }
+
+    /**
+     * Instantiates a new audio analysis with the silences and cue points of the song.
+     *
+     * @param _songPath           The absolute path of the analysed file.
+     * @param _fileSize           The size of the file when it was analysed.
+     * @param _lastModified       The modification time of the file when it was analysed, in milliseconds.
+     * @param _integratedLoudness The integrated loudness in LUFS.
+     * @param _truePeak           The true peak in dBTP.
+     * @param _bpm                The tempo in beats per minute, or 0 if the song has no steady beat.
+     * @param _firstBeat          The time of the first beat in seconds.
+     * @param _audioStart         The end of the leading silence in seconds.
+     * @param _audioEnd           The start of the trailing silence in seconds, or 0 if unknown.
+     * @param _outroStart         The start of the outro in seconds.
+     */
+    public AudioAnalysis(String _songPath, long _fileSize, long _lastModified, double _integratedLoudness, double _truePeak,
+                         double _bpm, double _firstBeat, double _audioStart, double _audioEnd, double _outroStart) {
+        version = FORMAT_VERSION;
+        songPath = _songPath;
+        fileSize = _fileSize;
+        lastModified = _lastModified;
+        integratedLoudness = _integratedLoudness;
+        truePeak = _truePeak;
+        bpm = _bpm;
+        firstBeat = _firstBeat;
+        audioStart = _audioStart;
+        audioEnd = _audioEnd;
+        outroStart = _outroStart;
+    }
+
+    public String getSongPath() {
+        return songPath;
+    }
+
+    public double getIntegratedLoudness() {
+        return integratedLoudness;
+    }
+
+    public double getTruePeak() {
+        return truePeak;
+    }
+
+    /**
+     * Check whether the song has a steady beat, described by {@link #getBpm()} and {@link #getFirstBeat()}.
+     *
+     * @return true if the beat grid is known.
+     */
+    public boolean hasBeatGrid() {
+        return bpm > 0;
+    }
+
+    public double getBpm() {
+        return bpm;
+    }
+
+    public double getFirstBeat() {
+        return firstBeat;
+    }
+
+    /**
+     * Get the duration of a beat.
+     *
+     * @return The beat period in seconds, or 0 if the song has no beat grid.
+     */
+    public double getBeatPeriod() {
+        return hasBeatGrid() ? 60 / bpm : 0;
+    }
+
+    /**
+     * Get the start of the bar containing the given time, counting bars from the first beat.
+     *
+     * @param seconds A time in the song.
+     * @return The start of the bar at or before that time, or the time itself if the song has no beat grid.
+     */
+    public double getBarStartBefore(double seconds) {
+        if (!hasBeatGrid() || seconds < firstBeat) {
+            return seconds;
+        }
+        double barLength = BEATS_PER_BAR * getBeatPeriod();
+        return firstBeat + Math.floor((seconds - firstBeat) / barLength) * barLength;
+    }
+
+    /**
+     * Check whether the silences and cue points of the song are known.
+     *
+     * @return true if they are known.
+     */
+    public boolean hasCuePoints() {
+        return audioEnd > 0;
+    }
+
+    /**
+     * Get the end of the leading silence, where the song starts when it is mixed in.
+     *
+     * @return The time in seconds, 0 if unknown.
+     */
+    public double getAudioStart() {
+        return audioStart;
+    }
+
+    public double getAudioEnd() {
+        return audioEnd;
+    }
+
+    public double getOutroStart() {
+        return outroStart;
+    }
+
+    /**
+     * Get the time at which a crossfade out of the song starts: early enough for the crossfade to end before the
+     * trailing silence, so that it never fades into dead air, and at the start of the outro if it is not more than
+     * a crossfade duration before that.
+     *
+     * @param totalSeconds      The duration of the song.
+     * @param crossfadeDuration The duration of the crossfade.
+     * @return The crossfade start in seconds, the end of the song minus the crossfade if the cue points are unknown.
+     */
+    public double getCrossfadeStart(double totalSeconds, double crossfadeDuration) {
+        double start = totalSeconds - crossfadeDuration;
+        if (hasCuePoints()) {
+            start = Math.min(start, audioEnd - crossfadeDuration);
+            start = Math.min(start, Math.max(outroStart, start - MAX_OUTRO_LEAD * crossfadeDuration));
+        }
+        return Math.max(0, start);
+    }
+
+    /**
+     * Check whether the analysis still describes the file, i.e. the file was not modified since
+     * and the analysis has every current measurement.
+     *
+     * @param file The analysed file.
+     * @return true if the analysis is current.
+     */
+    public boolean isUpToDate(Path file) {
+        if (version != FORMAT_VERSION) {
+            return false;
+        }
+        try {
+            return Files.size(file) == fileSize && Files.getLastModifiedTime(file).toMillis() == lastModified;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Get the gain bringing the track to the target loudness, ReplayGain-style.
+     * The gain only attenuates, since the player volume cannot exceed 1,
+     * and leaves at least 1 dB of headroom below the true peak.
+     *
+     * @param targetLoudness The target loudness in LUFS.
+     * @return The linear gain, between 0 and 1.
+     */
+    public double getTrackGain(double targetLoudness) {
+        if (!Double.isFinite(integratedLoudness)) {
+            return 1.0;
+        }
+        double gainDb = targetLoudness - integratedLoudness;
+        if (Double.isFinite(truePeak)) {
+            gainDb = Math.min(gainDb, MAX_TRUE_PEAK_DB - truePeak);
+        }
+        return Math.pow(10, Math.min(0, gainDb) / 20);
+    }
+}
@@ -1,11 +1,9 @@
 package musicApp.models;
 
 import javafx.beans.property.*;
+import musicApp.enums.CrossfadeCurve;
 import musicApp.exceptions.BadSongException;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.function.Supplier;
 
 /**
@@ -14,16 +12,22 @@ import java.util.function.Supplier;
  */
 public class AudioPlayer {
 
+    public static final double DEFAULT_GAPLESS_PRELOAD_WINDOW = 10.0;
+    public static final double MAX_GAPLESS_PRELOAD_WINDOW = 30.0;
+    public static final double MAX_CROSSFADE_DURATION = 30.0;
+
     private final DoubleProperty progress;
     private final StringProperty currentSongString;
     private final BooleanProperty isPlaying;
     private final BooleanProperty isLoaded;
     private final DoubleProperty volume;
     private final Double audioSpectrumInterval;
-    private List<Double> equalizerBandsGain;
+    private final Equalizer equalizer;
     private Song loadedSong;
     private double balance;
     private double crossfadeDuration;
+    private double gaplessPreloadWindow;
+    private CrossfadeCurve crossfadeCurve;
     private double speed;
     private Supplier<Song> nextSongSupplier;
 
@@ -37,11 +41,13 @@ public class AudioPlayer {
         isPlaying = new SimpleBooleanProperty(false);
         isLoaded = new SimpleBooleanProperty(false);
         volume = new SimpleDoubleProperty(1.0);
-        equalizerBandsGain = new ArrayList<>(Collections.nCopies(10, 0.0));
+        equalizer = new Equalizer();
         loadedSong = null;
         isTransitioning = false;
         balance = 0.0;
         speed = 1.0;
+        gaplessPreloadWindow = DEFAULT_GAPLESS_PRELOAD_WINDOW;
+        crossfadeCurve = CrossfadeCurve.EQUAL_POWER;
         audioSpectrumInterval = 0.05; // Optimal Speed (lower is blinky, higher is laggy)
     }
 
@@ -56,21 +62,31 @@ public class AudioPlayer {
     }
 
     /**
-     * Returns the list of equalizer band gains.
+     * Returns the equalizer band gains, with the version of their last change.
      *
-     * @return list of gains for each equalizer band
+     * @return the equalizer
      */
-    public List<Double> getEqualizerBandsGain() {
-        return equalizerBandsGain;
+    public Equalizer getEqualizer() {
+        return equalizer;
     }
 
     /**
-     * Replaces the entire list of equalizer band gains.
+     * Returns a copy of the equalizer band gains.
      *
-     * @param newEqualizerBandsGain list of new gain values
+     * @return gains for each equalizer band
      */
-    public void setEqualizerBandsGain(List<Double> newEqualizerBandsGain) {
-        equalizerBandsGain = newEqualizerBandsGain;
+    public double[] getEqualizerBandsGain() {
+        return equalizer.getBandsGain();
+    }
+
+    /**
+     * Replaces the equalizer band gains; only the bands that differ are marked as changed.
+     *
+     * @param newEqualizerBandsGain new gain values
+     * @throws IllegalArgumentException if a gain is out of range or the number of bands is wrong
+     */
+    public void setEqualizerBandsGain(double[] newEqualizerBandsGain) throws IllegalArgumentException {
+        equalizer.setBandsGain(newEqualizerBandsGain);
     }
 
     /**
@@ -174,7 +190,7 @@ public class AudioPlayer {
      * @return count of bands
      */
     public int getEqualizerBandsGainSize() {
-        return equalizerBandsGain.size();
+        return equalizer.getBandsSize();
     }
 
     /**
@@ -184,7 +200,7 @@ public class AudioPlayer {
      * @return gain value of that band
      */
     public double getEqualizerBandGain(int bandIndex) {
-        return equalizerBandsGain.get(bandIndex);
+        return equalizer.getBandGain(bandIndex);
     }
 
     /**
@@ -217,10 +233,46 @@ public class AudioPlayer {
     /**
      * Set the duration of the crossfade.
      *
-     * @param _crossfadeDuration The duration of the crossfade in seconds.
+     * @param _crossfadeDuration The duration of the crossfade in seconds, capped to {@link #MAX_CROSSFADE_DURATION}.
      */
     public void setCrossfadeDuration(double _crossfadeDuration) {
-        crossfadeDuration = _crossfadeDuration;
+        crossfadeDuration = Math.min(_crossfadeDuration, MAX_CROSSFADE_DURATION);
+    }
+
+    /**
+     * Gets how long before the end of a song, or before its crossfade, the next one is prepared.
+     *
+     * @return the preload window in seconds
+     */
+    public double getGaplessPreloadWindow() {
+        return gaplessPreloadWindow;
+    }
+
+    /**
+     * Set how long before the end of a song, or before its crossfade, the next one is prepared.
+     *
+     * @param _gaplessPreloadWindow The preload window in seconds.
+     */
+    public void setGaplessPreloadWindow(double _gaplessPreloadWindow) {
+        gaplessPreloadWindow = Math.max(0, Math.min(_gaplessPreloadWindow, MAX_GAPLESS_PRELOAD_WINDOW));
+    }
+
+    /**
+     * Gets the gain curve used for crossfades.
+     *
+     * @return the crossfade curve
+     */
+    public CrossfadeCurve getCrossfadeCurve() {
+        return crossfadeCurve;
+    }
+
+    /**
+     * Set the gain curve used for crossfades.
+     *
+     * @param _crossfadeCurve The crossfade curve.
+     */
+    public void setCrossfadeCurve(CrossfadeCurve _crossfadeCurve) {
+        crossfadeCurve = _crossfadeCurve;
     }
 
     /**
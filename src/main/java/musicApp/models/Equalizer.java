@@ -7,30 +7,38 @@ import musicApp.enums.EqualizerBandFrequency;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Equalizer
+ * Gains of the equalizer bands, stored as primitives.
+ * Every change increments a version and records it on the changed band, so that each consumer
+ * (a media player, the PCM engine) only pushes the bands changed since the version it applied last.
+ */
 public class Equalizer {
     public static final double MAX_GAIN_DB = EqualizerBand.MAX_GAIN;
     public static final double MIN_GAIN_DB = EqualizerBand.MIN_GAIN;
     public static final int DEFAULT_BANDS_SIZE = 10;
     @Expose
-    private List<Double> bandsGain;
+    private final double[] bandsGain;
+    // Version of the last change of each band
+    private final long[] bandVersions;
+    private long version;
 
     /**
      * Default constructor for Equalizer.
      */
     public Equalizer() {
-        bandsGain = new ArrayList<>();
-        List<Double> defaultBandsGain = new ArrayList<>(java.util.Collections.nCopies(DEFAULT_BANDS_SIZE, 0.0));
-        setBandsGain(defaultBandsGain);
+        bandsGain = new double[getBandsSize()];
+        bandVersions = new long[getBandsSize()];
     }
 
     /**
      * Constructor for Equalizer with specified bands gain.
      *
-     * @param bandsGain bandsGains
+     * @param _bandsGain bandsGains, copied
      */
-    public Equalizer(List<Double> bandsGain) {
-        checkBandsGain(bandsGain);
-        setBandsGain(bandsGain);
+    public Equalizer(double[] _bandsGain) {
+        this();
+        setBandsGain(_bandsGain);
     }
 
     /**
@@ -38,7 +46,7 @@ public class Equalizer {
      *
      * @return the number of bands
      */
-    private int getBandsSize() {
+    public int getBandsSize() {
         return EqualizerBandFrequency.getBandsSize();
     }
 
@@ -50,7 +58,17 @@ public class Equalizer {
      */
     private void checkBand(int bandIndex, double gain) throws IllegalArgumentException {
         checkBandIndex(bandIndex);
-        if (gain < MIN_GAIN_DB || gain > MAX_GAIN_DB) {
+        checkGain(bandIndex, gain);
+    }
+
+    /**
+     * Check if a gain is in range.
+     *
+     * @param bandIndex Index of the band, for the error message
+     * @param gain      Gain value to check
+     */
+    private void checkGain(int bandIndex, double gain) throws IllegalArgumentException {
+        if (!(gain >= MIN_GAIN_DB && gain <= MAX_GAIN_DB)) {
             throw new IllegalArgumentException(
                     "Equalizer band value for band " + bandIndex +
                             " (" + gain + ") is out of range. Must be between " + MIN_GAIN_DB + " and " + MAX_GAIN_DB + ".");
@@ -69,16 +87,16 @@ public class Equalizer {
     }
 
     /**
-     * Check if the bands gain list is valid.
+     * Check if the bands gain array is valid.
      *
-     * @param bandsGain List of bands gain to check
+     * @param newBandsGain Array of bands gain to check
      */
-    private void checkBandsGain(List<Double> bandsGain) throws IllegalArgumentException {
-        if (bandsGain == null || bandsGain.size() != getBandsSize()) {
+    private void checkBandsGain(double[] newBandsGain) throws IllegalArgumentException {
+        if (newBandsGain == null || newBandsGain.length != getBandsSize()) {
             throw new IllegalArgumentException("Equalizer bands must have exactly " + getBandsSize() + " values.");
         }
-        for (int i = 0; i < bandsGain.size(); i++) {
-            checkBand(i, bandsGain.get(i));
+        for (int i = 0; i < newBandsGain.length; i++) {
+            checkBand(i, newBandsGain[i]);
         }
     }
 
@@ -89,37 +107,77 @@ public class Equalizer {
      * @return The gain of the band at the specified index
      */
     public double getBandGain(int bandIndex) {
-        return bandsGain.get(bandIndex);
+        return bandsGain[bandIndex];
     }
 
     /**
-     * Set the gain of a specific band.
+     * Set the gain of a specific band. Setting the gain it already has changes nothing.
      *
      * @param bandIndex Index of the band to set the gain for
      * @param gain      The gain value to set for the band at the specified index
      */
     public void setBandGain(int bandIndex, double gain) {
-        checkBand(bandIndex, gain);
-        bandsGain.set(bandIndex, gain);
+        checkBandIndex(bandIndex);
+        if (bandsGain[bandIndex] == gain) {
+            return;
+        }
+        checkGain(bandIndex, gain);
+        bandsGain[bandIndex] = gain;
+        bandVersions[bandIndex] = ++version;
+    }
+
+    /**
+     * Get a copy of the bands gain.
+     *
+     * @return the gain of each band
+     */
+    public double[] getBandsGain() {
+        return bandsGain.clone();
     }
 
     /**
-     * Get the list of bands gain.
+     * Get the bands gain as a list, e.g. to compare or save settings.
      *
-     * @return the list of bands gain
+     * @return a new list of the bands gain
      */
-    public List<Double> getBandsGain() {
-        return bandsGain;
+    public List<Double> getBandsGainList() {
+        List<Double> list = new ArrayList<>(bandsGain.length);
+        for (double gain : bandsGain) {
+            list.add(gain);
+        }
+        return list;
     }
 
     /**
-     * Set the list of bands gain.
+     * Set the gain of every band. Only the bands whose gain differs are marked as changed.
      *
-     * @param newBandsGain the new list of bands gain
+     * @param newBandsGain the new gain of each band
      */
-    public void setBandsGain(List<Double> newBandsGain) {
+    public void setBandsGain(double[] newBandsGain) {
         checkBandsGain(newBandsGain);
-        bandsGain = newBandsGain;
+        for (int bandIndex = 0; bandIndex < bandsGain.length; bandIndex++) {
+            setBandGain(bandIndex, newBandsGain[bandIndex]);
+        }
+    }
+
+    /**
+     * Get the version of the last change.
+     *
+     * @return the version, 0 if no band was ever changed
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Check whether a band changed after a version, e.g. the one applied last to a player.
+     *
+     * @param bandIndex Index of the band
+     * @param since     The version, -1 to consider every band as changed
+     * @return true if the band changed after the version
+     */
+    public boolean isBandChangedSince(int bandIndex, long since) {
+        return bandVersions[bandIndex] > since;
     }
 
     /**
@@ -129,8 +187,13 @@ public class Equalizer {
      */
     @Override
     public String toString() {
-        return bandsGain.stream()
-                .map(String::valueOf)
-                .collect(java.util.stream.Collectors.joining(","));
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < bandsGain.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(bandsGain[i]);
+        }
+        return builder.toString();
     }
-}
\ No newline at end of file
+}
@@ -2,13 +2,12 @@ package musicApp.models;
 
 import com.google.gson.annotations.Expose;
 import javafx.scene.image.Image;
-import musicApp.services.AlertService;
+import musicApp.services.ImageCacheService;
 import musicApp.services.LanguageService;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -16,6 +15,8 @@ import java.util.function.Function;
  * Library class to store songs.
  */
 public class Library {
+    private static final double COVER_THUMBNAIL_SIZE = 60;
+
     @Expose
     List<Song> songList;
     @Expose
@@ -191,26 +192,21 @@ public class Library {
      * @param imagePath the new image path
      */
     public void setImagePath(Path imagePath) {
+        ImageCacheService.getInstance().invalidateThumbnails(image);
+        ImageCacheService.getInstance().invalidateThumbnails(imagePath);
         image = imagePath;
     }
 
     /**
-     * Get the cover image for this library.
+     * Get the cover image for this library, decoded at thumbnail size and cached.
      *
      * @return The cover image or a default image if none is set
      */
     public Image getCoverImage() {
-        String defaultCover = Objects.requireNonNull(getClass().getResource("/images/playlist.png")).toExternalForm();
-        try {
-            if (image != null) {
-                return new Image(image.toUri().toURL().toExternalForm());
-            }
-            return new Image(Objects.requireNonNull(defaultCover));
-        } catch (Exception e) {
-            AlertService alertService = new AlertService();
-            alertService.showExceptionAlert(e);
-            return new Image(Objects.requireNonNull(defaultCover));
+        if (image == null) {
+            return ImageCacheService.getInstance().getImage(ImageCacheService.DEFAULT_PLAYLIST_COVER);
         }
+        return ImageCacheService.getInstance().getThumbnail(image, COVER_THUMBNAIL_SIZE, ImageCacheService.DEFAULT_PLAYLIST_COVER);
     }
 
     /**
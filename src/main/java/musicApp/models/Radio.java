@@ -2,6 +2,7 @@ package musicApp.models;
 
 import javafx.scene.image.Image;
 import musicApp.exceptions.BadM3URadioException;
+import musicApp.services.ImageCacheService;
 
 import java.io.IOException;
 import java.net.URI;
@@ -9,7 +10,6 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.Objects;
 
 
 public class Radio extends Song {
@@ -96,7 +96,7 @@ public class Radio extends Song {
      */
     @Override
     public Image getCoverImage() {
-        return new Image(Objects.requireNonNull(getClass().getResource("/images/radio.png")).toExternalForm());
+        return ImageCacheService.getInstance().getImage(ImageCacheService.DEFAULT_RADIO_COVER);
     }
 
     /**
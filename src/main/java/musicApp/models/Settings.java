@@ -58,9 +58,10 @@ public class Settings {
         if (currentUserProfile == null) {
             return new SettingsDTO(musicFolder, musicFolderChanged);
         } else {
-            return new SettingsDTO(currentUserProfile.getBalance(), currentUserProfile.getEqualizerBands(), musicFolder,
+            return new SettingsDTO(currentUserProfile.getBalance(), currentUserProfile.getEqualizer().getBandsGain(), musicFolder,
                     currentUserProfile.getUserMusicPath(), currentUserProfile.getUserPlaylistPath(),
-                    currentUserProfile.getCrossfadeDuration(), musicFolderChanged);
+                    currentUserProfile.getCrossfadeDuration(), currentUserProfile.getCrossfadeCurve(),
+                    currentUserProfile.getGaplessPreloadWindow(), musicFolderChanged);
         }
     }
 
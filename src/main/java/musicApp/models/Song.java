@@ -4,6 +4,7 @@ import com.google.gson.annotations.Expose;
 import javafx.scene.image.Image;
 import javafx.util.Duration;
 import musicApp.exceptions.*;
+import musicApp.services.ImageCacheService;
 import musicApp.services.LyricsService;
 import musicApp.services.MetadataService;
 
@@ -11,7 +12,6 @@ import java.io.ByteArrayInputStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 
 public class Song {
@@ -159,14 +159,14 @@ public class Song {
      * @return The cover image of the song.
      */
     public Image getCoverImage() {
-        String defaultCover = getClass().getResource("/images/song.png").toExternalForm();
+        Image defaultCover = ImageCacheService.getInstance().getImage(ImageCacheService.DEFAULT_SONG_COVER);
         if (getCover() == null) {
-            return new Image(Objects.requireNonNull(defaultCover));
+            return defaultCover;
         }
         try {
             return new Image(new ByteArrayInputStream(getCover()));
         } catch (Exception e) {
-            return new Image(Objects.requireNonNull(defaultCover));
+            return defaultCover;
         }
     }
 
@@ -1,6 +1,7 @@
 package musicApp.models;
 
 import com.google.gson.annotations.Expose;
+import musicApp.enums.CrossfadeCurve;
 import musicApp.enums.Language;
 
 import java.nio.file.Path;
@@ -19,6 +20,10 @@ public class UserProfile {
     @Expose
     private double crossfadeDuration;
     @Expose
+    private CrossfadeCurve crossfadeCurve;
+    @Expose
+    private double gaplessPreloadWindow;
+    @Expose
     private Path userPlaylistPath;
     private Equalizer equalizer;
     @Expose
@@ -38,6 +43,8 @@ public class UserProfile {
         userMusicPath = _userMusicPath;
         equalizer = new Equalizer();
         crossfadeDuration = _crossfadeDuration;
+        crossfadeCurve = CrossfadeCurve.EQUAL_POWER;
+        gaplessPreloadWindow = AudioPlayer.DEFAULT_GAPLESS_PRELOAD_WINDOW;
         userPlaylistPath = userMusicPath.resolve("playlists.json");
         language = _language;
     }
@@ -51,14 +58,18 @@ public class UserProfile {
      * @param _userPlaylistPath  path to the playlist folder of the userProfile.
      * @param _balance           music balance of the userProfile.
      * @param _crossfadeDuration crossfade duration of the userProfile.
+     * @param _crossfadeCurve    crossfade curve of the userProfile.
+     * @param _preloadWindow     gapless preload window of the userProfile, in seconds.
      * @param _equalizer         equalizer of the userProfile.
      */
-    public UserProfile(String _username, Path _userPicturePath, Path _userMusicPath, Language _language, Path _userPlaylistPath, double _balance, double _crossfadeDuration, Equalizer _equalizer) {
+    public UserProfile(String _username, Path _userPicturePath, Path _userMusicPath, Language _language, Path _userPlaylistPath, double _balance, double _crossfadeDuration, CrossfadeCurve _crossfadeCurve, double _preloadWindow, Equalizer _equalizer) {
         username = _username;
         userPicturePath = _userPicturePath;
         balance = _balance;
         userMusicPath = _userMusicPath;
         crossfadeDuration = _crossfadeDuration;
+        crossfadeCurve = Objects.requireNonNullElse(_crossfadeCurve, CrossfadeCurve.EQUAL_POWER);
+        gaplessPreloadWindow = _preloadWindow;
         userPlaylistPath = Objects.requireNonNullElseGet(_userPlaylistPath, () -> userMusicPath.resolve("playlists.json"));
         equalizer = _equalizer;
         language = _language;
@@ -181,13 +192,49 @@ public class UserProfile {
         crossfadeDuration = newCrossfadeDuration;
     }
 
+    /**
+     * Get the crossfade curve of the userProfile.
+     *
+     * @return The crossfade curve of the userProfile.
+     */
+    public CrossfadeCurve getCrossfadeCurve() {
+        return crossfadeCurve;
+    }
+
+    /**
+     * Set the crossfade curve of the userProfile.
+     *
+     * @param newCrossfadeCurve new crossfade curve of the userProfile.
+     */
+    public void setCrossfadeCurve(CrossfadeCurve newCrossfadeCurve) {
+        crossfadeCurve = newCrossfadeCurve;
+    }
+
+    /**
+     * Get how long before the end of a song the next one is prepared.
+     *
+     * @return The gapless preload window of the userProfile, in seconds.
+     */
+    public double getGaplessPreloadWindow() {
+        return gaplessPreloadWindow;
+    }
+
+    /**
+     * Set how long before the end of a song the next one is prepared.
+     *
+     * @param newPreloadWindow new gapless preload window of the userProfile, in seconds.
+     */
+    public void setGaplessPreloadWindow(double newPreloadWindow) {
+        gaplessPreloadWindow = newPreloadWindow;
+    }
+
     /**
      * Get the equalizer bands of the settings.
      *
      * @return The equalizer bands.
      */
     public List<Double> getEqualizerBands() {
-        return equalizer.getBandsGain();
+        return equalizer.getBandsGainList();
     }
 
     /**
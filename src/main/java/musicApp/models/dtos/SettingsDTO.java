@@ -1,33 +1,41 @@
 package musicApp.models.dtos;
 
+import musicApp.enums.CrossfadeCurve;
+import musicApp.models.AudioPlayer;
+import musicApp.models.Equalizer;
+
 import java.nio.file.Path;
-import java.util.Collections;
-import java.util.List;
 
 public class SettingsDTO {
     private final Path musicFolder;
-    private final List<Double> equalizerBands;
+    private final double[] equalizerBands;
     private final double balance;
     private final double crossfadeDuration;
+    private final CrossfadeCurve crossfadeCurve;
+    private final double gaplessPreloadWindow;
     private final boolean isMusicFolderChanged;
     private Path userMusicFolder;
     private Path userPlaylistPath;
 
-    public SettingsDTO(double _balance, List<Double> _equalizerBands, Path _musicFolder, Path _userMusicFolder, Path _userPlaylistPath, double _crossfadeDuration, boolean _isMusicFolderChanged) {
+    public SettingsDTO(double _balance, double[] _equalizerBands, Path _musicFolder, Path _userMusicFolder, Path _userPlaylistPath, double _crossfadeDuration, CrossfadeCurve _crossfadeCurve, double _gaplessPreloadWindow, boolean _isMusicFolderChanged) {
         balance = _balance;
-        equalizerBands = Collections.unmodifiableList(_equalizerBands);
+        equalizerBands = _equalizerBands.clone();
         musicFolder = _musicFolder;
         userMusicFolder = _userMusicFolder;
         userPlaylistPath = _userPlaylistPath;
         crossfadeDuration = _crossfadeDuration;
+        crossfadeCurve = _crossfadeCurve;
+        gaplessPreloadWindow = _gaplessPreloadWindow;
         isMusicFolderChanged = _isMusicFolderChanged;
     }
 
     public SettingsDTO(Path _musicFolder, boolean _isMusicFolderChanged) {
         balance = 0;
-        equalizerBands = List.of(0.0, 0.0, 0.0, 0.0, 0.0);
+        equalizerBands = new double[Equalizer.DEFAULT_BANDS_SIZE];
         musicFolder = _musicFolder;
         crossfadeDuration = 0;
+        crossfadeCurve = CrossfadeCurve.EQUAL_POWER;
+        gaplessPreloadWindow = AudioPlayer.DEFAULT_GAPLESS_PRELOAD_WINDOW;
         isMusicFolderChanged = _isMusicFolderChanged;
     }
 
@@ -39,8 +47,16 @@ public class SettingsDTO {
         return crossfadeDuration;
     }
 
-    public List<Double> getEqualizerBands() {
-        return equalizerBands;
+    public CrossfadeCurve getCrossfadeCurve() {
+        return crossfadeCurve;
+    }
+
+    public double getGaplessPreloadWindow() {
+        return gaplessPreloadWindow;
+    }
+
+    public double[] getEqualizerBands() {
+        return equalizerBands.clone();
     }
 
     public Path getMusicFolder() {
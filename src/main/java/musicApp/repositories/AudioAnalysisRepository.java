@@ -0,0 +1,45 @@
+package musicApp.repositories;
+
+import musicApp.models.AudioAnalysis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Repository of the audio analyses, stored in a JSON file next to the settings and keyed by song path.
+ */
+public class AudioAnalysisRepository {
+    private final JsonRepository jsonRepository;
+
+    public AudioAnalysisRepository(JsonRepository jsonRepository) {
+        this.jsonRepository = jsonRepository;
+    }
+
+    /**
+     * Read every stored analysis.
+     *
+     * @return The analyses by absolute song path.
+     */
+    public Map<String, AudioAnalysis> readAll() {
+        Map<String, AudioAnalysis> analyses = new HashMap<>();
+        for (AudioAnalysis analysis : jsonRepository.readAudioAnalyses()) {
+            if (analysis != null && analysis.getSongPath() != null) {
+                analyses.put(analysis.getSongPath(), analysis);
+            }
+        }
+        return analyses;
+    }
+
+    /**
+     * Replace the stored analyses.
+     *
+     * @param analyses The analyses to store.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeAll(Collection<AudioAnalysis> analyses) throws IOException {
+        jsonRepository.writeAudioAnalyses(new ArrayList<>(analyses));
+    }
+}
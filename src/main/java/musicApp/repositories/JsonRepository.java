@@ -7,6 +7,7 @@ import com.google.gson.JsonSyntaxException;
 import com.google.gson.reflect.TypeToken;
 import musicApp.enums.Language;
 import musicApp.exceptions.SettingsFilesException;
+import musicApp.models.AudioAnalysis;
 import musicApp.models.Library;
 import musicApp.models.Settings;
 import musicApp.models.UserProfile;
@@ -43,6 +44,8 @@ public class JsonRepository {
     private final Path lyricsDir;
     private final Path lyricsFile;
     private final Path usersFile;
+    private final Path analysisFile;
+    private final Path waveformDir;
     private Path playlistsFile;
 
     /**
@@ -56,6 +59,9 @@ public class JsonRepository {
         createFolderIfNotExists(lyricsDir);
         lyricsFile = lyricsDir.resolve("lyrics.json");
         usersFile = settingFolder.resolve("users.json");
+        analysisFile = settingFolder.resolve("analysis.json");
+        waveformDir = settingFolder.resolve("waveforms");
+        createFolderIfNotExists(waveformDir);
     }
 
     private Path getSettingsFolder() throws SettingsFilesException {
@@ -326,6 +332,50 @@ public class JsonRepository {
         writeLyricsLibrary(lyricsFile, lib);
     }
 
+    /**
+     * Reads the audio analyses from the given file.
+     * protected for testing purposes.
+     *
+     * @param path the analysis file
+     * @return the analyses, or an empty list if the file does not exist or is invalid
+     */
+    protected List<AudioAnalysis> readAudioAnalyses(Path path) {
+        if (!Files.exists(path)) return new ArrayList<>();
+        try (var reader = Files.newBufferedReader(path)) {
+            var type = new TypeToken<List<AudioAnalysis>>() {
+            }.getType();
+            List<AudioAnalysis> analyses = new Gson().fromJson(reader, type);
+            return analyses != null ? analyses : new ArrayList<>();
+        } catch (IOException | JsonSyntaxException e) {
+            System.err.println("Failed to read the audio analysis file: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Writes the audio analyses to the given file.
+     * protected for testing purposes.
+     *
+     * @param path     the analysis file
+     * @param analyses the analyses to write
+     * @throws IOException if the file cannot be written
+     */
+    protected void writeAudioAnalyses(Path path, List<AudioAnalysis> analyses) throws IOException {
+        // Silent tracks have an infinite loudness, which plain JSON cannot represent
+        Gson gson = new GsonBuilder()
+                .serializeSpecialFloatingPointValues()
+                .create();
+        Files.writeString(path, gson.toJson(analyses));
+    }
+
+    public List<AudioAnalysis> readAudioAnalyses() {
+        return readAudioAnalyses(analysisFile);
+    }
+
+    public void writeAudioAnalyses(List<AudioAnalysis> analyses) throws IOException {
+        writeAudioAnalyses(analysisFile, analyses);
+    }
+
     /**
      * Returns the path to the directory where lyrics are stored.
      *
@@ -337,6 +387,15 @@ public class JsonRepository {
         return lyricsDir;
     }
 
+    /**
+     * Returns the path to the directory where the waveform peaks of the songs are cached.
+     *
+     * @return The path to the waveforms directory.
+     */
+    public Path getWaveformDir() {
+        return waveformDir;
+    }
+
     /**
      * Gets user profiles.
      *
@@ -10,21 +10,20 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class PathRepository {
     /**
-     * Retrieves all valid song paths (MP3 or WAV) from the specified folder.
+     * Retrieves all valid song paths (see {@link SupportedFileType}) from the specified folder.
      * This method scans the given folder shallowly, validates that it exists and is a directory,
-     * and then filters out the files to include only those with the `.mp3` or `.wav` extensions.
+     * and then filters out the files to include only those with a supported extension.
      * The resulting list contains the paths of the files that match these formats.
      * If the folder path is invalid (either doesn't exist or isn't a directory), an IOException is thrown.
      *
      * @param folderPath The path of the folder to scan for music files.
-     * @return A list of paths to valid song files (MP3 or WAV) in the specified folder.
+     * @return A list of paths to valid song files in the specified folder.
      * @throws IOException If the folder does not exist, is not a directory, or if an error occurs while reading files.
      */
 
@@ -33,7 +32,7 @@ public class PathRepository {
         List<Path> songPaths;
         songPaths = getAllSongPaths(folderPath);
         for (Path songPath : songPaths) {
-            if (songPath.toString().endsWith(SupportedFileType.M3U.getExt())) {
+            if (SupportedFileType.fromFileName(songPath.toString()) == SupportedFileType.M3U) {
                 Radio newRadio;
                 try {
                     newRadio = new Radio(songPath);
@@ -52,7 +51,7 @@ public class PathRepository {
      * Retrieves all valid song file paths from the specified folder.
      *
      * <p>This method checks whether the provided folder path exists and is indeed a directory. Then it filters
-     * the files within the directory, only returning those with supported file formats (e.g., MP3, WAV, M3U).</p>
+     * the files within the directory, only returning those with supported file formats (e.g., MP3, FLAC, M3U).</p>
      *
      * @param folderPath The path of the folder to search for song files.
      * @return A list of paths to song files that are in valid formats.
@@ -70,17 +69,16 @@ public class PathRepository {
     }
 
     /**
-     * Checks if the given file path represents a valid song file format (MP3, WAV, or M3U).
+     * Checks if the given file path represents a valid song file format (audio or M3U).
      *
-     * <p>This method checks whether the file has a valid extension such as ".mp3", ".wav", or ".m3u".
+     * <p>This method checks whether the file has a valid extension such as ".mp3", ".flac", or ".m3u", ignoring case.
      * It is used to filter files by their format in the folder.</p>
      *
      * @param filePath The path of the file to check.
      * @return {@code true} if the file has a valid format, otherwise {@code false}.
      */
     private boolean isValidFormat(Path filePath) {
-        String fileName = filePath.getFileName().toString();
-        return Arrays.stream(SupportedFileType.getExtensions()).anyMatch(fileName::endsWith);
+        return SupportedFileType.fromFileName(filePath.getFileName().toString()) != null;
     }
 
     /**
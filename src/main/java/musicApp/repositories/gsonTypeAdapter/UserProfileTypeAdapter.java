@@ -3,7 +3,9 @@ package musicApp.repositories.gsonTypeAdapter;
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
+import musicApp.enums.CrossfadeCurve;
 import musicApp.enums.Language;
+import musicApp.models.AudioPlayer;
 import musicApp.models.Equalizer;
 import musicApp.models.UserProfile;
 
@@ -35,13 +37,15 @@ public class UserProfileTypeAdapter extends TypeAdapter<UserProfile> {
         // Equalizer bands
         out.name("equalizerBands");
         out.beginArray();
-        for (Double band : userProfile.getEqualizerBands()) {
+        for (double band : userProfile.getEqualizer().getBandsGain()) {
             out.value(band);
         }
         out.endArray();
 
         // Crossfade duration
         out.name("crossfadeDuration").value(userProfile.getCrossfadeDuration());
+        out.name("crossfadeCurve").value(userProfile.getCrossfadeCurve().name());
+        out.name("gaplessPreloadWindow").value(userProfile.getGaplessPreloadWindow());
 
         // Music path (nullable)
         out.name("userMusicPath");
@@ -82,6 +86,8 @@ public class UserProfileTypeAdapter extends TypeAdapter<UserProfile> {
         Path userPlaylistPath = null;
         double balance = 0;
         double crossfadeDuration = 0.0;
+        CrossfadeCurve crossfadeCurve = CrossfadeCurve.EQUAL_POWER;
+        double gaplessPreloadWindow = AudioPlayer.DEFAULT_GAPLESS_PRELOAD_WINDOW;
         Language language = null;
 
         Equalizer equalizer = new Equalizer();
@@ -113,6 +119,15 @@ public class UserProfileTypeAdapter extends TypeAdapter<UserProfile> {
                             : Path.of(System.getProperty("user.home"), "Music");
                 }
                 case "crossfadeDuration" -> crossfadeDuration = in.nextDouble();
+                case "crossfadeCurve" -> {
+                    String rawCurve = in.nextString();
+                    try {
+                        crossfadeCurve = CrossfadeCurve.valueOf(rawCurve);
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Unknown crossfade curve: " + rawCurve);
+                    }
+                }
+                case "gaplessPreloadWindow" -> gaplessPreloadWindow = in.nextDouble();
                 case "userPlaylistPath" -> {
                     String rawPath = in.nextString();
                     userPlaylistPath = (rawPath != null && !rawPath.isBlank())
@@ -133,6 +148,8 @@ public class UserProfileTypeAdapter extends TypeAdapter<UserProfile> {
                 userPlaylistPath,
                 balance,
                 crossfadeDuration,
+                crossfadeCurve,
+                gaplessPreloadWindow,
                 equalizer
         );
     }
@@ -0,0 +1,245 @@
+package musicApp.services;
+
+import musicApp.audio.BeatDetector;
+import musicApp.audio.LoudnessMeter;
+import musicApp.audio.PcmDecoder;
+import musicApp.audio.SilenceDetector;
+import musicApp.audio.WaveformBuilder;
+import musicApp.exceptions.BadSongException;
+import musicApp.exceptions.SettingsFilesException;
+import musicApp.models.AudioAnalysis;
+import musicApp.models.Song;
+import musicApp.repositories.AudioAnalysisRepository;
+import musicApp.repositories.JsonRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AudioAnalysisService
+ * Measures the loudness, tempo, silences and cue points of the songs in the background and provides the per-track
+ * gain that evens out their levels at playback time. The waveform of a song is computed in the same decoding pass.
+ * Results are persisted, and a song is only analysed again if its file changed.
+ * Files are analysed in parallel on low-priority threads, using at most half of the cores, and each decodes
+ * at a bounded speed, so the analysis never competes with playback.
+ * The class is a singleton.
+ */
+public class AudioAnalysisService {
+
+    public static final double TARGET_LOUDNESS_LUFS = -14.0;
+
+    private static final int DECODE_BLOCK_FRAMES = 4096;
+    // Decoding is limited to this multiple of real time
+    private static final double MAX_SPEED_FACTOR = 20.0;
+    private static final int SAVE_INTERVAL = 20;
+
+    private static AudioAnalysisService instance;
+
+    private final Map<String, AudioAnalysis> analyses;
+    private final Set<String> queuedPaths;
+    private final ExecutorService executor;
+    private final CountDownLatch loadedLatch;
+    private final AtomicInteger unsavedCount;
+    private volatile AudioAnalysisRepository repository;
+
+    private AudioAnalysisService() {
+        analyses = new ConcurrentHashMap<>();
+        queuedPaths = ConcurrentHashMap.newKeySet();
+        loadedLatch = new CountDownLatch(1);
+        unsavedCount = new AtomicInteger();
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "audio-analysis-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        executor.submit(this::loadAnalyses);
+    }
+
+    /**
+     * Get the instance of the AudioAnalysisService.
+     *
+     * @return The instance of the AudioAnalysisService.
+     */
+    public static synchronized AudioAnalysisService getInstance() {
+        if (instance == null) {
+            instance = new AudioAnalysisService();
+        }
+        return instance;
+    }
+
+    private void loadAnalyses() {
+        try {
+            repository = new AudioAnalysisRepository(new JsonRepository());
+            analyses.putAll(repository.readAll());
+        } catch (SettingsFilesException e) {
+            System.err.println("Audio analyses will not be saved: " + e.getMessage());
+        }
+        loadedLatch.countDown();
+    }
+
+    /**
+     * Queue the songs that were never analysed, or whose file changed since.
+     *
+     * @param songs The songs to analyse; radios are ignored.
+     */
+    public void analyzeInBackground(Collection<Song> songs) {
+        for (Song song : songs) {
+            if (song.isSong()) {
+                enqueue(song.getFilePath());
+            }
+        }
+    }
+
+    private void enqueue(Path file) {
+        String key = key(file);
+        if (queuedPaths.add(key)) {
+            executor.submit(() -> analyzeIfNeeded(file, key));
+        }
+    }
+
+    /**
+     * Get the analysis of a file, if it is known and still up to date.
+     *
+     * @param file The audio file.
+     * @return The analysis, or an empty optional.
+     */
+    public Optional<AudioAnalysis> getAnalysis(Path file) {
+        AudioAnalysis analysis = analyses.get(key(file));
+        return analysis != null && analysis.isUpToDate(file) ? Optional.of(analysis) : Optional.empty();
+    }
+
+    /**
+     * Get the gain to apply to a song so that it plays at the target loudness.
+     * A song that is not analysed yet plays at full gain and is queued for analysis.
+     *
+     * @param song The song about to be played.
+     * @return The linear gain, between 0 and 1.
+     */
+    public double getTrackGain(Song song) {
+        if (!song.isSong()) {
+            return 1.0;
+        }
+        Optional<AudioAnalysis> analysis = getAnalysis(song.getFilePath());
+        if (analysis.isEmpty()) {
+            if (loadedLatch.getCount() == 0) {
+                enqueue(song.getFilePath());
+            }
+            return 1.0;
+        }
+        return analysis.get().getTrackGain(TARGET_LOUDNESS_LUFS);
+    }
+
+    private void analyzeIfNeeded(Path file, String key) {
+        try {
+            // Songs queued before the saved analyses are read must not be analysed again
+            loadedLatch.await();
+            if (getAnalysis(file).isEmpty() && Files.isRegularFile(file)) {
+                analyses.put(key, analyze(file, MAX_SPEED_FACTOR));
+                unsavedCount.incrementAndGet();
+            }
+        } catch (BadSongException | IOException e) {
+            System.err.println("Failed to analyse " + file + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queuedPaths.remove(key);
+        }
+        int unsaved = unsavedCount.get();
+        if (unsaved >= SAVE_INTERVAL || (unsaved > 0 && queuedPaths.isEmpty())) {
+            save();
+        }
+    }
+
+    private synchronized void save() {
+        if (repository == null || unsavedCount.get() == 0) {
+            return;
+        }
+        try {
+            unsavedCount.set(0);
+            repository.writeAll(analyses.values());
+        } catch (IOException e) {
+            System.err.println("Failed to save the audio analyses: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Measure the loudness, tempo, silences and cue points of a file at full speed, on the calling thread.
+     *
+     * @param file The audio file.
+     * @return The analysis of the file.
+     * @throws BadSongException if the file cannot be decoded.
+     * @throws IOException      if the file attributes cannot be read.
+     */
+    public AudioAnalysis analyze(Path file) throws BadSongException, IOException {
+        try {
+            return analyze(file, Double.POSITIVE_INFINITY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BadSongException("Analysis interrupted");
+        }
+    }
+
+    private AudioAnalysis analyze(Path file, double maxSpeedFactor) throws BadSongException, IOException, InterruptedException {
+        long fileSize = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        LoudnessMeter meter = new LoudnessMeter(PcmDecoder.SAMPLE_RATE, PcmDecoder.CHANNELS);
+        BeatDetector beatDetector = new BeatDetector(PcmDecoder.SAMPLE_RATE, PcmDecoder.CHANNELS);
+        SilenceDetector silenceDetector = new SilenceDetector(PcmDecoder.SAMPLE_RATE, PcmDecoder.CHANNELS);
+        // The waveform of the seek bar is computed in the same pass when it is missing
+        WaveformService waveformService = WaveformService.getInstance();
+        WaveformBuilder waveform = waveformService.hasPeaks(file)
+                ? null : new WaveformBuilder(PcmDecoder.SAMPLE_RATE, PcmDecoder.CHANNELS);
+        float[] block = new float[DECODE_BLOCK_FRAMES * PcmDecoder.CHANNELS];
+        long startNanos = System.nanoTime();
+        long decodedFrames = 0;
+        try (PcmDecoder decoder = new PcmDecoder(file.toString())) {
+            int frames;
+            while ((frames = decoder.read(block, 0, DECODE_BLOCK_FRAMES)) > 0) {
+                meter.process(block, 0, frames);
+                beatDetector.process(block, 0, frames);
+                silenceDetector.process(block, 0, frames);
+                if (waveform != null) {
+                    waveform.process(block, 0, frames);
+                }
+                decodedFrames += frames;
+                long minimumNanos = (long) (decodedFrames * 1e9 / PcmDecoder.SAMPLE_RATE / maxSpeedFactor);
+                long aheadNanos = minimumNanos - (System.nanoTime() - startNanos);
+                if (aheadNanos > 1_000_000) {
+                    Thread.sleep(aheadNanos / 1_000_000);
+                }
+            }
+        }
+        if (waveform != null) {
+            waveformService.store(file, waveform.build());
+        }
+        boolean steadyBeat = beatDetector.detect();
+        silenceDetector.detect();
+        double bpm = steadyBeat ? beatDetector.getBpm() : 0;
+        double firstBeat = steadyBeat ? beatDetector.getFirstBeatSeconds() : 0;
+        if (!silenceDetector.hasAudio()) {
+            // A silent file has no cue points to mix on
+            return new AudioAnalysis(key(file), fileSize, lastModified, meter.getIntegratedLoudness(),
+                    meter.getTruePeak(), bpm, firstBeat);
+        }
+        return new AudioAnalysis(key(file), fileSize, lastModified, meter.getIntegratedLoudness(), meter.getTruePeak(),
+                bpm, firstBeat, silenceDetector.getAudioStart(), silenceDetector.getAudioEnd(),
+                silenceDetector.getOutroStart());
+    }
+
+    private static String key(Path file) {
+        return file.toAbsolutePath().toString();
+    }
+}
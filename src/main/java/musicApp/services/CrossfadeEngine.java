@@ -0,0 +1,189 @@
+package musicApp.services;
+
+import javafx.application.Platform;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import musicApp.enums.CrossfadeCurve;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * CrossfadeEngine
+ * Drives the gains of the outgoing and incoming songs during a crossfade.
+ * A fixed-rate scheduler requests updates, and every update recomputes the position from the monotonic clock,
+ * so long crossfades do not drift even if some ticks are late or skipped. Gains are only written on the FX thread.
+ * All public methods must be called from the FX thread.
+ */
+public class CrossfadeEngine {
+
+    private static final long TICK_MILLIS = 20;
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "crossfade-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongSupplier clock;
+    private final Consumer<Runnable> fxExecutor;
+    private final DoubleProperty outgoingGain;
+    private final DoubleProperty incomingGain;
+    private final AtomicBoolean updatePending;
+    private ScheduledFuture<?> ticker;
+    private CrossfadeCurve curve;
+    private Runnable onComplete;
+    private long startNanos;
+    private long durationNanos;
+    private long pausedAtNanos;
+    private boolean paused;
+
+    public CrossfadeEngine() {
+        this(System::nanoTime, Platform::runLater);
+    }
+
+    /**
+     * Instantiates an engine with its own clock and FX thread, to drive it without JavaFX.
+     *
+     * @param _clock      The monotonic clock, in nanoseconds.
+     * @param _fxExecutor Runs the gain updates on the thread that calls the public methods.
+     */
+    CrossfadeEngine(LongSupplier _clock, Consumer<Runnable> _fxExecutor) {
+        clock = _clock;
+        fxExecutor = _fxExecutor;
+        outgoingGain = new SimpleDoubleProperty(1.0);
+        incomingGain = new SimpleDoubleProperty(0.0);
+        updatePending = new AtomicBoolean(false);
+        curve = CrossfadeCurve.EQUAL_POWER;
+    }
+
+    /**
+     * Start a crossfade, cancelling the one in progress if any.
+     *
+     * @param durationSeconds The length of the crossfade in seconds.
+     * @param _curve          The gain curve to apply.
+     * @param _onComplete     Called on the FX thread once the incoming song is at full gain.
+     */
+    public void start(double durationSeconds, CrossfadeCurve _curve, Runnable _onComplete) {
+        cancel();
+        curve = _curve;
+        onComplete = _onComplete;
+        durationNanos = Math.max(1, (long) (durationSeconds * 1_000_000_000L));
+        startNanos = clock.getAsLong();
+        paused = false;
+        applyGains(0);
+        ticker = scheduler.scheduleAtFixedRate(this::requestUpdate, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Check whether a crossfade is in progress.
+     *
+     * @return true if a crossfade is running or paused.
+     */
+    public boolean isRunning() {
+        return ticker != null;
+    }
+
+    /**
+     * Freeze the crossfade, e.g. when the playback is paused.
+     */
+    public void pause() {
+        if (isRunning() && !paused) {
+            paused = true;
+            pausedAtNanos = clock.getAsLong();
+        }
+    }
+
+    /**
+     * Resume a paused crossfade where it stopped.
+     */
+    public void resume() {
+        if (isRunning() && paused) {
+            paused = false;
+            startNanos += clock.getAsLong() - pausedAtNanos;
+        }
+    }
+
+    /**
+     * Jump to the end of the crossfade and run its completion action.
+     */
+    public void finish() {
+        if (!isRunning()) {
+            return;
+        }
+        stopTicker();
+        applyGains(1);
+        Runnable action = onComplete;
+        onComplete = null;
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    /**
+     * Abort the crossfade without running its completion action, restoring the outgoing song to full gain.
+     */
+    public void cancel() {
+        stopTicker();
+        onComplete = null;
+        applyGains(0);
+    }
+
+    /**
+     * Gain to apply to the outgoing song, between 0 and 1.
+     *
+     * @return The outgoing gain property.
+     */
+    public ReadOnlyDoubleProperty outgoingGainProperty() {
+        return outgoingGain;
+    }
+
+    /**
+     * Gain to apply to the incoming song, between 0 and 1.
+     *
+     * @return The incoming gain property.
+     */
+    public ReadOnlyDoubleProperty incomingGainProperty() {
+        return incomingGain;
+    }
+
+    /**
+     * Called on the scheduler thread: post a single update to the FX thread at a time.
+     */
+    private void requestUpdate() {
+        if (updatePending.compareAndSet(false, true)) {
+            fxExecutor.accept(this::update);
+        }
+    }
+
+    private void update() {
+        updatePending.set(false);
+        if (!isRunning() || paused) {
+            return;
+        }
+        double position = (double) (clock.getAsLong() - startNanos) / durationNanos;
+        if (position >= 1) {
+            finish();
+        } else {
+            applyGains(position);
+        }
+    }
+
+    private void applyGains(double position) {
+        outgoingGain.set(curve.fadeOut(position));
+        incomingGain.set(curve.fadeIn(position));
+    }
+
+    private void stopTicker() {
+        if (ticker != null) {
+            ticker.cancel(false);
+            ticker = null;
+        }
+        paused = false;
+    }
+}
@@ -0,0 +1,189 @@
+package musicApp.services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import musicApp.audio.PcmConversion;
+import musicApp.audio.PcmDecoder;
+import musicApp.audio.WavHeader;
+import musicApp.exceptions.BadSongException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streams the sources the JavaFX media stack cannot play (FLAC, OGG, Opus...) as WAV, decoded by FFmpeg on the fly.
+ * <p>
+ * The stream is served over HTTP on the loopback interface, so that a JavaFX {@code Media} can play it like
+ * any other URL, and nothing is transcoded to disk. Range requests are decoded from the requested position,
+ * so seeking does not decode the whole track again. Each source is served under a random token, so that
+ * other local processes cannot guess which files are streamed.
+ */
+public class DecodedStreamService {
+
+    private static final Pattern STREAM_PATH = Pattern.compile("/stream/([0-9a-f-]{36})\\.wav");
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+    private static final int BLOCK_FRAMES = 4096;
+    private static final int BYTES_PER_FRAME = PcmDecoder.CHANNELS * WavHeader.BYTES_PER_SAMPLE;
+
+    private static DecodedStreamService instance;
+
+    private final Map<String, String> tokenBySource;
+    private final Map<String, String> sourceByToken;
+    private HttpServer server;
+
+    private DecodedStreamService() {
+        tokenBySource = new ConcurrentHashMap<>();
+        sourceByToken = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the instance of the DecodedStreamService.
+     *
+     * @return The instance of the DecodedStreamService.
+     */
+    public static synchronized DecodedStreamService getInstance() {
+        if (instance == null) {
+            instance = new DecodedStreamService();
+        }
+        return instance;
+    }
+
+    /**
+     * Get the URL streaming a source decoded to WAV, starting the server on first use.
+     *
+     * @param source The URI of the media.
+     * @return The http URL of the WAV stream.
+     * @throws BadSongException if the server cannot be started.
+     */
+    public String getStreamUri(String source) throws BadSongException {
+        int port = startServer();
+        String token = tokenBySource.computeIfAbsent(source, _ -> {
+            // A random UUID is drawn from a SecureRandom
+            String newToken = UUID.randomUUID().toString();
+            sourceByToken.put(newToken, source);
+            return newToken;
+        });
+        return "http://127.0.0.1:" + port + "/stream/" + token + ".wav";
+    }
+
+    private synchronized int startServer() throws BadSongException {
+        if (server == null) {
+            try {
+                server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            } catch (IOException e) {
+                throw new BadSongException(e);
+            }
+            server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "decoded-stream");
+                thread.setDaemon(true);
+                return thread;
+            }));
+            server.createContext("/stream/", this::handle);
+            // The dispatcher thread of the server inherits the daemon status of the thread starting it,
+            // so start it from a daemon thread to not keep the application alive on exit
+            Thread starter = new Thread(server::start, "decoded-stream-start");
+            starter.setDaemon(true);
+            starter.start();
+            try {
+                starter.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BadSongException(e);
+            }
+        }
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Matcher path = STREAM_PATH.matcher(exchange.getRequestURI().getPath());
+            String source = path.matches() ? sourceByToken.get(path.group(1)) : null;
+            if (source == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            try (PcmDecoder decoder = new PcmDecoder(source)) {
+                stream(exchange, decoder);
+            } catch (BadSongException e) {
+                System.err.println("Failed to decode " + source + ": " + e.getMessage());
+                exchange.sendResponseHeaders(500, -1);
+            }
+        }
+    }
+
+    /**
+     * Send the requested bytes of the WAV file. Its length is announced from the duration of the source,
+     * so the samples are padded with silence if the decoder ends earlier.
+     */
+    private void stream(HttpExchange exchange, PcmDecoder decoder) throws IOException, BadSongException {
+        long dataBytes = Math.min(decoder.getTotalFrames() * BYTES_PER_FRAME, WavHeader.MAX_DATA_BYTES);
+        dataBytes -= dataBytes % BYTES_PER_FRAME;
+        long length = WavHeader.SIZE + dataBytes;
+        long start = 0;
+        long end = length - 1;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        Matcher rangeMatcher = range == null ? null : RANGE.matcher(range);
+        boolean partial = rangeMatcher != null && rangeMatcher.matches();
+        if (partial) {
+            try {
+                start = Long.parseLong(rangeMatcher.group(1));
+                if (!rangeMatcher.group(2).isEmpty()) {
+                    end = Math.min(end, Long.parseLong(rangeMatcher.group(2)));
+                }
+            } catch (NumberFormatException e) {
+                // Beyond any file length
+                start = length;
+            }
+            if (start > end) {
+                exchange.getResponseHeaders().set("Content-Range", "bytes */" + length);
+                exchange.sendResponseHeaders(416, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + length);
+        }
+        exchange.getResponseHeaders().set("Content-Type", "audio/wav");
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        long count = end - start + 1;
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.getResponseHeaders().set("Content-Length", Long.toString(count));
+            exchange.sendResponseHeaders(partial ? 206 : 200, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(partial ? 206 : 200, count);
+        OutputStream output = exchange.getResponseBody();
+        if (start < WavHeader.SIZE) {
+            byte[] header = WavHeader.create(PcmDecoder.SAMPLE_RATE, PcmDecoder.CHANNELS, dataBytes);
+            int headerBytes = (int) Math.min(count, WavHeader.SIZE - start);
+            output.write(header, (int) start, headerBytes);
+            count -= headerBytes;
+            start += headerBytes;
+        }
+        long dataOffset = start - WavHeader.SIZE;
+        if (dataOffset > 0) {
+            decoder.seek(dataOffset / BYTES_PER_FRAME);
+        }
+        int skip = (int) (dataOffset % BYTES_PER_FRAME);
+        float[] samples = new float[BLOCK_FRAMES * PcmDecoder.CHANNELS];
+        byte[] bytes = new byte[BLOCK_FRAMES * BYTES_PER_FRAME];
+        while (count > 0) {
+            int frames = decoder.read(samples, 0, BLOCK_FRAMES);
+            if (frames < BLOCK_FRAMES) {
+                Arrays.fill(samples, frames * PcmDecoder.CHANNELS, samples.length, 0f);
+            }
+            PcmConversion.toPcm16(samples, 0, samples.length, bytes);
+            int written = (int) Math.min(count, bytes.length - skip);
+            output.write(bytes, skip, written);
+            count -= written;
+            skip = 0;
+        }
+    }
+}
@@ -25,7 +25,7 @@ public class FileDialogService {
     }
 
     /**
-     * Opens a file chooser dialog restricted to audio files (.mp3, .wav).
+     * Opens a file chooser dialog restricted to the supported audio files.
      *
      * @param ownerWindow The window over which the dialog should open (can be null).
      * @param title       The title of the dialog.
@@ -41,4 +41,22 @@ public class FileDialogService {
 
         return fileChooser.showOpenDialog(ownerWindow);
     }
+
+    /**
+     * Opens a save dialog for a WAV file.
+     *
+     * @param ownerWindow     The window over which the dialog should open (can be null).
+     * @param title           The title of the dialog.
+     * @param initialFileName The file name proposed.
+     * @return The chosen file or null if none chosen.
+     */
+    public static File chooseWavFile(Window ownerWindow, String title, String initialFileName) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(title);
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("WAV", "*.wav"));
+        fileChooser.setInitialDirectory(new File(System.getProperty("user.home")));
+        fileChooser.setInitialFileName(initialFileName);
+
+        return fileChooser.showSaveDialog(ownerWindow);
+    }
 }
@@ -0,0 +1,150 @@
+package musicApp.services;
+
+import javafx.scene.image.Image;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ImageCacheService
+ * Registry of the static images bundled with the application (icons, default covers...).
+ * Each resource is decoded once and the resulting {@link Image} is shared by every view,
+ * which only has to wrap it in its own lightweight {@link javafx.scene.image.ImageView}.
+ * It also keeps a bounded cache of user images (playlist covers...) decoded at thumbnail size.
+ * The class is a singleton.
+ */
+public class ImageCacheService {
+
+    public static final String DEFAULT_SONG_COVER = "/images/song.png";
+    public static final String DEFAULT_PLAYLIST_COVER = "/images/playlist.png";
+    public static final String DEFAULT_RADIO_COVER = "/images/radio.png";
+    public static final String DEFAULT_ACCOUNT_PICTURE = "/images/default_account.png";
+
+    private static final String[] PRELOADED_IMAGES = {
+            DEFAULT_SONG_COVER,
+            DEFAULT_PLAYLIST_COVER,
+            DEFAULT_RADIO_COVER,
+            DEFAULT_ACCOUNT_PICTURE,
+            "/images/play_white.png",
+            "/images/pause_white.png",
+            "/images/next_white.png",
+            "/images/previous_white.png",
+            "/images/play.png",
+            "/images/pause.png",
+            "/images/shuffle.png",
+            "/images/settings.png",
+            "/images/lyrics.png",
+            "/images/mini.png",
+            "/images/dj.png",
+            "/images/edit.png",
+            "/images/add.png",
+            "/images/cross.png"
+    };
+
+    private static final int MAX_THUMBNAILS = 512;
+
+    private static ImageCacheService instance;
+
+    private final Map<String, Image> images;
+    private final Map<String, Image> thumbnails;
+
+    private ImageCacheService() {
+        images = new ConcurrentHashMap<>();
+        thumbnails = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+                return size() > MAX_THUMBNAILS;
+            }
+        });
+    }
+
+    /**
+     * Get the instance of the ImageCacheService.
+     *
+     * @return The instance of the ImageCacheService.
+     */
+    public static synchronized ImageCacheService getInstance() {
+        if (instance == null) {
+            instance = new ImageCacheService();
+        }
+        return instance;
+    }
+
+    /**
+     * Get the shared image of a bundled resource, decoding it on first use.
+     *
+     * @param resourcePath The path of the image resource, e.g. "/images/song.png".
+     * @return The shared image.
+     * @throws NullPointerException if the resource does not exist.
+     */
+    public Image getImage(String resourcePath) throws NullPointerException {
+        return images.computeIfAbsent(resourcePath, path ->
+                new Image(Objects.requireNonNull(ImageCacheService.class.getResource(path),
+                        "Image resource not found: " + path).toExternalForm()));
+    }
+
+    /**
+     * Get a user image decoded at thumbnail size.
+     * The image is decoded in the background on first use, so the returned image may still be loading;
+     * an image that failed to load is replaced by the fallback in the cache.
+     *
+     * @param imagePath    The path of the image file.
+     * @param size         The size of the square the thumbnail must fit in.
+     * @param fallbackPath The resource path of the image to use if the file cannot be loaded.
+     * @return The thumbnail, or the fallback image.
+     */
+    public Image getThumbnail(Path imagePath, double size, String fallbackPath) {
+        String key = thumbnailKey(imagePath, size);
+        Image thumbnail = thumbnails.get(key);
+        if (thumbnail != null) {
+            if (thumbnail.isError()) {
+                thumbnail = getImage(fallbackPath);
+                thumbnails.put(key, thumbnail);
+            }
+            return thumbnail;
+        }
+        if (!Files.isRegularFile(imagePath)) {
+            return getImage(fallbackPath);
+        }
+        thumbnail = new Image(imagePath.toUri().toString(), size, size, true, true, true);
+        thumbnails.put(key, thumbnail);
+        return thumbnail;
+    }
+
+    /**
+     * Drop every cached thumbnail of the given image file, e.g. after the file was replaced.
+     *
+     * @param imagePath The path of the image file, ignored if null.
+     */
+    public void invalidateThumbnails(Path imagePath) {
+        if (imagePath == null) {
+            return;
+        }
+        String prefix = imagePath.toAbsolutePath() + "@";
+        synchronized (thumbnails) {
+            thumbnails.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    private String thumbnailKey(Path imagePath, double size) {
+        return imagePath.toAbsolutePath() + "@" + size;
+    }
+
+    /**
+     * Decode the icons and default covers used by the main windows ahead of time.
+     */
+    public void preload() {
+        for (String path : PRELOADED_IMAGES) {
+            try {
+                getImage(path);
+            } catch (NullPointerException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+    }
+}
@@ -88,6 +88,20 @@ public class LanguageService {
         return "???" + key + "???";
     }
 
+    /**
+     * Get the localized message for the given key, or a default text if there is none, e.g. for names of plugins.
+     *
+     * @param key          The key of the message.
+     * @param defaultValue The text returned if no bundle has the key.
+     * @return The localized message or the default text.
+     */
+    public String getOrDefault(String key, String defaultValue) {
+        for (ResourceBundle messages : bundles) {
+            if (messages.containsKey(key)) return messages.getString(key);
+        }
+        return defaultValue;
+    }
+
     /**
      * Check if the language is supported.
      *
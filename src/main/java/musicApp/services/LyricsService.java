@@ -1,6 +1,7 @@
 package musicApp.services;
 
 import javafx.util.Duration;
+import musicApp.enums.SupportedFileType;
 import musicApp.exceptions.LyricsNotFoundException;
 import musicApp.exceptions.LyricsOperationException;
 import musicApp.exceptions.SettingsFilesException;
@@ -138,11 +139,13 @@ public class LyricsService {
 
     /**
      * Returns the lyrics file name based on the song name.
-     * If the song name does not end with .mp3 or .wav, returns null.
+     * If the song name does not have a supported audio extension, returns null.
      */
     private String getLyricsFileName(String songName) {
-        if (songName.endsWith(".mp3")) return songName.replace(".mp3", ".txt");
-        if (songName.endsWith(".wav")) return songName.replace(".wav", ".txt");
+        SupportedFileType fileType = SupportedFileType.fromFileName(songName);
+        if (fileType != null && fileType != SupportedFileType.M3U) {
+            return songName.substring(0, songName.length() - fileType.getExt().length()) + ".txt";
+        }
         System.err.println("Unsupported format: " + songName);
         return null;
     }
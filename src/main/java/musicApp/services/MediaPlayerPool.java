@@ -0,0 +1,74 @@
+package musicApp.services;
+
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
+/**
+ * MediaPlayerPool
+ * Owns the lifecycle of JavaFX media players: every player is created through {@link #acquire(String)} and
+ * handed back through {@link #release} or {@link #dispose}, which detach its
+ * callbacks before freeing its native decoder. A few released players are kept idle so that a source
+ * played again shortly after (crossfade restarted after a seek, previous song...) does not need a new decoder.
+ */
+public class MediaPlayerPool extends PlayerPool<MediaPlayer> {
+
+    private static final int DEFAULT_CAPACITY = 2;
+
+    public MediaPlayerPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Instantiates a new pool.
+     *
+     * @param _capacity The maximum number of idle players kept for reuse.
+     */
+    public MediaPlayerPool(int _capacity) {
+        super(_capacity);
+    }
+
+    @Override
+    protected MediaPlayer createPlayer(String source) {
+        return new MediaPlayer(new Media(source));
+    }
+
+    @Override
+    protected String getSource(MediaPlayer player) {
+        return player.getMedia().getSource();
+    }
+
+    @Override
+    protected boolean isReusable(MediaPlayer player) {
+        return player.getStatus() != MediaPlayer.Status.HALTED && player.getStatus() != MediaPlayer.Status.DISPOSED;
+    }
+
+    @Override
+    protected boolean isDisposed(MediaPlayer player) {
+        return player.getStatus() == MediaPlayer.Status.DISPOSED;
+    }
+
+    @Override
+    protected void rewind(MediaPlayer player) {
+        player.seek(Duration.ZERO);
+    }
+
+    @Override
+    protected void stop(MediaPlayer player) {
+        player.stop();
+    }
+
+    @Override
+    protected void detach(MediaPlayer player) {
+        player.volumeProperty().unbind();
+        player.setAudioSpectrumListener(null);
+        player.setOnReady(null);
+        player.setOnEndOfMedia(null);
+        player.setOnError(null);
+    }
+
+    @Override
+    protected void free(MediaPlayer player) {
+        player.dispose();
+    }
+}
@@ -5,6 +5,8 @@ import musicApp.enums.SupportedFileType;
 import musicApp.exceptions.BadFileTypeException;
 import musicApp.exceptions.ID3TagException;
 import musicApp.models.Metadata;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.FrameGrabber;
 import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.AudioFileIO;
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
@@ -18,6 +20,9 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
 public class MetadataService {
 
@@ -55,9 +60,7 @@ public class MetadataService {
      * @return SupportedFileType, or null
      */
     private SupportedFileType getFileExtension(File fd) throws BadFileTypeException {
-        String fileName = fd.getName();
-        String ext = fileName.substring(fileName.lastIndexOf("."));
-        SupportedFileType fileType = SupportedFileType.fromExtension(ext);
+        SupportedFileType fileType = SupportedFileType.fromFileName(fd.getName());
         if (fileType == null) {
             throw new BadFileTypeException("Unsupported file extension", new Throwable());
         }
@@ -78,15 +81,19 @@ public class MetadataService {
      * This method reads the metadata of a file and returns it in a hashmap
      * Fields included in the hashmap are : title, artist, genre, cover, duration
      *
-     * @param fd : mp3 File Object
+     * @param fd : audio File Object
      * @return Metadata object
      * @throws ID3TagException (if no ID3v2 tags are found)
      */
     public Metadata getMetadata(File fd) throws ID3TagException, BadFileTypeException {
         Metadata metadata = new Metadata();
-        if (getFileExtension(fd) == SupportedFileType.M3U) {
+        SupportedFileType fileType = getFileExtension(fd);
+        if (fileType == SupportedFileType.M3U) {
             return getRadioMetadata(fd);
         }
+        if (!fileType.isTaggable()) {
+            return getFFmpegMetadata(fd);
+        }
         AudioFile file = readFile(fd);
         Tag tag = readTag(file);
         if (tag == null) {
@@ -131,6 +138,32 @@ public class MetadataService {
         return metadata;
     }
 
+    /**
+     * This method reads the metadata of a file that jaudiotagger cannot read (e.g. Opus) through FFmpeg.
+     * Only the title, artist, album, genre and duration are read.
+     *
+     * @param fd : the File on which to read the metadata
+     * @return : A metadata object loaded with the tags found by FFmpeg
+     */
+    private Metadata getFFmpegMetadata(File fd) {
+        Metadata metadata = new Metadata();
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(fd)) {
+            grabber.start();
+            // Tags are stored in the container or in the audio stream depending on the format
+            Map<String, String> tags = new HashMap<>();
+            grabber.getMetadata().forEach((key, value) -> tags.put(key.toLowerCase(Locale.ROOT), value));
+            grabber.getAudioMetadata().forEach((key, value) -> tags.putIfAbsent(key.toLowerCase(Locale.ROOT), value));
+            metadata.setTitle(tags.get("title"));
+            metadata.setArtist(tags.get("artist"));
+            metadata.setAlbum(tags.get("album"));
+            metadata.setGenre(tags.get("genre"));
+            metadata.setDuration(Duration.millis(grabber.getLengthInTime() / 1000.0));
+        } catch (FrameGrabber.Exception e) {
+            throw new RuntimeException("Error while reading the metadata from file : " + fd.getName(), e);
+        }
+        return metadata;
+    }
+
     /**
      * This method assigns default metadata to a radio file
      *
@@ -162,7 +195,7 @@ public class MetadataService {
      * This method writes the passed metadata to the file at the given path
      *
      * @param metadata : Metadata object to write to the given song file
-     * @param fd       : File object corresponding to the song to modify (wav or mp3)
+     * @param fd       : File object corresponding to the song to modify, of a taggable type
      */
     public void setMetadata(Metadata metadata, File fd) throws BadFileTypeException, FieldDataInvalidException, CannotWriteException {
         AudioFile audioFile = readFile(fd);
@@ -216,7 +249,7 @@ public class MetadataService {
 
     /**
      * This method reads the file and returns it as an AudioFile object
-     * currently supports MP3 and WAV files only
+     * supports the file types jaudiotagger can tag (see {@link SupportedFileType#isTaggable()})
      *
      * @param fd : File Object
      * @return AudioFile object
@@ -226,7 +259,7 @@ public class MetadataService {
         AudioFile file;
 
         file = switch (ext) {
-            case MP3, WAV -> {
+            case MP3, WAV, FLAC, OGG, M4A -> {
                 try {
                     yield AudioFileIO.read(fd);
                 } catch (Exception e) {
@@ -0,0 +1,146 @@
+package musicApp.services;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * PlayerPool
+ * Keeps a few released players idle so that a source played again shortly after does not need a new decoder,
+ * and counts the players it creates and disposes. The player operations are left to the subclasses.
+ *
+ * @param <P> The type of player.
+ */
+abstract class PlayerPool<P> {
+
+    private final int capacity;
+    private final Deque<P> idlePlayers;
+    private int livePlayers;
+    private int createdPlayers;
+
+    /**
+     * Instantiates a new pool.
+     *
+     * @param _capacity The maximum number of idle players kept for reuse.
+     */
+    PlayerPool(int _capacity) {
+        capacity = _capacity;
+        idlePlayers = new ArrayDeque<>();
+    }
+
+    /**
+     * Get the number of players created by this pool and not yet disposed.
+     *
+     * @return The number of live players.
+     */
+    public int getLivePlayerCount() {
+        return livePlayers;
+    }
+
+    /**
+     * Get the number of players created by this pool.
+     *
+     * @return The number of created players.
+     */
+    public int getCreatedPlayerCount() {
+        return createdPlayers;
+    }
+
+    /**
+     * Get the number of released players kept for reuse.
+     *
+     * @return The number of idle players.
+     */
+    public int getIdlePlayerCount() {
+        return idlePlayers.size();
+    }
+
+    /**
+     * Get a stopped player for the given source, reusing an idle one if possible.
+     *
+     * @param source The URI of the media.
+     * @return The player, positioned at the start of the media.
+     */
+    public P acquire(String source) {
+        Iterator<P> iterator = idlePlayers.iterator();
+        while (iterator.hasNext()) {
+            P player = iterator.next();
+            if (getSource(player).equals(source)) {
+                iterator.remove();
+                rewind(player);
+                return player;
+            }
+        }
+        P player = createPlayer(source);
+        livePlayers++;
+        createdPlayers++;
+        return player;
+    }
+
+    /**
+     * Stop a player and keep it for reuse, disposing the oldest idle player if the pool is full.
+     *
+     * @param player The player to release, ignored if null.
+     */
+    public void release(P player) {
+        if (player == null) {
+            return;
+        }
+        if (!isReusable(player)) {
+            dispose(player);
+            return;
+        }
+        detach(player);
+        stop(player);
+        idlePlayers.addFirst(player);
+        while (idlePlayers.size() > capacity) {
+            dispose(idlePlayers.removeLast());
+        }
+    }
+
+    /**
+     * Detach a player and free its native resources.
+     *
+     * @param player The player to dispose, ignored if null.
+     */
+    public void dispose(P player) {
+        if (player == null || isDisposed(player)) {
+            return;
+        }
+        idlePlayers.remove(player);
+        detach(player);
+        free(player);
+        livePlayers--;
+    }
+
+    /**
+     * Dispose every idle player.
+     */
+    public void clear() {
+        while (!idlePlayers.isEmpty()) {
+            dispose(idlePlayers.removeFirst());
+        }
+    }
+
+    protected abstract P createPlayer(String source);
+
+    protected abstract String getSource(P player);
+
+    /**
+     * Check whether a player can still play, i.e. has not failed nor been disposed.
+     */
+    protected abstract boolean isReusable(P player);
+
+    protected abstract boolean isDisposed(P player);
+
+    protected abstract void rewind(P player);
+
+    protected abstract void stop(P player);
+
+    /**
+     * Remove every callback and binding that could keep the player or its owner alive.
+     */
+    protected abstract void detach(P player);
+
+    protected abstract void free(P player);
+}
@@ -33,26 +33,6 @@ public class PlaylistService {
         return jsonRepository.readPlaylists();
     }
 
-    /**
-     * Loads all libraries, starting with the main library, followed by the user-defined playlists.
-     *
-     * <p>This method first loads the main library, which contains all songs available in the default music folder.</p>
-     * <p>Then, it loads the playlists from the playlists file, if available, and combines both the main library and the playlists into a single list.</p>
-     *
-     * @return A list containing the main library followed by the playlists.
-     * The main library is loaded first, followed by any existing playlists.
-     */
-    public List<Library> loadAllLibraries(Path musicFolder, Path userMusicFolder) {
-        Library mainLibrary = loadMainLibrary(musicFolder);
-        Library userMainLibrary = loadUserMainLibrary(userMusicFolder);
-        List<Library> playlists = readPlaylists();
-        List<Library> libraries = new ArrayList<>();
-        libraries.add(mainLibrary);
-        libraries.add(userMainLibrary);
-        libraries.addAll(playlists);
-        return libraries;
-    }
-
     /**
      * Loads the main library from the specified music directory.
      *
@@ -72,7 +52,7 @@ public class PlaylistService {
             return new Library(songs, "??library??", null);
         } catch (IOException e) {
             System.err.println("Failed to load main library: " + e.getMessage());
-            return new Library(new ArrayList<>(), "??library??", null);
+            return createEmptyMainLibrary();
         }
     }
 
@@ -83,10 +63,28 @@ public class PlaylistService {
             return new Library(songs, "??user_library??", null);
         } catch (IOException e) {
             System.err.println("Failed to load user library: " + e.getMessage());
-            return new Library(new ArrayList<>(), "??user_library??", null);
+            return createEmptyUserMainLibrary();
         }
     }
 
+    /**
+     * Creates an empty main library, shown while the real one is being loaded.
+     *
+     * @return An empty library named like the main library.
+     */
+    public Library createEmptyMainLibrary() {
+        return new Library(new ArrayList<>(), "??library??", null);
+    }
+
+    /**
+     * Creates an empty user library, shown while the real one is being loaded.
+     *
+     * @return An empty library named like the user library.
+     */
+    public Library createEmptyUserMainLibrary() {
+        return new Library(new ArrayList<>(), "??user_library??", null);
+    }
+
     public Path addSongToLibrary(File song, Path libraryPath) throws IOException {
         PathRepository loader = new PathRepository();
         return loader.copyFileToDirectory(song, libraryPath);
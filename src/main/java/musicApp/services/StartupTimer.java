@@ -0,0 +1,39 @@
+package musicApp.services;
+
+import java.util.logging.Logger;
+
+/**
+ * StartupTimer
+ * Records how long each phase of the application startup took and logs it,
+ * so that regressions in time-to-first-interaction are easy to spot.
+ */
+public final class StartupTimer {
+
+    private static final Logger LOGGER = Logger.getLogger(StartupTimer.class.getName());
+
+    private static long startNanos = System.nanoTime();
+    private static long lastMarkNanos = startNanos;
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Restart the timer, to be called as early as possible in the application entry point.
+     */
+    public static synchronized void start() {
+        startNanos = System.nanoTime();
+        lastMarkNanos = startNanos;
+    }
+
+    /**
+     * Record the end of a startup phase.
+     *
+     * @param phase The name of the phase that just completed.
+     */
+    public static synchronized void mark(String phase) {
+        long now = System.nanoTime();
+        LOGGER.info(String.format("Startup: %s after %d ms (+%d ms)",
+                phase, (now - startNanos) / 1_000_000, (now - lastMarkNanos) / 1_000_000));
+        lastMarkNanos = now;
+    }
+}
@@ -0,0 +1,356 @@
+package musicApp.services;
+
+import musicApp.audio.PcmDecoder;
+import musicApp.enums.SupportedFileType;
+import musicApp.exceptions.BadSongException;
+import musicApp.models.Library;
+import musicApp.models.Song;
+import org.bytedeco.ffmpeg.global.avcodec;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transcodes the songs of libraries to MP3 files, e.g. for devices which only play MP3.
+ * <p>
+ * Each library goes to its own folder of the output directory. The songs are encoded by a fixed pool of FFmpeg
+ * encoders, at most one per core, and their metadata and artwork are copied through {@link MetadataService}.
+ * MP3 songs are copied as they are. A song is written to a temporary file which is renamed once complete,
+ * then recorded in a journal in the output directory, so an interrupted batch resumes where it stopped.
+ */
+public class TranscodeService {
+
+    public static final String JOURNAL_FILE_NAME = ".transcode-journal";
+
+    private static final int BLOCK_FRAMES = 4096;
+    private static final String PART_SUFFIX = ".part";
+
+    private final Path outputDirectory;
+    private final Path journalFile;
+    private int threads;
+    private int bitrate;
+    private Listener listener;
+    private volatile boolean cancelled;
+
+    /**
+     * Listener of the progress of a batch.
+     */
+    public interface Listener {
+        /**
+         * Called on an encoder thread each time a song is transcoded or failed.
+         *
+         * @param report The progress of the batch so far.
+         */
+        void onProgress(Report report);
+    }
+
+    /**
+     * Progress and throughput of a batch.
+     */
+    public static class Report {
+        private final int totalFiles;
+        private final int transcodedFiles;
+        private final int skippedFiles;
+        private final int failedFiles;
+        private final double audioSeconds;
+        private final double elapsedSeconds;
+
+        private Report(int _totalFiles, int _transcodedFiles, int _skippedFiles, int _failedFiles,
+                       double _audioSeconds, double _elapsedSeconds) {
+            totalFiles = _totalFiles;
+            transcodedFiles = _transcodedFiles;
+            skippedFiles = _skippedFiles;
+            failedFiles = _failedFiles;
+            audioSeconds = _audioSeconds;
+            elapsedSeconds = _elapsedSeconds;
+        }
+
+        public int getTotalFiles() {
+            return totalFiles;
+        }
+
+        public int getTranscodedFiles() {
+            return transcodedFiles;
+        }
+
+        /**
+         * Get the number of songs already transcoded by an earlier run, according to the journal.
+         */
+        public int getSkippedFiles() {
+            return skippedFiles;
+        }
+
+        public int getFailedFiles() {
+            return failedFiles;
+        }
+
+        public double getElapsedSeconds() {
+            return elapsedSeconds;
+        }
+
+        /**
+         * Get the number of songs transcoded per second of this run.
+         */
+        public double getFilesPerSecond() {
+            return elapsedSeconds > 0 ? transcodedFiles / elapsedSeconds : 0;
+        }
+
+        /**
+         * Get the duration of the audio transcoded divided by the time it took, e.g. 50 when one minute of audio
+         * is transcoded in a bit more than one second.
+         */
+        public double getRealtimeFactor() {
+            return elapsedSeconds > 0 ? audioSeconds / elapsedSeconds : 0;
+        }
+    }
+
+    /**
+     * Instantiates a service writing to a directory, using every core at 192 kbps.
+     *
+     * @param _outputDirectory The directory receiving one folder per library and the journal.
+     */
+    public TranscodeService(Path _outputDirectory) {
+        outputDirectory = _outputDirectory;
+        journalFile = outputDirectory.resolve(JOURNAL_FILE_NAME);
+        threads = Runtime.getRuntime().availableProcessors();
+        bitrate = 192;
+    }
+
+    /**
+     * Set the number of encoders running at once, bounded by the number of cores.
+     *
+     * @param _threads The number of encoders, at least one.
+     */
+    public void setThreads(int _threads) {
+        threads = Math.max(1, Math.min(_threads, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Set the bitrate of the MP3 files.
+     *
+     * @param kbps The bitrate in kbit/s.
+     */
+    public void setBitrate(int kbps) {
+        bitrate = kbps;
+    }
+
+    public void setListener(Listener _listener) {
+        listener = _listener;
+    }
+
+    /**
+     * Stop a running batch. The songs being encoded are discarded and transcoded again on the next run.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Transcode the songs of libraries, blocking until they are all done. Radios are left out.
+     * A song whose transcoding fails is reported as failed and does not stop the batch.
+     *
+     * @param libraries The libraries.
+     * @return The report of the batch.
+     * @throws IOException           if the output directory or the journal cannot be written.
+     * @throws CancellationException if the batch was cancelled.
+     */
+    public Report transcode(List<Library> libraries) throws IOException {
+        cancelled = false;
+        Files.createDirectories(outputDirectory);
+        Map<Path, Song> jobs = createJobs(libraries);
+        Set<String> journal = readJournal();
+        long start = System.nanoTime();
+        AtomicInteger transcoded = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong audioMillis = new AtomicLong();
+        Runnable report = () -> {
+            if (listener != null) {
+                listener.onProgress(new Report(jobs.size(), transcoded.get(), skipped.get(), failed.get(),
+                        audioMillis.get() / 1000.0, (System.nanoTime() - start) / 1e9));
+            }
+        };
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "transcoder-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Map.Entry<Path, Song> job : jobs.entrySet()) {
+                String entry;
+                try {
+                    entry = journalEntry(job.getKey(), job.getValue());
+                } catch (IOException e) {
+                    System.err.println("Cannot read " + job.getValue().getFilePath() + ": " + e.getMessage());
+                    failed.incrementAndGet();
+                    continue;
+                }
+                if (journal.contains(entry) && Files.exists(job.getKey())) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                futures.add(executor.submit(() -> {
+                    if (cancelled) {
+                        return;
+                    }
+                    try {
+                        audioMillis.addAndGet(transcode(job.getValue(), job.getKey()));
+                        appendToJournal(entry);
+                        transcoded.incrementAndGet();
+                    } catch (CancellationException e) {
+                        return;
+                    } catch (Exception e) {
+                        System.err.println("Failed to transcode " + job.getValue().getFilePath() + ": " + e.getMessage());
+                        failed.incrementAndGet();
+                    }
+                    report.run();
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        if (cancelled) {
+            throw new CancellationException("The transcoding was cancelled");
+        }
+        return new Report(jobs.size(), transcoded.get(), skipped.get(), failed.get(),
+                audioMillis.get() / 1000.0, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Map the destination of every song to transcode to the song, one folder per library.
+     */
+    private Map<Path, Song> createJobs(List<Library> libraries) {
+        Map<Path, Song> jobs = new LinkedHashMap<>();
+        for (Library library : libraries) {
+            Path folder = outputDirectory.resolve(toFileName(library.getDisplayName()));
+            for (Song song : library.toList()) {
+                if (!song.isSong()) {
+                    continue;
+                }
+                String fileName = song.getFilePath().getFileName().toString();
+                int extension = fileName.lastIndexOf('.');
+                String baseName = toFileName(extension > 0 ? fileName.substring(0, extension) : fileName);
+                Path target = folder.resolve(baseName + ".mp3");
+                // Songs of different folders can have the same file name
+                for (int i = 2; jobs.containsKey(target) && !jobs.get(target).getFilePath().equals(song.getFilePath()); i++) {
+                    target = folder.resolve(baseName + " (" + i + ").mp3");
+                }
+                jobs.put(target, song);
+            }
+        }
+        return jobs;
+    }
+
+    private static String toFileName(String name) {
+        String fileName = name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").strip();
+        return fileName.isEmpty() || fileName.startsWith(".") ? "_" + fileName : fileName;
+    }
+
+    /**
+     * Transcode a song, with its metadata, to an MP3 file.
+     *
+     * @return The duration of the song in milliseconds.
+     */
+    private long transcode(Song song, Path target) throws Exception {
+        Files.createDirectories(target.getParent());
+        Path part = target.resolveSibling(target.getFileName() + PART_SUFFIX + ".mp3");
+        try {
+            long durationMillis;
+            if (SupportedFileType.fromFileName(song.getFilePath().getFileName().toString()) == SupportedFileType.MP3) {
+                Files.copy(song.getFilePath(), part, StandardCopyOption.REPLACE_EXISTING);
+                durationMillis = (long) song.getDuration().toMillis();
+            } else {
+                durationMillis = encode(song.getSource(), part);
+                new MetadataService().setMetadata(song.getMetadata(), part.toFile());
+            }
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return durationMillis;
+        } finally {
+            Files.deleteIfExists(part);
+        }
+    }
+
+    /**
+     * Encode a source to an MP3 file.
+     *
+     * @return The duration of the source in milliseconds.
+     */
+    private long encode(String source, Path mp3File) throws Exception {
+        long frames = 0;
+        try (PcmDecoder decoder = new PcmDecoder(source);
+             FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(mp3File.toString(), PcmDecoder.CHANNELS)) {
+            recorder.setFormat("mp3");
+            recorder.setAudioCodec(avcodec.AV_CODEC_ID_MP3);
+            recorder.setSampleRate(PcmDecoder.SAMPLE_RATE);
+            recorder.setAudioBitrate(bitrate * 1000);
+            recorder.start();
+            float[] samples = new float[BLOCK_FRAMES * PcmDecoder.CHANNELS];
+            int read;
+            while ((read = decoder.read(samples, 0, BLOCK_FRAMES)) > 0) {
+                if (cancelled) {
+                    throw new CancellationException();
+                }
+                float[] block = read == BLOCK_FRAMES ? samples : Arrays.copyOf(samples, read * PcmDecoder.CHANNELS);
+                recorder.recordSamples(PcmDecoder.SAMPLE_RATE, PcmDecoder.CHANNELS, FloatBuffer.wrap(block));
+                frames += read;
+            }
+            recorder.stop();
+        } catch (BadSongException | FFmpegFrameRecorder.Exception e) {
+            throw new IOException("Cannot encode " + source, e);
+        }
+        return frames * 1000 / PcmDecoder.SAMPLE_RATE;
+    }
+
+    /**
+     * Identify a transcoded song in the journal by its destination, its source and the last change of the source,
+     * so that a song is transcoded again if it was modified since.
+     */
+    private String journalEntry(Path target, Song song) throws IOException {
+        Path source = song.getFilePath();
+        return outputDirectory.relativize(target) + "\t" + source.toAbsolutePath() + "\t"
+                + Files.getLastModifiedTime(source).toMillis();
+    }
+
+    private Set<String> readJournal() throws IOException {
+        if (!Files.exists(journalFile)) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(Files.readAllLines(journalFile, StandardCharsets.UTF_8));
+    }
+
+    private synchronized void appendToJournal(String entry) throws IOException {
+        Files.writeString(journalFile, entry + System.lineSeparator(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+    }
+}
@@ -0,0 +1,192 @@
+package musicApp.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Cache of the temporary MP4 files backing video covers.
+ * <p>
+ * Video covers are stored inside the tags of a song, but the JavaFX media stack can only play them from a file.
+ * Instead of writing a new temporary file every time a song is played, one file is kept per distinct video
+ * content (identified by its SHA-256 hash). Only the most recently used files are kept: the others are deleted,
+ * and whatever is left is deleted when the application exits.
+ * The lock of the cache is only held to look up and reserve an entry: the video is hashed and written outside it,
+ * so callers waiting on another video are not blocked.
+ */
+public class VideoCoverCache {
+
+    // The shown and the prepared covers are always among them, so an evicted file is no longer played
+    static final int MAX_FILES = 8;
+
+    private static VideoCoverCache instance;
+
+    // Each entry completes once its file is written
+    private final Map<String, CompletableFuture<File>> files;
+    // Evicted entries, whose files are deleted once the lock is released
+    private final List<CompletableFuture<File>> evicted;
+    private final ExecutorService preloadExecutor;
+
+    private VideoCoverCache() {
+        evicted = new ArrayList<>();
+        // In access order, so that the least recently used file is evicted first
+        files = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<File>> eldest) {
+                if (size() <= MAX_FILES) {
+                    return false;
+                }
+                evicted.add(eldest.getValue());
+                return true;
+            }
+        };
+        preloadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "video-cover-preload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Get the instance of the VideoCoverCache.
+     *
+     * @return The instance of the VideoCoverCache.
+     */
+    public static synchronized VideoCoverCache getInstance() {
+        if (instance == null) {
+            instance = new VideoCoverCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the temporary file holding the given video, writing it only if this content was never seen before.
+     * If another thread is writing the same video, waits for its file instead. Blocks while writing, so it must not
+     * be called from the JavaFX application thread.
+     *
+     * @param rawVideo the raw video data as a byte array
+     * @return the temporary MP4 file containing the video
+     * @throws Exception if the file cannot be written
+     */
+    public File getFile(byte[] rawVideo) throws Exception {
+        String key = hash(rawVideo);
+        CompletableFuture<File> entry;
+        boolean reserved = false;
+        List<CompletableFuture<File>> toDelete;
+        synchronized (files) {
+            entry = files.get(key);
+            if (entry == null || isMissing(entry)) {
+                entry = new CompletableFuture<>();
+                files.put(key, entry);
+                reserved = true;
+            }
+            toDelete = new ArrayList<>(evicted);
+            evicted.clear();
+        }
+        for (CompletableFuture<File> evictedEntry : toDelete) {
+            // An entry evicted while still being written is deleted once written
+            evictedEntry.thenAccept(VideoCoverCache::delete);
+        }
+        if (reserved) {
+            try {
+                // Written with deleteOnExit, in case it is never evicted
+                entry.complete(new VideoService().tempFileFromBytes(rawVideo));
+            } catch (Exception e) {
+                synchronized (files) {
+                    files.remove(key, entry);
+                }
+                entry.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return entry.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * Checks whether the file of a written entry was deleted from the outside.
+     *
+     * @param entry the entry
+     * @return true if the entry is written and its file no longer exists
+     */
+    private static boolean isMissing(CompletableFuture<File> entry) {
+        return entry.isDone() && !entry.isCompletedExceptionally() && !entry.join().exists();
+    }
+
+    /**
+     * Deletes an evicted file.
+     *
+     * @param file the temporary file
+     */
+    private static void delete(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            System.err.println("Failed to delete video cover " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the file of the given video in the background, writing it if needed.
+     *
+     * @param rawVideo the raw video data
+     * @param onReady  called on the cache thread with the file, may be null
+     * @param onError  called on the cache thread if the file cannot be written
+     */
+    public void getFileAsync(byte[] rawVideo, Consumer<File> onReady, Consumer<Exception> onError) {
+        preloadExecutor.submit(() -> {
+            try {
+                File file = getFile(rawVideo);
+                if (onReady != null) {
+                    onReady.accept(file);
+                }
+            } catch (Exception e) {
+                onError.accept(e);
+            }
+        });
+    }
+
+    /**
+     * Writes the given video to the cache in the background so that a later {@link #getFile(byte[])} is instant.
+     *
+     * @param rawVideo the raw video data, ignored if null or empty
+     * @param onReady  called on the preload thread with the cached file once it is written, may be null
+     */
+    public void preload(byte[] rawVideo, Consumer<File> onReady) {
+        if (rawVideo == null || rawVideo.length == 0) {
+            return;
+        }
+        getFileAsync(rawVideo, onReady, e -> System.err.println("Failed to preload video cover: " + e.getMessage()));
+    }
+
+    /**
+     * Computes the content key of a video.
+     *
+     * @param rawVideo the raw video data
+     * @return the hexadecimal SHA-256 digest of the data
+     */
+    private String hash(byte[] rawVideo) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawVideo));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -10,8 +10,10 @@ import org.jaudiotagger.tag.images.ArtworkFactory;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 
 /**
@@ -75,6 +77,7 @@ public class VideoService {
 
     /**
      * Writes raw video bytes to a temporary MP4 file on disk.
+     * The bytes are written to a side file first and moved in place, so the file is never seen half written.
      *
      * @param rawVideo the raw video data as a byte array
      * @return a {@link File} reference to the newly created temporary video file
@@ -84,8 +87,12 @@ public class VideoService {
         File tempFile = File.createTempFile("coverVideo_", ".mp4");
         tempFile.deleteOnExit();
 
-        try (FileOutputStream fos = new FileOutputStream(tempFile)) {
-            fos.write(rawVideo);
+        Path partFile = Files.createTempFile(tempFile.getParentFile().toPath(), "coverVideo_", ".part");
+        try {
+            Files.write(partFile, rawVideo);
+            Files.move(partFile, tempFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partFile);
         }
 
         return tempFile;
@@ -3,18 +3,18 @@ package musicApp.services;
 import javafx.scene.control.ButtonBase;
 import javafx.scene.image.ImageView;
 
-import java.util.Objects;
-
 public class ViewService {
 
     /**
      * Creates an ImageView from a resource path with predefined dimensions.
+     * The underlying image is shared through the {@link ImageCacheService}.
      *
      * @param path The path to the image resource.
-     * @return The ImageView, or null if loading fails.
+     * @return The ImageView.
+     * @throws NullPointerException if the resource does not exist.
      */
     public ImageView createIcon(String path) throws NullPointerException {
-        ImageView icon = new ImageView(Objects.requireNonNull(getClass().getResource(path)).toExternalForm());
+        ImageView icon = new ImageView(ImageCacheService.getInstance().getImage(path));
         icon.setFitWidth(20);
         icon.setFitHeight(20);
         return icon;
@@ -28,8 +28,7 @@ public class ViewService {
      */
     public void setButtonIcon(ButtonBase button, String imagePath, ViewServiceListener viewServiceListener) {
         try {
-            ViewService viewService = new ViewService();
-            ImageView icon = viewService.createIcon(imagePath);
+            ImageView icon = createIcon(imagePath);
             button.setGraphic(icon);
         } catch (NullPointerException _) {
             viewServiceListener.handleNotFoundImage("Could not load icon : " + imagePath);
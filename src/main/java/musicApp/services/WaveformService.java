@@ -0,0 +1,201 @@
+package musicApp.services;
+
+import javafx.application.Platform;
+import musicApp.audio.PcmDecoder;
+import musicApp.audio.WaveformBuilder;
+import musicApp.audio.WaveformPeaks;
+import musicApp.exceptions.BadSongException;
+import musicApp.exceptions.SettingsFilesException;
+import musicApp.repositories.JsonRepository;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * WaveformService
+ * Provides the waveform peaks of the songs, drawn by the seek bar.
+ * Peaks are computed once per file version by decoding it in the background, usually during the loudness analysis,
+ * and stored as a small binary file per song in the config folder. Nothing is decoded or read on the FX thread.
+ * The class is a singleton.
+ */
+public class WaveformService {
+
+    private static final int MAX_CACHED_WAVEFORMS = 8;
+    private static final String EXTENSION = ".peaks";
+
+    private static WaveformService instance;
+
+    private final Map<String, WaveformPeaks> cache;
+    private final ExecutorService executor;
+    private Path waveformDir;
+    private boolean waveformDirResolved;
+
+    private WaveformService() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, WaveformPeaks> eldest) {
+                return size() > MAX_CACHED_WAVEFORMS;
+            }
+        });
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "waveform-loader");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * Get the instance of the WaveformService.
+     *
+     * @return The instance of the WaveformService.
+     */
+    public static synchronized WaveformService getInstance() {
+        if (instance == null) {
+            instance = new WaveformService();
+        }
+        return instance;
+    }
+
+    /**
+     * Get the peaks of a song in the background, computing them if they were never stored.
+     *
+     * @param file    The audio file.
+     * @param onReady Called on the FX thread with the peaks, not called if the file cannot be decoded.
+     */
+    public void request(Path file, Consumer<WaveformPeaks> onReady) {
+        executor.submit(() -> {
+            try {
+                WaveformPeaks peaks = getPeaks(file);
+                Platform.runLater(() -> onReady.accept(peaks));
+            } catch (BadSongException | IOException e) {
+                System.err.println("Failed to compute the waveform of " + file + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Get the peaks of a song on the calling thread, from the memory cache, the disk, or by decoding it.
+     *
+     * @param file The audio file.
+     * @return The peaks.
+     * @throws BadSongException if the file cannot be decoded.
+     * @throws IOException      if the file attributes cannot be read.
+     */
+    public WaveformPeaks getPeaks(Path file) throws BadSongException, IOException {
+        String key = versionKey(file);
+        WaveformPeaks peaks = cache.get(key);
+        if (peaks != null) {
+            return peaks;
+        }
+        Path peaksFile = peaksFile(key);
+        if (peaksFile != null && Files.isRegularFile(peaksFile)) {
+            try {
+                peaks = WaveformPeaks.read(peaksFile);
+                cache.put(key, peaks);
+                return peaks;
+            } catch (IOException e) {
+                System.err.println("Ignoring invalid waveform file " + peaksFile + ": " + e.getMessage());
+            }
+        }
+        peaks = decode(file);
+        store(file, peaks);
+        return peaks;
+    }
+
+    /**
+     * Check whether the peaks of the current version of a file are stored.
+     *
+     * @param file The audio file.
+     * @return true if the peaks do not need to be computed.
+     */
+    public boolean hasPeaks(Path file) {
+        try {
+            String key = versionKey(file);
+            Path peaksFile = peaksFile(key);
+            return cache.containsKey(key) || (peaksFile != null && Files.isRegularFile(peaksFile));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Store the peaks of a file, replacing those of its previous versions.
+     *
+     * @param file  The audio file.
+     * @param peaks The peaks of its current version.
+     */
+    public void store(Path file, WaveformPeaks peaks) {
+        try {
+            String key = versionKey(file);
+            cache.put(key, peaks);
+            Path peaksFile = peaksFile(key);
+            if (peaksFile == null) {
+                return;
+            }
+            String pathHash = key.substring(0, key.indexOf('-'));
+            try (DirectoryStream<Path> previous = Files.newDirectoryStream(peaksFile.getParent(), pathHash + "-*" + EXTENSION)) {
+                for (Path stale : previous) {
+                    Files.deleteIfExists(stale);
+                }
+            }
+            peaks.write(peaksFile);
+        } catch (IOException e) {
+            System.err.println("Failed to store the waveform of " + file + ": " + e.getMessage());
+        }
+    }
+
+    private WaveformPeaks decode(Path file) throws BadSongException {
+        WaveformBuilder builder = new WaveformBuilder(PcmDecoder.SAMPLE_RATE, PcmDecoder.CHANNELS);
+        float[] block = new float[4096 * PcmDecoder.CHANNELS];
+        try (PcmDecoder decoder = new PcmDecoder(file.toString())) {
+            int frames;
+            while ((frames = decoder.read(block, 0, 4096)) > 0) {
+                builder.process(block, 0, frames);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Identify a version of a file: the hash of its path, its size and its modification time.
+     */
+    private String versionKey(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        return hash(absolute.toString()) + "-" + Files.size(absolute) + "-" + Files.getLastModifiedTime(absolute).toMillis();
+    }
+
+    private synchronized Path peaksFile(String key) {
+        if (!waveformDirResolved) {
+            waveformDirResolved = true;
+            try {
+                waveformDir = new JsonRepository().getWaveformDir();
+            } catch (SettingsFilesException e) {
+                System.err.println("Waveforms will not be saved: " + e.getMessage());
+            }
+        }
+        return waveformDir == null ? null : waveformDir.resolve(key + EXTENSION);
+    }
+
+    private static String hash(String path) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(path.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+}
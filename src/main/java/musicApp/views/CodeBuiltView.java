@@ -0,0 +1,26 @@
+package musicApp.views;
+
+import javafx.scene.Scene;
+import javafx.scene.layout.Pane;
+
+/**
+ * View whose node graph is built in code instead of being loaded from an FXML file.
+ * Used by views that are instantiated many times, such as list cells.
+ */
+public abstract class CodeBuiltView extends View {
+
+    /**
+     * Initialize the scene from the node graph built by {@link #buildRoot()}, without any FXML parsing.
+     */
+    public void initializeSceneFromCode() {
+        rootPane = buildRoot();
+        scene = new Scene(rootPane);
+    }
+
+    /**
+     * Build the root pane of the view.
+     *
+     * @return the root pane
+     */
+    protected abstract Pane buildRoot();
+}
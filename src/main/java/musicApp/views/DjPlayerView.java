@@ -1,9 +1,22 @@
 package musicApp.views;
 
 import javafx.fxml.FXML;
+import javafx.geometry.Orientation;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.Slider;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import musicApp.services.LanguageService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class DjPlayerView extends View {
 
@@ -14,6 +27,42 @@ public class DjPlayerView extends View {
     private Slider gainSlider, bassBoostSlider, pressureSlider, waveSlider;
     @FXML
     private Label gainLabel, bassBoostLabel, pressureLabel, speedLabel;
+    @FXML
+    private HBox effectsContainer;
+    @FXML
+    private Label deckTitleLabel;
+    @FXML
+    private Button deckLoadButton, deckPlayButton, deckCueButton;
+    @FXML
+    private Slider deckGainSlider;
+    @FXML
+    private Label crossfaderLabel;
+    @FXML
+    private Slider crossfaderSlider;
+    private String deckTrack;
+    private boolean deckPlaying;
+    // Default value of each effect slider
+    private final Map<Slider, Double> effectSliders = new LinkedHashMap<>();
+    private final List<EffectControl> effectControls = new ArrayList<>();
+    // CPU load label of each effect, under the slider of its first parameter
+    private final Map<Integer, Label> effectLoadLabels = new HashMap<>();
+
+    /**
+     * The labels of a slider of an effect parameter, refreshed with the language.
+     */
+    private static class EffectControl {
+        private final int effectIndex;
+        private final int parameterIndex;
+        private final Label label;
+        private final Tooltip tooltip;
+
+        private EffectControl(int _effectIndex, int _parameterIndex, Label _label, Tooltip _tooltip) {
+            effectIndex = _effectIndex;
+            parameterIndex = _parameterIndex;
+            label = _label;
+            tooltip = _tooltip;
+        }
+    }
 
     public DjPlayerView() {
     }
@@ -31,6 +80,59 @@ public class DjPlayerView extends View {
     public void init() {
         addListeners();
         initStage();
+        refreshTranslation();
+    }
+
+    @Override
+    protected void refreshTranslation() {
+        LanguageService ls = LanguageService.getInstance();
+        deckLoadButton.setText(ls.get("button.load_next"));
+        deckCueButton.setText(ls.get("button.cue"));
+        deckPlayButton.setText(ls.get(deckPlaying ? "button.pause" : "button.play"));
+        deckTitleLabel.setText(ls.get("dj.deck") + " " + (deckTrack == null ? ls.get("dj.no_track") : deckTrack));
+        crossfaderLabel.setText(ls.get("dj.crossfader"));
+        for (EffectControl control : effectControls) {
+            String effectName = listener.getEffectName(control.effectIndex);
+            control.label.setText(control.parameterIndex == 0 ? effectName : "");
+            control.tooltip.setText(effectName + " - "
+                    + listener.getEffectParameterName(control.effectIndex, control.parameterIndex));
+        }
+    }
+
+    /**
+     * Show the track loaded on the second deck.
+     *
+     * @param title the title of the track, null if there is none
+     */
+    public void setDeckTrack(String title) {
+        deckTrack = title;
+        refreshTranslation();
+    }
+
+    /**
+     * Show whether the second deck is playing.
+     *
+     * @param playing true if the deck is playing
+     */
+    public void setDeckPlaying(boolean playing) {
+        deckPlaying = playing;
+        refreshTranslation();
+    }
+
+    /**
+     * Enable the crossfader, which only works if the second deck is mixed with the main player.
+     *
+     * @param available true if the crossfader can be used
+     */
+    public void setCrossfaderAvailable(boolean available) {
+        crossfaderSlider.setDisable(!available);
+    }
+
+    /**
+     * Move the crossfader back to the main player.
+     */
+    public void resetCrossfader() {
+        crossfaderSlider.setValue(0);
     }
 
     public void resetEffects() {
@@ -38,6 +140,51 @@ public class DjPlayerView extends View {
         bassBoostSlider.setValue(0);
         pressureSlider.setValue(0);
         waveSlider.setValue(0);
+        effectSliders.forEach(Slider::setValue);
+    }
+
+    /**
+     * Add a slider controlling a parameter of an audio effect, labelled with the names given by the listener.
+     *
+     * @param effectIndex    the index of the effect
+     * @param parameterIndex the index of the parameter in the effect
+     * @param min            the minimum value
+     * @param max            the maximum value
+     * @param defaultValue   the value the slider is reset to
+     */
+    public void addEffectSlider(int effectIndex, int parameterIndex, double min, double max, double defaultValue) {
+        Slider slider = new Slider(min, max, defaultValue);
+        slider.setOrientation(Orientation.VERTICAL);
+        slider.setPrefHeight(100);
+        Tooltip tooltip = new Tooltip();
+        slider.setTooltip(tooltip);
+        slider.valueProperty().addListener((_, _, newVal) ->
+                listener.handleChangeEffectParameter(effectIndex, parameterIndex, newVal.doubleValue()));
+        Label label = new Label();
+        Label loadLabel = new Label();
+        if (parameterIndex == 0) {
+            effectLoadLabels.put(effectIndex, loadLabel);
+        }
+        VBox box = new VBox(5, label, slider, loadLabel);
+        box.setAlignment(Pos.CENTER);
+        effectsContainer.getChildren().add(box);
+        effectSliders.put(slider, defaultValue);
+        effectControls.add(new EffectControl(effectIndex, parameterIndex, label, tooltip));
+        refreshTranslation();
+    }
+
+    /**
+     * Show the CPU time an effect takes.
+     *
+     * @param effectIndex the index of the effect
+     * @param load        the share of the real time, or a negative value if the effect is not running
+     */
+    public void setEffectLoad(int effectIndex, double load) {
+        Label loadLabel = effectLoadLabels.get(effectIndex);
+        if (loadLabel != null) {
+            loadLabel.setText(load < 0 ? ""
+                    : String.format("%s %.1f%%", LanguageService.getInstance().get("dj.cpu_load"), load * 100));
+        }
     }
 
     private void initStage() {
@@ -65,6 +212,12 @@ public class DjPlayerView extends View {
         bassBoostSlider.valueProperty().addListener((_, _, newVal) -> listener.handleChangeBassBoostGain(newVal.doubleValue()));
 
         waveSlider.valueProperty().addListener((_, _, newVal) -> updateWaveSpeed(newVal.doubleValue()));
+
+        deckLoadButton.setOnAction(_ -> listener.handleLoadDeck());
+        deckPlayButton.setOnAction(_ -> listener.handleToggleDeckPlay());
+        deckCueButton.setOnAction(_ -> listener.handleCueDeck());
+        deckGainSlider.valueProperty().addListener((_, _, newVal) -> listener.handleChangeDeckGain(newVal.doubleValue()));
+        crossfaderSlider.valueProperty().addListener((_, _, newVal) -> listener.handleChangeCrossfader(newVal.doubleValue()));
     }
 
     private void updateWaveSpeed(double value) {
@@ -94,6 +247,22 @@ public class DjPlayerView extends View {
         void handleChangeBassBoostGain(double gain);
 
         void handleChangeWaveSpeed(double speed);
+
+        void handleChangeEffectParameter(int effectIndex, int parameterIndex, double value);
+
+        String getEffectName(int effectIndex);
+
+        String getEffectParameterName(int effectIndex, int parameterIndex);
+
+        void handleLoadDeck();
+
+        void handleToggleDeckPlay();
+
+        void handleCueDeck();
+
+        void handleChangeDeckGain(double gain);
+
+        void handleChangeCrossfader(double position);
     }
 
 }
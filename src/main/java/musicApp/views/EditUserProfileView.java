@@ -8,14 +8,16 @@ import javafx.scene.image.ImageView;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.StringConverter;
+import musicApp.enums.CrossfadeCurve;
 import musicApp.enums.Language;
 import musicApp.services.AlertService;
 import musicApp.services.FileDialogService;
+import musicApp.services.ImageCacheService;
 import musicApp.services.LanguageService;
 
 import java.io.File;
 import java.nio.file.Path;
-import java.util.Objects;
 
 /**
  * The Playlist edit view.
@@ -27,7 +29,7 @@ public class EditUserProfileView extends View {
     private Stage stage;
 
     @FXML
-    private Label nameLabel, userImageLabel, musicFolderLabel, chosenMusicFolderLabel, balanceLabel, balanceTitle, left, right, crossfadeTitle, crossfadeLabel;
+    private Label nameLabel, userImageLabel, musicFolderLabel, chosenMusicFolderLabel, balanceLabel, balanceTitle, left, right, crossfadeTitle, crossfadeLabel, preloadWindowTitle, preloadWindowLabel;
     @FXML
     private TextField nameField;
     @FXML
@@ -37,9 +39,11 @@ public class EditUserProfileView extends View {
     @FXML
     private VBox popupLayout;
     @FXML
-    private Slider balanceSlider, crossfadeSlider;
+    private Slider balanceSlider, crossfadeSlider, preloadWindowSlider;
     @FXML
     private ComboBox<String> languageChoice;
+    @FXML
+    private ComboBox<CrossfadeCurve> crossfadeCurveChoice;
 
     public void show() {
         if (stage != null) {
@@ -66,6 +70,7 @@ public class EditUserProfileView extends View {
     public void init() {
         initButtons();
         initSlider();
+        initCrossfadeCurveChoice();
         initLanguageChoice();
         refreshTranslation();
         initStage();
@@ -99,11 +104,21 @@ public class EditUserProfileView extends View {
         crossfadeLabel.setText(getCrossfadeLabelString(listener.getCrossfadeDuration()));
         crossfadeSlider.valueProperty().addListener((_, _, newVal)
                 -> crossfadeLabel.setText(getCrossfadeLabelString(newVal.doubleValue())));
-        crossfadeSlider.setMajorTickUnit(1);
-        crossfadeSlider.setMinorTickCount(1);
+        crossfadeSlider.setMajorTickUnit(5);
+        crossfadeSlider.setMinorTickCount(4);
         crossfadeSlider.setSnapToTicks(true);
         crossfadeSlider.setShowTickLabels(true);
         crossfadeSlider.setShowTickMarks(true);
+
+        preloadWindowSlider.setValue(listener.getGaplessPreloadWindow());
+        preloadWindowLabel.setText(getCrossfadeLabelString(listener.getGaplessPreloadWindow()));
+        preloadWindowSlider.valueProperty().addListener((_, _, newVal)
+                -> preloadWindowLabel.setText(getCrossfadeLabelString(newVal.doubleValue())));
+        preloadWindowSlider.setMajorTickUnit(5);
+        preloadWindowSlider.setMinorTickCount(4);
+        preloadWindowSlider.setSnapToTicks(true);
+        preloadWindowSlider.setShowTickLabels(true);
+        preloadWindowSlider.setShowTickMarks(true);
     }
 
     /**
@@ -115,13 +130,32 @@ public class EditUserProfileView extends View {
      */
     public void populateFields(String userName, String imagePath, String musicPath) {
         nameField.setText(userName);
-        userImage.setImage(new Image((imagePath == null || imagePath.isBlank()) ?
-                Objects.requireNonNull(getClass().getResource("/images/default_account.png")).toExternalForm() :
-                Path.of(imagePath).toUri().toString()));
+        userImage.setImage((imagePath == null || imagePath.isBlank()) ?
+                ImageCacheService.getInstance().getImage(ImageCacheService.DEFAULT_ACCOUNT_PICTURE) :
+                new Image(Path.of(imagePath).toUri().toString()));
         userImageLabel.setText(imagePath);
         chosenMusicFolderLabel.setText(musicPath);
     }
 
+    /**
+     * Initialize the crossfade curve choice, showing each curve by its translated name.
+     */
+    private void initCrossfadeCurveChoice() {
+        crossfadeCurveChoice.setItems(FXCollections.observableArrayList(CrossfadeCurve.values()));
+        crossfadeCurveChoice.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(CrossfadeCurve curve) {
+                return curve == null ? "" : getCrossfadeCurveString(curve);
+            }
+
+            @Override
+            public CrossfadeCurve fromString(String string) {
+                return null;
+            }
+        });
+        crossfadeCurveChoice.setValue(listener.getCrossfadeCurve());
+    }
+
     private void initLanguageChoice() {
         languageChoice.setItems(FXCollections.observableArrayList(
                 "English",
@@ -149,6 +183,7 @@ public class EditUserProfileView extends View {
         actionButton.setText(actionButtonText);
         cancelButton.setText(LanguageService.getInstance().get("button.cancel"));
         equalizerButton.setText(LanguageService.getInstance().get("settings.manage_audio_equalizer"));
+        preloadWindowTitle.setText(LanguageService.getInstance().get("settings.preload_window"));
     }
 
     /**
@@ -167,7 +202,7 @@ public class EditUserProfileView extends View {
         chooseUserImageButton.setOnAction(_ -> handleChooseImage());
         chooseMusicFolderButton.setOnAction(_ -> handleBrowseMusicFolder());
 
-        actionButton.setOnAction(_ -> listener.handleSave(nameField.getText(), balanceSlider.getValue(), crossfadeSlider.getValue(),
+        actionButton.setOnAction(_ -> listener.handleSave(nameField.getText(), balanceSlider.getValue(), crossfadeSlider.getValue(), crossfadeCurveChoice.getValue(), preloadWindowSlider.getValue(),
                 !(userImageLabel.getText() == null) ? Path.of(userImageLabel.getText()) : null
                 , !(chosenMusicFolderLabel.getText() == null) ? Path.of(chosenMusicFolderLabel.getText()) : null, languageChoice.getValue()));
 
@@ -223,13 +258,23 @@ public class EditUserProfileView extends View {
 
     }
 
+    /**
+     * Get the translated name of a crossfade curve.
+     *
+     * @param curve The crossfade curve.
+     * @return The name of the curve.
+     */
+    private String getCrossfadeCurveString(CrossfadeCurve curve) {
+        return LanguageService.getInstance().get("settings.crossfade_curve." + curve.name().toLowerCase());
+    }
+
     /**
      * Listener interface for handling events in the EditPlaylistView.
      * Implement this interface to manage user actions such as saving a playlist,
      * checking if the view is in creation mode, retrieving the stage, and closing the view.
      */
     public interface EditUserProfileViewListener {
-        void handleSave(String userName, double balance, double crossfade, Path imagePath, Path musicPath, String Language);
+        void handleSave(String userName, double balance, double crossfade, CrossfadeCurve curve, double preloadWindow, Path imagePath, Path musicPath, String Language);
 
         void handleCancel();
 
@@ -239,6 +284,10 @@ public class EditUserProfileView extends View {
 
         double getCrossfadeDuration();
 
+        CrossfadeCurve getCrossfadeCurve();
+
+        double getGaplessPreloadWindow();
+
         Language getUserLanguage();
 
         void handleOpenEqualizer();
@@ -7,11 +7,12 @@ import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.util.Duration;
+import musicApp.audio.WaveformPeaks;
+import musicApp.services.ImageCacheService;
 import musicApp.services.ViewService;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.function.Consumer;
 
 /**
@@ -30,7 +31,7 @@ public class MediaPlayerView extends View {
     @FXML
     private Label volumeLabel, songProgressTimeLabel, currentSongLabel, currentArtistLabel;
     @FXML
-    private ProgressBar songProgressBar;
+    private WaveformSeekBar waveformSeekBar;
     @FXML
     private Slider volumeSlider;
     @FXML
@@ -94,15 +95,13 @@ public class MediaPlayerView extends View {
     }
 
     /**
-     * Bind the song progress bar and label.
+     * Bind the song waveform seek bar and label.
      */
     private void bindSongProgress() {
-        listener.bindProgressProperty(songProgressBar.progressProperty());
+        listener.bindProgressProperty(waveformSeekBar.progressProperty());
         listener.handleProgressChange(this::updateProgressBarTime);
-        songProgressBar.setOnMouseClicked(e -> {
-            double progress = e.getX() / songProgressBar.getWidth();
-            listener.seek(progress);
-        });
+        listener.handleWaveformChange(waveformSeekBar::setPeaks);
+        waveformSeekBar.setOnSeek(listener::seek);
     }
 
     private void updateProgressBarTime() {
@@ -235,10 +234,7 @@ public class MediaPlayerView extends View {
      */
     private Image loadDefaultCoverImage() {
         try {
-            return new Image(Objects.requireNonNull(
-                    getClass().getResourceAsStream("/images/song.png"),
-                    "Default cover image not found"
-            ));
+            return ImageCacheService.getInstance().getImage(ImageCacheService.DEFAULT_SONG_COVER);
         } catch (Exception e) {
             System.err.println("Failed to load default cover image");
             return null;
@@ -309,6 +305,8 @@ public class MediaPlayerView extends View {
 
         void handleProgressChange(Runnable callback);
 
+        void handleWaveformChange(Consumer<WaveformPeaks> callback);
+
         void bindVolumeProperty(DoubleBinding divide);
 
         void handleCurrentSongTitleChange(Consumer<String> callback);
@@ -1,8 +1,6 @@
 package musicApp.views;
 
 import javafx.fxml.FXML;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -10,12 +8,10 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 import javafx.scene.media.MediaView;
-import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import javafx.stage.Stage;
 
 import java.nio.file.Path;
-import java.util.List;
 
 /**
  * View component used to render the audio spectrum visualizer in a separate window (popup)
@@ -34,9 +30,12 @@ public class MiniPlayerView extends View {
     @FXML
     private StackPane coverWrapper;
     @FXML
-    private Canvas canvas;
+    private SpectrumVisualizer visualizer;
     // Flag to track whether the image is clipped or not
     private boolean isClipped;
+    // Player of the video cover currently shown, and the one prepared for the next song
+    private MediaPlayer coverPlayer, preparedPlayer;
+    private Path coverVideoPath, preparedVideoPath;
 
     public MiniPlayerView() {
         super();
@@ -47,6 +46,7 @@ public class MiniPlayerView extends View {
     @Override
     public void init() {
         scene.setOnMouseClicked(_ -> changeVisualizerMode());
+        visualizer.setCircular(!isBasicMode);
         initStage();
     }
 
@@ -54,14 +54,27 @@ public class MiniPlayerView extends View {
         stage = new Stage();
         stage.setScene(scene);
         stage.setTitle("MiniPlayer");
+        stage.setOnCloseRequest(_ -> close());
     }
 
     public void close() {
         stage.close();
+        visualizer.stop();
+        if (coverPlayer != null) {
+            coverPlayer.pause();
+        }
+        // The next song is prepared again when it is loaded
+        disposePlayer(preparedPlayer);
+        preparedPlayer = null;
+        preparedVideoPath = null;
     }
 
     public void show() {
         stage.show();
+        visualizer.start();
+        if (coverPlayer != null) {
+            coverPlayer.play();
+        }
     }
 
     /**
@@ -75,20 +88,17 @@ public class MiniPlayerView extends View {
 
     private void changeVisualizerMode() {
         isBasicMode = !isBasicMode;
+        visualizer.setCircular(!isBasicMode);
         toggleClip();
     }
 
     /**
      * Draw.
      *
-     * @param values the values
+     * @param values the corrected magnitude of each band, copied for the next frame of the display
      */
-    public void draw(List<Float> values) {
-        if (isBasicMode) {
-            drawFrame(values);
-        } else {
-            drawCircularFrame(values);
-        }
+    public void draw(float[] values) {
+        visualizer.setSpectrum(values);
     }
 
     /**
@@ -96,119 +106,126 @@ public class MiniPlayerView extends View {
      *
      * @param title         the title
      * @param newCoverImage the cover image
+     * @param videoPath     the path of the video cover, or null if the song has none
      */
     public void updateSongProperties(String title, Image newCoverImage, Path videoPath) {
         songTitleLabel.setText(title);
 
         if (videoPath != null) {
             // Handle video cover
-            Media media = new Media(videoPath.toUri().toString());
-            MediaPlayer player = new MediaPlayer(media);
-            coverVideo.setMediaPlayer(player);
+            showVideoCover(videoPath);
             coverVideo.setVisible(true);
             coverImage.setVisible(false);
-            player.setVolume(0);
-            player.setCycleCount(MediaPlayer.INDEFINITE);
-            player.play();
         } else if (newCoverImage != null) {
             // Handle image cover
+            releaseCoverPlayer();
             coverImage.setImage(newCoverImage);
             coverImage.setVisible(true);
             coverVideo.setVisible(false);
-            coverVideo.setMediaPlayer(null);
         } else {
             // No cover at all
+            releaseCoverPlayer();
             coverImage.setVisible(false);
             coverVideo.setVisible(false);
             coverImage.setImage(null);
-            coverVideo.setMediaPlayer(null);
         }
     }
 
     /**
-     * Toggle clip.
+     * Prepare a player for a video cover that is likely to be shown next,
+     * so that switching to it does not have to open the media from scratch.
+     *
+     * @param videoPath the path of the video cover to prepare
      */
-    public void toggleClip() {
-        if (isClipped) {
-            // Remove the clip (non-clipped state)
-            coverWrapper.setClip(null);
-        } else {
-            // Set the clip to a circle (clipped state)
-            Circle clip = new Circle(coverWrapper.getWidth() / 2, coverWrapper.getHeight() / 2, coverWrapper.getWidth() / 2);
-            coverWrapper.setClip(clip);
+    public void prepareVideoCover(Path videoPath) {
+        if (videoPath.equals(coverVideoPath) || videoPath.equals(preparedVideoPath)) {
+            return;
         }
-        // Toggle the flag
-        isClipped = !isClipped;
+        disposePlayer(preparedPlayer);
+        preparedPlayer = createCoverPlayer(videoPath);
+        preparedVideoPath = videoPath;
     }
 
     /**
-     * Draw a frame for the audio spectrum visualizer.
+     * Show the given video cover, reusing the current or the prepared player when they already hold it.
+     *
+     * @param videoPath the path of the video cover
      */
-    private void drawFrame(List<Float> values) {
-        int numBars = listener.getBandsNumber();
-        double barWidth = canvas.getWidth() / numBars; // Width of each bar
-        double canvasHeight = canvas.getHeight();
-        GraphicsContext gc = canvas.getGraphicsContext2D();
-
-        // Clear the canvas to start fresh
-        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+    private void showVideoCover(Path videoPath) {
+        if (videoPath.equals(coverVideoPath) && coverPlayer != null) {
+            coverPlayer.play();
+            return;
+        }
+        MediaPlayer newPlayer;
+        if (videoPath.equals(preparedVideoPath) && preparedPlayer != null) {
+            newPlayer = preparedPlayer;
+            preparedPlayer = null;
+            preparedVideoPath = null;
+        } else {
+            newPlayer = createCoverPlayer(videoPath);
+        }
+        releaseCoverPlayer();
+        coverPlayer = newPlayer;
+        coverVideoPath = videoPath;
+        coverVideo.setMediaPlayer(coverPlayer);
+        coverPlayer.play();
+    }
 
-        // Loop through each frequency band and draw bars
-        for (int i = 0; i < numBars; i++) {
-            // Calculate the height for each bar
-            double barHeight = Math.max(values.get(i), 0.005) * canvasHeight;
+    /**
+     * Create a muted, looping player for a video cover.
+     *
+     * @param videoPath the path of the video cover
+     * @return the new player
+     */
+    private MediaPlayer createCoverPlayer(Path videoPath) {
+        MediaPlayer player = new MediaPlayer(new Media(videoPath.toUri().toString()));
+        player.setVolume(0);
+        player.setCycleCount(MediaPlayer.INDEFINITE);
+        return player;
+    }
 
-            // Set the color for each bar (we can customize this later if wanted)
-            gc.setFill(Color.hsb(i * 360.0 / numBars, 1.0, 1.0)); // Color spectrum
+    /**
+     * Detach and dispose the player of the video cover currently shown.
+     */
+    private void releaseCoverPlayer() {
+        coverVideo.setMediaPlayer(null);
+        disposePlayer(coverPlayer);
+        coverPlayer = null;
+        coverVideoPath = null;
+    }
 
-            // Draw each bar on the canvas
-            gc.fillRect(i * barWidth, canvasHeight - barHeight, barWidth, barHeight);
+    /**
+     * Stop a player and free its native resources.
+     *
+     * @param player the player to dispose, may be null
+     */
+    private void disposePlayer(MediaPlayer player) {
+        if (player != null) {
+            player.stop();
+            player.dispose();
         }
     }
 
     /**
-     * Draw a circular frame for the audio spectrum visualizer.
+     * Toggle clip.
      */
-    private void drawCircularFrame(List<Float> values) {
-        int numBars = listener.getBandsNumber();
-        double radius = Math.min(canvas.getWidth(), canvas.getHeight()) / 3; // Radius for the circle
-        double centerX = canvas.getWidth() / 2;
-        double centerY = canvas.getHeight() / 2;
-        GraphicsContext gc = canvas.getGraphicsContext2D();
-
-        // Clear the canvas to start fresh
-        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-
-        // Loop through each frequency band and draw bars in a circular pattern
-        for (int i = 0; i < numBars; i++) {
-            // Calculate the height for each bar
-            double barHeight = Math.max(values.get(i), 0.005) * radius;  // Adjusted to fit the circle radius
-
-            // Calculate the angle for the current bar (spacing them evenly around the circle)
-            double angle = i * 2 * Math.PI / numBars;
-
-            // Calculate the position on the circle's circumference
-            double xStart = centerX + Math.cos(angle) * radius; // X position of the bar on the circle's perimeter
-            double yStart = centerY + Math.sin(angle) * radius; // Y position of the bar on the circle's perimeter
-
-            // Calculate the end position of the bar based on its height
-            double xEnd = centerX + Math.cos(angle) * (radius + barHeight); // X end position of the bar (extends outward)
-            double yEnd = centerY + Math.sin(angle) * (radius + barHeight); // Y end position of the bar (extends outward)
-
-            // Set the color for each bar (using the color spectrum)
-            gc.setStroke(Color.hsb(i * 360.0 / numBars, 1.0, 1.0)); // HSB Color Spectrum
-
-            // Draw the bar as a line from the center to the calculated position on the perimeter
-            gc.setLineWidth(3); // Optional: Adjust the width of the lines/bars
-            gc.strokeLine(xStart, yStart, xEnd, yEnd); // Draw a line from the center to the outer edge (the bar)
+    public void toggleClip() {
+        if (isClipped) {
+            // Remove the clip (non-clipped state)
+            coverWrapper.setClip(null);
+        } else {
+            // Set the clip to a circle (clipped state)
+            Circle clip = new Circle(coverWrapper.getWidth() / 2, coverWrapper.getHeight() / 2, coverWrapper.getWidth() / 2);
+            coverWrapper.setClip(clip);
         }
+        // Toggle the flag
+        isClipped = !isClipped;
     }
 
     /**
      * Listener interface for handling user actions from the controller.
      */
     public interface MiniPlayerViewListener {
-        int getBandsNumber();
     }
 
 }
@@ -0,0 +1,228 @@
+package musicApp.views;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.paint.Color;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Rasterizes the spectrum visualizer into a buffer of premultiplied ARGB pixels, as bars or as a circle of lines.
+ * Only the pixels that differ from the previous frame are written: a bar or a line of the circle is
+ * extended or shortened from its previous end.
+ * The colors come from a lookup table computed once, and no memory is allocated per frame.
+ */
+public class SpectrumRasterizer {
+
+    private static final int TRANSPARENT = 0;
+    private static final float MIN_LEVEL = 0.005f;
+    private static final int LINE_HALF_WIDTH = 1;
+
+    private final int bands;
+    private final int[] colors;
+    private final float[] cosines;
+    private final float[] sines;
+    // Top row of each bar in the buffer, equal to the height when the bar is not drawn
+    private final int[] barTops;
+    // Last step drawn of each line of the circle, -1 when the line is not drawn
+    private final int[] lineLengths;
+    private boolean circular;
+    private IntBuffer pixels;
+    private int width;
+    private int height;
+    private int dirtyMinX, dirtyMinY, dirtyMaxX, dirtyMaxY;
+
+    /**
+     * Instantiates a rasterizer, in bar mode.
+     *
+     * @param _bands The number of bands of the spectrum.
+     */
+    public SpectrumRasterizer(int _bands) {
+        bands = _bands;
+        colors = new int[bands];
+        cosines = new float[bands];
+        sines = new float[bands];
+        for (int i = 0; i < bands; i++) {
+            Color color = Color.hsb(i * 360.0 / bands, 1.0, 1.0);
+            colors[i] = 0xFF000000 | (int) Math.round(color.getRed() * 255) << 16
+                    | (int) Math.round(color.getGreen() * 255) << 8 | (int) Math.round(color.getBlue() * 255);
+            double angle = i * 2 * Math.PI / bands;
+            cosines[i] = (float) Math.cos(angle);
+            sines[i] = (float) Math.sin(angle);
+        }
+        barTops = new int[bands];
+        lineLengths = new int[bands];
+    }
+
+    /**
+     * Set the buffer to draw into, which is cleared.
+     *
+     * @param _pixels The pixels, row by row.
+     * @param _width  The width of the buffer.
+     * @param _height The height of the buffer.
+     */
+    public void setTarget(IntBuffer _pixels, int _width, int _height) {
+        pixels = _pixels;
+        width = _width;
+        height = _height;
+        clear();
+    }
+
+    /**
+     * Switch between the circle and the bars, clearing the buffer.
+     *
+     * @param _circular true to draw a circle of lines, false to draw bars.
+     */
+    public void setCircular(boolean _circular) {
+        if (circular != _circular) {
+            circular = _circular;
+            clear();
+        }
+    }
+
+    public int getBandCount() {
+        return bands;
+    }
+
+    public boolean isCircular() {
+        return circular;
+    }
+
+    /**
+     * Draw a frame.
+     *
+     * @param values The level of each band, 1 being the full height of the bars or the radius of the circle.
+     */
+    public void render(float[] values) {
+        dirtyMinX = width;
+        dirtyMinY = height;
+        dirtyMaxX = -1;
+        dirtyMaxY = -1;
+        if (pixels == null) {
+            return;
+        }
+        int count = Math.min(bands, values.length);
+        if (circular) {
+            renderCircle(values, count);
+        } else {
+            renderBars(values, count);
+        }
+    }
+
+    /**
+     * Get the region written by the last frame.
+     *
+     * @return The dirty region, empty if nothing changed.
+     */
+    public Rectangle2D getDirtyRegion() {
+        if (dirtyMaxX < dirtyMinX || dirtyMaxY < dirtyMinY) {
+            return Rectangle2D.EMPTY;
+        }
+        return new Rectangle2D(dirtyMinX, dirtyMinY, dirtyMaxX - dirtyMinX + 1, dirtyMaxY - dirtyMinY + 1);
+    }
+
+    private void clear() {
+        if (pixels != null) {
+            for (int i = 0; i < width * height; i++) {
+                pixels.put(i, TRANSPARENT);
+            }
+        }
+        Arrays.fill(barTops, height);
+        Arrays.fill(lineLengths, -1);
+    }
+
+    private void renderBars(float[] values, int count) {
+        for (int i = 0; i < count; i++) {
+            int barHeight = (int) Math.min(height, Math.max(values[i], MIN_LEVEL) * height);
+            int top = height - barHeight;
+            int previousTop = barTops[i];
+            if (top == previousTop) {
+                continue;
+            }
+            int left = (int) ((long) i * width / bands);
+            int right = (int) ((long) (i + 1) * width / bands);
+            if (top < previousTop) {
+                fillRows(left, right, top, previousTop, colors[i]);
+            } else {
+                fillRows(left, right, previousTop, top, TRANSPARENT);
+            }
+            barTops[i] = top;
+        }
+    }
+
+    private void fillRows(int left, int right, int fromRow, int toRow, int color) {
+        for (int row = fromRow; row < toRow; row++) {
+            int rowStart = row * width;
+            for (int x = left; x < right; x++) {
+                pixels.put(rowStart + x, color);
+            }
+        }
+        markDirty(left, fromRow);
+        markDirty(right - 1, toRow - 1);
+    }
+
+    /**
+     * Draw the circle of lines. Each line is walked one pixel at a time along its main axis from a fixed start,
+     * so the pixels of a line do not depend on its length and only the difference with the previous frame is drawn.
+     */
+    private void renderCircle(float[] values, int count) {
+        float radius = Math.min(width, height) / 3f;
+        for (int i = 0; i < count; i++) {
+            float majorAxis = Math.max(Math.abs(cosines[i]), Math.abs(sines[i]));
+            int length = Math.round(Math.max(values[i], MIN_LEVEL) * radius * majorAxis);
+            int previousLength = lineLengths[i];
+            if (length > previousLength) {
+                drawLine(i, radius, previousLength, length, colors[i]);
+            } else if (length < previousLength) {
+                drawLine(i, radius, length, previousLength, TRANSPARENT);
+            }
+            lineLengths[i] = length;
+        }
+    }
+
+    /**
+     * Draw the pixels of a line of the circle after a step and up to another, three pixels thick and clipped to the buffer.
+     */
+    private void drawLine(int band, float radius, int fromStep, int toStep, int color) {
+        float cosine = cosines[band];
+        float sine = sines[band];
+        float majorAxis = Math.max(Math.abs(cosine), Math.abs(sine));
+        boolean horizontal = Math.abs(cosine) >= Math.abs(sine);
+        float startX = width / 2f + cosine * radius;
+        float startY = height / 2f + sine * radius;
+        float stepX = cosine / majorAxis;
+        float stepY = sine / majorAxis;
+        for (int step = fromStep + 1; step <= toStep; step++) {
+            int x = Math.round(startX + stepX * step);
+            int y = Math.round(startY + stepY * step);
+            for (int offset = -LINE_HALF_WIDTH; offset <= LINE_HALF_WIDTH; offset++) {
+                int px = horizontal ? x : x + offset;
+                int py = horizontal ? y + offset : y;
+                if (px >= 0 && px < width && py >= 0 && py < height) {
+                    pixels.put(py * width + px, color);
+                }
+            }
+        }
+        float fromX = startX + stepX * fromStep;
+        float fromY = startY + stepY * fromStep;
+        float toX = startX + stepX * toStep;
+        float toY = startY + stepY * toStep;
+        markDirty(clampX(Math.round(Math.min(fromX, toX)) - LINE_HALF_WIDTH), clampY(Math.round(Math.min(fromY, toY)) - LINE_HALF_WIDTH));
+        markDirty(clampX(Math.round(Math.max(fromX, toX)) + LINE_HALF_WIDTH), clampY(Math.round(Math.max(fromY, toY)) + LINE_HALF_WIDTH));
+    }
+
+    private int clampX(int x) {
+        return Math.max(0, Math.min(width - 1, x));
+    }
+
+    private int clampY(int y) {
+        return Math.max(0, Math.min(height - 1, y));
+    }
+
+    private void markDirty(int x, int y) {
+        dirtyMinX = Math.min(dirtyMinX, x);
+        dirtyMinY = Math.min(dirtyMinY, y);
+        dirtyMaxX = Math.max(dirtyMaxX, x);
+        dirtyMaxY = Math.max(dirtyMaxY, y);
+    }
+}
@@ -0,0 +1,147 @@
+package musicApp.views;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Region;
+import javafx.util.Callback;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Spectrum visualizer drawn into an image that shares its pixels with a direct buffer.
+ * The spectrum can be pushed from any thread at any rate: only the latest snapshot is kept, and it is
+ * rasterized by an {@link AnimationTimer}, in step with the display, on the frames that follow new data.
+ */
+public class SpectrumVisualizer extends Region {
+
+    private static final int DEFAULT_BANDS = 128;
+
+    private final ImageView imageView;
+    private SpectrumRasterizer rasterizer;
+    private final AnimationTimer timer;
+    private final Object snapshotLock;
+    private final Callback<PixelBuffer<IntBuffer>, Rectangle2D> renderCallback;
+    // Latest snapshot pushed, and the one being drawn
+    private float[] pendingValues;
+    private float[] drawnValues;
+    private boolean hasPendingValues;
+    private boolean redrawNeeded;
+    private boolean circular;
+    // Set when the rasterizer cleared the image, so that the whole image must be uploaded
+    private boolean cleared;
+    private PixelBuffer<IntBuffer> pixelBuffer;
+
+    public SpectrumVisualizer() {
+        imageView = new ImageView();
+        getChildren().add(imageView);
+        rasterizer = new SpectrumRasterizer(DEFAULT_BANDS);
+        snapshotLock = new Object();
+        pendingValues = new float[DEFAULT_BANDS];
+        drawnValues = new float[DEFAULT_BANDS];
+        renderCallback = pixels -> {
+            // The pixels are only modified here, as required by the pixel buffer
+            if (rasterizer.getBandCount() != drawnValues.length) {
+                // The number of bands changed: start over with a clear image
+                rasterizer = new SpectrumRasterizer(drawnValues.length);
+                rasterizer.setCircular(circular);
+                rasterizer.setTarget(pixels.getBuffer(), pixels.getWidth(), pixels.getHeight());
+                cleared = true;
+            } else if (rasterizer.isCircular() != circular) {
+                rasterizer.setCircular(circular);
+                cleared = true;
+            }
+            rasterizer.render(drawnValues);
+            boolean wholeImage = cleared;
+            cleared = false;
+            // Null marks the whole image as dirty
+            return wholeImage ? null : rasterizer.getDirtyRegion();
+        };
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                renderFrame();
+            }
+        };
+    }
+
+    /**
+     * Push a new spectrum snapshot. Can be called from any thread.
+     *
+     * @param values The level of each band, 1 being the full height; the array is copied.
+     */
+    public void setSpectrum(float[] values) {
+        synchronized (snapshotLock) {
+            if (pendingValues.length != values.length) {
+                pendingValues = new float[values.length];
+            }
+            System.arraycopy(values, 0, pendingValues, 0, values.length);
+            hasPendingValues = true;
+        }
+    }
+
+    /**
+     * Switch between a circle of lines and bars.
+     *
+     * @param _circular true to draw a circle, false to draw bars.
+     */
+    public void setCircular(boolean _circular) {
+        circular = _circular;
+        redrawNeeded = true;
+    }
+
+    /**
+     * Start drawing on every frame of the display that follows new data.
+     */
+    public void start() {
+        timer.start();
+    }
+
+    /**
+     * Stop drawing, e.g. while the visualizer is hidden.
+     */
+    public void stop() {
+        timer.stop();
+    }
+
+    private void renderFrame() {
+        if (pixelBuffer == null) {
+            return;
+        }
+        synchronized (snapshotLock) {
+            if (!hasPendingValues && !redrawNeeded) {
+                return;
+            }
+            if (hasPendingValues) {
+                float[] swap = drawnValues;
+                drawnValues = pendingValues;
+                pendingValues = swap;
+                hasPendingValues = false;
+            }
+        }
+        redrawNeeded = false;
+        pixelBuffer.updateBuffer(renderCallback);
+    }
+
+    @Override
+    protected void layoutChildren() {
+        int width = (int) snapSizeX(getWidth());
+        int height = (int) snapSizeY(getHeight());
+        if (width <= 0 || height <= 0
+                || (pixelBuffer != null && pixelBuffer.getWidth() == width && pixelBuffer.getHeight() == height)) {
+            return;
+        }
+        IntBuffer pixels = ByteBuffer.allocateDirect(width * height * Integer.BYTES)
+                .order(ByteOrder.nativeOrder()).asIntBuffer();
+        rasterizer.setTarget(pixels, width, height);
+        cleared = true;
+        pixelBuffer = new PixelBuffer<>(width, height, pixels, PixelFormat.getIntArgbPreInstance());
+        imageView.setImage(new WritableImage(pixelBuffer));
+        redrawNeeded = true;
+    }
+}
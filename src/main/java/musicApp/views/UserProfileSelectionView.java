@@ -11,10 +11,10 @@ import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import musicApp.models.UserProfile;
+import musicApp.services.ImageCacheService;
 import musicApp.services.LanguageService;
 
 import java.util.List;
-import java.util.Objects;
 
 public class UserProfileSelectionView extends View {
     private final Stage primaryStage;
@@ -91,7 +91,7 @@ public class UserProfileSelectionView extends View {
             image = new Image(user.getUserPicturePath().toUri().toString(), true);
             if (image.isError()) throw new Exception("Image failed");
         } catch (Exception e) {
-            image = new Image(Objects.requireNonNull(getClass().getResource("/images/default_account.png")).toExternalForm());
+            image = ImageCacheService.getInstance().getImage(ImageCacheService.DEFAULT_ACCOUNT_PICTURE);
         }
         ImageView profileImageView = new ImageView(image);
         profileImageView.setFitWidth(200);
@@ -0,0 +1,126 @@
+package musicApp.views;
+
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import musicApp.audio.WaveformPeaks;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * Seek bar drawing the waveform of the current song, with the played part highlighted.
+ * It only draws precomputed peaks, so a redraw costs one pass over the pixel columns whatever the song length.
+ * Until the peaks are available, it is drawn as a plain progress line.
+ */
+public class WaveformSeekBar extends Region {
+
+    private static final Color PLAYED_COLOR = Color.web("#52adbd");
+    private static final Color REMAINING_COLOR = Color.GRAY;
+    private static final double PREF_HEIGHT = 36;
+
+    private final Canvas canvas;
+    private final DoubleProperty progress;
+    private WaveformPeaks peaks;
+    private float[] minimums;
+    private float[] maximums;
+    // Number of columns currently held by minimums and maximums, -1 when they must be recomputed
+    private int renderedWidth;
+    private DoubleConsumer onSeek;
+
+    public WaveformSeekBar() {
+        canvas = new Canvas();
+        getChildren().add(canvas);
+        progress = new SimpleDoubleProperty(0);
+        minimums = new float[0];
+        maximums = new float[0];
+        renderedWidth = -1;
+        setPrefHeight(PREF_HEIGHT);
+        setMinHeight(PREF_HEIGHT / 2);
+        progress.addListener((_, _, _) -> draw());
+        addEventHandler(MouseEvent.MOUSE_CLICKED, this::seekTo);
+        addEventHandler(MouseEvent.MOUSE_DRAGGED, this::seekTo);
+    }
+
+    public DoubleProperty progressProperty() {
+        return progress;
+    }
+
+    /**
+     * Set the action called with the progress, between 0 and 1, picked by the user.
+     *
+     * @param _onSeek The seek action.
+     */
+    public void setOnSeek(DoubleConsumer _onSeek) {
+        onSeek = _onSeek;
+    }
+
+    /**
+     * Show the waveform of a new song.
+     *
+     * @param newPeaks The peaks of the song, or null to draw a plain progress line.
+     */
+    public void setPeaks(WaveformPeaks newPeaks) {
+        peaks = newPeaks;
+        renderedWidth = -1;
+        draw();
+    }
+
+    private void seekTo(MouseEvent event) {
+        if (onSeek != null && getWidth() > 0) {
+            onSeek.accept(Math.max(0, Math.min(1, event.getX() / getWidth())));
+        }
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = snapSizeX(getWidth());
+        double height = snapSizeY(getHeight());
+        if (canvas.getWidth() != width || canvas.getHeight() != height) {
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            renderedWidth = -1;
+            draw();
+        }
+    }
+
+    private void draw() {
+        int width = (int) canvas.getWidth();
+        double height = canvas.getHeight();
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        graphics.clearRect(0, 0, canvas.getWidth(), height);
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        int playedColumns = (int) Math.round(Math.max(0, Math.min(1, progress.get())) * width);
+        if (peaks == null) {
+            double middle = height / 2;
+            graphics.setFill(REMAINING_COLOR);
+            graphics.fillRect(0, middle - 1, width, 2);
+            graphics.setFill(PLAYED_COLOR);
+            graphics.fillRect(0, middle - 1, playedColumns, 2);
+            return;
+        }
+        if (renderedWidth != width) {
+            if (minimums.length < width) {
+                minimums = new float[width];
+                maximums = new float[width];
+            }
+            peaks.render(minimums, maximums, width);
+            renderedWidth = width;
+        }
+        double halfHeight = height / 2;
+        graphics.setFill(PLAYED_COLOR);
+        for (int column = 0; column < width; column++) {
+            if (column == playedColumns) {
+                graphics.setFill(REMAINING_COLOR);
+            }
+            double top = halfHeight - maximums[column] * halfHeight;
+            double bottom = halfHeight - minimums[column] * halfHeight;
+            graphics.fillRect(column, top, 1, Math.max(1, bottom - top));
+        }
+    }
+}
@@ -1,23 +1,32 @@
 package musicApp.views.playlists;
 
-import javafx.fxml.FXML;
+import javafx.geometry.Pos;
 import javafx.scene.control.Label;
 import javafx.scene.control.Tooltip;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
-import musicApp.views.View;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.scene.shape.Rectangle;
+import musicApp.views.CodeBuiltView;
+
+import java.util.Objects;
 
 /**
  * The PlaylistCellView class is responsible for displaying a cell of a playlist.
- * It extends the View class and uses FXML to define its layout.
+ * It extends the CodeBuiltView class: as one instance exists per visible cell, its layout is built in code.
  */
-public class PlaylistCellView extends View {
+public class PlaylistCellView extends CodeBuiltView {
+
+    private static final String STYLESHEET = Objects.requireNonNull(
+            PlaylistCellView.class.getResource("/css/style2.css")).toExternalForm();
+    private static final double COVER_WIDTH = 60, COVER_HEIGHT = 57;
 
     private PlaylistCellViewListener listener;
 
-    @FXML
     private ImageView imageCover;
-    @FXML
     private Label playlistNameLabel, playlistSizeLabel;
 
     /**
@@ -29,6 +38,37 @@ public class PlaylistCellView extends View {
         listener = newListener;
     }
 
+    /**
+     * Build the cell layout: rounded cover next to the playlist name and size.
+     *
+     * @return the root pane of the cell
+     */
+    @Override
+    protected Pane buildRoot() {
+        imageCover = new ImageView();
+        imageCover.setFitWidth(COVER_WIDTH);
+        imageCover.setFitHeight(COVER_HEIGHT);
+        imageCover.setPreserveRatio(true);
+        Rectangle clip = new Rectangle(COVER_WIDTH, COVER_HEIGHT);
+        clip.setArcWidth(10);
+        clip.setArcHeight(10);
+        imageCover.setClip(clip);
+
+        playlistNameLabel = new Label("None");
+        playlistNameLabel.setMaxWidth(70);
+        playlistNameLabel.getStyleClass().add("currentSong");
+        playlistSizeLabel = new Label();
+        playlistSizeLabel.getStyleClass().add("currentArtist");
+        VBox labels = new VBox(playlistNameLabel, playlistSizeLabel);
+        labels.setAlignment(Pos.CENTER_LEFT);
+
+        HBox root = new HBox(10, imageCover, labels);
+        root.setAlignment(Pos.CENTER_LEFT);
+        HBox.setHgrow(root, Priority.ALWAYS);
+        root.getStylesheets().add(STYLESHEET);
+        return root;
+    }
+
     /**
      * Initializes the PlaylistCellView.
      * This method is called to set up the view when it is created.
@@ -4,9 +4,12 @@ import javafx.fxml.FXML;
 import javafx.scene.Node;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.MenuItem;
+import musicApp.services.FileDialogService;
 import musicApp.services.LanguageService;
 import musicApp.views.View;
 
+import java.io.File;
+
 public class PlaylistContextMenuView extends View {
 
     private PlaylistContextMenuViewListener listener;
@@ -15,7 +18,7 @@ public class PlaylistContextMenuView extends View {
     private ContextMenu contextMenu;
 
     @FXML
-    private MenuItem addToQueueItem, replaceQueueItem, editItem, deleteItem;
+    private MenuItem addToQueueItem, replaceQueueItem, exportMixItem, transcodeMp3Item, editItem, deleteItem;
 
     /**
      * Sets listener.
@@ -43,6 +46,8 @@ public class PlaylistContextMenuView extends View {
         LanguageService languageService = LanguageService.getInstance();
         addToQueueItem.setText(languageService.get("context_menu.add_to_queue"));
         replaceQueueItem.setText(languageService.get("context_menu.replace_queue"));
+        exportMixItem.setText(languageService.get("context_menu.export_mix"));
+        transcodeMp3Item.setText(languageService.get("context_menu.transcode_mp3"));
         editItem.setText(languageService.get("button.edit"));
         deleteItem.setText(languageService.get("button.delete"));
     }
@@ -53,6 +58,8 @@ public class PlaylistContextMenuView extends View {
     private void initActions() {
         addToQueueItem.setOnAction(_ -> listener.handleAppendToQueue());
         replaceQueueItem.setOnAction(_ -> listener.handleReplaceQueue());
+        exportMixItem.setOnAction(_ -> listener.handleExportMix());
+        transcodeMp3Item.setOnAction(_ -> listener.handleTranscodeToMp3());
         editItem.setOnAction(_ -> listener.handleEditPlaylist());
         deleteItem.setOnAction(_ -> listener.handleDeletePlaylist());
     }
@@ -68,6 +75,25 @@ public class PlaylistContextMenuView extends View {
         contextMenu.show(node, x, y);
     }
 
+    /**
+     * Asks the user where to save the mix of a playlist.
+     *
+     * @param playlistName the name of the playlist, used as the default file name
+     * @return the chosen file, or null if cancelled
+     */
+    public File getMixFile(String playlistName) {
+        return FileDialogService.chooseWavFile(null, LanguageService.getInstance().get("dialog.export_mix"), playlistName + ".wav");
+    }
+
+    /**
+     * Asks the user for the directory receiving the MP3 files of a playlist.
+     *
+     * @return the chosen directory, or null if cancelled
+     */
+    public File getTranscodeDirectory() {
+        return FileDialogService.chooseDirectory(null, LanguageService.getInstance().get("dialog.transcode_mp3"));
+    }
+
     /**
      * Listener interface for handling context menu actions related to playlists.
      * Implement this interface to define behavior for deleting, editing,
@@ -81,5 +107,9 @@ public class PlaylistContextMenuView extends View {
         void handleAppendToQueue();
 
         void handleReplaceQueue();
+
+        void handleExportMix();
+
+        void handleTranscodeToMp3();
     }
 }
@@ -0,0 +1,95 @@
+package musicApp.views.playlists;
+
+import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.stage.Stage;
+import musicApp.services.LanguageService;
+import musicApp.views.View;
+
+/**
+ * The transcoding progress view.
+ * A window showing how many songs of a batch are done, with a button to cancel it.
+ */
+public class TranscodeProgressView extends View {
+
+    private TranscodeProgressViewListener listener;
+    private Stage stage;
+    private int doneFiles;
+    private int totalFiles;
+
+    @FXML
+    private Label progressLabel;
+    @FXML
+    private ProgressBar progressBar;
+    @FXML
+    private Button cancelButton;
+
+    /**
+     * Sets listener.
+     *
+     * @param newListener the listener
+     */
+    public void setListener(TranscodeProgressViewListener newListener) {
+        listener = newListener;
+    }
+
+    @Override
+    public void init() {
+        cancelButton.setOnAction(_ -> listener.handleCancel());
+        refreshTranslation();
+        initStage();
+    }
+
+    private void initStage() {
+        stage = new Stage();
+        stage.setTitle(LanguageService.getInstance().get("transcode.title"));
+        stage.setScene(scene);
+        stage.setResizable(false);
+        // Closing the window stops the batch, so that it never runs unseen
+        stage.setOnCloseRequest(_ -> listener.handleCancel());
+        stage.show();
+    }
+
+    @Override
+    protected void refreshTranslation() {
+        LanguageService ls = LanguageService.getInstance();
+        progressLabel.setText(String.format(ls.get("transcode.progress"), doneFiles, totalFiles));
+        cancelButton.setText(ls.get("button.cancel"));
+    }
+
+    /**
+     * Show the progress of the batch.
+     *
+     * @param done  the number of songs done, transcoded or not
+     * @param total the number of songs of the batch
+     */
+    public void setProgress(int done, int total) {
+        doneFiles = done;
+        totalFiles = total;
+        progressBar.setProgress(total > 0 ? (double) done / total : 1);
+        refreshTranslation();
+    }
+
+    /**
+     * Show that the batch is being cancelled.
+     */
+    public void setCancelling() {
+        cancelButton.setDisable(true);
+    }
+
+    /**
+     * Handle closing the view.
+     */
+    public void close() {
+        stage.close();
+    }
+
+    /**
+     * Listener interface used to delegate actions from the view to the controller logic.
+     */
+    public interface TranscodeProgressViewListener {
+        void handleCancel();
+    }
+}
@@ -12,7 +12,6 @@ import musicApp.enums.EqualizerBandFrequency;
 import musicApp.services.LanguageService;
 import musicApp.views.View;
 
-import java.util.List;
 
 /**
  * This is the view for the Equalizer settings.
@@ -175,18 +174,23 @@ public class EqualizerView extends View {
     /**
      * Get the values of the sliders in the equalizer view.
      *
-     * @return A list of doubles representing the values of the sliders.
+     * @return The value of each slider, in band order.
      */
-    public List<Double> getSlidersValues() {
-        return slidersContainer.getChildren().stream()
-                .filter(node -> node instanceof VBox)
-                .map(vBox -> (VBox) vBox)
-                .map(vBox -> vBox.getChildren().stream()
-                        .filter(child -> child instanceof Slider)
-                        .map(child -> ((Slider) child).getValue())
-                        .findFirst()
-                        .orElse(0.0))
-                .toList();
+    public double[] getSlidersValues() {
+        double[] values = new double[EqualizerBandFrequency.getBandsSize()];
+        int sliderIndex = 0;
+        for (javafx.scene.Node node : slidersContainer.getChildren()) {
+            if (node instanceof VBox vBox && sliderIndex < values.length) {
+                for (javafx.scene.Node child : vBox.getChildren()) {
+                    if (child instanceof Slider slider) {
+                        values[sliderIndex] = slider.getValue();
+                        break;
+                    }
+                }
+                sliderIndex++;
+            }
+        }
+        return values;
     }
 
     /**
@@ -1,35 +1,42 @@
 package musicApp.views.songs;
 
 import javafx.beans.property.ReadOnlyDoubleProperty;
-import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.Tooltip;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
 import javafx.util.Duration;
 import musicApp.services.ViewService;
-import musicApp.views.View;
+import musicApp.views.CodeBuiltView;
+
+import java.util.Objects;
 
 /**
  * The type Song cell view.
  * This class is responsible for displaying a song in the library.
  * It contains the play button, like button, and other song information.
+ * As one instance exists per visible cell, its node graph is built in code rather than loaded from FXML.
  */
-public class SongCellView extends View {
+public class SongCellView extends CodeBuiltView {
 
     private static final String PLAY_ICON = "/images/play2.png";
     private static final String PAUSE_ICON = "/images/pause.png";
     private static final String EDIT_ICON = "/images/edit.png";
     private static final String ADD_ICON = "/images/add.png";
+    private static final String STYLESHEET = Objects.requireNonNull(
+            SongCellView.class.getResource("/css/style2.css")).toExternalForm();
+    private static final String TRANSPARENT_BUTTON_STYLE = "-fx-background-color: transparent; -fx-border-color: transparent;";
+    private static final String LABEL_STYLE = "-fx-text-fill: rgb(255, 255, 255);";
+    private static final String SECONDARY_LABEL_STYLE = "-fx-text-fill: rgb(255, 255, 255); -fx-opacity: 50%;";
     private SongCellViewListener listener;
-    @FXML
     private Button playButton, likeButton, addButton;
-    @FXML
     private Label titleLabel, artistLabel, genreLabel, durationLabel;
-    @FXML
     private ImageView coverImage;
-    @FXML
     private ImageView editButton;
 
     /**
@@ -41,6 +48,45 @@ public class SongCellView extends View {
         listener = newListener;
     }
 
+    /**
+     * Build the cell layout: play button, cover, song information, like button, duration and edit button.
+     *
+     * @return the root pane of the cell
+     */
+    @Override
+    protected Pane buildRoot() {
+        playButton = new Button();
+        playButton.setStyle(TRANSPARENT_BUTTON_STYLE);
+        coverImage = createImageView(25);
+        titleLabel = createLabel(LABEL_STYLE);
+        artistLabel = createLabel(SECONDARY_LABEL_STYLE);
+        genreLabel = createLabel(SECONDARY_LABEL_STYLE);
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        likeButton = new Button("❤");
+        durationLabel = createLabel(SECONDARY_LABEL_STYLE);
+        editButton = createImageView(20);
+
+        HBox root = new HBox(10, playButton, coverImage, titleLabel, artistLabel, genreLabel,
+                spacer, likeButton, durationLabel, editButton);
+        root.getStylesheets().add(STYLESHEET);
+        return root;
+    }
+
+    private Label createLabel(String style) {
+        Label label = new Label();
+        label.setStyle(style);
+        return label;
+    }
+
+    private ImageView createImageView(double size) {
+        ImageView imageView = new ImageView();
+        imageView.setFitWidth(size);
+        imageView.setFitHeight(size);
+        imageView.setPreserveRatio(true);
+        return imageView;
+    }
+
     @Override
     public void init() {
         initComponents();
@@ -156,15 +202,15 @@ public class SongCellView extends View {
     private void updateCommonFields() {
         coverImage.setImage(listener.getSongCoverImage());
         titleLabel.setText(listener.getSongTitle());
-        titleLabel.setStyle("-fx-text-fill: rgb(255, 255, 255);");
+        titleLabel.setStyle(LABEL_STYLE);
         titleLabel.setTooltip(new Tooltip(titleLabel.getText()));
         artistLabel.setText(listener.getSongArtist());
         artistLabel.setTooltip(new Tooltip(artistLabel.getText()));
         genreLabel.setText(listener.getSongGenre());
-        genreLabel.setStyle("-fx-text-fill: rgb(255, 255, 255);");
+        genreLabel.setStyle(LABEL_STYLE);
         genreLabel.setTooltip(new Tooltip(genreLabel.getText()));
         durationLabel.setText(getDurationLabelString());
-        durationLabel.setStyle("-fx-text-fill: rgb(255, 255, 255); -fx-opacity: 50%;");
+        durationLabel.setStyle(SECONDARY_LABEL_STYLE);
     }
 
     /**
@@ -0,0 +1,8 @@
+package musicApp;
+
+/**
+ * Category of the benchmarks, which print timings without asserting them.
+ * They are excluded from the default test run; run them with {@code mvn test -Pperf}.
+ */
+public interface PerfTests {
+}
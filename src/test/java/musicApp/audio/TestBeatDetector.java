@@ -0,0 +1,93 @@
+package musicApp.audio;
+
+import musicApp.PerfTests;
+import musicApp.models.AudioAnalysis;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestBeatDetector {
+
+    private static final int SAMPLE_RATE = 44100;
+
+    /**
+     * Build a stereo click track over a light noise floor.
+     */
+    private float[] clickTrack(double bpm, double firstBeat, double seconds) {
+        int frames = (int) (seconds * SAMPLE_RATE);
+        float[] samples = new float[frames * 2];
+        double period = 60 / bpm;
+        Random random = new Random(3);
+        for (int frame = 0; frame < frames; frame++) {
+            double sinceFirst = (double) frame / SAMPLE_RATE - firstBeat;
+            double phase = sinceFirst < 0 ? Double.MAX_VALUE : sinceFirst % period;
+            double click = phase < 0.03 ? 0.8 * Math.exp(-phase * 100) * Math.sin(2 * Math.PI * 60 * phase) : 0;
+            float value = (float) (click + 0.05 * (random.nextFloat() - 0.5));
+            samples[frame * 2] = value;
+            samples[frame * 2 + 1] = value;
+        }
+        return samples;
+    }
+
+    private BeatDetector detect(float[] samples) {
+        BeatDetector detector = new BeatDetector(SAMPLE_RATE, 2);
+        int frames = samples.length / 2;
+        for (int offset = 0; offset < frames; offset += 4096) {
+            detector.process(samples, offset, Math.min(4096, frames - offset));
+        }
+        detector.detect();
+        return detector;
+    }
+
+    @Test
+    public void testTempoAndFirstBeat() {
+        BeatDetector detector = detect(clickTrack(128, 0.37, 60));
+        assertTrue(detector.isDetected());
+        assertEquals(128.0, detector.getBpm(), 0.1);
+        double period = 60 / 128.0;
+        double error = Math.abs(detector.getFirstBeatSeconds() - 0.37) % period;
+        assertTrue(Math.min(error, period - error) < 0.03);
+    }
+
+    @Test
+    public void testNoBeatInNoise() {
+        float[] samples = new float[SAMPLE_RATE * 20 * 2];
+        Random random = new Random(5);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (float) (0.3 * random.nextGaussian());
+        }
+        assertFalse(detect(samples).isDetected());
+    }
+
+    @Test
+    public void testFiveMinuteTrack() {
+        BeatDetector detector = detect(clickTrack(174, 0.1, 300));
+        assertEquals(174.0, detector.getBpm(), 0.1);
+    }
+
+    @Test
+    @Category(PerfTests.class)
+    public void benchmarkFiveMinuteTrack() {
+        float[] samples = clickTrack(174, 0.1, 300);
+        detect(samples);
+        long startNanos = System.nanoTime();
+        detect(samples);
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        System.out.println("Beat detection on five minutes: " + elapsedMillis + " ms");
+    }
+
+    @Test
+    public void testBarStartBefore() {
+        AudioAnalysis analysis = new AudioAnalysis("song.mp3", 0, 0, -14, -1, 120, 0.5);
+        // Bars of 4 beats last 2 seconds at 120 BPM
+        assertEquals(8.5, analysis.getBarStartBefore(10.2), 1e-9);
+        assertEquals(0.2, analysis.getBarStartBefore(0.2), 1e-9);
+        AudioAnalysis noBeat = new AudioAnalysis("song.mp3", 0, 0, -14, -1, 0, 0);
+        assertEquals(10.2, noBeat.getBarStartBefore(10.2), 1e-9);
+    }
+}
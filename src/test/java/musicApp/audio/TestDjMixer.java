@@ -0,0 +1,163 @@
+package musicApp.audio;
+
+import musicApp.enums.CrossfaderSide;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestDjMixer {
+
+    private static final String SOURCE = Paths.get("src", "test", "resources", "goodTestWAV.wav").toUri().toString();
+
+    private long sourceFrames;
+
+    @Before
+    public void countSourceFrames() throws Exception {
+        float[] buffer = new float[4096 * PcmDecoder.CHANNELS];
+        try (PcmDecoder decoder = new PcmDecoder(SOURCE)) {
+            int frames;
+            while ((frames = decoder.read(buffer, 0, 4096)) > 0) {
+                sourceFrames += frames;
+            }
+        }
+        assertTrue(sourceFrames > PcmDecoder.SAMPLE_RATE);
+    }
+
+    /**
+     * Play the given decks until they all ended.
+     */
+    private void playToEnd(DjMixer mixer, int... deckIndexes) throws Exception {
+        CountDownLatch ended = new CountDownLatch(deckIndexes.length);
+        mixer.setListener(_ -> ended.countDown());
+        mixer.play(deckIndexes);
+        assertTrue(ended.await(20, TimeUnit.SECONDS));
+    }
+
+    private double peak(byte[] pcm) {
+        int peak = 0;
+        for (int i = 0; i + 1 < pcm.length; i += 2) {
+            peak = Math.max(peak, Math.abs((short) ((pcm[i] & 0xFF) | (pcm[i + 1] << 8))));
+        }
+        return (double) peak / Short.MAX_VALUE;
+    }
+
+    @Test
+    public void testDecksAdvanceInLockstep() throws Exception {
+        ByteArraySink sink = new ByteArraySink();
+        DjMixer mixer = new DjMixer(sink, 2);
+        mixer.getDeck(0).load(SOURCE);
+        mixer.getDeck(1).load(SOURCE);
+        playToEnd(mixer, 0, 1);
+        // Both tracks have the same length, so they are mixed over each other and end together
+        assertEquals(sourceFrames, sink.getFrameCount());
+        assertEquals((double) sourceFrames / DjMixer.SAMPLE_RATE, mixer.getClockSeconds(), 1e-9);
+        assertEquals(mixer.getDeck(0).getPositionSeconds(), mixer.getDeck(1).getPositionSeconds(), 0.0);
+        mixer.close();
+    }
+
+    @Test
+    public void testCrossfaderSilencesTheOtherSide() throws Exception {
+        ByteArraySink sink = new ByteArraySink();
+        DjMixer mixer = new DjMixer(sink, 2);
+        mixer.setCrossfader(1.0);
+        mixer.getDeck(0).load(SOURCE);
+        playToEnd(mixer, 0);
+        assertEquals(sourceFrames, sink.getFrameCount());
+        assertEquals(0.0, peak(sink.toByteArray()), 0.0);
+
+        // A deck which is not assigned to a side is not affected by the crossfader
+        ByteArraySink throughSink = new ByteArraySink();
+        DjMixer throughMixer = new DjMixer(throughSink, 2);
+        throughMixer.setCrossfader(1.0);
+        throughMixer.getDeck(0).setCrossfaderSide(CrossfaderSide.THROUGH);
+        throughMixer.getDeck(0).load(SOURCE);
+        playToEnd(throughMixer, 0);
+        assertTrue(peak(throughSink.toByteArray()) > 0.01);
+        mixer.close();
+        throughMixer.close();
+    }
+
+    @Test
+    public void testCueAndPreload() throws Exception {
+        ByteArraySink sink = new ByteArraySink();
+        DjMixer mixer = new DjMixer(sink, 2);
+        MixerDeck deck = mixer.getDeck(1);
+        deck.preload(SOURCE);
+        Thread.sleep(200);
+        deck.load(SOURCE);
+        // The preloaded track was decoded ahead, so it can be mixed right away
+        assertTrue(deck.availableFrames() > 0);
+        deck.setCuePoint(1.0);
+        deck.cue();
+        assertEquals(1.0, deck.getPositionSeconds(), 1e-9);
+        playToEnd(mixer, 1);
+        assertEquals(sourceFrames - DjMixer.SAMPLE_RATE, sink.getFrameCount());
+        mixer.close();
+    }
+
+    /**
+     * Mix one block of a deck alone, waiting for it to be decoded. Must hold the lock of the deck.
+     */
+    private int mixBlock(MixerDeck deck, float[] mix) throws InterruptedException {
+        int frames = mix.length / DjMixer.CHANNELS;
+        while (deck.availableFrames() < frames) {
+            deck.awaitData(10);
+        }
+        Arrays.fill(mix, 0f);
+        deck.mixInto(mix, frames, 1.0);
+        return frames;
+    }
+
+    private double peak(float[] samples, int from, int to) {
+        double peak = 0;
+        for (int i = from; i < to; i++) {
+            peak = Math.max(peak, Math.abs(samples[i]));
+        }
+        return peak;
+    }
+
+    @Test
+    public void testPauseAndSeekFadeOut() throws Exception {
+        Object lock = new Object();
+        MixerDeck deck = new MixerDeck(0, lock, 1024, CrossfaderSide.THROUGH);
+        deck.load(SOURCE);
+        float[] mix = new float[1024 * DjMixer.CHANNELS];
+        int fadeSamples = MixerDeck.DECLICK_FRAMES * DjMixer.CHANNELS;
+        synchronized (lock) {
+            deck.play();
+            long mixed = 0;
+            while (mixed < DjMixer.SAMPLE_RATE) {
+                mixed += mixBlock(deck, mix);
+            }
+            assertTrue(peak(mix, 0, mix.length) > 0.01);
+
+            // The deck is paused for its controls right away, but fades out before it stops being mixed
+            deck.pause();
+            assertFalse(deck.isPlaying());
+            assertTrue(deck.isMixing());
+            mixBlock(deck, mix);
+            assertFalse(deck.isMixing());
+            assertTrue(peak(mix, 0, fadeSamples / 2) > 0.001);
+            assertEquals(0.0, peak(mix, fadeSamples - DjMixer.CHANNELS, mix.length), 0.0);
+
+            // A seek while playing fades out the old position before moving
+            deck.play();
+            mixBlock(deck, mix);
+            deck.seek(0.5);
+            assertTrue(deck.getPositionSeconds() > 1.0);
+            mixBlock(deck, mix);
+            assertEquals(0.0, peak(mix, fadeSamples - DjMixer.CHANNELS, mix.length), 0.0);
+            assertEquals(0.5, deck.getPositionSeconds(), 1e-9);
+            assertTrue(deck.isMixing());
+            deck.close();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package musicApp.audio;
+
+import musicApp.audio.effects.AudioEffect;
+import musicApp.audio.effects.DriveEffect;
+import musicApp.audio.effects.EffectChain;
+import musicApp.audio.effects.EffectParameter;
+import musicApp.audio.effects.StereoWidthEffect;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestEffectChain {
+
+    private static final int SAMPLE_RATE = 44100;
+    private static final int BLOCK_FRAMES = 256;
+
+    /**
+     * Effect multiplying the samples by its factor, to check the order of the chain.
+     */
+    private static class ScaleEffect implements AudioEffect {
+        private final EffectParameter factor = new EffectParameter("Factor", 0, 10, 1);
+
+        @Override
+        public String getName() {
+            return "Scale";
+        }
+
+        @Override
+        public List<EffectParameter> getParameters() {
+            return List.of(factor);
+        }
+
+        @Override
+        public void prepare(int sampleRate, int channels, int maxBlockFrames) {
+        }
+
+        @Override
+        public void process(float[] samples, int offsetFrame, int frames) {
+            for (int i = offsetFrame * 2; i < (offsetFrame + frames) * 2; i++) {
+                samples[i] *= (float) factor.getValue();
+            }
+        }
+
+        @Override
+        public void reset() {
+        }
+    }
+
+    /**
+     * Effect adding its offset to the samples, to check the order of the chain.
+     */
+    private static class OffsetEffect extends ScaleEffect {
+        @Override
+        public void process(float[] samples, int offsetFrame, int frames) {
+            for (int i = offsetFrame * 2; i < (offsetFrame + frames) * 2; i++) {
+                samples[i] += 1;
+            }
+        }
+    }
+
+    private float[] constantBlock(float left, float right) {
+        float[] block = new float[BLOCK_FRAMES * 2];
+        for (int frame = 0; frame < BLOCK_FRAMES; frame++) {
+            block[frame * 2] = left;
+            block[frame * 2 + 1] = right;
+        }
+        return block;
+    }
+
+    @Test
+    public void testInstalledEffectsAreDiscovered() {
+        EffectChain chain = EffectChain.loadInstalled(SAMPLE_RATE, 2, BLOCK_FRAMES);
+        List<AudioEffect> effects = chain.getEffects();
+        assertTrue(effects.stream().anyMatch(effect -> effect instanceof StereoWidthEffect));
+        assertTrue(effects.stream().anyMatch(effect -> effect instanceof DriveEffect));
+        // The installed effects are bypassed until enabled
+        float[] block = constantBlock(0.5f, -0.25f);
+        chain.process(block, 0, BLOCK_FRAMES);
+        assertEquals(0.5, block[0], 0.0);
+        assertEquals(-0.25, block[1], 0.0);
+    }
+
+    @Test
+    public void testEffectsRunInOrder() {
+        EffectChain chain = new EffectChain(SAMPLE_RATE, 2, BLOCK_FRAMES);
+        ScaleEffect scale = new ScaleEffect();
+        OffsetEffect offset = new OffsetEffect();
+        scale.getParameters().getFirst().setValue(3);
+        chain.add(scale);
+        chain.add(offset);
+        chain.setEnabled(scale, true);
+        chain.setEnabled(offset, true);
+        float[] block = constantBlock(1, 1);
+        chain.process(block, 0, BLOCK_FRAMES);
+        assertEquals(4.0, block[0], 0.0);
+        assertTrue(chain.getCpuLoad(scale) > 0);
+
+        chain.remove(scale);
+        assertEquals(List.of(offset), chain.getEffects());
+        block = constantBlock(1, 1);
+        chain.process(block, 0, BLOCK_FRAMES);
+        assertEquals(2.0, block[0], 0.0);
+    }
+
+    @Test
+    public void testStereoWidth() {
+        EffectChain chain = new EffectChain(SAMPLE_RATE, 2, BLOCK_FRAMES);
+        StereoWidthEffect width = new StereoWidthEffect();
+        chain.add(width);
+        chain.setEnabled(width, true);
+        assertTrue(chain.isEnabled(width));
+        width.getParameters().getFirst().setValue(0);
+        // The width is ramped over the first block, then the song is played in mono
+        chain.process(constantBlock(1, 0), 0, BLOCK_FRAMES);
+        float[] block = constantBlock(1, 0);
+        chain.process(block, 0, BLOCK_FRAMES);
+        assertEquals(0.5, block[0], 1e-6);
+        assertEquals(0.5, block[1], 1e-6);
+
+        chain.setEnabled(width, false);
+        assertFalse(chain.isEnabled(width));
+    }
+}
@@ -0,0 +1,60 @@
+package musicApp.audio;
+
+import musicApp.models.AudioAnalysis;
+import musicApp.services.AudioAnalysisService;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestLoudnessMeter {
+
+    private static final int SAMPLE_RATE = 48000;
+
+    private LoudnessMeter measureSine(double frequency, double amplitude, double phase, double seconds) {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE, 2);
+        int frames = (int) (seconds * SAMPLE_RATE);
+        float[] samples = new float[frames * 2];
+        for (int frame = 0; frame < frames; frame++) {
+            float value = (float) (amplitude * Math.sin(2 * Math.PI * frequency * frame / SAMPLE_RATE + phase));
+            samples[frame * 2] = value;
+            samples[frame * 2 + 1] = value;
+        }
+        meter.process(samples, 0, frames);
+        return meter;
+    }
+
+    @Test
+    public void testReferenceSineLoudness() {
+        // EBU Tech 3341: a stereo 1 kHz sine at -23 dBFS measures -23 LUFS
+        LoudnessMeter meter = measureSine(1000, Math.pow(10, -23 / 20.0), 0, 20);
+        assertEquals(-23.0, meter.getIntegratedLoudness(), 0.1);
+    }
+
+    @Test
+    public void testSilenceIsGatedOut() {
+        LoudnessMeter meter = measureSine(1000, 0, 0, 5);
+        assertEquals(LoudnessMeter.SILENCE_LUFS, meter.getIntegratedLoudness(), 0.0);
+    }
+
+    @Test
+    public void testTruePeakBetweenSamples() {
+        // At a quarter of the sample rate with a 45 degree phase, every sample is at 0.707 of the real peak
+        LoudnessMeter meter = measureSine(SAMPLE_RATE / 4.0, 0.5, Math.PI / 4, 1);
+        assertEquals(20 * Math.log10(0.5), meter.getTruePeak(), 0.5);
+    }
+
+    @Test
+    public void testAnalyzeFile() throws Exception {
+        Path file = Paths.get("src", "test", "resources", "goodTestWAV.wav");
+        AudioAnalysis analysis = AudioAnalysisService.getInstance().analyze(file);
+        assertTrue(Double.isFinite(analysis.getIntegratedLoudness()));
+        assertTrue(analysis.getTruePeak() <= 3.0);
+        assertTrue(analysis.isUpToDate(file));
+        double gain = analysis.getTrackGain(AudioAnalysisService.TARGET_LOUDNESS_LUFS);
+        assertTrue(gain > 0 && gain <= 1.0);
+    }
+}
@@ -0,0 +1,167 @@
+package musicApp.audio;
+
+import musicApp.enums.CrossfadeCurve;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestMixRenderer {
+
+    private static final String SOURCE = Paths.get("src", "test", "resources", "goodTestWAV.wav").toUri().toString();
+    private static final int CHANNELS = MixRenderer.CHANNELS;
+    private static final int HEADER_BYTES = 44;
+    private static final double[] EQUALIZER = {6, 3, 0, -3, 0, 0, 2, 0, -6, 4};
+
+    private float[] source;
+
+    @Before
+    public void decodeSource() throws Exception {
+        float[] buffer = new float[MixRenderer.SAMPLE_RATE * 10 * CHANNELS];
+        int frames = 0;
+        try (PcmDecoder decoder = new PcmDecoder(SOURCE)) {
+            int read;
+            while ((read = decoder.read(buffer, frames * CHANNELS, 4096)) > 0) {
+                frames += read;
+            }
+        }
+        source = Arrays.copyOf(buffer, frames * CHANNELS);
+        assertTrue(frames > MixRenderer.SAMPLE_RATE * 2);
+    }
+
+    private byte[] render(MixRenderer renderer) throws Exception {
+        Path wav = Files.createTempFile("mix", ".wav");
+        try {
+            long frames = renderer.render(wav);
+            byte[] bytes = Files.readAllBytes(wav);
+            assertEquals(HEADER_BYTES + frames * CHANNELS * 2, bytes.length);
+            return Arrays.copyOfRange(bytes, HEADER_BYTES, bytes.length);
+        } finally {
+            Files.deleteIfExists(wav);
+        }
+    }
+
+    private MixRenderer createRenderer(int tracks, double crossfadeSeconds) {
+        MixRenderer renderer = new MixRenderer();
+        for (int i = 0; i < tracks; i++) {
+            renderer.addTrack(SOURCE);
+        }
+        renderer.setCrossfade(crossfadeSeconds, CrossfadeCurve.EQUAL_POWER);
+        return renderer;
+    }
+
+    private byte[] toPcm16(float[] samples) {
+        byte[] bytes = new byte[samples.length * 2];
+        PcmConversion.toPcm16(samples, 0, samples.length, bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testGaplessRenderingIsTheConcatenation() throws Exception {
+        byte[] rendered = render(createRenderer(2, 0));
+        float[] expected = new float[source.length * 2];
+        System.arraycopy(source, 0, expected, 0, source.length);
+        System.arraycopy(source, 0, expected, source.length, source.length);
+        assertArrayEquals(toPcm16(expected), rendered);
+    }
+
+    @Test
+    public void testOutputDoesNotDependOnThreads() throws Exception {
+        MixRenderer sequential = createRenderer(3, 1.0);
+        sequential.setEqualizerBandsGain(EQUALIZER);
+        sequential.setBalance(0.3);
+        sequential.setThreads(1);
+        MixRenderer parallel = createRenderer(3, 1.0);
+        parallel.setEqualizerBandsGain(EQUALIZER);
+        parallel.setBalance(0.3);
+        parallel.setThreads(3);
+        byte[] expected = render(sequential);
+        assertEquals((source.length / CHANNELS * 3L - 2L * MixRenderer.SAMPLE_RATE) * CHANNELS * 2, expected.length);
+        assertArrayEquals(expected, render(parallel));
+    }
+
+    @Test
+    public void testMatchesEqualizingTheCrossfadedMix() throws Exception {
+        MixRenderer renderer = createRenderer(2, 1.0);
+        renderer.setEqualizerBandsGain(EQUALIZER);
+        byte[] rendered = render(renderer);
+
+        // Reference: crossfade the songs like the engine, then equalize the mix
+        int frames = source.length / CHANNELS;
+        int crossfadeFrames = MixRenderer.SAMPLE_RATE;
+        float[] mix = new float[(2 * frames - crossfadeFrames) * CHANNELS];
+        System.arraycopy(source, 0, mix, 0, source.length);
+        for (int frame = 0; frame < frames; frame++) {
+            float gain = frame < crossfadeFrames
+                    ? (float) CrossfadeCurve.EQUAL_POWER.fadeIn((double) frame / crossfadeFrames) : 1f;
+            int mixFrame = frames - crossfadeFrames + frame;
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                if (frame < crossfadeFrames) {
+                    float outgoing = (float) CrossfadeCurve.EQUAL_POWER.fadeOut((double) frame / crossfadeFrames);
+                    mix[mixFrame * CHANNELS + channel] = source[mixFrame * CHANNELS + channel] * outgoing
+                            + source[frame * CHANNELS + channel] * gain;
+                } else {
+                    mix[mixFrame * CHANNELS + channel] = source[frame * CHANNELS + channel];
+                }
+            }
+        }
+        ParametricEqualizer equalizer = new ParametricEqualizer(MixRenderer.SAMPLE_RATE, CHANNELS);
+        for (int band = 0; band < EQUALIZER.length; band++) {
+            equalizer.setBandGain(band, EQUALIZER[band]);
+        }
+        equalizer.skipSmoothing();
+        equalizer.process(mix, 0, mix.length / CHANNELS);
+        byte[] expected = toPcm16(mix);
+
+        assertEquals(expected.length, rendered.length);
+        for (int i = 0; i < expected.length; i += 2) {
+            int expectedSample = (short) ((expected[i] & 0xFF) | (expected[i + 1] << 8));
+            int renderedSample = (short) ((rendered[i] & 0xFF) | (rendered[i + 1] << 8));
+            // Only the float rounding differs
+            assertTrue(Math.abs(expectedSample - renderedSample) <= 1);
+        }
+    }
+
+    @Test
+    public void testCrossfadesOnTheCuePoints() throws Exception {
+        // The first track is crossfaded out from 1.5 s and the second one crossfaded in from 0.5 s;
+        // the mix in cue point of the first track is ignored, as nothing is crossfaded into it
+        MixRenderer renderer = new MixRenderer();
+        renderer.addTrack(SOURCE, 1.0, 0.25, (totalSeconds, crossfadeDuration) -> 1.5);
+        renderer.addTrack(SOURCE, 1.0, 0.5, (totalSeconds, crossfadeDuration) -> 1.5);
+        renderer.setCrossfade(1.0, CrossfadeCurve.EQUAL_POWER);
+        byte[] rendered = render(renderer);
+
+        int frames = source.length / CHANNELS;
+        int crossfadeFrames = MixRenderer.SAMPLE_RATE;
+        int outStart = 3 * MixRenderer.SAMPLE_RATE / 2;
+        int inStart = MixRenderer.SAMPLE_RATE / 2;
+        float[] mix = new float[(outStart + frames - inStart) * CHANNELS];
+        System.arraycopy(source, 0, mix, 0, outStart * CHANNELS);
+        for (int frame = 0; frame < crossfadeFrames; frame++) {
+            float outgoing = (float) CrossfadeCurve.EQUAL_POWER.fadeOut((double) frame / crossfadeFrames);
+            float incoming = (float) CrossfadeCurve.EQUAL_POWER.fadeIn((double) frame / crossfadeFrames);
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                mix[(outStart + frame) * CHANNELS + channel] = source[(outStart + frame) * CHANNELS + channel] * outgoing
+                        + source[(inStart + frame) * CHANNELS + channel] * incoming;
+            }
+        }
+        System.arraycopy(source, (inStart + crossfadeFrames) * CHANNELS, mix, (outStart + crossfadeFrames) * CHANNELS,
+                (frames - inStart - crossfadeFrames) * CHANNELS);
+        byte[] expected = toPcm16(mix);
+
+        assertEquals(expected.length, rendered.length);
+        for (int i = 0; i < expected.length; i += 2) {
+            int expectedSample = (short) ((expected[i] & 0xFF) | (expected[i + 1] << 8));
+            int renderedSample = (short) ((rendered[i] & 0xFF) | (rendered[i + 1] << 8));
+            assertTrue(Math.abs(expectedSample - renderedSample) <= 1);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package musicApp.audio;
+
+import musicApp.enums.EqualizerBandFrequency;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestParameterAutomation {
+
+    private static final int SAMPLE_RATE = 44100;
+    private static final int CHANNELS = 2;
+    private static final int BLOCK_FRAMES = 1024;
+
+    private float[] sine(double frequency, int frames) {
+        float[] samples = new float[frames * CHANNELS];
+        for (int frame = 0; frame < frames; frame++) {
+            float value = (float) (0.1 * Math.sin(2 * Math.PI * frequency * frame / SAMPLE_RATE));
+            samples[frame * CHANNELS] = value;
+            samples[frame * CHANNELS + 1] = value;
+        }
+        return samples;
+    }
+
+    private double peak(float[] samples, int fromFrame, int toFrame) {
+        double peak = 0;
+        for (int i = fromFrame * CHANNELS; i < toFrame * CHANNELS; i++) {
+            peak = Math.max(peak, Math.abs(samples[i]));
+        }
+        return peak;
+    }
+
+    /**
+     * Process a second of audio block by block, applying the automation before each block like the engine does.
+     */
+    private float[] processSecond(ParametricEqualizer equalizer, ParameterAutomation automation) {
+        float[] samples = sine(1000, SAMPLE_RATE);
+        for (int frame = 0; frame < SAMPLE_RATE; frame += BLOCK_FRAMES) {
+            int frames = Math.min(BLOCK_FRAMES, SAMPLE_RATE - frame);
+            automation.apply(equalizer, (double) (frame + frames) / SAMPLE_RATE);
+            equalizer.process(samples, frame, frames);
+        }
+        return samples;
+    }
+
+    private double gainDb(float[] samples, int fromFrame, int toFrame) {
+        return 20 * Math.log10(peak(samples, fromFrame, toFrame) / 0.1);
+    }
+
+    @Test
+    public void testCurves() {
+        assertEquals(-3, AutomationCurve.constant(-3).valueAt(42), 0.0);
+
+        AutomationCurve ramp = AutomationCurve.ramp(0, 12, 1, 2);
+        assertEquals(0, ramp.valueAt(0), 0.0);
+        assertEquals(6, ramp.valueAt(2), 1e-9);
+        assertEquals(12, ramp.valueAt(5), 0.0);
+        assertEquals(12, AutomationCurve.ramp(0, 12, 1, 0).valueAt(1), 0.0);
+
+        AutomationCurve sine = AutomationCurve.sine(-6, 18, Math.PI, Math.PI / 2);
+        assertEquals(12, sine.valueAt(0), 1e-9);
+        assertEquals(-24, sine.valueAt(1), 1e-9);
+    }
+
+    @Test
+    public void testRemovedCurvesAreReleased() {
+        ParameterAutomation automation = new ParameterAutomation(3);
+        double[] values = new double[3];
+        boolean[] released = new boolean[3];
+        ParameterAutomation.Target target = new ParameterAutomation.Target() {
+            @Override
+            public void setAutomatedValue(int parameter, double value) {
+                values[parameter] = value;
+            }
+
+            @Override
+            public void releaseAutomatedValue(int parameter) {
+                released[parameter] = true;
+            }
+        };
+        assertFalse(automation.apply(target, 0));
+        automation.setCurve(1, AutomationCurve.ramp(0, 10, 0, 10));
+        assertTrue(automation.apply(target, 5));
+        assertEquals(5, values[1], 1e-9);
+        automation.clear();
+        assertFalse(automation.apply(target, 6));
+        assertTrue(released[1]);
+        assertFalse(released[0]);
+        assertFalse(released[2]);
+    }
+
+    @Test
+    public void testAutomationOverridesAndReleasesBandGain() {
+        ParametricEqualizer equalizer = new ParametricEqualizer(SAMPLE_RATE, CHANNELS);
+        ParameterAutomation automation = new ParameterAutomation(equalizer.getBandCount());
+        int band = EqualizerBandFrequency.getIndex(EqualizerBandFrequency.BAND_1000_HZ);
+        equalizer.setBandGain(band, -12);
+        automation.setCurve(band, AutomationCurve.constant(12));
+        assertEquals(12, gainDb(processSecond(equalizer, automation), SAMPLE_RATE / 2, SAMPLE_RATE), 0.5);
+        // A gain set while automated is only applied once the automation is released
+        equalizer.setBandGain(band, 6);
+        assertEquals(12, gainDb(processSecond(equalizer, automation), SAMPLE_RATE / 2, SAMPLE_RATE), 0.5);
+        automation.setCurve(band, null);
+        assertEquals(6, gainDb(processSecond(equalizer, automation), SAMPLE_RATE / 2, SAMPLE_RATE), 0.5);
+    }
+
+    @Test
+    public void testAutomatedGainFollowsTheCurveWithinBlocks() {
+        ParametricEqualizer equalizer = new ParametricEqualizer(SAMPLE_RATE, CHANNELS);
+        ParameterAutomation automation = new ParameterAutomation(equalizer.getBandCount());
+        int band = EqualizerBandFrequency.getIndex(EqualizerBandFrequency.BAND_1000_HZ);
+        // Down to -24 dB over the first half second, then held
+        automation.setCurve(band, AutomationCurve.ramp(0, -24, 0, 0.5));
+        float[] samples = processSecond(equalizer, automation);
+        assertEquals(-12, gainDb(samples, SAMPLE_RATE / 4 - 441, SAMPLE_RATE / 4 + 441), 1.5);
+        assertEquals(-24, gainDb(samples, SAMPLE_RATE * 3 / 4, SAMPLE_RATE), 0.5);
+    }
+}
@@ -0,0 +1,65 @@
+package musicApp.audio;
+
+import musicApp.enums.EqualizerBandFrequency;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestParametricEqualizer {
+
+    private static final int SAMPLE_RATE = 44100;
+    private static final int CHANNELS = 2;
+
+    private float[] sine(double frequency, int frames) {
+        float[] samples = new float[frames * CHANNELS];
+        for (int frame = 0; frame < frames; frame++) {
+            float value = (float) (0.1 * Math.sin(2 * Math.PI * frequency * frame / SAMPLE_RATE));
+            samples[frame * CHANNELS] = value;
+            samples[frame * CHANNELS + 1] = value;
+        }
+        return samples;
+    }
+
+    private double peak(float[] samples, int fromFrame, int toFrame) {
+        double peak = 0;
+        for (int i = fromFrame * CHANNELS; i < toFrame * CHANNELS; i++) {
+            peak = Math.max(peak, Math.abs(samples[i]));
+        }
+        return peak;
+    }
+
+    @Test
+    public void testFlatEqualizerIsTransparent() {
+        ParametricEqualizer equalizer = new ParametricEqualizer(SAMPLE_RATE, CHANNELS);
+        float[] samples = sine(440, 4096);
+        float[] expected = samples.clone();
+        equalizer.process(samples, 0, 4096);
+        for (int i = 0; i < samples.length; i++) {
+            assertEquals(expected[i], samples[i], 0.0);
+        }
+    }
+
+    @Test
+    public void testBandGainAtCenterFrequency() {
+        ParametricEqualizer equalizer = new ParametricEqualizer(SAMPLE_RATE, CHANNELS);
+        int band = EqualizerBandFrequency.getIndex(EqualizerBandFrequency.BAND_1000_HZ);
+        equalizer.setBandGain(band, 12);
+        float[] samples = sine(1000, SAMPLE_RATE);
+        equalizer.process(samples, 0, SAMPLE_RATE);
+        double gainDb = 20 * Math.log10(peak(samples, SAMPLE_RATE / 2, SAMPLE_RATE) / 0.1);
+        assertEquals(12, gainDb, 0.5);
+    }
+
+    @Test
+    public void testGainChangesAreSmoothed() {
+        ParametricEqualizer equalizer = new ParametricEqualizer(SAMPLE_RATE, CHANNELS);
+        int band = EqualizerBandFrequency.getIndex(EqualizerBandFrequency.BAND_1000_HZ);
+        equalizer.setBandGain(band, -24);
+        float[] samples = sine(1000, SAMPLE_RATE);
+        equalizer.process(samples, 0, SAMPLE_RATE);
+        // The first millisecond is still close to the original level, the end is strongly attenuated
+        assertTrue(peak(samples, 0, 44) > 0.05);
+        assertTrue(peak(samples, SAMPLE_RATE / 2, SAMPLE_RATE) < 0.01);
+    }
+}
@@ -0,0 +1,212 @@
+package musicApp.audio;
+
+import musicApp.enums.CrossfadeCurve;
+import musicApp.enums.WindowFunction;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestPcmPlaybackEngine {
+
+    private static final String SOURCE = Paths.get("src", "test", "resources", "goodTestWAV.wav").toUri().toString();
+
+    private long sourceFrames;
+
+    @Before
+    public void countSourceFrames() throws Exception {
+        float[] buffer = new float[4096 * PcmDecoder.CHANNELS];
+        try (PcmDecoder decoder = new PcmDecoder(SOURCE)) {
+            int frames;
+            while ((frames = decoder.read(buffer, 0, 4096)) > 0) {
+                sourceFrames += frames;
+            }
+        }
+        assertTrue(sourceFrames > PcmDecoder.SAMPLE_RATE);
+    }
+
+    private ByteArraySink render(PcmPlaybackEngine engine, ByteArraySink sink, AtomicInteger trackChanges) throws Exception {
+        CountDownLatch ended = new CountDownLatch(1);
+        engine.setListener(new PcmPlaybackEngine.Listener() {
+            @Override
+            public void onTrackChanged() {
+                trackChanges.incrementAndGet();
+            }
+
+            @Override
+            public void onEndOfMedia() {
+                ended.countDown();
+            }
+        });
+        engine.play();
+        assertTrue(ended.await(20, TimeUnit.SECONDS));
+        engine.close();
+        return sink;
+    }
+
+    private double peak(byte[] pcm) {
+        int peak = 0;
+        for (int i = 0; i + 1 < pcm.length; i += 2) {
+            peak = Math.max(peak, Math.abs((short) ((pcm[i] & 0xFF) | (pcm[i + 1] << 8))));
+        }
+        return (double) peak / Short.MAX_VALUE;
+    }
+
+    @Test
+    public void testPlaysEveryFrame() throws Exception {
+        ByteArraySink sink = new ByteArraySink();
+        PcmPlaybackEngine engine = new PcmPlaybackEngine(sink);
+        engine.load(SOURCE);
+        render(engine, sink, new AtomicInteger());
+        assertEquals(sourceFrames, sink.getFrameCount());
+    }
+
+    @Test
+    public void testSpeedChangesDuration() throws Exception {
+        ByteArraySink sink = new ByteArraySink();
+        PcmPlaybackEngine engine = new PcmPlaybackEngine(sink);
+        engine.setSpeed(2.0);
+        engine.load(SOURCE);
+        render(engine, sink, new AtomicInteger());
+        // The stretcher keeps back less than a segment when the song ends
+        assertEquals(sourceFrames / 2.0, sink.getFrameCount(), 0.1 * PcmDecoder.SAMPLE_RATE);
+    }
+
+    @Test
+    public void testSeekIsSampleAccurate() throws Exception {
+        ByteArraySink sink = new ByteArraySink();
+        PcmPlaybackEngine engine = new PcmPlaybackEngine(sink);
+        engine.load(SOURCE);
+        engine.seek(1.0);
+        render(engine, sink, new AtomicInteger());
+        assertEquals(sourceFrames - PcmDecoder.SAMPLE_RATE, sink.getFrameCount());
+    }
+
+    @Test
+    public void testGaplessTransition() throws Exception {
+        ByteArraySink sink = new ByteArraySink();
+        PcmPlaybackEngine engine = new PcmPlaybackEngine(sink);
+        AtomicInteger trackChanges = new AtomicInteger();
+        engine.load(SOURCE);
+        engine.prepareNext(SOURCE);
+        render(engine, sink, trackChanges);
+        assertEquals(1, trackChanges.get());
+        assertEquals(2 * sourceFrames, sink.getFrameCount());
+    }
+
+    @Test
+    public void testCrossfadeStartsIncomingSongImmediately() throws Exception {
+        ByteArraySink sink = new ByteArraySink();
+        PcmPlaybackEngine engine = new PcmPlaybackEngine(sink);
+        AtomicInteger trackChanges = new AtomicInteger();
+        engine.load(SOURCE);
+        engine.prepareNext(SOURCE);
+        engine.startCrossfade(1.0, CrossfadeCurve.EQUAL_POWER);
+        render(engine, sink, trackChanges);
+        assertEquals(1, trackChanges.get());
+        // The outgoing song is only heard during the fade, the incoming one is played in full
+        assertEquals(sourceFrames, sink.getFrameCount());
+    }
+
+    @Test
+    public void testIncomingSongKeepsFadingInAfterAShortOutgoingSong() throws Exception {
+        int crossfadeFrames = PcmDecoder.SAMPLE_RATE;
+        int outgoingFrames = PcmDecoder.SAMPLE_RATE / 4;
+        float[] source = new float[crossfadeFrames * PcmDecoder.CHANNELS];
+        try (PcmDecoder decoder = new PcmDecoder(SOURCE)) {
+            int read = 0;
+            int frames;
+            while (read < crossfadeFrames && (frames = decoder.read(source, read * PcmDecoder.CHANNELS, crossfadeFrames - read)) > 0) {
+                read += frames;
+            }
+        }
+        ByteArraySink sink = new ByteArraySink();
+        PcmPlaybackEngine engine = new PcmPlaybackEngine(sink);
+        AtomicInteger trackChanges = new AtomicInteger();
+        engine.load(SOURCE);
+        engine.seek((double) (sourceFrames - outgoingFrames) / PcmDecoder.SAMPLE_RATE);
+        engine.prepareNext(SOURCE);
+        // The outgoing song ends a quarter of the way through the crossfade
+        engine.startCrossfade(1.0, CrossfadeCurve.LINEAR);
+        render(engine, sink, trackChanges);
+        assertEquals(1, trackChanges.get());
+        assertEquals(sourceFrames, sink.getFrameCount());
+
+        byte[] output = sink.toByteArray();
+        double maxError = 0;
+        double sourceLevel = 0;
+        for (int i = outgoingFrames * PcmDecoder.CHANNELS; i < source.length; i++) {
+            float sample = (short) ((output[2 * i] & 0xff) | (output[2 * i + 1] << 8)) / (float) Short.MAX_VALUE;
+            double gain = CrossfadeCurve.LINEAR.fadeIn((double) (i / PcmDecoder.CHANNELS) / crossfadeFrames);
+            maxError = Math.max(maxError, Math.abs(sample - source[i] * gain));
+            sourceLevel = Math.max(sourceLevel, Math.abs(source[i]));
+        }
+        assertTrue(sourceLevel > 0.01);
+        assertEquals(0, maxError, 0.002);
+    }
+
+    @Test
+    public void testSpectrumIsPublishedWithoutTheEngineLock() throws Exception {
+        ByteArraySink sink = new ByteArraySink();
+        PcmPlaybackEngine engine = new PcmPlaybackEngine(sink);
+        CountDownLatch published = new CountDownLatch(1);
+        AtomicBoolean engineFree = new AtomicBoolean();
+        engine.setSpectrumAnalyzer(new SpectrumAnalyzer(PcmDecoder.SAMPLE_RATE, PcmDecoder.CHANNELS, 1024, 1024, 16,
+                WindowFunction.HANN, (timestamp, duration, magnitudes, phases) -> {
+            if (published.getCount() == 0) {
+                return;
+            }
+            // Another thread, like the FX thread, must be able to use the engine while the spectrum is handled
+            Thread reader = new Thread(engine::getPositionSeconds);
+            reader.start();
+            try {
+                reader.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            engineFree.set(!reader.isAlive());
+            published.countDown();
+        }));
+        engine.load(SOURCE);
+        render(engine, sink, new AtomicInteger());
+        assertEquals(0, published.getCount());
+        assertTrue(engineFree.get());
+    }
+
+    @Test
+    public void testHostedDeckPlaysOnTheEngineOutput() throws Exception {
+        ByteArraySink sink = new ByteArraySink();
+        PcmPlaybackEngine engine = new PcmPlaybackEngine(sink);
+        engine.load(SOURCE);
+        DjMixer mixer = engine.createDjMixer(1);
+        mixer.setCrossfader(1.0);
+        mixer.getDeck(0).load(SOURCE);
+        CountDownLatch ended = new CountDownLatch(1);
+        mixer.setListener(_ -> ended.countDown());
+        // The song stays paused: the output thread of the engine plays the deck alone
+        mixer.play(0);
+        assertTrue(ended.await(20, TimeUnit.SECONDS));
+        engine.close();
+        assertEquals(sourceFrames, sink.getFrameCount());
+        assertEquals((double) sourceFrames / DjMixer.SAMPLE_RATE, mixer.getClockSeconds(), 1e-9);
+        assertTrue(peak(sink.toByteArray()) > 0.01);
+    }
+
+    @Test
+    public void testCrossfaderSilencesTheSongOfTheEngine() throws Exception {
+        ByteArraySink sink = new ByteArraySink();
+        PcmPlaybackEngine engine = new PcmPlaybackEngine(sink);
+        engine.load(SOURCE);
+        engine.createDjMixer(1).setCrossfader(1.0);
+        render(engine, sink, new AtomicInteger());
+        assertEquals(sourceFrames, sink.getFrameCount());
+        assertEquals(0.0, peak(sink.toByteArray()), 0.0);
+    }
+}
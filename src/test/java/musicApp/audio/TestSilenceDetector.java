@@ -0,0 +1,110 @@
+package musicApp.audio;
+
+import musicApp.models.AudioAnalysis;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestSilenceDetector {
+
+    private static final int SAMPLE_RATE = 44100;
+
+    /**
+     * Detect a song made of silence, a one second fade in, a steady sine, a fade out to -60 dB and silence again,
+     * fed in odd-sized blocks.
+     */
+    private SilenceDetector detectSong(double leadingSilence, double body, double fadeOut, double trailingSilence) {
+        double fadeIn = 1.0;
+        double total = leadingSilence + fadeIn + body + fadeOut + trailingSilence;
+        int frames = (int) (total * SAMPLE_RATE);
+        float[] samples = new float[frames * 2];
+        for (int frame = 0; frame < frames; frame++) {
+            double time = (double) frame / SAMPLE_RATE - leadingSilence;
+            double gainDb;
+            if (time < 0 || time >= fadeIn + body + fadeOut) {
+                gainDb = Double.NEGATIVE_INFINITY;
+            } else if (time < fadeIn) {
+                gainDb = -60 * (1 - time / fadeIn);
+            } else if (time < fadeIn + body) {
+                gainDb = 0;
+            } else {
+                gainDb = -60 * (time - fadeIn - body) / fadeOut;
+            }
+            float value = (float) (0.5 * Math.pow(10, gainDb / 20) * Math.sin(2 * Math.PI * 440 * frame / SAMPLE_RATE));
+            samples[frame * 2] = value;
+            samples[frame * 2 + 1] = value;
+        }
+        return detect(samples);
+    }
+
+    private SilenceDetector detect(float[] samples) {
+        int frames = samples.length / 2;
+        SilenceDetector detector = new SilenceDetector(SAMPLE_RATE, 2);
+        for (int offset = 0; offset < frames; offset += 1000) {
+            detector.process(samples, offset, Math.min(1000, frames - offset));
+        }
+        detector.detect();
+        return detector;
+    }
+
+    @Test
+    public void testSilencesAndCuePoints() {
+        SilenceDetector detector = detectSong(2, 5, 3, 10);
+        assertTrue(detector.hasAudio());
+        // The sine is at -9 dBFS, so the fades cross -60 dBFS 0.15 s after their start and before their end
+        assertEquals(2.15, detector.getAudioStart(), 0.06);
+        assertEquals(10.55, detector.getAudioEnd(), 0.06);
+        // The fade out is 12 dB below the song level after 0.6 s
+        assertEquals(8.6, detector.getOutroStart(), 0.3);
+    }
+
+    @Test
+    public void testSilentSong() {
+        SilenceDetector detector = new SilenceDetector(SAMPLE_RATE, 2);
+        detector.process(new float[3 * SAMPLE_RATE * 2], 0, 3 * SAMPLE_RATE);
+        detector.detect();
+        assertFalse(detector.hasAudio());
+        assertEquals(0.0, detector.getAudioStart(), 0.0);
+        assertEquals(3.0, detector.getAudioEnd(), 0.01);
+    }
+
+    @Test
+    public void testCrossfadeStartsAtTheOutroBeforeTheTrailingSilence() {
+        // 10 s of trailing silence: the crossfade ends where the audio ends instead of fading into dead air
+        AudioAnalysis abruptEnd = new AudioAnalysis("song.mp3", 0, 0, -14, -1, 0, 0, 0.5, 170, 169.5);
+        assertEquals(165.0, abruptEnd.getCrossfadeStart(180, 5), 1e-9);
+        // A fade out: the crossfade starts with it
+        AudioAnalysis fadeOut = new AudioAnalysis("song.mp3", 0, 0, -14, -1, 0, 0, 0, 180, 172);
+        assertEquals(172.0, fadeOut.getCrossfadeStart(180, 5), 1e-9);
+        // A long outro: the crossfade starts at most one crossfade duration earlier
+        AudioAnalysis longOutro = new AudioAnalysis("song.mp3", 0, 0, -14, -1, 0, 0, 0, 180, 120);
+        assertEquals(170.0, longOutro.getCrossfadeStart(180, 5), 1e-9);
+        // Unknown cue points: the crossfade ends with the song
+        AudioAnalysis unknown = new AudioAnalysis("song.mp3", 0, 0, -14, -1, 0, 0);
+        assertEquals(175.0, unknown.getCrossfadeStart(180, 5), 1e-9);
+    }
+
+    @Test
+    public void testLongQuietEndingIsNotSkipped() {
+        // 1 s of silence, 5 s of a loud sine, a 60 s coda 30 dB quieter and 2 s of silence
+        int frames = 68 * SAMPLE_RATE;
+        float[] samples = new float[frames * 2];
+        for (int frame = SAMPLE_RATE; frame < 66 * SAMPLE_RATE; frame++) {
+            double amplitude = frame < 6 * SAMPLE_RATE ? 0.5 : 0.5 * Math.pow(10, -30 / 20.0);
+            float value = (float) (amplitude * Math.sin(2 * Math.PI * 440 * frame / SAMPLE_RATE));
+            samples[frame * 2] = value;
+            samples[frame * 2 + 1] = value;
+        }
+        SilenceDetector detector = detect(samples);
+        assertEquals(66.0, detector.getAudioEnd(), 0.06);
+        // The whole coda is below the cue threshold, so it is taken for the outro
+        assertTrue(detector.getOutroStart() < 10);
+
+        AudioAnalysis analysis = new AudioAnalysis("song.mp3", 0, 0, -14, -1, 0, 0, detector.getAudioStart(),
+                detector.getAudioEnd(), detector.getOutroStart());
+        // The crossfade still ends with the audio, and starts at most one crossfade duration early
+        assertEquals(detector.getAudioEnd() - 10, analysis.getCrossfadeStart(68, 5), 1e-9);
+    }
+}
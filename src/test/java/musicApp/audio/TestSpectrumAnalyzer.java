@@ -0,0 +1,104 @@
+package musicApp.audio;
+
+import musicApp.enums.WindowFunction;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestSpectrumAnalyzer {
+
+    private static final int SAMPLE_RATE = 44100;
+    private static final int BANDS = 128;
+
+    private float[] sine(double frequency, double amplitude, int frames) {
+        float[] samples = new float[frames * 2];
+        for (int frame = 0; frame < frames; frame++) {
+            float value = (float) (amplitude * Math.sin(2 * Math.PI * frequency * frame / SAMPLE_RATE));
+            samples[frame * 2] = value;
+            samples[frame * 2 + 1] = value;
+        }
+        return samples;
+    }
+
+    private int bandOf(double frequency) {
+        double ratio = SpectrumAnalyzer.MAX_FREQUENCY / SpectrumAnalyzer.MIN_FREQUENCY;
+        return (int) (BANDS * Math.log(frequency / SpectrumAnalyzer.MIN_FREQUENCY) / Math.log(ratio));
+    }
+
+    private int loudestBand(float[] magnitudes) {
+        int loudest = 0;
+        for (int band = 1; band < magnitudes.length; band++) {
+            if (magnitudes[band] > magnitudes[loudest]) {
+                loudest = band;
+            }
+        }
+        return loudest;
+    }
+
+    @Test
+    public void testRealFftMatchesDft() {
+        int size = 64;
+        double[] samples = new double[size];
+        Random random = new Random(1);
+        for (int i = 0; i < size; i++) {
+            samples[i] = random.nextGaussian();
+        }
+        double[] real = new double[size / 2 + 1];
+        double[] imaginary = new double[size / 2 + 1];
+        new RealFft(size).transform(samples, real, imaginary);
+        for (int k = 0; k <= size / 2; k++) {
+            double expectedReal = 0;
+            double expectedImaginary = 0;
+            for (int n = 0; n < size; n++) {
+                expectedReal += samples[n] * Math.cos(2 * Math.PI * k * n / size);
+                expectedImaginary -= samples[n] * Math.sin(2 * Math.PI * k * n / size);
+            }
+            assertEquals(expectedReal, real[k], 1e-9);
+            assertEquals(expectedImaginary, imaginary[k], 1e-9);
+        }
+    }
+
+    @Test
+    public void testSinePeaksInItsBand() {
+        SpectrumAnalyzer analyzer = new SpectrumAnalyzer(SAMPLE_RATE, 2, 4096, 1024, BANDS, WindowFunction.BLACKMAN, null);
+        analyzer.process(sine(1000, 0.5, 8192), 0, 8192);
+        float[] magnitudes = analyzer.getMagnitudes();
+        assertEquals(bandOf(1000), loudestBand(magnitudes), 1);
+        // Half of full scale is -6 dB
+        assertEquals(-6.0, magnitudes[loudestBand(magnitudes)], 1.0);
+        assertTrue(magnitudes[bandOf(100)] < -80);
+        assertTrue(magnitudes[bandOf(10000)] < -80);
+    }
+
+    @Test
+    public void testNarrowBandsAreInterpolated() {
+        SpectrumAnalyzer analyzer = new SpectrumAnalyzer(SAMPLE_RATE, 2, 1024, 512, BANDS, WindowFunction.HANN, null);
+        analyzer.process(sine(60, 0.5, 4096), 0, 4096);
+        float[] magnitudes = analyzer.getMagnitudes();
+        // Bins are 43 Hz wide, so the peak spreads over a few bands around 60 Hz
+        assertEquals(bandOf(60), loudestBand(magnitudes), 6);
+    }
+
+    @Test
+    public void testSpectrumEveryHop() {
+        AtomicInteger updates = new AtomicInteger();
+        SpectrumAnalyzer analyzer = new SpectrumAnalyzer(SAMPLE_RATE, 2, 2048, 512, BANDS, WindowFunction.HANN,
+                (_, duration, magnitudes, _) -> {
+                    updates.incrementAndGet();
+                    assertEquals(BANDS, magnitudes.length);
+                    assertEquals(512.0 / SAMPLE_RATE, duration, 1e-9);
+                });
+        float[] samples = sine(440, 0.5, 2048 + 10 * 512);
+        for (int offset = 0; offset < samples.length / 2; offset += 300) {
+            analyzer.process(samples, offset, Math.min(300, samples.length / 2 - offset));
+        }
+        assertEquals(11, updates.get());
+        analyzer.reset();
+        analyzer.process(samples, 0, 2047);
+        assertEquals(11, updates.get());
+    }
+}
@@ -0,0 +1,86 @@
+package musicApp.audio;
+
+import musicApp.PerfTests;
+import musicApp.enums.TimeStretchQuality;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestTimeStretcher {
+
+    private static final int SAMPLE_RATE = 44100;
+    private static final int BLOCK_FRAMES = 1024;
+
+    private float[] sine(double frequency, double seconds) {
+        int frames = (int) (seconds * SAMPLE_RATE);
+        float[] samples = new float[frames * 2];
+        for (int frame = 0; frame < frames; frame++) {
+            float value = (float) (0.5 * Math.sin(2 * Math.PI * frequency * frame / SAMPLE_RATE));
+            samples[frame * 2] = value;
+            samples[frame * 2 + 1] = value;
+        }
+        return samples;
+    }
+
+    private float[] stretch(float[] samples, double speed, TimeStretchQuality quality) {
+        TimeStretcher stretcher = new TimeStretcher(SAMPLE_RATE, 2, BLOCK_FRAMES, quality);
+        stretcher.setSpeed(speed);
+        int frames = samples.length / 2;
+        float[] output = new float[(int) (frames / speed + SAMPLE_RATE) * 2];
+        int outputFrames = 0;
+        for (int offset = 0; offset < frames; offset += BLOCK_FRAMES) {
+            stretcher.write(samples, offset, Math.min(BLOCK_FRAMES, frames - offset));
+            outputFrames += stretcher.read(output, outputFrames, stretcher.availableFrames());
+        }
+        float[] result = new float[outputFrames * 2];
+        System.arraycopy(output, 0, result, 0, result.length);
+        return result;
+    }
+
+    private double estimateFrequency(float[] samples) {
+        int crossings = 0;
+        int frames = samples.length / 2;
+        for (int frame = 1; frame < frames; frame++) {
+            if (samples[(frame - 1) * 2] < 0 && samples[frame * 2] >= 0) {
+                crossings++;
+            }
+        }
+        return crossings * (double) SAMPLE_RATE / frames;
+    }
+
+    @Test
+    public void testPitchIsPreserved() {
+        for (double speed : new double[]{0.5, 1.5, 2.0}) {
+            float[] output = stretch(sine(440, 5), speed, TimeStretchQuality.MEDIUM);
+            // Up to a segment and a seek window of input is still held by the stretcher
+            assertEquals(5 * SAMPLE_RATE / speed, output.length / 2.0, 0.07 * SAMPLE_RATE / speed);
+            assertEquals(440, estimateFrequency(output), 5);
+        }
+    }
+
+    @Test
+    public void testResetDropsBufferedAudio() {
+        TimeStretcher stretcher = new TimeStretcher(SAMPLE_RATE, 2, BLOCK_FRAMES, TimeStretchQuality.LOW);
+        stretcher.setSpeed(1.5);
+        float[] samples = sine(440, 0.5);
+        for (int offset = 0; offset < samples.length / 2; offset += BLOCK_FRAMES) {
+            stretcher.write(samples, offset, BLOCK_FRAMES);
+        }
+        assertTrue(stretcher.availableFrames() > 0);
+        stretcher.reset();
+        assertTrue(stretcher.isEmpty());
+    }
+
+    @Test
+    @Category(PerfTests.class)
+    public void benchmarkStretchingOneMinute() {
+        float[] samples = sine(440, 60);
+        stretch(samples, 2.0, TimeStretchQuality.HIGH);
+        long startNanos = System.nanoTime();
+        stretch(samples, 2.0, TimeStretchQuality.HIGH);
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        System.out.println("Stretching a minute at the highest quality: " + elapsedMillis + " ms");
+    }
+}
@@ -0,0 +1,87 @@
+package musicApp.audio;
+
+import musicApp.PerfTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestWaveformPeaks {
+
+    private static final int SAMPLE_RATE = 44100;
+
+    /**
+     * Build the peaks of a stereo signal whose amplitude rises linearly from 0 to 1.
+     */
+    private WaveformPeaks buildRamp(int seconds) {
+        WaveformBuilder builder = new WaveformBuilder(SAMPLE_RATE, 2);
+        int totalFrames = seconds * SAMPLE_RATE;
+        float[] block = new float[4096 * 2];
+        for (int start = 0; start < totalFrames; start += 4096) {
+            int frames = Math.min(4096, totalFrames - start);
+            for (int frame = 0; frame < frames; frame++) {
+                float amplitude = (float) (start + frame) / totalFrames;
+                block[frame * 2] = amplitude;
+                block[frame * 2 + 1] = -amplitude;
+            }
+            builder.process(block, 0, frames);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testRenderFollowsAmplitude() {
+        WaveformPeaks peaks = buildRamp(10);
+        assertEquals(10.0, peaks.getDurationSeconds(), 0.001);
+        float[] minimums = new float[100];
+        float[] maximums = new float[100];
+        peaks.render(minimums, maximums, 100);
+        assertEquals(0.01, maximums[0], 0.02);
+        assertEquals(1.0, maximums[99], 0.02);
+        assertEquals(-1.0, minimums[99], 0.02);
+        assertTrue(maximums[50] > 0.45 && maximums[50] < 0.55);
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        WaveformPeaks peaks = buildRamp(5);
+        Path file = Files.createTempFile("waveform", ".peaks");
+        try {
+            peaks.write(file);
+            WaveformPeaks read = WaveformPeaks.read(file);
+            assertEquals(peaks.getLevelCount(), read.getLevelCount());
+            assertEquals(peaks.getBucketCount(0), read.getBucketCount(0));
+            float[] expected = new float[300];
+            float[] actual = new float[300];
+            float[] ignored = new float[300];
+            peaks.render(ignored, expected, 300);
+            read.render(ignored, actual, 300);
+            for (int column = 0; column < 300; column++) {
+                assertEquals(expected[column], actual[column], 0.0);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @Category(PerfTests.class)
+    public void benchmarkOverviewRendering() {
+        WaveformPeaks peaks = buildRamp(600);
+        float[] minimums = new float[1920];
+        float[] maximums = new float[1920];
+        for (int i = 0; i < 1000; i++) {
+            peaks.render(minimums, maximums, 1920);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            peaks.render(minimums, maximums, 1920);
+        }
+        long averageNanos = (System.nanoTime() - start) / 100;
+        System.out.println("Rendering a 10 minute overview on 1920 pixels: " + averageNanos + " ns");
+    }
+}
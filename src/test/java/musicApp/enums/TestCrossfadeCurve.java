@@ -0,0 +1,47 @@
+package musicApp.enums;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestCrossfadeCurve {
+
+    @Test
+    public void testEndpoints() {
+        for (CrossfadeCurve curve : CrossfadeCurve.values()) {
+            assertEquals(0.0, curve.fadeIn(0), 1e-12);
+            assertEquals(1.0, curve.fadeIn(1), 1e-12);
+            assertEquals(1.0, curve.fadeOut(0), 1e-12);
+            assertEquals(0.0, curve.fadeOut(1), 1e-12);
+            // Positions outside the crossfade are clamped
+            assertEquals(0.0, curve.fadeIn(-0.5), 1e-12);
+            assertEquals(1.0, curve.fadeIn(1.5), 1e-12);
+        }
+    }
+
+    @Test
+    public void testGainsAreMonotonic() {
+        for (CrossfadeCurve curve : CrossfadeCurve.values()) {
+            for (int i = 1; i <= 100; i++) {
+                assertTrue(curve.fadeIn(i / 100.0) >= curve.fadeIn((i - 1) / 100.0));
+                assertTrue(curve.fadeOut(i / 100.0) <= curve.fadeOut((i - 1) / 100.0));
+            }
+        }
+    }
+
+    @Test
+    public void testGainSums() {
+        for (int i = 0; i <= 100; i++) {
+            double position = i / 100.0;
+            // Linear and S-curve keep the summed amplitude constant
+            assertEquals(1.0, CrossfadeCurve.LINEAR.fadeIn(position) + CrossfadeCurve.LINEAR.fadeOut(position), 1e-12);
+            assertEquals(1.0, CrossfadeCurve.S_CURVE.fadeIn(position) + CrossfadeCurve.S_CURVE.fadeOut(position), 1e-12);
+            // Equal power keeps the summed power constant
+            double in = CrossfadeCurve.EQUAL_POWER.fadeIn(position);
+            double out = CrossfadeCurve.EQUAL_POWER.fadeOut(position);
+            assertEquals(1.0, in * in + out * out, 1e-12);
+        }
+        assertEquals(Math.sqrt(0.5), CrossfadeCurve.EQUAL_POWER.fadeIn(0.5), 1e-12);
+    }
+}
@@ -1,6 +1,7 @@
 package musicApp.modelsTest;
 
 import musicApp.controllers.AudioPlayerController;
+import musicApp.controllers.MediaAudioPlayerController;
 import musicApp.exceptions.BadM3URadioException;
 import musicApp.exceptions.BadSongException;
 import musicApp.models.AudioPlayer;
@@ -16,7 +17,7 @@ public class TestAudioPlayer {
     @Test
     public void testBadM3URadioException() {
         try {
-            AudioPlayerController audioPlayer = new AudioPlayerController(null);
+            AudioPlayerController audioPlayer = new MediaAudioPlayerController(null);
             Radio radio = new Radio(Paths.get("src", "test", "resources", "badRadio.m3u"));
             audioPlayer.loadSong(radio);
             fail("Expected BadM3URadioException to be thrown");
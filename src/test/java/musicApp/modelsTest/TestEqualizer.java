@@ -0,0 +1,64 @@
+package musicApp.modelsTest;
+
+import musicApp.models.Equalizer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestEqualizer {
+
+    @Test
+    public void testOnlyChangedBandsAreMarked() {
+        Equalizer equalizer = new Equalizer();
+        long applied = equalizer.getVersion();
+        double[] gains = new double[Equalizer.DEFAULT_BANDS_SIZE];
+        gains[3] = 6.0;
+        equalizer.setBandsGain(gains);
+        for (int band = 0; band < Equalizer.DEFAULT_BANDS_SIZE; band++) {
+            assertEquals(band == 3, equalizer.isBandChangedSince(band, applied));
+        }
+        // Setting the same gains again changes nothing
+        applied = equalizer.getVersion();
+        equalizer.setBandsGain(gains);
+        equalizer.setBandGain(3, 6.0);
+        assertEquals(applied, equalizer.getVersion());
+        assertTrue(equalizer.isBandChangedSince(3, -1));
+        assertTrue(equalizer.isBandChangedSince(0, -1));
+    }
+
+    @Test
+    public void testGainsAreCopied() {
+        double[] gains = new double[Equalizer.DEFAULT_BANDS_SIZE];
+        Equalizer equalizer = new Equalizer(gains);
+        gains[0] = 3.0;
+        assertEquals(0.0, equalizer.getBandGain(0), 0.0);
+        equalizer.getBandsGain()[0] = 3.0;
+        assertEquals(0.0, equalizer.getBandGain(0), 0.0);
+        assertEquals(Equalizer.DEFAULT_BANDS_SIZE, equalizer.getBandsGainList().size());
+    }
+
+    @Test
+    public void testInvalidGainsAreRejected() {
+        Equalizer equalizer = new Equalizer();
+        try {
+            equalizer.setBandGain(0, Equalizer.MAX_GAIN_DB + 1);
+            fail("Expected IllegalArgumentException to be thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals(0.0, equalizer.getBandGain(0), 0.0);
+        }
+        double[] gains = new double[Equalizer.DEFAULT_BANDS_SIZE];
+        gains[0] = 1.0;
+        gains[9] = Equalizer.MIN_GAIN_DB - 1;
+        try {
+            equalizer.setBandsGain(gains);
+            fail("Expected IllegalArgumentException to be thrown");
+        } catch (IllegalArgumentException e) {
+            // Nothing is applied when a band is invalid
+            assertEquals(0.0, equalizer.getBandGain(0), 0.0);
+            assertFalse(equalizer.isBandChangedSince(0, 0));
+        }
+    }
+}
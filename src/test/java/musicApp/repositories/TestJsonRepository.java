@@ -1,5 +1,6 @@
 package musicApp.repositories;
 
+import musicApp.enums.CrossfadeCurve;
 import musicApp.enums.Language;
 import musicApp.models.Equalizer;
 import musicApp.models.Library;
@@ -30,6 +31,8 @@ public class TestJsonRepository extends JsonRepository {
         UserProfile userProfile = new UserProfile("test", Path.of(""), Path.of(""), Language.ENGLISH, 0.0, 0.0);
         userProfile.setBalance(0.0);
         userProfile.setEqualizer(new Equalizer());
+        userProfile.setCrossfadeCurve(CrossfadeCurve.S_CURVE);
+        userProfile.setGaplessPreloadWindow(4.0);
         setUserProfiles(List.of(userProfile), userProfilePath);
         setPlaylistsPath(Paths.get("src", "test", "resources", "playlists.json"));
     }
@@ -126,6 +129,8 @@ public class TestJsonRepository extends JsonRepository {
         assertEquals(0.0, userProfiles.getFirst().getBalance(), 0.0);
         assertEquals(10, userProfiles.getFirst().getEqualizerBands().size());
         assertNotNull(userProfiles.getFirst().getUserMusicPath());
+        assertEquals(CrossfadeCurve.S_CURVE, userProfiles.getFirst().getCrossfadeCurve());
+        assertEquals(4.0, userProfiles.getFirst().getGaplessPreloadWindow(), 0.0);
 
     }
 }
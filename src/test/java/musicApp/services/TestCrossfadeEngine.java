@@ -0,0 +1,105 @@
+package musicApp.services;
+
+import musicApp.enums.CrossfadeCurve;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestCrossfadeEngine {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+    // The updates posted to the FX thread, run by the test thread instead
+    private final LinkedBlockingQueue<Runnable> fxQueue = new LinkedBlockingQueue<>();
+    private CrossfadeEngine engine;
+
+    @Before
+    public void createEngine() {
+        engine = new CrossfadeEngine(clock::get, fxQueue::add);
+    }
+
+    @After
+    public void cancelEngine() {
+        engine.cancel();
+    }
+
+    /**
+     * Wait for the scheduler to post an update, and run it.
+     */
+    private void runUpdate() throws InterruptedException {
+        Runnable update = fxQueue.poll(2, TimeUnit.SECONDS);
+        assertNotNull(update);
+        update.run();
+    }
+
+    @Test
+    public void testGainsFollowTheClock() throws InterruptedException {
+        engine.start(2.0, CrossfadeCurve.LINEAR, null);
+        assertEquals(1.0, engine.outgoingGainProperty().get(), 1e-9);
+        assertEquals(0.0, engine.incomingGainProperty().get(), 1e-9);
+
+        clock.set(SECOND / 2);
+        runUpdate();
+        assertEquals(0.75, engine.outgoingGainProperty().get(), 1e-9);
+        assertEquals(0.25, engine.incomingGainProperty().get(), 1e-9);
+
+        // The position comes from the clock, not from the number of ticks
+        clock.set(3 * SECOND / 2);
+        runUpdate();
+        assertEquals(0.75, engine.incomingGainProperty().get(), 1e-9);
+    }
+
+    @Test
+    public void testCompletesOnce() throws InterruptedException {
+        AtomicInteger completions = new AtomicInteger();
+        engine.start(1.0, CrossfadeCurve.EQUAL_POWER, completions::incrementAndGet);
+        clock.set(SECOND);
+        runUpdate();
+        assertEquals(1, completions.get());
+        assertFalse(engine.isRunning());
+        assertEquals(0.0, engine.outgoingGainProperty().get(), 1e-9);
+        assertEquals(1.0, engine.incomingGainProperty().get(), 1e-9);
+        engine.finish();
+        assertEquals(1, completions.get());
+    }
+
+    @Test
+    public void testPauseFreezesThePosition() throws InterruptedException {
+        engine.start(1.0, CrossfadeCurve.LINEAR, null);
+        clock.set(SECOND / 4);
+        engine.pause();
+        clock.set(10 * SECOND);
+        runUpdate();
+        assertEquals(0.0, engine.incomingGainProperty().get(), 1e-9);
+        assertTrue(engine.isRunning());
+
+        engine.resume();
+        clock.addAndGet(SECOND / 4);
+        runUpdate();
+        assertEquals(0.5, engine.incomingGainProperty().get(), 1e-9);
+    }
+
+    @Test
+    public void testCancelRestoresTheOutgoingSong() throws InterruptedException {
+        AtomicInteger completions = new AtomicInteger();
+        engine.start(1.0, CrossfadeCurve.LINEAR, completions::incrementAndGet);
+        clock.set(SECOND / 2);
+        runUpdate();
+        engine.cancel();
+        assertFalse(engine.isRunning());
+        assertEquals(1.0, engine.outgoingGainProperty().get(), 1e-9);
+        assertEquals(0.0, engine.incomingGainProperty().get(), 1e-9);
+        assertEquals(0, completions.get());
+    }
+}
@@ -0,0 +1,99 @@
+package musicApp.services;
+
+import musicApp.audio.PcmDecoder;
+import musicApp.audio.WavHeader;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TestDecodedStreamService {
+
+    private static final String SOURCE = Paths.get("src", "test", "resources", "goodTestOPUS.opus").toUri().toString();
+    // Seeking in a lossy source is not sample exact, so the ranges are compared on a lossless one
+    private static final String LOSSLESS_SOURCE = Paths.get("src", "test", "resources", "goodTestWAV.wav").toUri().toString();
+
+    private byte[] get(String uri, String range, int expectedStatus) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(uri).toURL().openConnection();
+        if (range != null) {
+            connection.setRequestProperty("Range", range);
+        }
+        assertEquals(expectedStatus, connection.getResponseCode());
+        try (InputStream input = connection.getInputStream()) {
+            return input.readAllBytes();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    public void testStreamIsAWavFileOfTheWholeSource() throws Exception {
+        String uri = DecodedStreamService.getInstance().getStreamUri(SOURCE);
+        assertEquals(uri, DecodedStreamService.getInstance().getStreamUri(SOURCE));
+        byte[] wav = get(uri, null, 200);
+        long frames;
+        try (PcmDecoder decoder = new PcmDecoder(SOURCE)) {
+            frames = decoder.getTotalFrames();
+        }
+        assertEquals(WavHeader.SIZE + frames * PcmDecoder.CHANNELS * WavHeader.BYTES_PER_SAMPLE, wav.length);
+        assertArrayEquals(WavHeader.create(PcmDecoder.SAMPLE_RATE, PcmDecoder.CHANNELS, wav.length - WavHeader.SIZE),
+                Arrays.copyOf(wav, WavHeader.SIZE));
+    }
+
+    @Test
+    public void testRangeIsDecodedFromItsPosition() throws Exception {
+        String uri = DecodedStreamService.getInstance().getStreamUri(LOSSLESS_SOURCE);
+        byte[] wav = get(uri, null, 200);
+        // Inside the header, across the header and the samples, then in the middle of a frame
+        int[][] ranges = {{4, 11}, {40, 1000}, {100_003, 150_000}};
+        for (int[] range : ranges) {
+            byte[] part = get(uri, "bytes=" + range[0] + "-" + range[1], 206);
+            assertArrayEquals(Arrays.copyOfRange(wav, range[0], range[1] + 1), part);
+        }
+        byte[] end = get(uri, "bytes=" + (wav.length - 10) + "-", 206);
+        assertArrayEquals(Arrays.copyOfRange(wav, wav.length - 10, wav.length), end);
+    }
+
+    @Test
+    public void testRangeBeyondTheFileIsNotSatisfiable() throws Exception {
+        String uri = DecodedStreamService.getInstance().getStreamUri(LOSSLESS_SOURCE);
+        HttpURLConnection connection = (HttpURLConnection) URI.create(uri).toURL().openConnection();
+        connection.setRequestProperty("Range", "bytes=99999999999999999999-");
+        assertEquals(416, connection.getResponseCode());
+        connection.disconnect();
+    }
+
+    private int getStatus(String uri) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(uri).toURL().openConnection();
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    public void testUnknownStreamIsNotFound() throws Exception {
+        String uri = DecodedStreamService.getInstance().getStreamUri(SOURCE);
+        String otherToken = UUID.randomUUID().toString();
+        assertEquals(404, getStatus(uri.replaceAll("/[^/]+\\.wav$", "/" + otherToken + ".wav")));
+        assertEquals(404, getStatus(uri.replaceAll("/[^/]+\\.wav$", "/1.wav")));
+        assertEquals(404, getStatus(uri.replaceAll("/[^/]+\\.wav$", "/99999999999999999999.wav")));
+    }
+
+    @Test
+    public void testStreamsAreNotNumberedInOrder() throws Exception {
+        String uri = DecodedStreamService.getInstance().getStreamUri(SOURCE);
+        String otherUri = DecodedStreamService.getInstance().getStreamUri(LOSSLESS_SOURCE);
+        assertFalse(uri.equals(otherUri));
+        assertFalse(uri.matches(".*/\\d+\\.wav$"));
+    }
+}
@@ -125,10 +125,35 @@ public class TestMetadataService {
      */
     @Test
     public void testBadFileType() {
-        File file = resolveTestFile("badFileType.opus");
+        File file = resolveTestFile("shrekScript.txt");
         assertThrows(BadFileTypeException.class, () -> utils.getMetadata(file));
     }
 
+    /**
+     * Confirms that metadata is read through FFmpeg from an Opus file, which jaudiotagger cannot read.
+     */
+    @Test
+    public void testCheckMetadataOPUS() throws Exception {
+        File file = resolveTestFile("goodTestOPUS.opus");
+        Metadata metadata = utils.getMetadata(file);
+        assertEquals("3seconds", metadata.getTitle());
+        assertEquals("Sample", metadata.getArtist());
+        assertEquals("Celtic", metadata.getGenre());
+        assertEquals(3.0, metadata.getDuration().toSeconds(), 0.3);
+    }
+
+    /**
+     * Ensures that the tags of a format which is only readable cannot be written.
+     */
+    @Test
+    public void testWriteFieldOPUS() throws Exception {
+        Path target = prepareWritableCopy("goodTestOPUS.opus", "writableTestOPUS.opus");
+        Metadata metadata = new Metadata();
+        metadata.setTitle("Edited Title");
+        assertThrows(BadFileTypeException.class, () -> utils.setMetadata(metadata, target.toFile()));
+        Files.delete(target);
+    }
+
     /**
      * Tests writing and reading title/artist/genre fields on MP3 files.
      */
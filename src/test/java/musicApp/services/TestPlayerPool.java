@@ -0,0 +1,135 @@
+package musicApp.services;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestPlayerPool {
+
+    /**
+     * A player that only records what the pool did to it.
+     */
+    private static class FakePlayer {
+        private final String source;
+        private boolean halted, disposed, stopped, detached, rewound;
+
+        FakePlayer(String _source) {
+            source = _source;
+        }
+    }
+
+    private static class FakePlayerPool extends PlayerPool<FakePlayer> {
+        FakePlayerPool(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        protected FakePlayer createPlayer(String source) {
+            return new FakePlayer(source);
+        }
+
+        @Override
+        protected String getSource(FakePlayer player) {
+            return player.source;
+        }
+
+        @Override
+        protected boolean isReusable(FakePlayer player) {
+            return !player.halted && !player.disposed;
+        }
+
+        @Override
+        protected boolean isDisposed(FakePlayer player) {
+            return player.disposed;
+        }
+
+        @Override
+        protected void rewind(FakePlayer player) {
+            player.rewound = true;
+        }
+
+        @Override
+        protected void stop(FakePlayer player) {
+            player.stopped = true;
+        }
+
+        @Override
+        protected void detach(FakePlayer player) {
+            player.detached = true;
+        }
+
+        @Override
+        protected void free(FakePlayer player) {
+            player.disposed = true;
+        }
+    }
+
+    private FakePlayerPool pool;
+
+    @Before
+    public void createPool() {
+        pool = new FakePlayerPool(2);
+    }
+
+    @Test
+    public void testReusesAReleasedPlayer() {
+        FakePlayer player = pool.acquire("a.mp3");
+        pool.release(player);
+        assertTrue(player.stopped && player.detached);
+        assertEquals(1, pool.getIdlePlayerCount());
+
+        assertSame(player, pool.acquire("a.mp3"));
+        assertTrue(player.rewound);
+        assertEquals(0, pool.getIdlePlayerCount());
+        assertEquals(1, pool.getCreatedPlayerCount());
+
+        assertNotSame(player, pool.acquire("b.mp3"));
+        assertEquals(2, pool.getCreatedPlayerCount());
+        assertEquals(2, pool.getLivePlayerCount());
+    }
+
+    @Test
+    public void testEvictsTheOldestIdlePlayer() {
+        FakePlayer first = pool.acquire("a.mp3");
+        FakePlayer second = pool.acquire("b.mp3");
+        FakePlayer third = pool.acquire("c.mp3");
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+        assertTrue(first.disposed);
+        assertEquals(2, pool.getIdlePlayerCount());
+        assertEquals(2, pool.getLivePlayerCount());
+        assertSame(second, pool.acquire("b.mp3"));
+        assertSame(third, pool.acquire("c.mp3"));
+    }
+
+    @Test
+    public void testDisposesFailedPlayers() {
+        FakePlayer player = pool.acquire("a.mp3");
+        player.halted = true;
+        pool.release(player);
+        assertTrue(player.disposed);
+        assertEquals(0, pool.getIdlePlayerCount());
+        assertEquals(0, pool.getLivePlayerCount());
+    }
+
+    @Test
+    public void testDisposeAndClear() {
+        FakePlayer playing = pool.acquire("a.mp3");
+        FakePlayer idle = pool.acquire("b.mp3");
+        pool.release(idle);
+        pool.dispose(playing);
+        pool.dispose(playing);
+        pool.dispose(null);
+        assertEquals(1, pool.getLivePlayerCount());
+        pool.clear();
+        assertTrue(idle.disposed);
+        assertEquals(0, pool.getIdlePlayerCount());
+        assertEquals(0, pool.getLivePlayerCount());
+        assertEquals(2, pool.getCreatedPlayerCount());
+    }
+}
@@ -0,0 +1,111 @@
+package musicApp.services;
+
+import musicApp.models.Library;
+import musicApp.models.Metadata;
+import musicApp.models.Song;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestTranscodeService {
+
+    private final MetadataService metadataService = new MetadataService();
+    private Path directory;
+    private Path outputDirectory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("transcode");
+        outputDirectory = directory.resolve("output");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private Library createLibrary(String... fileNames) {
+        List<Song> songs = new ArrayList<>();
+        for (String fileName : fileNames) {
+            songs.add(new Song(Paths.get("src", "test", "resources", fileName)));
+        }
+        return new Library(songs, "Road Trip", null);
+    }
+
+    @Test
+    public void testTranscodesWithMetadataAndArtwork() throws Exception {
+        // A WAV file with artwork, which must be copied to the MP3 file
+        Path wavWithCover = directory.resolve("coverTestWAV.wav");
+        Files.copy(Paths.get("src", "test", "resources", "goodTestWAV.wav"), wavWithCover);
+        Metadata cover = metadataService.getMetadata(wavWithCover.toFile());
+        cover.loadCoverFromPath(Paths.get("src", "test", "resources", "gus.jpg").toFile());
+        metadataService.setMetadata(cover, wavWithCover.toFile());
+        Library library = createLibrary("goodTestOPUS.opus", "goodTestMP3.mp3");
+        library.add(new Song(wavWithCover));
+
+        TranscodeService service = new TranscodeService(outputDirectory);
+        service.setThreads(2);
+        List<TranscodeService.Report> progress = new ArrayList<>();
+        service.setListener(report -> {
+            synchronized (progress) {
+                progress.add(report);
+            }
+        });
+        TranscodeService.Report report = service.transcode(List.of(library));
+
+        assertEquals(3, report.getTotalFiles());
+        assertEquals(3, report.getTranscodedFiles());
+        assertEquals(0, report.getFailedFiles());
+        assertEquals(3, progress.size());
+        assertTrue(report.getFilesPerSecond() > 0);
+        assertTrue(report.getRealtimeFactor() > 0);
+
+        Path folder = outputDirectory.resolve("Road Trip");
+        Metadata opus = metadataService.getMetadata(folder.resolve("goodTestOPUS.mp3").toFile());
+        assertEquals("3seconds", opus.getTitle());
+        assertEquals("Sample", opus.getArtist());
+        assertEquals("Celtic", opus.getGenre());
+        assertEquals(3.0, opus.getDuration().toSeconds(), 0.5);
+        Metadata wav = metadataService.getMetadata(folder.resolve("coverTestWAV.mp3").toFile());
+        assertEquals("3seconds", wav.getTitle());
+        assertEquals("Seconds", wav.getAlbum());
+        assertNotNull(wav.getCover());
+        assertEquals(Files.size(Paths.get("src", "test", "resources", "goodTestMP3.mp3")),
+                Files.size(folder.resolve("goodTestMP3.mp3")));
+    }
+
+    @Test
+    public void testResumesFromTheJournal() throws Exception {
+        Library library = createLibrary("goodTestWAV.wav", "goodTestOPUS.opus");
+        TranscodeService service = new TranscodeService(outputDirectory);
+        assertEquals(2, service.transcode(List.of(library)).getTranscodedFiles());
+        assertTrue(Files.exists(outputDirectory.resolve(TranscodeService.JOURNAL_FILE_NAME)));
+
+        TranscodeService.Report resumed = service.transcode(List.of(library));
+        assertEquals(2, resumed.getSkippedFiles());
+        assertEquals(0, resumed.getTranscodedFiles());
+
+        // A file missing from the output is transcoded again even if it is in the journal
+        Files.delete(outputDirectory.resolve("Road Trip").resolve("goodTestWAV.mp3"));
+        resumed = service.transcode(List.of(library));
+        assertEquals(1, resumed.getSkippedFiles());
+        assertEquals(1, resumed.getTranscodedFiles());
+    }
+}
@@ -0,0 +1,59 @@
+package musicApp.services;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestVideoCoverCache {
+
+    @Test
+    public void testLeastRecentlyUsedFilesAreDeleted() throws Exception {
+        VideoCoverCache cache = VideoCoverCache.getInstance();
+        byte[] first = {1, 2, 3, 42};
+        File firstFile = cache.getFile(first);
+        assertEquals(firstFile, cache.getFile(first.clone()));
+
+        List<File> others = new ArrayList<>();
+        for (int i = 0; i < VideoCoverCache.MAX_FILES; i++) {
+            others.add(cache.getFile(new byte[]{4, 5, 6, (byte) i}));
+        }
+        // The first video was used the least recently, so its file was evicted
+        assertFalse(firstFile.exists());
+        for (File file : others) {
+            assertTrue(file.exists());
+        }
+        // Using an evicted video writes it again
+        assertTrue(cache.getFile(first).exists());
+    }
+
+    @Test
+    public void testConcurrentRequestsShareOneFile() throws Exception {
+        VideoCoverCache cache = VideoCoverCache.getInstance();
+        byte[] video = new byte[1 << 20];
+        video[0] = 7;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<File>> files = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                files.add(executor.submit(() -> cache.getFile(video)));
+            }
+            File file = files.get(0).get();
+            for (Future<File> other : files) {
+                assertEquals(file, other.get());
+            }
+            // Readers only ever see the complete video
+            assertEquals(video.length, file.length());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package musicApp.views;
+
+import javafx.geometry.Rectangle2D;
+import musicApp.PerfTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestSpectrumRasterizer {
+
+    private static final int BANDS = 128;
+
+    private IntBuffer allocate(int width, int height) {
+        return ByteBuffer.allocateDirect(width * height * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    /**
+     * A spectrum that moves smoothly from frame to frame, like music does.
+     */
+    private float[] spectrum(int frame) {
+        float[] values = new float[BANDS];
+        for (int i = 0; i < BANDS; i++) {
+            values[i] = (float) (0.5 + 0.4 * Math.sin(frame * 0.3 + i * 0.2) * Math.cos(frame * 0.07 + i * 0.05));
+        }
+        return values;
+    }
+
+    @Test
+    public void testBarsAreDrawnIncrementally() {
+        int width = 256;
+        int height = 100;
+        IntBuffer pixels = allocate(width, height);
+        SpectrumRasterizer rasterizer = new SpectrumRasterizer(BANDS);
+        rasterizer.setTarget(pixels, width, height);
+        float[] values = new float[BANDS];
+        values[0] = 0.5f;
+        rasterizer.render(values);
+        // The first bar covers the two first columns up to half the height
+        assertNotEquals(0, pixels.get((height - 1) * width));
+        assertNotEquals(0, pixels.get(50 * width + 1));
+        assertEquals(0, pixels.get(49 * width));
+        values[0] = 0.2f;
+        rasterizer.render(values);
+        assertEquals(0, pixels.get(50 * width));
+        assertEquals(new Rectangle2D(0, 50, 2, 30), rasterizer.getDirtyRegion());
+        rasterizer.render(values);
+        assertEquals(Rectangle2D.EMPTY, rasterizer.getDirtyRegion());
+    }
+
+    @Test
+    public void testCircleErasesPreviousLines() {
+        int width = 400;
+        int height = 400;
+        IntBuffer pixels = allocate(width, height);
+        SpectrumRasterizer rasterizer = new SpectrumRasterizer(BANDS);
+        rasterizer.setCircular(true);
+        rasterizer.setTarget(pixels, width, height);
+        rasterizer.render(spectrum(0));
+        rasterizer.render(spectrum(5));
+        int[] incremental = new int[width * height];
+        pixels.get(0, incremental);
+
+        IntBuffer freshPixels = allocate(width, height);
+        SpectrumRasterizer fresh = new SpectrumRasterizer(BANDS);
+        fresh.setCircular(true);
+        fresh.setTarget(freshPixels, width, height);
+        fresh.render(spectrum(5));
+        int[] expected = new int[width * height];
+        freshPixels.get(0, expected);
+        assertTrue(Arrays.equals(expected, incremental));
+    }
+
+    @Test
+    @Category(PerfTests.class)
+    public void benchmarkFullHdFrame() {
+        int width = 1920;
+        int height = 1080;
+        for (boolean circular : new boolean[]{false, true}) {
+            SpectrumRasterizer rasterizer = new SpectrumRasterizer(BANDS);
+            rasterizer.setCircular(circular);
+            rasterizer.setTarget(allocate(width, height), width, height);
+            for (int frame = 0; frame < 2000; frame++) {
+                rasterizer.render(spectrum(frame));
+            }
+            int frames = 1000;
+            long startNanos = System.nanoTime();
+            for (int frame = 0; frame < frames; frame++) {
+                rasterizer.render(spectrum(frame));
+            }
+            double frameMillis = (System.nanoTime() - startNanos) / 1e6 / frames;
+            System.out.println((circular ? "Circular" : "Linear") + " Full HD frame: " + frameMillis + " ms");
+        }
+    }
+}